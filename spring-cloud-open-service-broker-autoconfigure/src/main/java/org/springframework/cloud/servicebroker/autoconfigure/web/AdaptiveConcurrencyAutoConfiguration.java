@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.AdaptiveConcurrencyLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link AdaptiveConcurrencyLimiter} that adapts the number
+ * of operations dispatched to the service at once to the latency of the service. Adaptive concurrency limiting is
+ * enabled with the {@literal spring.cloud.openservicebroker.adaptive-concurrency} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.adaptive-concurrency.enabled = true
+ * spring.cloud.openservicebroker.adaptive-concurrency.initial-limit = 20
+ * spring.cloud.openservicebroker.adaptive-concurrency.tolerance = 1.5
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = AdaptiveConcurrencyProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AdaptiveConcurrencyProperties.class)
+public class AdaptiveConcurrencyAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link AdaptiveConcurrencyLimiter} bean
+	 *
+	 * @param properties the adaptive concurrency properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(AdaptiveConcurrencyLimiter.class)
+	public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter(AdaptiveConcurrencyProperties properties) {
+		return properties.toModel();
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.AdaptiveConcurrencyLimiter;
+
+/**
+ * {@link ConfigurationProperties} for the {@link AdaptiveConcurrencyLimiter} that adapts the number of operations
+ * dispatched to the service at once for each service definition and operation type to the latency of the service.
+ */
+@ConfigurationProperties(prefix = AdaptiveConcurrencyProperties.PREFIX)
+public class AdaptiveConcurrencyProperties {
+
+	/**
+	 * The prefix of the adaptive concurrency configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.adaptive-concurrency";
+
+	/**
+	 * Whether requests beyond the adaptive concurrency limit of their service definition and operation type are
+	 * rejected.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The limit before the first adjustment.
+	 */
+	private int initialLimit = AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT;
+
+	/**
+	 * The minimum limit.
+	 */
+	private int minLimit = AdaptiveConcurrencyLimiter.DEFAULT_MIN_LIMIT;
+
+	/**
+	 * The maximum limit.
+	 */
+	private int maxLimit = AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT;
+
+	/**
+	 * The ratio by which the latency may exceed the latency without load before the limit shrinks.
+	 */
+	private double tolerance = AdaptiveConcurrencyLimiter.DEFAULT_TOLERANCE;
+
+	/**
+	 * The maximum interval after which the latency without load is measured again.
+	 */
+	private Duration probeInterval = AdaptiveConcurrencyLimiter.DEFAULT_PROBE_INTERVAL;
+
+	/**
+	 * The ratio of the limit to which the concurrency is reduced while the latency without load is measured.
+	 */
+	private double probeRatio = AdaptiveConcurrencyLimiter.DEFAULT_PROBE_RATIO;
+
+	/**
+	 * The interval after which the platform is asked to retry a rejected operation.
+	 */
+	private Duration retryAfter = AdaptiveConcurrencyLimiter.DEFAULT_RETRY_AFTER;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getInitialLimit() {
+		return this.initialLimit;
+	}
+
+	public void setInitialLimit(int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	public int getMinLimit() {
+		return this.minLimit;
+	}
+
+	public void setMinLimit(int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	public int getMaxLimit() {
+		return this.maxLimit;
+	}
+
+	public void setMaxLimit(int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	public double getTolerance() {
+		return this.tolerance;
+	}
+
+	public void setTolerance(double tolerance) {
+		this.tolerance = tolerance;
+	}
+
+	public Duration getProbeInterval() {
+		return this.probeInterval;
+	}
+
+	public void setProbeInterval(Duration probeInterval) {
+		this.probeInterval = probeInterval;
+	}
+
+	public double getProbeRatio() {
+		return this.probeRatio;
+	}
+
+	public void setProbeRatio(double probeRatio) {
+		this.probeRatio = probeRatio;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return an AdaptiveConcurrencyLimiter model
+	 */
+	public AdaptiveConcurrencyLimiter toModel() {
+		return new AdaptiveConcurrencyLimiter(this.initialLimit, this.minLimit, this.maxLimit, this.tolerance,
+				this.probeInterval, this.probeRatio, this.retryAfter, System::nanoTime);
+	}
+
+}
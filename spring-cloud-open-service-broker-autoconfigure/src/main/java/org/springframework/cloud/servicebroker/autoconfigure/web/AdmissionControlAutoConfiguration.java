@@ -0,0 +1,59 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.AdmissionController;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link AdmissionController} that limits the number of
+ * operations dispatched to the service at once. Admission control is enabled with the
+ * {@literal spring.cloud.openservicebroker.admission-control} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.admission-control.enabled = true
+ * spring.cloud.openservicebroker.admission-control.max-concurrent = 50
+ * spring.cloud.openservicebroker.admission-control.max-queued = 50
+ * spring.cloud.openservicebroker.admission-control.limits[0].plan-id = large
+ * spring.cloud.openservicebroker.admission-control.limits[0].operation-type = create
+ * spring.cloud.openservicebroker.admission-control.limits[0].max-concurrent = 5
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = AdmissionControlProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(AdmissionControlProperties.class)
+public class AdmissionControlAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link AdmissionController} bean
+	 *
+	 * @param properties the admission control properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(AdmissionController.class)
+	public AdmissionController admissionController(AdmissionControlProperties properties) {
+		return properties.toModel();
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.AdmissionController;
+
+/**
+ * {@link ConfigurationProperties} for the {@link AdmissionController} that limits the number of operations dispatched
+ * to the service at once for each service definition, plan and operation type.
+ */
+@ConfigurationProperties(prefix = AdmissionControlProperties.PREFIX)
+public class AdmissionControlProperties {
+
+	/**
+	 * The prefix of the admission control configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.admission-control";
+
+	/**
+	 * Whether requests wait for a permit of their service definition, plan and operation type before they are
+	 * dispatched to the service.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The maximum number of operations dispatched at once for each service definition, plan and operation type
+	 * without a more specific limit.
+	 */
+	private int maxConcurrent = AdmissionController.DEFAULT_MAX_CONCURRENT;
+
+	/**
+	 * The maximum number of operations waiting for each service definition, plan and operation type without a more
+	 * specific limit.
+	 */
+	private int maxQueued = AdmissionController.DEFAULT_MAX_QUEUED;
+
+	/**
+	 * The maximum time an operation waits to be dispatched before it is rejected.
+	 */
+	private Duration maxWait = AdmissionController.DEFAULT_MAX_WAIT;
+
+	/**
+	 * The interval after which the platform is asked to retry a rejected operation.
+	 */
+	private Duration retryAfter = AdmissionController.DEFAULT_RETRY_AFTER;
+
+	/**
+	 * The limits of specific service definitions, plans and operation types. The most specific matching limits apply.
+	 */
+	private List<AdmissionLimit> limits = new ArrayList<>();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public int getMaxQueued() {
+		return this.maxQueued;
+	}
+
+	public void setMaxQueued(int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	public Duration getMaxWait() {
+		return this.maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public List<AdmissionLimit> getLimits() {
+		return this.limits;
+	}
+
+	public void setLimits(List<AdmissionLimit> limits) {
+		this.limits = limits;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return an AdmissionController model
+	 */
+	public AdmissionController toModel() {
+		return new AdmissionController(this.limits.stream()
+				.map(limit -> limit.toModel(this.maxConcurrent, this.maxQueued))
+				.collect(Collectors.toList()), this.maxConcurrent, this.maxQueued, this.maxWait, this.retryAfter);
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.cloud.servicebroker.service.admission.AdmissionRule;
+import org.springframework.cloud.servicebroker.service.admission.OperationType;
+
+/**
+ * Internal class for marshaling {@link AdmissionControlProperties} configuration properties that describe the
+ * concurrency limits of a service definition, a plan or an operation type.
+ *
+ * @see AdmissionRule
+ */
+public class AdmissionLimit {
+
+	/**
+	 * The ID of the service definition the limits apply to. Applies to any service definition if not set.
+	 */
+	private String serviceDefinitionId;
+
+	/**
+	 * The ID of the plan the limits apply to. Applies to any plan if not set.
+	 */
+	private String planId;
+
+	/**
+	 * The type of the operations the limits apply to. Applies to any operation type if not set.
+	 */
+	private OperationType operationType;
+
+	/**
+	 * The maximum number of operations dispatched to the service at once. Defaults to the default limit if not set.
+	 */
+	private Integer maxConcurrent;
+
+	/**
+	 * The maximum number of operations waiting to be dispatched. Defaults to the default limit if not set.
+	 */
+	private Integer maxQueued;
+
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	public void setServiceDefinitionId(String serviceDefinitionId) {
+		this.serviceDefinitionId = serviceDefinitionId;
+	}
+
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	public void setPlanId(String planId) {
+		this.planId = planId;
+	}
+
+	public OperationType getOperationType() {
+		return this.operationType;
+	}
+
+	public void setOperationType(OperationType operationType) {
+		this.operationType = operationType;
+	}
+
+	public Integer getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(Integer maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public Integer getMaxQueued() {
+		return this.maxQueued;
+	}
+
+	public void setMaxQueued(Integer maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param defaultMaxConcurrent the maximum concurrency if none is set
+	 * @param defaultMaxQueued the maximum queue length if none is set
+	 * @return an AdmissionRule model
+	 */
+	public AdmissionRule toModel(int defaultMaxConcurrent, int defaultMaxQueued) {
+		return new AdmissionRule(this.serviceDefinitionId, this.planId, this.operationType,
+				(this.maxConcurrent == null) ? defaultMaxConcurrent : this.maxConcurrent,
+				(this.maxQueued == null) ? defaultMaxQueued : this.maxQueued);
+	}
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationEngine;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+import org.springframework.cloud.servicebroker.service.async.OperationDurationTracker;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link AsyncOperationEngine} that service instance and
+ * service instance binding services can use to run their operations in the background. The engine is configured
+ * with the {@literal spring.cloud.openservicebroker.async-operations} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.async-operations.concurrency = 20
+ * spring.cloud.openservicebroker.async-operations.default-timeout = 30m
+ * </pre>
+ *
+ * <p>
+ * An {@link AsyncOperationPromoter} is configured when a fixed or percentile latency budget is set, and promotes
+ * requests to the service broker REST API endpoints that exceed the budget to asynchronous operations:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.async-operations.promotion.percentile = 0.95
+ * spring.cloud.openservicebroker.async-operations.promotion.maximum-budget = 45s
+ * </pre>
+ *
+ * <p>
+ * An {@link OperationDurationTracker} is configured when enabled, and sets the {@literal Retry-After} header of in
+ * progress last operation responses to the expected remaining time of the operation:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.async-operations.retry-after.enabled = true
+ * spring.cloud.openservicebroker.async-operations.retry-after.maximum = 5m
+ * </pre>
+ */
+@Configuration
+@EnableConfigurationProperties(AsyncOperationProperties.class)
+public class AsyncOperationAutoConfiguration {
+
+	private static final String PROMOTION_PREFIX = "spring.cloud.openservicebroker.async-operations.promotion";
+
+	private static final String RETRY_AFTER_PREFIX = "spring.cloud.openservicebroker.async-operations.retry-after";
+
+	/**
+	 * Conditionally create a new {@link AsyncOperationEngine} bean
+	 *
+	 * @param properties the async operation properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(AsyncOperationEngine.class)
+	public AsyncOperationEngine asyncOperationEngine(AsyncOperationProperties properties) {
+		return properties.toModel();
+	}
+
+	/**
+	 * Conditionally create a new {@link AsyncOperationPromoter} bean
+	 *
+	 * @param properties the async operation properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(AsyncOperationPromoter.class)
+	@Conditional(PromotionBudgetCondition.class)
+	public AsyncOperationPromoter asyncOperationPromoter(AsyncOperationProperties properties) {
+		return new AsyncOperationPromoter(properties.getPromotion().toModel());
+	}
+
+	/**
+	 * Conditionally create a new {@link OperationDurationTracker} bean
+	 *
+	 * @param properties the async operation properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(OperationDurationTracker.class)
+	@ConditionalOnProperty(prefix = RETRY_AFTER_PREFIX, name = "enabled", havingValue = "true")
+	public OperationDurationTracker operationDurationTracker(AsyncOperationProperties properties) {
+		return properties.getRetryAfter().toModel();
+	}
+
+	/**
+	 * Matches when a fixed or percentile latency budget is set
+	 */
+	private static final class PromotionBudgetCondition extends AnyNestedCondition {
+
+		private PromotionBudgetCondition() {
+			super(ConfigurationPhase.REGISTER_BEAN);
+		}
+
+		/**
+		 * A fixed budget is set
+		 */
+		@ConditionalOnProperty(prefix = PROMOTION_PREFIX, name = "budget")
+		private static final class FixedBudget {
+
+		}
+
+		/**
+		 * A percentile budget is set
+		 */
+		@ConditionalOnProperty(prefix = PROMOTION_PREFIX, name = "percentile")
+		private static final class PercentileBudget {
+
+		}
+
+	}
+
+}
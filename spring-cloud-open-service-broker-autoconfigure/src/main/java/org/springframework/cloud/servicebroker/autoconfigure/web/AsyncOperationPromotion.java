@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+import org.springframework.cloud.servicebroker.service.async.LatencyBudget;
+
+/**
+ * Internal class for marshaling {@link AsyncOperationProperties} configuration properties that describe the latency
+ * budget after which operations are promoted to asynchronous operations. Either a fixed {@literal budget} or a
+ * {@literal percentile} is set.
+ *
+ * @see AsyncOperationPromoter
+ */
+public class AsyncOperationPromotion {
+
+	private static final Duration DEFAULT_MINIMUM_BUDGET = Duration.ofSeconds(1);
+
+	private static final Duration DEFAULT_MAXIMUM_BUDGET = Duration.ofSeconds(45);
+
+	/**
+	 * How long a request waits for the service before the operation continues in the background.
+	 */
+	private Duration budget;
+
+	/**
+	 * The percentile of the durations of earlier operations of the same type on the same plan that a request waits
+	 * for before the operation continues in the background, such as 0.95.
+	 */
+	private Double percentile;
+
+	/**
+	 * The shortest budget derived from the percentile.
+	 */
+	private Duration minimumBudget = DEFAULT_MINIMUM_BUDGET;
+
+	/**
+	 * The longest budget derived from the percentile, which should be shorter than the timeout of the platform.
+	 */
+	private Duration maximumBudget = DEFAULT_MAXIMUM_BUDGET;
+
+	public Duration getBudget() {
+		return this.budget;
+	}
+
+	public void setBudget(Duration budget) {
+		this.budget = budget;
+	}
+
+	public Double getPercentile() {
+		return this.percentile;
+	}
+
+	public void setPercentile(Double percentile) {
+		this.percentile = percentile;
+	}
+
+	public Duration getMinimumBudget() {
+		return this.minimumBudget;
+	}
+
+	public void setMinimumBudget(Duration minimumBudget) {
+		this.minimumBudget = minimumBudget;
+	}
+
+	public Duration getMaximumBudget() {
+		return this.maximumBudget;
+	}
+
+	public void setMaximumBudget(Duration maximumBudget) {
+		this.maximumBudget = maximumBudget;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a LatencyBudget model
+	 */
+	public LatencyBudget toModel() {
+		if (this.percentile != null) {
+			return LatencyBudget.percentile(this.percentile, this.minimumBudget, this.maximumBudget);
+		}
+		return LatencyBudget.fixed(this.budget);
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationEngine;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationRegistry;
+
+/**
+ * {@link ConfigurationProperties} for the {@link AsyncOperationEngine} that runs service instance and service
+ * instance binding operations in the background.
+ */
+@ConfigurationProperties(prefix = "spring.cloud.openservicebroker.async-operations")
+public class AsyncOperationProperties {
+
+	/**
+	 * The maximum number of operations that run at once.
+	 */
+	private int concurrency = AsyncOperationEngine.DEFAULT_CONCURRENCY;
+
+	/**
+	 * The maximum number of operations that wait to run. Operations submitted while the queue is full fail.
+	 */
+	private int queueCapacity = AsyncOperationEngine.DEFAULT_QUEUE_CAPACITY;
+
+	/**
+	 * How long an operation of a plan without a maximum polling duration may run before it is cancelled.
+	 */
+	private Duration defaultTimeout;
+
+	/**
+	 * How long the outcome of a completed operation is kept for last operation requests.
+	 */
+	private Duration retention = AsyncOperationRegistry.DEFAULT_RETENTION;
+
+	/**
+	 * When service instance and binding operations that exceed a latency budget are promoted to asynchronous
+	 * operations.
+	 */
+	@NestedConfigurationProperty
+	private AsyncOperationPromotion promotion = new AsyncOperationPromotion();
+
+	/**
+	 * How the retry interval of in progress last operation responses is estimated.
+	 */
+	@NestedConfigurationProperty
+	private AsyncOperationRetryAfter retryAfter = new AsyncOperationRetryAfter();
+
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	public void setConcurrency(int concurrency) {
+		this.concurrency = concurrency;
+	}
+
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public Duration getDefaultTimeout() {
+		return this.defaultTimeout;
+	}
+
+	public void setDefaultTimeout(Duration defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	public Duration getRetention() {
+		return this.retention;
+	}
+
+	public void setRetention(Duration retention) {
+		this.retention = retention;
+	}
+
+	public AsyncOperationPromotion getPromotion() {
+		return this.promotion;
+	}
+
+	public void setPromotion(AsyncOperationPromotion promotion) {
+		this.promotion = promotion;
+	}
+
+	public AsyncOperationRetryAfter getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(AsyncOperationRetryAfter retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return an AsyncOperationEngine model
+	 */
+	public AsyncOperationEngine toModel() {
+		return new AsyncOperationEngine(this.concurrency, this.queueCapacity, this.defaultTimeout,
+				new AsyncOperationRegistry(this.retention, Clock.systemUTC()));
+	}
+
+}
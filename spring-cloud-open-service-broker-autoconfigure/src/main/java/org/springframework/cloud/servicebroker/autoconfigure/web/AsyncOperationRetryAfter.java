@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.cloud.servicebroker.service.async.OperationDurationTracker;
+import org.springframework.cloud.servicebroker.service.async.OperationLatencies;
+
+/**
+ * Internal class for marshaling {@link AsyncOperationProperties} configuration properties that describe how the
+ * {@literal Retry-After} header of in progress last operation responses is derived from the durations of earlier
+ * operations.
+ *
+ * @see OperationDurationTracker
+ */
+public class AsyncOperationRetryAfter {
+
+	/**
+	 * Whether the retry interval of in progress last operation responses is estimated from the durations of earlier
+	 * operations of the same type on the same plan.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The percentile of the durations of earlier operations used to estimate the total duration of an operation.
+	 */
+	private double percentile = OperationDurationTracker.DEFAULT_PERCENTILE;
+
+	/**
+	 * The shortest retry interval.
+	 */
+	private Duration minimum = OperationDurationTracker.DEFAULT_MINIMUM;
+
+	/**
+	 * The longest retry interval.
+	 */
+	private Duration maximum = OperationDurationTracker.DEFAULT_MAXIMUM;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getPercentile() {
+		return this.percentile;
+	}
+
+	public void setPercentile(double percentile) {
+		this.percentile = percentile;
+	}
+
+	public Duration getMinimum() {
+		return this.minimum;
+	}
+
+	public void setMinimum(Duration minimum) {
+		this.minimum = minimum;
+	}
+
+	public Duration getMaximum() {
+		return this.maximum;
+	}
+
+	public void setMaximum(Duration maximum) {
+		this.maximum = maximum;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return an OperationDurationTracker model
+	 */
+	public OperationDurationTracker toModel() {
+		return new OperationDurationTracker(new OperationLatencies(), this.percentile, this.minimum, this.maximum,
+				Clock.systemUTC());
+	}
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link Bulkheads} that keep a service definition whose
+ * backend stalls from holding up the operations of other service definitions. Bulkheads are enabled with the
+ * {@literal spring.cloud.openservicebroker.bulkhead} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.bulkhead.enabled = true
+ * spring.cloud.openservicebroker.bulkhead.max-concurrent = 10
+ * spring.cloud.openservicebroker.bulkhead.lanes[0].name = databases
+ * spring.cloud.openservicebroker.bulkhead.lanes[0].service-definition-ids = mysql-service-id,postgres-service-id
+ * spring.cloud.openservicebroker.bulkhead.lanes[0].max-concurrent = 20
+ * </pre>
+ *
+ * <p>
+ * The service definitions of the {@link Catalog} bean that no lane mentions get a lane of their own, and all other
+ * operations share the default lane.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = BulkheadProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link Bulkheads} bean, whose lane schedulers are disposed when the application
+	 * context is closed
+	 *
+	 * @param properties the bulkhead properties
+	 * @param catalog the catalog, if it is a bean
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(Bulkheads.class)
+	public Bulkheads bulkheads(BulkheadProperties properties, ObjectProvider<Catalog> catalog) {
+		return properties.toModel(catalog.getIfAvailable());
+	}
+
+}
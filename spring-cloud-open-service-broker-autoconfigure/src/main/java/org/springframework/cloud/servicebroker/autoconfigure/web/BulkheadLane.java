@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.cloud.servicebroker.service.admission.BulkheadIsolation;
+import org.springframework.cloud.servicebroker.service.admission.BulkheadRule;
+
+/**
+ * Internal class for marshaling {@link BulkheadProperties} configuration properties that describe a lane shared by a
+ * group of service definitions.
+ *
+ * @see BulkheadRule
+ */
+public class BulkheadLane {
+
+	/**
+	 * The name of the lane.
+	 */
+	private String name;
+
+	/**
+	 * The IDs of the service definitions whose operations run in the lane.
+	 */
+	private List<String> serviceDefinitionIds = new ArrayList<>();
+
+	/**
+	 * How the operations of the lane are isolated. Defaults to the default isolation if not set.
+	 */
+	private BulkheadIsolation isolation;
+
+	/**
+	 * The maximum number of operations of the lane that run at once. Defaults to the default budget if not set.
+	 */
+	private Integer maxConcurrent;
+
+	public String getName() {
+		return this.name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<String> getServiceDefinitionIds() {
+		return this.serviceDefinitionIds;
+	}
+
+	public void setServiceDefinitionIds(List<String> serviceDefinitionIds) {
+		this.serviceDefinitionIds = serviceDefinitionIds;
+	}
+
+	public BulkheadIsolation getIsolation() {
+		return this.isolation;
+	}
+
+	public void setIsolation(BulkheadIsolation isolation) {
+		this.isolation = isolation;
+	}
+
+	public Integer getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(Integer maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param defaultIsolation the isolation if none is set
+	 * @param defaultMaxConcurrent the maximum concurrency if none is set
+	 * @return a BulkheadRule model
+	 */
+	public BulkheadRule toModel(BulkheadIsolation defaultIsolation, int defaultMaxConcurrent) {
+		return new BulkheadRule(this.name, this.serviceDefinitionIds,
+				(this.isolation == null) ? defaultIsolation : this.isolation,
+				(this.maxConcurrent == null) ? defaultMaxConcurrent : this.maxConcurrent);
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.service.admission.BulkheadIsolation;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+
+/**
+ * {@link ConfigurationProperties} for the {@link Bulkheads} that isolate the operations of service definitions from
+ * each other in lanes with a budget of their own.
+ */
+@ConfigurationProperties(prefix = BulkheadProperties.PREFIX)
+public class BulkheadProperties {
+
+	/**
+	 * The prefix of the bulkhead configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.bulkhead";
+
+	/**
+	 * Whether the operations of each service definition run in a bulkhead lane.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How the operations of lanes without a configured isolation are isolated.
+	 */
+	private BulkheadIsolation isolation = BulkheadIsolation.SCHEDULER;
+
+	/**
+	 * The maximum number of operations of a lane without a configured budget that run at once.
+	 */
+	private int maxConcurrent = Bulkheads.DEFAULT_MAX_CONCURRENT;
+
+	/**
+	 * The interval after which the platform is asked to retry an operation rejected by a saturated lane.
+	 */
+	private Duration retryAfter = Bulkheads.DEFAULT_RETRY_AFTER;
+
+	/**
+	 * The lanes shared by groups of service definitions. Service definitions in no lane get a lane of their own.
+	 */
+	private List<BulkheadLane> lanes = new ArrayList<>();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public BulkheadIsolation getIsolation() {
+		return this.isolation;
+	}
+
+	public void setIsolation(BulkheadIsolation isolation) {
+		this.isolation = isolation;
+	}
+
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public List<BulkheadLane> getLanes() {
+		return this.lanes;
+	}
+
+	public void setLanes(List<BulkheadLane> lanes) {
+		this.lanes = lanes;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param catalog the catalog whose service definitions get a lane of their own unless a lane mentions them, or
+	 * 		{@literal null} if the catalog is not known at startup
+	 * @return a Bulkheads model
+	 */
+	public Bulkheads toModel(Catalog catalog) {
+		Set<String> serviceDefinitionIds = (catalog == null) ? Collections.emptySet()
+				: catalog.getServiceDefinitions().stream()
+						.map(ServiceDefinition::getId)
+						.collect(Collectors.toSet());
+		return new Bulkheads(this.lanes.stream()
+				.map(lane -> lane.toModel(this.isolation, this.maxConcurrent))
+				.collect(Collectors.toList()), serviceDefinitionIds, this.isolation, this.maxConcurrent,
+				this.retryAfter);
+	}
+
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.CachingCatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} that wraps the {@link CatalogService} bean in a
+ * {@link CachingCatalogService}. Caching is enabled by setting the time-to-live of the cached catalog:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.catalog-cache.time-to-live = 5m
+ * spring.cloud.openservicebroker.catalog-cache.refresh-after = 4m
+ * </pre>
+ *
+ * <p>
+ * If {@literal refresh-after} is not set, the catalog is refreshed in the background after three quarters of the
+ * time-to-live.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = CatalogCacheProperties.PREFIX, name = "time-to-live")
+@EnableConfigurationProperties(CatalogCacheProperties.class)
+@SuppressWarnings("PMD.UseUtilityClass")
+public class CachingCatalogServiceAutoConfiguration {
+
+	/**
+	 * Construct a new {@link CachingCatalogServiceAutoConfiguration}
+	 */
+	protected CachingCatalogServiceAutoConfiguration() {
+		super();
+	}
+
+	/**
+	 * Provide a {@link CachingCatalogServiceBeanPostProcessor} bean. The method is static so that the post processor
+	 * is registered without creating this configuration early.
+	 *
+	 * @param properties the catalog cache properties, resolved when the first catalog service is wrapped
+	 * @return the bean
+	 */
+	@Bean
+	public static CachingCatalogServiceBeanPostProcessor cachingCatalogServiceBeanPostProcessor(
+			ObjectProvider<CatalogCacheProperties> properties) {
+		return new CachingCatalogServiceBeanPostProcessor(properties);
+	}
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.CachingCatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.cloud.servicebroker.service.ReloadableCatalogService;
+
+/**
+ * Wraps {@link CatalogService} beans in a {@link CachingCatalogService}. Catalog services that already hold the
+ * catalog in memory, such as {@link BeanCatalogService} and {@link ReloadableCatalogService}, are not wrapped.
+ *
+ * @see CachingCatalogServiceAutoConfiguration
+ */
+public class CachingCatalogServiceBeanPostProcessor implements BeanPostProcessor {
+
+	private final ObjectProvider<CatalogCacheProperties> properties;
+
+	/**
+	 * Construct a new {@link CachingCatalogServiceBeanPostProcessor}
+	 *
+	 * @param properties the catalog cache properties, resolved when the first catalog service is wrapped
+	 */
+	public CachingCatalogServiceBeanPostProcessor(ObjectProvider<CatalogCacheProperties> properties) {
+		this.properties = properties;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName) {
+		if (bean instanceof CatalogService && !(bean instanceof CachingCatalogService)
+				&& !(bean instanceof BeanCatalogService) && !(bean instanceof ReloadableCatalogService)) {
+			return this.properties.getObject().toModel((CatalogService) bean);
+		}
+		return bean;
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.CachingCatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+
+/**
+ * {@link ConfigurationProperties} for the {@link CachingCatalogService} that caches the catalog of a remote
+ * {@link CatalogService}.
+ */
+@ConfigurationProperties(prefix = CatalogCacheProperties.PREFIX)
+public class CatalogCacheProperties {
+
+	/**
+	 * The prefix of the catalog cache configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.catalog-cache";
+
+	private static final long DEFAULT_REFRESH_AFTER_NUMERATOR = 3;
+
+	private static final long DEFAULT_REFRESH_AFTER_DENOMINATOR = 4;
+
+	/**
+	 * How long a loaded catalog is served without waiting for a new copy. Caching is enabled if this is set.
+	 */
+	private Duration timeToLive;
+
+	/**
+	 * How long a loaded catalog is served before a new copy is loaded in the background. Defaults to three quarters
+	 * of the time-to-live if not set.
+	 */
+	private Duration refreshAfter;
+
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public Duration getRefreshAfter() {
+		return this.refreshAfter;
+	}
+
+	public void setRefreshAfter(Duration refreshAfter) {
+		this.refreshAfter = refreshAfter;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param delegate the catalog service to cache
+	 * @return a CachingCatalogService model
+	 */
+	public CachingCatalogService toModel(CatalogService delegate) {
+		Duration refresh = (this.refreshAfter == null) ? this.timeToLive.multipliedBy(DEFAULT_REFRESH_AFTER_NUMERATOR)
+				.dividedBy(DEFAULT_REFRESH_AFTER_DENOMINATOR) : this.refreshAfter;
+		return new CachingCatalogService(delegate, this.timeToLive, refresh);
+	}
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.cloud.servicebroker.service.events.DetachedEventFlowExecutor;
+
+/**
+ * Internal class for marshaling {@link EventFlowProperties} configuration properties that describe the executor for
+ * detached event flows.
+ *
+ * @see DetachedEventFlowExecutor
+ */
+public class DetachedEventFlows {
+
+	/**
+	 * The maximum number of threads used to run detached flows.
+	 */
+	private int threads = DetachedEventFlowExecutor.DEFAULT_THREADS;
+
+	/**
+	 * The maximum number of detached flows queued or running at once.
+	 */
+	private int queueCapacity = DetachedEventFlowExecutor.DEFAULT_QUEUE_CAPACITY;
+
+	/**
+	 * What happens to detached flows when the queue is full.
+	 */
+	private DetachedEventFlowExecutor.OverflowPolicy overflow = DetachedEventFlowExecutor.OverflowPolicy.DROP;
+
+	public int getThreads() {
+		return this.threads;
+	}
+
+	public void setThreads(int threads) {
+		this.threads = threads;
+	}
+
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	public void setQueueCapacity(int queueCapacity) {
+		this.queueCapacity = queueCapacity;
+	}
+
+	public DetachedEventFlowExecutor.OverflowPolicy getOverflow() {
+		return this.overflow;
+	}
+
+	public void setOverflow(DetachedEventFlowExecutor.OverflowPolicy overflow) {
+		this.overflow = overflow;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a DetachedEventFlowExecutor model
+	 */
+	public DetachedEventFlowExecutor toModel() {
+		return new DetachedEventFlowExecutor(this.threads, this.queueCapacity, this.overflow);
+	}
+
+}
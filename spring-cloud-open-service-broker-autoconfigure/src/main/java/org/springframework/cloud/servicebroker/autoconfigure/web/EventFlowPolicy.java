@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.springframework.cloud.servicebroker.service.events.EventFlowExecutionPolicy;
+
+/**
+ * Internal class for marshaling {@link EventFlowProperties} configuration properties that describe how the event
+ * flows of an operation are executed.
+ *
+ * @see EventFlowExecutionPolicy
+ */
+public class EventFlowPolicy {
+
+	/**
+	 * Whether flows are executed one after another in order, or in parallel.
+	 */
+	private EventFlowExecutionPolicy.Execution execution = EventFlowExecutionPolicy.Execution.PARALLEL;
+
+	/**
+	 * The maximum number of flows executed at once when flows are executed in parallel.
+	 */
+	private int maxConcurrency = EventFlowExecutionPolicy.DEFAULT_MAX_CONCURRENCY;
+
+	/**
+	 * How long each flow may take before it is cancelled and treated as failed.
+	 */
+	private Duration timeout;
+
+	/**
+	 * Whether a flow that fails or times out is ignored, rather than failing the operation.
+	 */
+	private boolean isolateFailures;
+
+	/**
+	 * Whether completion and error flows run detached from the request, so that the response does not wait for them.
+	 */
+	private boolean detached;
+
+	public EventFlowExecutionPolicy.Execution getExecution() {
+		return this.execution;
+	}
+
+	public void setExecution(EventFlowExecutionPolicy.Execution execution) {
+		this.execution = execution;
+	}
+
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	public void setMaxConcurrency(int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+	}
+
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	public void setTimeout(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	public boolean isIsolateFailures() {
+		return this.isolateFailures;
+	}
+
+	public void setIsolateFailures(boolean isolateFailures) {
+		this.isolateFailures = isolateFailures;
+	}
+
+	public boolean isDetached() {
+		return this.detached;
+	}
+
+	public void setDetached(boolean detached) {
+		this.detached = detached;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return an EventFlowExecutionPolicy model
+	 */
+	public EventFlowExecutionPolicy toModel() {
+		EventFlowExecutionPolicy.EventFlowExecutionPolicyBuilder builder = EventFlowExecutionPolicy.builder()
+				.timeout(this.timeout)
+				.isolateFailures(this.isolateFailures);
+		if (this.execution == EventFlowExecutionPolicy.Execution.SEQUENTIAL) {
+			builder.sequential();
+		}
+		else {
+			builder.parallel(this.maxConcurrency);
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.NestedConfigurationProperty;
+
+/**
+ * {@link ConfigurationProperties} for the execution of event flows. An operation without a policy uses
+ * {@link org.springframework.cloud.servicebroker.service.events.EventFlowExecutionPolicy#DEFAULT}.
+ */
+@ConfigurationProperties(prefix = "spring.cloud.openservicebroker.event-flows")
+public class EventFlowProperties {
+
+	/**
+	 * The executor for completion and error flows of operations with detached flows.
+	 */
+	@NestedConfigurationProperty
+	private DetachedEventFlows detached = new DetachedEventFlows();
+
+	/**
+	 * The stream the outcomes of service instance and binding operations are published to.
+	 */
+	@NestedConfigurationProperty
+	private EventStream stream = new EventStream();
+
+	/**
+	 * The durable outbox the outcomes of operations are stored in before they are delivered to batch consumers.
+	 */
+	@NestedConfigurationProperty
+	private EventOutbox outbox = new EventOutbox();
+
+	/**
+	 * How the event flows of create service instance requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy createInstance;
+
+	/**
+	 * How the event flows of update service instance requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy updateInstance;
+
+	/**
+	 * How the event flows of delete service instance requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy deleteInstance;
+
+	/**
+	 * How the event flows of service instance last operation requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy asyncOperation;
+
+	/**
+	 * How the event flows of create service instance binding requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy createInstanceBinding;
+
+	/**
+	 * How the event flows of delete service instance binding requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy deleteInstanceBinding;
+
+	/**
+	 * How the event flows of service instance binding last operation requests are executed.
+	 */
+	@NestedConfigurationProperty
+	private EventFlowPolicy asyncOperationBinding;
+
+	public DetachedEventFlows getDetached() {
+		return this.detached;
+	}
+
+	public void setDetached(DetachedEventFlows detached) {
+		this.detached = detached;
+	}
+
+	public EventStream getStream() {
+		return this.stream;
+	}
+
+	public void setStream(EventStream stream) {
+		this.stream = stream;
+	}
+
+	public EventOutbox getOutbox() {
+		return this.outbox;
+	}
+
+	public void setOutbox(EventOutbox outbox) {
+		this.outbox = outbox;
+	}
+
+	public EventFlowPolicy getCreateInstance() {
+		return this.createInstance;
+	}
+
+	public void setCreateInstance(EventFlowPolicy createInstance) {
+		this.createInstance = createInstance;
+	}
+
+	public EventFlowPolicy getUpdateInstance() {
+		return this.updateInstance;
+	}
+
+	public void setUpdateInstance(EventFlowPolicy updateInstance) {
+		this.updateInstance = updateInstance;
+	}
+
+	public EventFlowPolicy getDeleteInstance() {
+		return this.deleteInstance;
+	}
+
+	public void setDeleteInstance(EventFlowPolicy deleteInstance) {
+		this.deleteInstance = deleteInstance;
+	}
+
+	public EventFlowPolicy getAsyncOperation() {
+		return this.asyncOperation;
+	}
+
+	public void setAsyncOperation(EventFlowPolicy asyncOperation) {
+		this.asyncOperation = asyncOperation;
+	}
+
+	public EventFlowPolicy getCreateInstanceBinding() {
+		return this.createInstanceBinding;
+	}
+
+	public void setCreateInstanceBinding(EventFlowPolicy createInstanceBinding) {
+		this.createInstanceBinding = createInstanceBinding;
+	}
+
+	public EventFlowPolicy getDeleteInstanceBinding() {
+		return this.deleteInstanceBinding;
+	}
+
+	public void setDeleteInstanceBinding(EventFlowPolicy deleteInstanceBinding) {
+		this.deleteInstanceBinding = deleteInstanceBinding;
+	}
+
+	public EventFlowPolicy getAsyncOperationBinding() {
+		return this.asyncOperationBinding;
+	}
+
+	public void setAsyncOperationBinding(EventFlowPolicy asyncOperationBinding) {
+		this.asyncOperationBinding = asyncOperationBinding;
+	}
+
+}
@@ -16,18 +16,30 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.AsyncOperationServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.DefaultServiceBrokerEventCodec;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.DetachedEventFlowExecutor;
+import org.springframework.cloud.servicebroker.service.events.EventFlowOutboxConsumer;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventBatchConsumer;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventCodec;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventOutbox;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 import org.springframework.cloud.servicebroker.service.events.UpdateServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingErrorFlow;
@@ -59,14 +71,27 @@ import org.springframework.context.annotation.Configuration;
  * @author Roy Clarkson
  */
 @Configuration
+@EnableConfigurationProperties(EventFlowProperties.class)
 public class EventFlowsAutoConfiguration {
 
+	private final EventFlowProperties eventFlowProperties;
+
+	/**
+	 * Construct a new {@link EventFlowsAutoConfiguration}
+	 *
+	 * @param eventFlowProperties the event flow properties
+	 */
+	public EventFlowsAutoConfiguration(EventFlowProperties eventFlowProperties) {
+		this.eventFlowProperties = eventFlowProperties;
+	}
+
 	/**
 	 * Conditionally create a new {@link CreateServiceInstanceEventFlowRegistry} bean
 	 *
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -74,8 +99,11 @@ public class EventFlowsAutoConfiguration {
 	public CreateServiceInstanceEventFlowRegistry createInstanceRegistry(
 			@Autowired(required = false) List<CreateServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<CreateServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<CreateServiceInstanceErrorFlow> errorFlows) {
-		return new CreateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<CreateServiceInstanceErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new CreateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getCreateInstance(), detachedFlowExecutor);
 	}
 
 	/**
@@ -84,6 +112,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -91,8 +120,11 @@ public class EventFlowsAutoConfiguration {
 	public DeleteServiceInstanceEventFlowRegistry deleteInstanceRegistry(
 			@Autowired(required = false) List<DeleteServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<DeleteServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<DeleteServiceInstanceErrorFlow> errorFlows) {
-		return new DeleteServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<DeleteServiceInstanceErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new DeleteServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getDeleteInstance(), detachedFlowExecutor);
 	}
 
 	/**
@@ -101,6 +133,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -108,8 +141,11 @@ public class EventFlowsAutoConfiguration {
 	public UpdateServiceInstanceEventFlowRegistry updateInstanceRegistry(
 			@Autowired(required = false) List<UpdateServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<UpdateServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<UpdateServiceInstanceErrorFlow> errorFlows) {
-		return new UpdateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<UpdateServiceInstanceErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new UpdateServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getUpdateInstance(), detachedFlowExecutor);
 	}
 
 	/**
@@ -118,6 +154,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -125,8 +162,11 @@ public class EventFlowsAutoConfiguration {
 	public AsyncOperationServiceInstanceEventFlowRegistry asyncOperationRegistry(
 			@Autowired(required = false) List<AsyncOperationServiceInstanceInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<AsyncOperationServiceInstanceCompletionFlow> completionFlows,
-			@Autowired(required = false) List<AsyncOperationServiceInstanceErrorFlow> errorFlows) {
-		return new AsyncOperationServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<AsyncOperationServiceInstanceErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new AsyncOperationServiceInstanceEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getAsyncOperation(), detachedFlowExecutor);
 	}
 
 	/**
@@ -135,6 +175,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -142,8 +183,11 @@ public class EventFlowsAutoConfiguration {
 	public CreateServiceInstanceBindingEventFlowRegistry createInstanceBindingRegistry(
 			@Autowired(required = false) List<CreateServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<CreateServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<CreateServiceInstanceBindingErrorFlow> errorFlows) {
-		return new CreateServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<CreateServiceInstanceBindingErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new CreateServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getCreateInstanceBinding(), detachedFlowExecutor);
 	}
 
 	/**
@@ -152,6 +196,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -159,8 +204,11 @@ public class EventFlowsAutoConfiguration {
 	public DeleteServiceInstanceBindingEventFlowRegistry deleteInstanceBindingRegistry(
 			@Autowired(required = false) List<DeleteServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<DeleteServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<DeleteServiceInstanceBindingErrorFlow> errorFlows) {
-		return new DeleteServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows);
+			@Autowired(required = false) List<DeleteServiceInstanceBindingErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new DeleteServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows, errorFlows),
+				this.eventFlowProperties.getDeleteInstanceBinding(), detachedFlowExecutor);
 	}
 
 	/**
@@ -169,6 +217,7 @@ public class EventFlowsAutoConfiguration {
 	 * @param initializationFlows the initialization flows
 	 * @param completionFlows the completion flows
 	 * @param errorFlows the error flows
+	 * @param detachedFlowExecutor the executor for detached flows
 	 * @return the bean
 	 */
 	@Bean
@@ -176,9 +225,12 @@ public class EventFlowsAutoConfiguration {
 	public AsyncOperationServiceInstanceBindingEventFlowRegistry asyncOperationBindingRegistry(
 			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingInitializationFlow> initializationFlows,
 			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingCompletionFlow> completionFlows,
-			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingErrorFlow> errorFlows) {
-		return new AsyncOperationServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows,
-				errorFlows);
+			@Autowired(required = false) List<AsyncOperationServiceInstanceBindingErrorFlow> errorFlows,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		return configure(
+				new AsyncOperationServiceInstanceBindingEventFlowRegistry(initializationFlows, completionFlows,
+						errorFlows),
+				this.eventFlowProperties.getAsyncOperationBinding(), detachedFlowExecutor);
 	}
 
 	/**
@@ -208,4 +260,71 @@ public class EventFlowsAutoConfiguration {
 				deleteInstanceBindingRegistry, asyncOperationBindingRegistry);
 	}
 
+	/**
+	 * Conditionally create a new {@link DetachedEventFlowExecutor} bean
+	 *
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(DetachedEventFlowExecutor.class)
+	public DetachedEventFlowExecutor detachedEventFlowExecutor() {
+		return this.eventFlowProperties.getDetached().toModel();
+	}
+
+	/**
+	 * Conditionally create a new {@link ServiceBrokerEventStream} bean. The {@link ServiceBrokerEventBatchConsumer} beans
+	 * are subscribed to the stream, unless a {@link ServiceBrokerEventOutbox} delivers events to them.
+	 *
+	 * @param batchConsumers the batch consumers
+	 * @param outbox the outbox, if one exists
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(ServiceBrokerEventStream.class)
+	public ServiceBrokerEventStream serviceBrokerEventStream(
+			ObjectProvider<ServiceBrokerEventBatchConsumer> batchConsumers,
+			ObjectProvider<ServiceBrokerEventOutbox> outbox) {
+		EventStream properties = this.eventFlowProperties.getStream();
+		ServiceBrokerEventStream eventStream = properties.toModel();
+		outbox.ifAvailable(eventStream::setOutbox);
+		if (eventStream.getOutbox() == null) {
+			batchConsumers.orderedStream().forEach(consumer -> eventStream.subscribe(consumer,
+					properties.getBatchSize(), properties.getBatchTimeout()));
+		}
+		return eventStream;
+	}
+
+	/**
+	 * Conditionally create a new {@link ServiceBrokerEventOutbox} bean, when an outbox directory is configured. The
+	 * outbox runs the completion and error flows of the appended operations with an {@link EventFlowOutboxConsumer},
+	 * and then delivers the events to the {@link ServiceBrokerEventBatchConsumer} beans.
+	 *
+	 * @param codec the codec used to store events, if one exists
+	 * @param batchConsumers the batch consumers
+	 * @param eventFlowRegistries the event flow registries
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(ServiceBrokerEventOutbox.class)
+	@ConditionalOnProperty(prefix = "spring.cloud.openservicebroker.event-flows.outbox", name = "directory")
+	public ServiceBrokerEventOutbox serviceBrokerEventOutbox(ObjectProvider<ServiceBrokerEventCodec> codec,
+			ObjectProvider<ServiceBrokerEventBatchConsumer> batchConsumers, EventFlowRegistries eventFlowRegistries) {
+		List<ServiceBrokerEventBatchConsumer> consumers = new ArrayList<>();
+		consumers.add(new EventFlowOutboxConsumer(eventFlowRegistries));
+		batchConsumers.orderedStream().forEach(consumers::add);
+		return this.eventFlowProperties.getOutbox().toModel(codec.getIfAvailable(DefaultServiceBrokerEventCodec::new),
+				consumers, this.eventFlowProperties.getStream().getBatchSize());
+	}
+
+	private static <T extends EventFlowRegistry<?, ?, ?, ?, ?>> T configure(T registry, EventFlowPolicy policy,
+			ObjectProvider<DetachedEventFlowExecutor> detachedFlowExecutor) {
+		if (policy != null) {
+			registry.setExecutionPolicy(policy.toModel());
+			if (policy.isDetached()) {
+				registry.setDetachedFlowExecutor(detachedFlowExecutor.getObject());
+			}
+		}
+		return registry;
+	}
+
 }
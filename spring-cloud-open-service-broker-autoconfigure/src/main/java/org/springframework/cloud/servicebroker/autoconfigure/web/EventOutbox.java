@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.cloud.servicebroker.service.events.EventOutboxLog;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventBatchConsumer;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventCodec;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventOutbox;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Internal class for marshaling {@link EventFlowProperties} configuration properties that describe the durable outbox
+ * for service broker events.
+ *
+ * @see ServiceBrokerEventOutbox
+ */
+public class EventOutbox {
+
+	/**
+	 * The directory the outbox log is stored in. The outbox is enabled when this is set.
+	 */
+	private Path directory;
+
+	/**
+	 * The size of the outbox log segment files.
+	 */
+	private DataSize segmentSize = DataSize.ofBytes(EventOutboxLog.DEFAULT_SEGMENT_SIZE);
+
+	/**
+	 * The interval between commits of the outbox log to the storage device.
+	 */
+	private Duration commitInterval = ServiceBrokerEventOutbox.DEFAULT_COMMIT_INTERVAL;
+
+	/**
+	 * The interval before a batch that a consumer failed to accept is delivered again.
+	 */
+	private Duration retryInterval = ServiceBrokerEventOutbox.DEFAULT_RETRY_INTERVAL;
+
+	public Path getDirectory() {
+		return this.directory;
+	}
+
+	public void setDirectory(Path directory) {
+		this.directory = directory;
+	}
+
+	public DataSize getSegmentSize() {
+		return this.segmentSize;
+	}
+
+	public void setSegmentSize(DataSize segmentSize) {
+		this.segmentSize = segmentSize;
+	}
+
+	public Duration getCommitInterval() {
+		return this.commitInterval;
+	}
+
+	public void setCommitInterval(Duration commitInterval) {
+		this.commitInterval = commitInterval;
+	}
+
+	public Duration getRetryInterval() {
+		return this.retryInterval;
+	}
+
+	public void setRetryInterval(Duration retryInterval) {
+		this.retryInterval = retryInterval;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param codec the codec used to store events
+	 * @param consumers the consumers the events are delivered to
+	 * @param batchSize the maximum number of events delivered at once
+	 * @return a ServiceBrokerEventOutbox model
+	 */
+	public ServiceBrokerEventOutbox toModel(ServiceBrokerEventCodec codec,
+			List<ServiceBrokerEventBatchConsumer> consumers, int batchSize) {
+		EventOutboxLog log = new EventOutboxLog(this.directory, Math.toIntExact(this.segmentSize.toBytes()));
+		return new ServiceBrokerEventOutbox(log, codec, consumers, batchSize, this.commitInterval,
+				this.retryInterval);
+	}
+
+}
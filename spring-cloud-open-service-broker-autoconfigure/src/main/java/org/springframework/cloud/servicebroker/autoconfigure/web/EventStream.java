@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
+
+/**
+ * Internal class for marshaling {@link EventFlowProperties} configuration properties that describe the stream of
+ * service broker events.
+ *
+ * @see ServiceBrokerEventStream
+ */
+public class EventStream {
+
+	/**
+	 * The number of events buffered for each subscriber.
+	 */
+	private int bufferSize = ServiceBrokerEventStream.DEFAULT_BUFFER_SIZE;
+
+	/**
+	 * What happens to the events of a subscriber whose buffer is full.
+	 */
+	private ServiceBrokerEventStream.BackpressureStrategy backpressure =
+			ServiceBrokerEventStream.BackpressureStrategy.DROP_OLDEST;
+
+	/**
+	 * The maximum number of events delivered to a batch consumer at once.
+	 */
+	private int batchSize = ServiceBrokerEventStream.DEFAULT_BATCH_SIZE;
+
+	/**
+	 * The maximum time to wait for a batch to fill up before delivering it to a batch consumer.
+	 */
+	private Duration batchTimeout = ServiceBrokerEventStream.DEFAULT_BATCH_TIMEOUT;
+
+	public int getBufferSize() {
+		return this.bufferSize;
+	}
+
+	public void setBufferSize(int bufferSize) {
+		this.bufferSize = bufferSize;
+	}
+
+	public ServiceBrokerEventStream.BackpressureStrategy getBackpressure() {
+		return this.backpressure;
+	}
+
+	public void setBackpressure(ServiceBrokerEventStream.BackpressureStrategy backpressure) {
+		this.backpressure = backpressure;
+	}
+
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public Duration getBatchTimeout() {
+		return this.batchTimeout;
+	}
+
+	public void setBatchTimeout(Duration batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a ServiceBrokerEventStream model
+	 */
+	public ServiceBrokerEventStream toModel() {
+		return new ServiceBrokerEventStream(this.bufferSize, this.backpressure);
+	}
+
+}
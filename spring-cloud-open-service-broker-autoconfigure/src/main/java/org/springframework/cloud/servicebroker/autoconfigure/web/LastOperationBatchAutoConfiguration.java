@@ -0,0 +1,67 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.BatchingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.LastOperationBatchDispatcher;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.cloud.servicebroker.service.admission.IsolatingBatchingServiceInstanceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link LastOperationBatchDispatcher} that collects last
+ * operation requests to the service broker REST API endpoints into batches, when the service instance service is a
+ * {@link BatchingServiceInstanceService}. Batches are configured with the
+ * {@literal spring.cloud.openservicebroker.last-operation-batch} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.last-operation-batch.window = 10ms
+ * spring.cloud.openservicebroker.last-operation-batch.maximum-size = 100
+ * </pre>
+ */
+@Configuration
+@ConditionalOnBean(BatchingServiceInstanceService.class)
+@EnableConfigurationProperties(LastOperationBatchProperties.class)
+public class LastOperationBatchAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link LastOperationBatchDispatcher} bean
+	 *
+	 * @param service the BatchingServiceInstanceService bean
+	 * @param bulkheads the bulkheads in whose lanes batches run, if configured
+	 * @param properties the last operation batch properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(LastOperationBatchDispatcher.class)
+	public LastOperationBatchDispatcher lastOperationBatchDispatcher(BatchingServiceInstanceService service,
+			ObjectProvider<Bulkheads> bulkheads, LastOperationBatchProperties properties) {
+		return properties.toModel(isolate(service, bulkheads.getIfAvailable()));
+	}
+
+	private static BatchingServiceInstanceService isolate(BatchingServiceInstanceService service, Bulkheads bulkheads) {
+		return (bulkheads == null) ? service : new IsolatingBatchingServiceInstanceService(service, bulkheads);
+	}
+
+}
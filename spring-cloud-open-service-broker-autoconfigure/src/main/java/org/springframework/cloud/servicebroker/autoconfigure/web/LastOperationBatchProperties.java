@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.BatchingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.LastOperationBatchDispatcher;
+
+/**
+ * {@link ConfigurationProperties} for the {@link LastOperationBatchDispatcher} that collects last operation requests
+ * into batches for a {@link BatchingServiceInstanceService}.
+ */
+@ConfigurationProperties(prefix = "spring.cloud.openservicebroker.last-operation-batch")
+public class LastOperationBatchProperties {
+
+	/**
+	 * How long a batch collects requests after its first request.
+	 */
+	private Duration window = LastOperationBatchDispatcher.DEFAULT_WINDOW;
+
+	/**
+	 * The maximum number of requests in a batch. A full batch is dispatched at once.
+	 */
+	private int maximumSize = LastOperationBatchDispatcher.DEFAULT_MAXIMUM_SIZE;
+
+	public Duration getWindow() {
+		return this.window;
+	}
+
+	public void setWindow(Duration window) {
+		this.window = window;
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param service the service that answers batches
+	 * @return a LastOperationBatchDispatcher model
+	 */
+	public LastOperationBatchDispatcher toModel(BatchingServiceInstanceService service) {
+		return new LastOperationBatchDispatcher(service, this.window, this.maximumSize, Schedulers.boundedElastic());
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.LastOperationCoalescer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link LastOperationCoalescer} that coalesces last
+ * operation requests to the service broker REST API endpoints. Coalescing is enabled with the
+ * {@literal spring.cloud.openservicebroker.last-operation-cache} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.last-operation-cache.enabled = true
+ * spring.cloud.openservicebroker.last-operation-cache.time-to-live = 30s
+ * spring.cloud.openservicebroker.last-operation-cache.maximum-size = 10000
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = LastOperationCacheProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(LastOperationCacheProperties.class)
+public class LastOperationCacheAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link LastOperationCoalescer} bean
+	 *
+	 * @param properties the last operation cache properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(LastOperationCoalescer.class)
+	public LastOperationCoalescer lastOperationCoalescer(LastOperationCacheProperties properties) {
+		return properties.toModel();
+	}
+
+}
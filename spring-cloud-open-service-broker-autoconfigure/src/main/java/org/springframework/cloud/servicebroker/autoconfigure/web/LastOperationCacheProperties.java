@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.LastOperationCoalescer;
+
+/**
+ * {@link ConfigurationProperties} for the {@link LastOperationCoalescer} that coalesces last operation requests for
+ * service instances and service instance bindings.
+ */
+@ConfigurationProperties(prefix = LastOperationCacheProperties.PREFIX)
+public class LastOperationCacheProperties {
+
+	/**
+	 * The prefix of the last operation cache configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.last-operation-cache";
+
+	/**
+	 * Whether concurrent last operation requests share a call to the service, and succeeded and failed operations are
+	 * cached.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How long a response that reports a succeeded or failed operation is cached. Zero only shares calls in
+	 * progress.
+	 */
+	private Duration timeToLive = LastOperationCoalescer.DEFAULT_TIME_TO_LIVE;
+
+	/**
+	 * The maximum number of cached responses.
+	 */
+	private int maximumSize = LastOperationCoalescer.DEFAULT_MAXIMUM_SIZE;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a LastOperationCoalescer model
+	 */
+	public LastOperationCoalescer toModel() {
+		return new LastOperationCoalescer(this.timeToLive, this.maximumSize, Clock.systemUTC());
+	}
+
+}
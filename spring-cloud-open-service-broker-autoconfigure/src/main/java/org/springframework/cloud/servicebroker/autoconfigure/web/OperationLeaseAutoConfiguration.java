@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.nio.file.Paths;
+import java.time.Clock;
+
+import javax.sql.DataSource;
+
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.lease.FileServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.JdbcServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.ServiceBrokerOperationLease;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.Assert;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link OperationLeaseManager} that lets a single replica
+ * of the service broker run an operation on a service instance or service instance binding at a time. Leases are
+ * enabled with the {@literal spring.cloud.openservicebroker.operation-lease} properties, and kept in a shared
+ * directory unless a {@link ServiceBrokerOperationLease} bean is provided:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.operation-lease.enabled = true
+ * spring.cloud.openservicebroker.operation-lease.directory = /shared/leases
+ * spring.cloud.openservicebroker.operation-lease.time-to-live = 30s
+ * </pre>
+ *
+ * <p>
+ * Setting {@literal store} to {@literal jdbc} keeps the leases in a table of the {@link DataSource} bean instead.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = OperationLeaseProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(OperationLeaseProperties.class)
+public class OperationLeaseAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link FileServiceBrokerOperationLease} bean
+	 *
+	 * @param properties the operation lease properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(ServiceBrokerOperationLease.class)
+	@ConditionalOnProperty(prefix = OperationLeaseProperties.PREFIX, name = "store", havingValue = "file",
+			matchIfMissing = true)
+	public FileServiceBrokerOperationLease fileServiceBrokerOperationLease(OperationLeaseProperties properties) {
+		Assert.hasText(properties.getDirectory(), OperationLeaseProperties.PREFIX + ".directory must be set");
+		return new FileServiceBrokerOperationLease(Paths.get(properties.getDirectory()), Clock.systemUTC(),
+				Schedulers.boundedElastic(), properties.getSweepInterval());
+	}
+
+	/**
+	 * Conditionally create a new {@link JdbcServiceBrokerOperationLease} bean
+	 *
+	 * @param dataSource the data source of the lease table
+	 * @param properties the operation lease properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(ServiceBrokerOperationLease.class)
+	@ConditionalOnProperty(prefix = OperationLeaseProperties.PREFIX, name = "store", havingValue = "jdbc")
+	public JdbcServiceBrokerOperationLease jdbcServiceBrokerOperationLease(DataSource dataSource,
+			OperationLeaseProperties properties) {
+		return new JdbcServiceBrokerOperationLease(dataSource, properties.getTableName(), Clock.systemUTC(),
+				Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Conditionally create a new {@link OperationLeaseManager} bean
+	 *
+	 * @param lease the lease store
+	 * @param properties the operation lease properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(OperationLeaseManager.class)
+	public OperationLeaseManager operationLeaseManager(ServiceBrokerOperationLease lease,
+			OperationLeaseProperties properties) {
+		return properties.toModel(lease);
+	}
+
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.lease.FileServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.JdbcServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.ServiceBrokerOperationLease;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ConfigurationProperties} for the leases that let a single replica of the service broker run an operation on a
+ * service instance or service instance binding at a time.
+ */
+@ConfigurationProperties(prefix = OperationLeaseProperties.PREFIX)
+public class OperationLeaseProperties {
+
+	/**
+	 * The prefix of the operation lease configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.operation-lease";
+
+	/**
+	 * Whether create, update, and delete requests hold a lease of their service instance or binding.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The store of the leases, a directory shared by the replicas or a database table.
+	 */
+	private Store store = Store.FILE;
+
+	/**
+	 * The shared directory of the lease files, when the store is a directory.
+	 */
+	private String directory;
+
+	/**
+	 * How often lease files that are empty or hold an expired lease are deleted, when the store is a directory.
+	 */
+	private Duration sweepInterval = FileServiceBrokerOperationLease.DEFAULT_SWEEP_INTERVAL;
+
+	/**
+	 * The name of the lease table, when the store is a database table.
+	 */
+	private String tableName = JdbcServiceBrokerOperationLease.DEFAULT_TABLE_NAME;
+
+	/**
+	 * How long a lease is held unless it is renewed.
+	 */
+	private Duration timeToLive = OperationLeaseManager.DEFAULT_TIME_TO_LIVE;
+
+	/**
+	 * How often a lease is renewed while its operation runs. Defaults to a third of the time-to-live.
+	 */
+	private Duration renewInterval;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Store getStore() {
+		return this.store;
+	}
+
+	public void setStore(Store store) {
+		this.store = store;
+	}
+
+	public String getDirectory() {
+		return this.directory;
+	}
+
+	public void setDirectory(String directory) {
+		this.directory = directory;
+	}
+
+	public Duration getSweepInterval() {
+		return this.sweepInterval;
+	}
+
+	public void setSweepInterval(Duration sweepInterval) {
+		this.sweepInterval = sweepInterval;
+	}
+
+	public String getTableName() {
+		return this.tableName;
+	}
+
+	public void setTableName(String tableName) {
+		this.tableName = tableName;
+	}
+
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public Duration getRenewInterval() {
+		return this.renewInterval;
+	}
+
+	public void setRenewInterval(Duration renewInterval) {
+		this.renewInterval = renewInterval;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param lease the lease store
+	 * @return an OperationLeaseManager model
+	 */
+	public OperationLeaseManager toModel(ServiceBrokerOperationLease lease) {
+		Assert.notNull(this.timeToLive, "timeToLive must not be null");
+		if (this.renewInterval == null) {
+			return new OperationLeaseManager(lease, this.timeToLive);
+		}
+		return new OperationLeaseManager(lease, this.timeToLive, this.renewInterval,
+				Schedulers.parallel());
+	}
+
+	/**
+	 * The stores of operation leases
+	 */
+	public enum Store {
+
+		/**
+		 * Lease files in a directory shared by the replicas
+		 */
+		FILE,
+
+		/**
+		 * Rows in a database table shared by the replicas
+		 */
+		JDBC
+
+	}
+
+}
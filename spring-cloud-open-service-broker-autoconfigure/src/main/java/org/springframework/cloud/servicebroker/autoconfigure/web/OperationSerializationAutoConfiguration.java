@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.servicebroker.service.InFlightOperationRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link InFlightOperationRegistry} that rejects concurrent
+ * operations on the same service instance or service instance binding. Rejection is enabled with the property:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.operation-serialization.enabled = true
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = OperationSerializationAutoConfiguration.PREFIX, name = "enabled", havingValue = "true")
+public class OperationSerializationAutoConfiguration {
+
+	/**
+	 * The prefix of the operation serialization configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.operation-serialization";
+
+	/**
+	 * Conditionally create a new {@link InFlightOperationRegistry} bean
+	 *
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(InFlightOperationRegistry.class)
+	public InFlightOperationRegistry inFlightOperationRegistry() {
+		return new InFlightOperationRegistry();
+	}
+
+}
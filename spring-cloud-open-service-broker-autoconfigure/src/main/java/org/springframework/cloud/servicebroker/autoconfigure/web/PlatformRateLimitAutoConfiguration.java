@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link PlatformRateLimiter} that limits the rate and the
+ * concurrency of the requests of each platform, so that one misbehaving platform cannot starve the others. The limiter
+ * is applied to the service broker API endpoints by the web auto-configurations. Platform rate limiting is enabled
+ * with the {@literal spring.cloud.openservicebroker.platform-rate-limit} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.platform-rate-limit.enabled = true
+ * spring.cloud.openservicebroker.platform-rate-limit.rate = 20
+ * spring.cloud.openservicebroker.platform-rate-limit.burst = 40
+ * spring.cloud.openservicebroker.platform-rate-limit.max-concurrent = 20
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = PlatformRateLimitProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(PlatformRateLimitProperties.class)
+public class PlatformRateLimitAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link PlatformRateLimiter} bean
+	 *
+	 * @param properties the platform rate limit properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(PlatformRateLimiter.class)
+	public PlatformRateLimiter platformRateLimiter(PlatformRateLimitProperties properties) {
+		return properties.toModel();
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+
+/**
+ * {@link ConfigurationProperties} for the {@link PlatformRateLimiter} that limits the rate and the concurrency of the
+ * requests of each platform.
+ */
+@ConfigurationProperties(prefix = PlatformRateLimitProperties.PREFIX)
+public class PlatformRateLimitProperties {
+
+	/**
+	 * The prefix of the platform rate limit configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.platform-rate-limit";
+
+	/**
+	 * Whether the rate and concurrency of the requests of each platform are limited.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The number of requests per second that each platform may send.
+	 */
+	private double rate = PlatformRateLimiter.DEFAULT_RATE;
+
+	/**
+	 * The number of requests that each platform may send at once after it was idle.
+	 */
+	private int burst = PlatformRateLimiter.DEFAULT_BURST;
+
+	/**
+	 * The maximum number of requests of each platform that are processed at once.
+	 */
+	private int maxConcurrent = PlatformRateLimiter.DEFAULT_MAX_CONCURRENT;
+
+	/**
+	 * The maximum number of platforms that are tracked.
+	 */
+	private int maxPlatforms = PlatformRateLimiter.DEFAULT_MAX_PLATFORMS;
+
+	/**
+	 * The time after which a platform that sent no requests is evicted.
+	 */
+	private Duration idleTimeout = PlatformRateLimiter.DEFAULT_IDLE_TIMEOUT;
+
+	/**
+	 * The interval after which the platform is asked to retry a request rejected for its concurrency.
+	 */
+	private Duration retryAfter = PlatformRateLimiter.DEFAULT_RETRY_AFTER;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public double getRate() {
+		return this.rate;
+	}
+
+	public void setRate(double rate) {
+		this.rate = rate;
+	}
+
+	public int getBurst() {
+		return this.burst;
+	}
+
+	public void setBurst(int burst) {
+		this.burst = burst;
+	}
+
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public int getMaxPlatforms() {
+		return this.maxPlatforms;
+	}
+
+	public void setMaxPlatforms(int maxPlatforms) {
+		this.maxPlatforms = maxPlatforms;
+	}
+
+	public Duration getIdleTimeout() {
+		return this.idleTimeout;
+	}
+
+	public void setIdleTimeout(Duration idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a PlatformRateLimiter model
+	 */
+	public PlatformRateLimiter toModel() {
+		return new PlatformRateLimiter(this.rate, this.burst, this.maxConcurrent, this.maxPlatforms, this.idleTimeout,
+				this.retryAfter, Clock.systemUTC());
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.PriorityDispatcher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link PriorityDispatcher} that lets polls and deletes
+ * bypass the creates and updates waiting to be dispatched to the service. Priority dispatch is enabled with the
+ * {@literal spring.cloud.openservicebroker.priority-dispatch} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.priority-dispatch.enabled = true
+ * spring.cloud.openservicebroker.priority-dispatch.max-concurrent = 50
+ * spring.cloud.openservicebroker.priority-dispatch.weights.poll = 4
+ * spring.cloud.openservicebroker.priority-dispatch.weights.delete = 2
+ * spring.cloud.openservicebroker.priority-dispatch.weights.create = 1
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = PriorityDispatchProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(PriorityDispatchProperties.class)
+public class PriorityDispatchAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link PriorityDispatcher} bean
+	 *
+	 * @param properties the priority dispatch properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(PriorityDispatcher.class)
+	public PriorityDispatcher priorityDispatcher(PriorityDispatchProperties properties) {
+		return properties.toModel();
+	}
+
+}
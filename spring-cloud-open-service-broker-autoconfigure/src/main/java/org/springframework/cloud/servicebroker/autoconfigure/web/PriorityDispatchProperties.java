@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.admission.PriorityDispatcher;
+import org.springframework.cloud.servicebroker.service.admission.PriorityLane;
+
+/**
+ * {@link ConfigurationProperties} for the {@link PriorityDispatcher} that queues operations waiting to be dispatched to
+ * the service in a separate lane per operation class, and serves the lanes by weighted fair queuing.
+ */
+@ConfigurationProperties(prefix = PriorityDispatchProperties.PREFIX)
+public class PriorityDispatchProperties {
+
+	/**
+	 * The prefix of the priority dispatch configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.priority-dispatch";
+
+	/**
+	 * Whether requests are dispatched to the service through priority lanes.
+	 */
+	private boolean enabled;
+
+	/**
+	 * The weights of the poll, delete and create lanes, where lanes that are not configured have their default weight.
+	 */
+	private final Map<PriorityLane, Integer> weights = new EnumMap<>(PriorityLane.class);
+
+	/**
+	 * The maximum number of operations dispatched at once.
+	 */
+	private int maxConcurrent = PriorityDispatcher.DEFAULT_MAX_CONCURRENT;
+
+	/**
+	 * The number of permits that only polls and deletes may use.
+	 */
+	private int reserved = PriorityDispatcher.DEFAULT_RESERVED;
+
+	/**
+	 * The maximum number of operations waiting in each lane.
+	 */
+	private int maxQueued = PriorityDispatcher.DEFAULT_MAX_QUEUED;
+
+	/**
+	 * The maximum time an operation waits to be dispatched.
+	 */
+	private Duration maxWait = PriorityDispatcher.DEFAULT_MAX_WAIT;
+
+	/**
+	 * The interval after which the platform is asked to retry a rejected operation.
+	 */
+	private Duration retryAfter = PriorityDispatcher.DEFAULT_RETRY_AFTER;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Map<PriorityLane, Integer> getWeights() {
+		return this.weights;
+	}
+
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	public void setMaxConcurrent(int maxConcurrent) {
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	public int getReserved() {
+		return this.reserved;
+	}
+
+	public void setReserved(int reserved) {
+		this.reserved = reserved;
+	}
+
+	public int getMaxQueued() {
+		return this.maxQueued;
+	}
+
+	public void setMaxQueued(int maxQueued) {
+		this.maxQueued = maxQueued;
+	}
+
+	public Duration getMaxWait() {
+		return this.maxWait;
+	}
+
+	public void setMaxWait(Duration maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+	public void setRetryAfter(Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a PriorityDispatcher model
+	 */
+	public PriorityDispatcher toModel() {
+		return new PriorityDispatcher(this.weights, this.maxConcurrent, this.reserved, this.maxQueued, this.maxWait,
+				this.retryAfter);
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.BulkServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.ProvisioningBatchDispatcher;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.cloud.servicebroker.service.admission.IsolatingBulkServiceInstanceService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link ProvisioningBatchDispatcher} that collects create
+ * and delete requests to the service broker REST API endpoints into batches, when the service instance service is a
+ * {@link BulkServiceInstanceService}. Batching is enabled with the
+ * {@literal spring.cloud.openservicebroker.provisioning-batch} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.provisioning-batch.enabled = true
+ * spring.cloud.openservicebroker.provisioning-batch.window = 20ms
+ * spring.cloud.openservicebroker.provisioning-batch.maximum-size = 50
+ * </pre>
+ */
+@Configuration
+@ConditionalOnBean(BulkServiceInstanceService.class)
+@ConditionalOnProperty(prefix = ProvisioningBatchProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ProvisioningBatchProperties.class)
+public class ProvisioningBatchAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link ProvisioningBatchDispatcher} bean
+	 *
+	 * @param service the BulkServiceInstanceService bean
+	 * @param bulkheads the bulkheads in whose lanes batches run, if configured
+	 * @param properties the provisioning batch properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(ProvisioningBatchDispatcher.class)
+	public ProvisioningBatchDispatcher provisioningBatchDispatcher(BulkServiceInstanceService service,
+			ObjectProvider<Bulkheads> bulkheads, ProvisioningBatchProperties properties) {
+		return properties.toModel(isolate(service, bulkheads.getIfAvailable()));
+	}
+
+	private static BulkServiceInstanceService isolate(BulkServiceInstanceService service, Bulkheads bulkheads) {
+		return (bulkheads == null) ? service : new IsolatingBulkServiceInstanceService(service, bulkheads);
+	}
+
+}
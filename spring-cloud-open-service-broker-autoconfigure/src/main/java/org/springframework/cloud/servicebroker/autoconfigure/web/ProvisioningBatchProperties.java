@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.BulkServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.ProvisioningBatchDispatcher;
+
+/**
+ * {@link ConfigurationProperties} for the {@link ProvisioningBatchDispatcher} that collects create and delete
+ * requests into batches for a {@link BulkServiceInstanceService}.
+ */
+@ConfigurationProperties(prefix = ProvisioningBatchProperties.PREFIX)
+public class ProvisioningBatchProperties {
+
+	/**
+	 * The prefix of the provisioning batch configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.provisioning-batch";
+
+	/**
+	 * Whether create and delete requests are dispatched in batches.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How long a batch collects requests after its first request.
+	 */
+	private Duration window = ProvisioningBatchDispatcher.DEFAULT_WINDOW;
+
+	/**
+	 * The maximum number of requests in a batch. A full batch is dispatched at once.
+	 */
+	private int maximumSize = ProvisioningBatchDispatcher.DEFAULT_MAXIMUM_SIZE;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getWindow() {
+		return this.window;
+	}
+
+	public void setWindow(Duration window) {
+		this.window = window;
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @param service the service that processes batches
+	 * @return a ProvisioningBatchDispatcher model
+	 */
+	public ProvisioningBatchDispatcher toModel(BulkServiceInstanceService service) {
+		return new ProvisioningBatchDispatcher(service, this.window, this.maximumSize, Schedulers.boundedElastic());
+	}
+
+}
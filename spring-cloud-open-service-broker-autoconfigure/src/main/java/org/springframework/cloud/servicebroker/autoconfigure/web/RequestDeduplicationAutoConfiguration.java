@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.RequestDeduplicator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link RequestDeduplicator} that de-duplicates retried
+ * requests to create service instances and service instance bindings. De-duplication is enabled with the
+ * {@literal spring.cloud.openservicebroker.request-deduplication} properties:
+ *
+ * <pre>
+ * spring.cloud.openservicebroker.request-deduplication.enabled = true
+ * spring.cloud.openservicebroker.request-deduplication.time-to-live = 10m
+ * spring.cloud.openservicebroker.request-deduplication.maximum-size = 10000
+ * </pre>
+ */
+@Configuration
+@ConditionalOnProperty(prefix = RequestDeduplicationProperties.PREFIX, name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RequestDeduplicationProperties.class)
+public class RequestDeduplicationAutoConfiguration {
+
+	/**
+	 * Conditionally create a new {@link RequestDeduplicator} bean
+	 *
+	 * @param properties the request de-duplication properties
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(RequestDeduplicator.class)
+	public RequestDeduplicator requestDeduplicator(RequestDeduplicationProperties properties) {
+		return properties.toModel();
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cloud.servicebroker.service.RequestDeduplicator;
+
+/**
+ * {@link ConfigurationProperties} for the {@link RequestDeduplicator} that de-duplicates retried requests to create
+ * service instances and service instance bindings.
+ */
+@ConfigurationProperties(prefix = RequestDeduplicationProperties.PREFIX)
+public class RequestDeduplicationProperties {
+
+	/**
+	 * The prefix of the request de-duplication configuration properties
+	 */
+	public static final String PREFIX = "spring.cloud.openservicebroker.request-deduplication";
+
+	/**
+	 * Whether retried create requests share the result of the original request instead of calling the service again.
+	 */
+	private boolean enabled;
+
+	/**
+	 * How long the response of a completed create request answers its retries. Zero only shares requests in progress.
+	 */
+	private Duration timeToLive = RequestDeduplicator.DEFAULT_TIME_TO_LIVE;
+
+	/**
+	 * The maximum number of remembered completed create requests.
+	 */
+	private int maximumSize = RequestDeduplicator.DEFAULT_MAXIMUM_SIZE;
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Duration getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	public void setTimeToLive(Duration timeToLive) {
+		this.timeToLive = timeToLive;
+	}
+
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize) {
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Converts this object into its corresponding model
+	 *
+	 * @return a RequestDeduplicator model
+	 */
+	public RequestDeduplicator toModel() {
+		return new RequestDeduplicator(this.timeToLive, this.maximumSize, Clock.systemUTC());
+	}
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.util.function.BiFunction;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.servicebroker.service.BatchDispatchingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.CoalescingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.CoalescingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.DeduplicatingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.DeduplicatingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.InFlightOperationRegistry;
+import org.springframework.cloud.servicebroker.service.LastOperationBatchDispatcher;
+import org.springframework.cloud.servicebroker.service.LastOperationCoalescer;
+import org.springframework.cloud.servicebroker.service.ProvisioningBatchDispatcher;
+import org.springframework.cloud.servicebroker.service.ProvisioningBatchServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.RequestDeduplicator;
+import org.springframework.cloud.servicebroker.service.SerializingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.SerializingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.admission.AdaptiveConcurrencyLimiter;
+import org.springframework.cloud.servicebroker.service.admission.AdmissionController;
+import org.springframework.cloud.servicebroker.service.admission.AdmittingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.admission.AdmittingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.cloud.servicebroker.service.admission.IsolatingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.admission.IsolatingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.admission.LimitingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.admission.LimitingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.admission.PrioritizingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.admission.PrioritizingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.admission.PriorityDispatcher;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+import org.springframework.cloud.servicebroker.service.async.OperationDurationTracker;
+import org.springframework.cloud.servicebroker.service.async.PromotingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.async.PromotingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.async.RetryAfterServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.async.RetryAfterServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.lease.LeasingServiceInstanceBindingService;
+import org.springframework.cloud.servicebroker.service.lease.LeasingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+
+/**
+ * Internal class that wraps the service instance and service instance binding services of the service broker REST
+ * API endpoints with the decorators of the optional components that are configured as beans. The decorators closest
+ * to the service are applied first: bulkhead isolation, then batching, then promotion to asynchronous operations,
+ * then retry intervals, then coalescing of last operation requests, then leases shared with other replicas, then
+ * rejection of concurrent operations on the same resource in this application, then de-duplication of retried create
+ * requests, then priority dispatch, then admission control, and then adaptive concurrency limiting.
+ */
+public class ServiceBrokerServiceDecorators {
+
+	private final BeanFactory beanFactory;
+
+	/**
+	 * Construct a new {@link ServiceBrokerServiceDecorators}
+	 *
+	 * @param beanFactory the bean factory in which the optional components are looked up
+	 */
+	public ServiceBrokerServiceDecorators(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Wrap a service instance service with the decorators of the configured components
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @return the decorated service
+	 */
+	public ServiceInstanceService decorate(ServiceInstanceService serviceInstanceService) {
+		ServiceInstanceService service = serviceInstanceService;
+		service = decorate(service, Bulkheads.class, IsolatingServiceInstanceService::new);
+		service = decorate(service, LastOperationBatchDispatcher.class, BatchDispatchingServiceInstanceService::new);
+		service = decorate(service, ProvisioningBatchDispatcher.class, ProvisioningBatchServiceInstanceService::new);
+		service = decorate(service, AsyncOperationPromoter.class, PromotingServiceInstanceService::new);
+		service = decorate(service, OperationDurationTracker.class, RetryAfterServiceInstanceService::new);
+		service = decorate(service, LastOperationCoalescer.class, CoalescingServiceInstanceService::new);
+		service = decorate(service, OperationLeaseManager.class, LeasingServiceInstanceService::new);
+		service = decorate(service, InFlightOperationRegistry.class, SerializingServiceInstanceService::new);
+		service = decorate(service, RequestDeduplicator.class, DeduplicatingServiceInstanceService::new);
+		service = decorate(service, PriorityDispatcher.class, PrioritizingServiceInstanceService::new);
+		service = decorate(service, AdmissionController.class, AdmittingServiceInstanceService::new);
+		return decorate(service, AdaptiveConcurrencyLimiter.class, LimitingServiceInstanceService::new);
+	}
+
+	/**
+	 * Wrap a service instance binding service with the decorators of the configured components
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @return the decorated service
+	 */
+	public ServiceInstanceBindingService decorate(ServiceInstanceBindingService serviceInstanceBindingService) {
+		ServiceInstanceBindingService service = serviceInstanceBindingService;
+		service = decorate(service, Bulkheads.class, IsolatingServiceInstanceBindingService::new);
+		service = decorate(service, AsyncOperationPromoter.class, PromotingServiceInstanceBindingService::new);
+		service = decorate(service, OperationDurationTracker.class, RetryAfterServiceInstanceBindingService::new);
+		service = decorate(service, LastOperationCoalescer.class, CoalescingServiceInstanceBindingService::new);
+		service = decorate(service, OperationLeaseManager.class, LeasingServiceInstanceBindingService::new);
+		service = decorate(service, InFlightOperationRegistry.class, SerializingServiceInstanceBindingService::new);
+		service = decorate(service, RequestDeduplicator.class, DeduplicatingServiceInstanceBindingService::new);
+		service = decorate(service, PriorityDispatcher.class, PrioritizingServiceInstanceBindingService::new);
+		service = decorate(service, AdmissionController.class, AdmittingServiceInstanceBindingService::new);
+		return decorate(service, AdaptiveConcurrencyLimiter.class, LimitingServiceInstanceBindingService::new);
+	}
+
+	private <S, C> S decorate(S service, Class<C> componentType, BiFunction<S, C, S> decorator) {
+		C component = this.beanFactory.getBeanProvider(componentType).getIfAvailable();
+		return (component == null) ? service : decorator.apply(service, component);
+	}
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.Duration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * {@link WebFilter} that admits each request to the service broker API endpoints through the
+ * {@link PlatformRateLimiter}, keyed by the {@literal platformInstanceId} path variable, or else the authenticated
+ * principal, or else the platform named in the {@literal X-Broker-API-Originating-Identity} header. A request that
+ * exceeds the rate of its platform is answered with an HTTP 429 status, and a request that exceeds the concurrency of
+ * its platform with an HTTP 503 status, both with a {@literal Retry-After} header.
+ */
+public class PlatformRateLimitWebFilter implements WebFilter {
+
+	private static final PathPattern V2_API_PATH_PATTERN = new PathPatternParser().parse("/v2/**");
+
+	private static final PathPattern PLATFORM_V2_API_PATH_PATTERN = new PathPatternParser()
+			.parse("/{platformInstanceId}/v2/**");
+
+	private final PlatformRateLimiter limiter;
+
+	/**
+	 * Construct a new {@link PlatformRateLimitWebFilter}
+	 *
+	 * @param limiter the platform rate limiter
+	 */
+	public PlatformRateLimitWebFilter(PlatformRateLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Take a permit of the platform of the request, and release it once the request is complete
+	 *
+	 * @param exchange {@inheritDoc}
+	 * @param chain {@inheritDoc}
+	 * @return {@inheritDoc}
+	 */
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		PathContainer path = exchange.getRequest().getPath().pathWithinApplication();
+		PathPattern.PathMatchInfo platformMatch = PLATFORM_V2_API_PATH_PATTERN.matchAndExtract(path);
+		if (platformMatch == null && !V2_API_PATH_PATTERN.matches(path)) {
+			return chain.filter(exchange);
+		}
+		String platformInstanceId = (platformMatch == null) ? null
+				: platformMatch.getUriVariables().get("platformInstanceId");
+		String originatingIdentity = exchange.getRequest().getHeaders()
+				.getFirst(ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER);
+		return exchange.getPrincipal()
+				.map(Principal::getName)
+				.defaultIfEmpty("")
+				.flatMap(principal -> {
+					String platformKey = PlatformRateLimiter.platformKey(platformInstanceId, originatingIdentity,
+							principal);
+					Disposable permit;
+					try {
+						permit = this.limiter.acquire(platformKey);
+					}
+					catch (ServiceBrokerRateLimitedException ex) {
+						return reject(exchange.getResponse(), HttpStatus.TOO_MANY_REQUESTS, ex, ex.getRetryAfter());
+					}
+					catch (ServiceBrokerOverloadedException ex) {
+						return reject(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, ex, ex.getRetryAfter());
+					}
+					return chain.filter(exchange).doFinally(signal -> permit.dispose());
+				});
+	}
+
+	private Mono<Void> reject(ServerHttpResponse response, HttpStatus status, ServiceBrokerException ex,
+			Duration retryAfter) {
+		response.setStatusCode(status);
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		if (retryAfter != null && !retryAfter.isNegative()) {
+			long seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1 : 0);
+			response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+		}
+		return response.writeWith(Flux.just(response.bufferFactory().allocateBuffer()
+				.write(toJson(ex), StandardCharsets.UTF_8)));
+	}
+
+	private String toJson(ServiceBrokerException ex) {
+		String json;
+		try {
+			json = new ObjectMapper().writeValueAsString(ex.getErrorMessage());
+		}
+		catch (JsonProcessingException e) {
+			json = "{}";
+		}
+		return json;
+	}
+
+}
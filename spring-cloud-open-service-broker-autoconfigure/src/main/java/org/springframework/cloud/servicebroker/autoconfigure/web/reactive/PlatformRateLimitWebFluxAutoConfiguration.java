@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cloud.servicebroker.autoconfigure.web.PlatformRateLimitAutoConfiguration;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} that applies the {@link PlatformRateLimiter} to the service broker
+ * API endpoints of a reactive web application.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnBean(PlatformRateLimiter.class)
+@AutoConfigureAfter(PlatformRateLimitAutoConfiguration.class)
+public class PlatformRateLimitWebFluxAutoConfiguration {
+
+	/**
+	 * Provide a {@link PlatformRateLimitWebFilter} bean
+	 *
+	 * @param platformRateLimiter the platform rate limiter
+	 * @return the bean
+	 */
+	@Bean
+	public PlatformRateLimitWebFilter platformRateLimitWebFilter(PlatformRateLimiter platformRateLimiter) {
+		return new PlatformRateLimitWebFilter(platformRateLimiter);
+	}
+
+}
@@ -16,15 +16,34 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.AdaptiveConcurrencyAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.AdmissionControlAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.AsyncOperationAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.BulkheadAutoConfiguration;
 import org.springframework.cloud.servicebroker.autoconfigure.web.EventFlowsAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.LastOperationBatchAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.LastOperationCacheAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.OperationLeaseAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.OperationSerializationAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.PriorityDispatchAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ProvisioningBatchAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.RequestDeduplicationAutoConfiguration;
 import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.ServiceBrokerServiceDecorators;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.ServiceInstanceServiceBeanDoesNotExistException;
 import org.springframework.cloud.servicebroker.controller.CatalogController;
+import org.springframework.cloud.servicebroker.controller.CatalogResponseCache;
+import org.springframework.cloud.servicebroker.controller.OriginatingIdentityParser;
 import org.springframework.cloud.servicebroker.controller.ServiceBrokerWebFluxExceptionHandler;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
@@ -34,6 +53,7 @@ import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingSer
 import org.springframework.cloud.servicebroker.service.ServiceInstanceEventService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -44,7 +64,13 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 @AutoConfigureAfter({WebFluxAutoConfiguration.class,
-		ServiceBrokerAutoConfiguration.class, EventFlowsAutoConfiguration.class})
+		ServiceBrokerAutoConfiguration.class, EventFlowsAutoConfiguration.class,
+		AsyncOperationAutoConfiguration.class, LastOperationCacheAutoConfiguration.class,
+		LastOperationBatchAutoConfiguration.class, ProvisioningBatchAutoConfiguration.class,
+		OperationSerializationAutoConfiguration.class, OperationLeaseAutoConfiguration.class,
+		RequestDeduplicationAutoConfiguration.class, AdmissionControlAutoConfiguration.class,
+		AdaptiveConcurrencyAutoConfiguration.class, PriorityDispatchAutoConfiguration.class,
+		BulkheadAutoConfiguration.class})
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
 public class ServiceBrokerWebFluxAutoConfiguration {
 
@@ -61,51 +87,84 @@ public class ServiceBrokerWebFluxAutoConfiguration {
 	 * @param serviceInstanceService the ServiceInstanceService bean
 	 * @param serviceInstanceBindingService the ServiceInstanceBindingService bean
 	 * @param eventFlowRegistries the EventFlowRegistries bean
+	 * @param eventStream the ServiceBrokerEventStream bean, if one exists
+	 * @param beanFactory the bean factory in which the optional service decorators are looked up
 	 */
 	protected ServiceBrokerWebFluxAutoConfiguration(CatalogService catalogService,
 			@Autowired(required = false) ServiceInstanceService serviceInstanceService,
 			ServiceInstanceBindingService serviceInstanceBindingService,
-			EventFlowRegistries eventFlowRegistries) {
+			EventFlowRegistries eventFlowRegistries,
+			ObjectProvider<ServiceBrokerEventStream> eventStream,
+			BeanFactory beanFactory) {
 		if (serviceInstanceService == null) {
 			throw new ServiceInstanceServiceBeanDoesNotExistException();
 		}
 		this.catalogService = catalogService;
+		ServiceBrokerServiceDecorators decorators = new ServiceBrokerServiceDecorators(beanFactory);
 		this.serviceInstanceEventService = new ServiceInstanceEventService(
-				serviceInstanceService, eventFlowRegistries);
+				decorators.decorate(serviceInstanceService), eventFlowRegistries, eventStream.getIfAvailable());
 		this.serviceInstanceBindingEventService = new ServiceInstanceBindingEventService(
-				serviceInstanceBindingService, eventFlowRegistries);
+				decorators.decorate(serviceInstanceBindingService), eventFlowRegistries, eventStream.getIfAvailable());
 	}
 
 	/**
 	 * Provide a {@link CatalogController} bean
 	 *
+	 * @param catalogResponseCache the CatalogResponseCache bean
+	 * @return the bean
+	 */
+	@Bean
+	public CatalogController catalogController(CatalogResponseCache catalogResponseCache) {
+		return new CatalogController(this.catalogService, catalogResponseCache);
+	}
+
+	/**
+	 * Conditionally provides a {@link CatalogResponseCache} bean
+	 *
+	 * @param objectMapper the ObjectMapper bean, if one exists
+	 * @return the bean
+	 */
+	@Bean
+	@ConditionalOnMissingBean(CatalogResponseCache.class)
+	public CatalogResponseCache catalogResponseCache(ObjectProvider<ObjectMapper> objectMapper) {
+		ObjectMapper mapper = objectMapper.getIfAvailable();
+		return (mapper == null) ? new CatalogResponseCache() : new CatalogResponseCache(mapper);
+	}
+
+	/**
+	 * Conditionally provides a {@link OriginatingIdentityParser} bean
+	 *
 	 * @return the bean
 	 */
 	@Bean
-	public CatalogController catalogController() {
-		return new CatalogController(this.catalogService);
+	@ConditionalOnMissingBean(OriginatingIdentityParser.class)
+	public OriginatingIdentityParser originatingIdentityParser() {
+		return new OriginatingIdentityParser();
 	}
 
 	/**
 	 * Provide a {@link ServiceInstanceController} bean
 	 *
+	 * @param originatingIdentityParser the OriginatingIdentityParser bean
 	 * @return the bean
 	 */
 	@Bean
-	public ServiceInstanceController serviceInstanceController() {
+	public ServiceInstanceController serviceInstanceController(OriginatingIdentityParser originatingIdentityParser) {
 		return new ServiceInstanceController(this.catalogService,
-				this.serviceInstanceEventService);
+				this.serviceInstanceEventService, originatingIdentityParser);
 	}
 
 	/**
 	 * Provide a {@link ServiceInstanceBindingController} bean
 	 *
+	 * @param originatingIdentityParser the OriginatingIdentityParser bean
 	 * @return the bean
 	 */
 	@Bean
-	public ServiceInstanceBindingController serviceInstanceBindingController() {
+	public ServiceInstanceBindingController serviceInstanceBindingController(
+			OriginatingIdentityParser originatingIdentityParser) {
 		return new ServiceInstanceBindingController(this.catalogService,
-				this.serviceInstanceBindingEventService);
+				this.serviceInstanceBindingEventService, originatingIdentityParser);
 	}
 
 	/**
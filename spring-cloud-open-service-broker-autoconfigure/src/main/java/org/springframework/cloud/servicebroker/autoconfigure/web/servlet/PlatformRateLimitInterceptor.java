@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.security.Principal;
+import java.util.Map;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import reactor.core.Disposable;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * {@link HandlerInterceptor} that admits each request to the service broker API endpoints through the
+ * {@link PlatformRateLimiter}, keyed by the {@literal platformInstanceId} path variable, or else the authenticated
+ * principal, or else the platform named in the {@literal X-Broker-API-Originating-Identity} header. Rejected requests
+ * are answered by the exception handler of the endpoints.
+ */
+public class PlatformRateLimitInterceptor implements HandlerInterceptor {
+
+	private static final String PERMIT_ATTRIBUTE = PlatformRateLimitInterceptor.class.getName() + ".permit";
+
+	private static final String PLATFORM_INSTANCE_ID_VARIABLE = "platformInstanceId";
+
+	private final PlatformRateLimiter limiter;
+
+	/**
+	 * Construct a new {@link PlatformRateLimitInterceptor}
+	 *
+	 * @param limiter the platform rate limiter
+	 */
+	public PlatformRateLimitInterceptor(PlatformRateLimiter limiter) {
+		this.limiter = limiter;
+	}
+
+	/**
+	 * Take a permit of the platform of the request. A request that is dispatched again to complete asynchronous
+	 * processing keeps the permit it took when it was first dispatched.
+	 *
+	 * @param request {@inheritDoc}
+	 * @param response {@inheritDoc}
+	 * @param handler {@inheritDoc}
+	 * @return {@inheritDoc}
+	 * @throws ServiceBrokerRateLimitedException if the platform exceeded its rate
+	 * @throws ServiceBrokerOverloadedException if the platform exceeded its concurrency
+	 */
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		if (request.getDispatcherType() != DispatcherType.ASYNC) {
+			Principal principal = request.getUserPrincipal();
+			String platformKey = PlatformRateLimiter.platformKey(getPlatformInstanceId(request),
+					request.getHeader(ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER),
+					(principal == null) ? null : principal.getName());
+			request.setAttribute(PERMIT_ATTRIBUTE, this.limiter.acquire(platformKey));
+		}
+		return true;
+	}
+
+	/**
+	 * Release the permit of the request once it is complete
+	 *
+	 * @param request {@inheritDoc}
+	 * @param response {@inheritDoc}
+	 * @param handler {@inheritDoc}
+	 * @param ex {@inheritDoc}
+	 */
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+			Exception ex) {
+		Object permit = request.getAttribute(PERMIT_ATTRIBUTE);
+		if (permit instanceof Disposable) {
+			request.removeAttribute(PERMIT_ATTRIBUTE);
+			((Disposable) permit).dispose();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private String getPlatformInstanceId(HttpServletRequest request) {
+		Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+		return variables instanceof Map ? ((Map<String, String>) variables).get(PLATFORM_INSTANCE_ID_VARIABLE)
+				: null;
+	}
+
+}
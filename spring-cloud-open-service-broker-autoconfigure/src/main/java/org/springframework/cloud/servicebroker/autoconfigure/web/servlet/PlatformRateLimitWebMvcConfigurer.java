@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * {@link WebMvcConfigurer} that applies the {@link PlatformRateLimitInterceptor} to the service broker API endpoints,
+ * with and without a platform instance ID.
+ */
+public class PlatformRateLimitWebMvcConfigurer implements WebMvcConfigurer {
+
+	private static final String V2_API_PATH_PATTERN = "/v2/**";
+
+	private static final String PLATFORM_V2_API_PATH_PATTERN = "/*/v2/**";
+
+	private final PlatformRateLimitInterceptor platformRateLimitInterceptor;
+
+	/**
+	 * Construct a new {@link PlatformRateLimitWebMvcConfigurer}
+	 *
+	 * @param platformRateLimitInterceptor the PlatformRateLimitInterceptor bean
+	 */
+	public PlatformRateLimitWebMvcConfigurer(PlatformRateLimitInterceptor platformRateLimitInterceptor) {
+		this.platformRateLimitInterceptor = platformRateLimitInterceptor;
+	}
+
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(this.platformRateLimitInterceptor)
+				.addPathPatterns(V2_API_PATH_PATTERN, PLATFORM_V2_API_PATH_PATTERN);
+	}
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.admission.AdaptiveConcurrencyLimiter;
+import org.springframework.cloud.servicebroker.service.admission.OperationType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(AdaptiveConcurrencyAutoConfiguration.class));
+
+	@Test
+	void limiterIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(AdaptiveConcurrencyLimiter.class));
+	}
+
+	@Test
+	void limiterIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.adaptive-concurrency.enabled=true",
+						"spring.cloud.openservicebroker.adaptive-concurrency.initial-limit=40",
+						"spring.cloud.openservicebroker.adaptive-concurrency.tolerance=2.0")
+				.run(context -> {
+					assertThat(context).hasSingleBean(AdaptiveConcurrencyLimiter.class);
+					assertThat(context.getBean(AdaptiveConcurrencyLimiter.class)
+							.getLimit("service", OperationType.CREATE)).isEqualTo(40);
+				});
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.admission.AdmissionController;
+import org.springframework.cloud.servicebroker.service.admission.OperationType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(AdmissionControlAutoConfiguration.class));
+
+	@Test
+	void admissionControllerIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(AdmissionController.class));
+	}
+
+	@Test
+	void admissionControllerIsCreatedWithLimits() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.admission-control.enabled=true",
+						"spring.cloud.openservicebroker.admission-control.max-concurrent=20",
+						"spring.cloud.openservicebroker.admission-control.max-wait=1s",
+						"spring.cloud.openservicebroker.admission-control.limits[0].plan-id=large",
+						"spring.cloud.openservicebroker.admission-control.limits[0].operation-type=create",
+						"spring.cloud.openservicebroker.admission-control.limits[0].max-concurrent=5")
+				.run(context -> {
+					assertThat(context).hasSingleBean(AdmissionController.class);
+					AdmissionControlProperties properties = context.getBean(AdmissionControlProperties.class);
+					assertThat(properties.getLimits()).hasSize(1);
+					assertThat(properties.getLimits().get(0).getOperationType()).isEqualTo(OperationType.CREATE);
+					assertThat(properties.getLimits().get(0).toModel(20, 0).getMaxConcurrent()).isEqualTo(5);
+				});
+	}
+
+}
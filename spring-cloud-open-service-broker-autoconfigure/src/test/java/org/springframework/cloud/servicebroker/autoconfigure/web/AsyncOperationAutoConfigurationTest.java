@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationEngine;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationRegistry;
+import org.springframework.cloud.servicebroker.service.async.LatencyBudget;
+import org.springframework.cloud.servicebroker.service.async.OperationDurationTracker;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncOperationAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(AsyncOperationAutoConfiguration.class));
+
+	@Test
+	void engineIsCreatedWithDefaults() {
+		this.contextRunner
+				.run(context -> {
+					assertThat(context).hasSingleBean(AsyncOperationEngine.class);
+					assertThat(context.getBean(AsyncOperationEngine.class).getDefaultTimeout()).isNull();
+				});
+	}
+
+	@Test
+	void engineIsConfiguredFromProperties() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.async-operations.concurrency=4",
+						"spring.cloud.openservicebroker.async-operations.queue-capacity=16",
+						"spring.cloud.openservicebroker.async-operations.default-timeout=10m")
+				.run(context -> assertThat(context.getBean(AsyncOperationEngine.class).getDefaultTimeout())
+						.isEqualTo(Duration.ofMinutes(10)));
+	}
+
+	@Test
+	void promoterIsNotCreatedWithoutBudget() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(AsyncOperationPromoter.class));
+	}
+
+	@Test
+	void promoterIsCreatedWithFixedBudget() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.async-operations.promotion.budget=20s")
+				.run(context -> assertThat(context.getBean(AsyncOperationPromoter.class).getBudget())
+						.isEqualTo(LatencyBudget.fixed(Duration.ofSeconds(20))));
+	}
+
+	@Test
+	void promoterIsCreatedWithPercentileBudget() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.async-operations.promotion.percentile=0.95",
+						"spring.cloud.openservicebroker.async-operations.promotion.maximum-budget=30s")
+				.run(context -> assertThat(context.getBean(AsyncOperationPromoter.class).getBudget())
+						.isEqualTo(LatencyBudget.percentile(0.95, Duration.ofSeconds(1), Duration.ofSeconds(30))));
+	}
+
+	@Test
+	void trackerIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(OperationDurationTracker.class));
+	}
+
+	@Test
+	void trackerIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.async-operations.retry-after.enabled=true",
+						"spring.cloud.openservicebroker.async-operations.retry-after.maximum=2m")
+				.run(context -> assertThat(context).hasSingleBean(OperationDurationTracker.class));
+	}
+
+	@Test
+	void engineBeanIsNotReplaced() {
+		this.contextRunner
+				.withUserConfiguration(CustomEngineConfiguration.class)
+				.run(context -> assertThat(context.getBean(AsyncOperationEngine.class))
+						.isSameAs(context.getBean(CustomEngineConfiguration.class).engine));
+	}
+
+	@TestConfiguration
+	protected static class CustomEngineConfiguration {
+
+		private final AsyncOperationEngine engine = new AsyncOperationEngine(Schedulers.immediate(), null,
+				new AsyncOperationRegistry());
+
+		@Bean
+		public AsyncOperationEngine asyncOperationEngine() {
+			return this.engine;
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(BulkheadAutoConfiguration.class));
+
+	@Test
+	void bulkheadsAreNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(Bulkheads.class));
+	}
+
+	@Test
+	void bulkheadsAreCreatedWithConfiguredLanes() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.bulkhead.enabled=true",
+						"spring.cloud.openservicebroker.bulkhead.lanes[0].name=databases",
+						"spring.cloud.openservicebroker.bulkhead.lanes[0].service-definition-ids=mysql,postgres",
+						"spring.cloud.openservicebroker.bulkhead.lanes[0].isolation=semaphore")
+				.run(context -> {
+					assertThat(context).hasSingleBean(Bulkheads.class);
+					Bulkheads bulkheads = context.getBean(Bulkheads.class);
+					assertThat(bulkheads.getLaneName("mysql")).isEqualTo("databases");
+					assertThat(bulkheads.getLaneName("postgres")).isEqualTo("databases");
+					assertThat(bulkheads.getLaneName("redis")).isEqualTo(Bulkheads.DEFAULT_LANE);
+					assertThat(bulkheads.getLaneName(null)).isEqualTo(Bulkheads.DEFAULT_LANE);
+				});
+	}
+
+	@Test
+	void serviceDefinitionsOfTheCatalogGetLanesOfTheirOwn() {
+		this.contextRunner
+				.withUserConfiguration(CatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.bulkhead.enabled=true")
+				.run(context -> {
+					Bulkheads bulkheads = context.getBean(Bulkheads.class);
+					assertThat(bulkheads.getLaneName("redis")).isEqualTo("redis");
+					assertThat(bulkheads.getLaneName("unknown")).isEqualTo(Bulkheads.DEFAULT_LANE);
+				});
+	}
+
+	@TestConfiguration
+	protected static class CatalogConfiguration {
+
+		@Bean
+		public Catalog catalog() {
+			return Catalog.builder()
+					.serviceDefinitions(ServiceDefinition.builder()
+							.id("redis")
+							.name("redis")
+							.description("Redis")
+							.build())
+					.build();
+		}
+
+	}
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.service.BeanCatalogService;
+import org.springframework.cloud.servicebroker.service.CachingCatalogService;
+import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachingCatalogServiceAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(ServiceBrokerAutoConfiguration.class,
+					CachingCatalogServiceAutoConfiguration.class));
+
+	@Test
+	void catalogServiceIsNotWrappedByDefault() {
+		this.contextRunner
+				.withUserConfiguration(CatalogServiceConfiguration.class)
+				.run((context) -> {
+					assertThat(context).doesNotHaveBean(CachingCatalogServiceBeanPostProcessor.class);
+					assertThat(context)
+							.getBean(CatalogService.class)
+							.isExactlyInstanceOf(TestCatalogService.class);
+				});
+	}
+
+	@Test
+	void catalogServiceIsWrappedWhenTimeToLiveIsSet() {
+		this.contextRunner
+				.withUserConfiguration(CatalogServiceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.catalog-cache.time-to-live=5m")
+				.run((context) -> {
+					assertThat(context).hasSingleBean(CachingCatalogServiceBeanPostProcessor.class);
+					assertThat(context)
+							.getBean(CatalogService.class)
+							.isExactlyInstanceOf(CachingCatalogService.class);
+				});
+	}
+
+	@Test
+	void beanCatalogServiceIsNotWrapped() {
+		this.contextRunner
+				.withUserConfiguration(CatalogConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.catalog-cache.time-to-live=5m",
+						"spring.cloud.openservicebroker.catalog-cache.refresh-after=1m")
+				.run((context) -> assertThat(context)
+						.getBean(CatalogService.class)
+						.isExactlyInstanceOf(BeanCatalogService.class));
+	}
+
+	@Test
+	void invalidRefreshAfterFails() {
+		this.contextRunner
+				.withUserConfiguration(CatalogServiceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.catalog-cache.time-to-live=1m",
+						"spring.cloud.openservicebroker.catalog-cache.refresh-after=5m")
+				.run((context) -> assertThat(context).hasFailed());
+	}
+
+	@TestConfiguration
+	protected static class CatalogServiceConfiguration {
+
+		@Bean
+		protected CatalogService catalogService() {
+			return new TestCatalogService();
+		}
+
+	}
+
+	@TestConfiguration
+	protected static class CatalogConfiguration {
+
+		@Bean
+		protected Catalog catalog() {
+			return Catalog.builder().build();
+		}
+
+	}
+
+}
@@ -25,6 +25,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
+import org.mockito.Answers;
 import org.mockito.Mock;
 import reactor.core.publisher.Mono;
 
@@ -60,7 +61,7 @@ public abstract class ControllerIntegrationTest {
 
 	protected static final String SERVICE_INSTANCE_ID = "service-instance-one-id";
 
-	@Mock
+	@Mock(answer = Answers.CALLS_REAL_METHODS)
 	protected CatalogService catalogService;
 
 	protected ServiceDefinition serviceDefinition;
@@ -16,9 +16,12 @@
 
 package org.springframework.cloud.servicebroker.autoconfigure.web;
 
-import java.util.List;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.core.publisher.Mono;
 
 import org.springframework.boot.autoconfigure.AutoConfigurations;
@@ -45,8 +48,15 @@ import org.springframework.cloud.servicebroker.service.events.CreateServiceInsta
 import org.springframework.cloud.servicebroker.service.events.CreateServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceBindingEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.DeleteServiceInstanceEventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.DetachedEventFlowExecutor;
+import org.springframework.cloud.servicebroker.service.events.DetachedEventFlowExecutor.OverflowPolicy;
+import org.springframework.cloud.servicebroker.service.events.EventFlowExecutionPolicy;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventBatchConsumer;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventOutbox;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 import org.springframework.cloud.servicebroker.service.events.UpdateServiceInstanceEventFlowRegistry;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceBindingErrorFlow;
@@ -103,6 +113,84 @@ class EventFlowsAutoConfigurationTest {
 				});
 	}
 
+	@Test
+	void executionPoliciesAreConfiguredFromProperties() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.event-flows.create-instance.execution=sequential",
+						"spring.cloud.openservicebroker.event-flows.create-instance.timeout=2s",
+						"spring.cloud.openservicebroker.event-flows.create-instance.isolate-failures=true",
+						"spring.cloud.openservicebroker.event-flows.delete-instance.max-concurrency=4")
+				.run(context -> {
+					assertThat(context.getBean(CreateServiceInstanceEventFlowRegistry.class).getExecutionPolicy())
+							.isEqualTo(EventFlowExecutionPolicy.builder()
+									.sequential()
+									.timeout(Duration.ofSeconds(2))
+									.isolateFailures(true)
+									.build());
+					assertThat(context.getBean(DeleteServiceInstanceEventFlowRegistry.class).getExecutionPolicy())
+							.isEqualTo(EventFlowExecutionPolicy.builder().parallel(4).build());
+					assertThat(context.getBean(UpdateServiceInstanceEventFlowRegistry.class).getExecutionPolicy())
+							.isEqualTo(EventFlowExecutionPolicy.DEFAULT);
+				});
+	}
+
+	@Test
+	void eventStreamBatchConsumersAreSubscribed() {
+		this.contextRunner
+				.withUserConfiguration(EventBatchConsumerConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.event-flows.stream.batch-size=1")
+				.run(context -> {
+					ServiceBrokerEventStream eventStream = context.getBean(ServiceBrokerEventStream.class);
+					assertThat(eventStream.hasSubscribers()).isTrue();
+					eventStream.observe(ServiceBrokerEvent.Type.CREATE_SERVICE_INSTANCE,
+							CreateServiceInstanceRequest.builder().build(),
+							Mono.just(CreateServiceInstanceResponse.builder().build())).block();
+					assertThat(eventStream.getPublishedCount()).isEqualTo(1);
+					assertThat(eventStream.getBatchCount()).isEqualTo(1);
+				});
+	}
+
+	@Test
+	void eventOutboxIsConfiguredWhenDirectoryIsSet(@TempDir Path directory) {
+		this.contextRunner
+				.withUserConfiguration(EventBatchConsumerConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.event-flows.outbox.directory=" + directory,
+						"spring.cloud.openservicebroker.event-flows.outbox.segment-size=64KB")
+				.run(context -> {
+					ServiceBrokerEventStream eventStream = context.getBean(ServiceBrokerEventStream.class);
+					ServiceBrokerEventOutbox outbox = context.getBean(ServiceBrokerEventOutbox.class);
+					assertThat(eventStream.getOutbox()).isSameAs(outbox);
+					assertThat(eventStream.hasSubscribers()).isFalse();
+					eventStream.observe(ServiceBrokerEvent.Type.CREATE_SERVICE_INSTANCE,
+							CreateServiceInstanceRequest.builder().build(),
+							Mono.just(CreateServiceInstanceResponse.builder().build())).block();
+					assertThat(outbox.getAppendedCount()).isEqualTo(1);
+				});
+	}
+
+	@Test
+	void eventOutboxIsNotConfiguredByDefault() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(ServiceBrokerEventOutbox.class));
+	}
+
+	@Test
+	void detachedFlowsAreConfiguredFromProperties() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.event-flows.create-instance.detached=true",
+						"spring.cloud.openservicebroker.event-flows.detached.queue-capacity=16",
+						"spring.cloud.openservicebroker.event-flows.detached.overflow=caller-runs")
+				.run(context -> {
+					DetachedEventFlowExecutor executor = context.getBean(DetachedEventFlowExecutor.class);
+					assertThat(executor.getQueueCapacity()).isEqualTo(16);
+					assertThat(executor.getOverflowPolicy()).isEqualTo(OverflowPolicy.CALLER_RUNS);
+					assertThat(context.getBean(CreateServiceInstanceEventFlowRegistry.class).getDetachedFlowExecutor())
+							.isSameAs(executor);
+					assertThat(context.getBean(DeleteServiceInstanceEventFlowRegistry.class).getDetachedFlowExecutor())
+							.isNull();
+				});
+	}
+
 	@Test
 	void updateInstanceEventFlowBeansAreConfigured() {
 		this.contextRunner
@@ -233,18 +321,24 @@ class EventFlowsAutoConfigurationTest {
 
 	private void assertEventFlowBeans(EventFlowRegistry<?, ?, ?, ?, ?> registry, int initializationFlowCount,
 			int completionFlowCount, int errorFlowCount) {
-		List<?> initializationFlows = (List<?>) ReflectionTestUtils
-				.getField(registry, "initializationFlows");
+		Object[] initializationFlows = getFlows(registry, "initializationFlows");
 		assertThat(initializationFlows).isNotNull();
-		assertThat(initializationFlows.size()).isEqualTo(initializationFlowCount);
+		assertThat(initializationFlows.length).isEqualTo(initializationFlowCount);
 
-		List<?> completionFlows = (List<?>) ReflectionTestUtils.getField(registry, "completionFlows");
+		Object[] completionFlows = getFlows(registry, "completionFlows");
 		assertThat(completionFlows).isNotNull();
-		assertThat(completionFlows.size()).isEqualTo(completionFlowCount);
+		assertThat(completionFlows.length).isEqualTo(completionFlowCount);
 
-		List<?> errorFlows = (List<?>) ReflectionTestUtils.getField(registry, "errorFlows");
+		Object[] errorFlows = getFlows(registry, "errorFlows");
 		assertThat(errorFlows).isNotNull();
-		assertThat(errorFlows.size()).isEqualTo(errorFlowCount);
+		assertThat(errorFlows.length).isEqualTo(errorFlowCount);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Object[] getFlows(EventFlowRegistry<?, ?, ?, ?, ?> registry, String name) {
+		AtomicReference<Object[]> flows = (AtomicReference<Object[]>) ReflectionTestUtils.getField(registry, name);
+		assertThat(flows).isNotNull();
+		return flows.get();
 	}
 
 	@TestConfiguration
@@ -529,6 +623,16 @@ class EventFlowsAutoConfigurationTest {
 
 	}
 
+	@TestConfiguration
+	protected static class EventBatchConsumerConfiguration {
+
+		@Bean
+		public ServiceBrokerEventBatchConsumer eventBatchConsumer() {
+			return events -> Mono.empty();
+		}
+
+	}
+
 	@TestConfiguration
 	protected static class AsyncOperationServiceInstanceBindingEventFlowBeansConfiguration {
 
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.service.BatchingServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.LastOperationBatchDispatcher;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LastOperationBatchAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(LastOperationBatchAutoConfiguration.class));
+
+	@Test
+	void dispatcherIsNotCreatedWithoutBatchingService() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(LastOperationBatchDispatcher.class));
+	}
+
+	@Test
+	void dispatcherIsCreatedWithBatchingService() {
+		this.contextRunner
+				.withUserConfiguration(BatchingServiceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.last-operation-batch.window=20ms",
+						"spring.cloud.openservicebroker.last-operation-batch.maximum-size=50")
+				.run(context -> assertThat(context).hasSingleBean(LastOperationBatchDispatcher.class));
+	}
+
+	@TestConfiguration
+	protected static class BatchingServiceConfiguration {
+
+		@Bean
+		public BatchingServiceInstanceService batchingServiceInstanceService() {
+			return new BatchingServiceInstanceService() {
+
+				@Override
+				public Mono<Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse>> getLastOperations(
+						List<GetLastServiceOperationRequest> requests) {
+					return Mono.just(Collections.emptyMap());
+				}
+
+				@Override
+				public Mono<CreateServiceInstanceResponse> createServiceInstance(
+						CreateServiceInstanceRequest request) {
+					return Mono.empty();
+				}
+
+				@Override
+				public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(
+						DeleteServiceInstanceRequest request) {
+					return Mono.empty();
+				}
+
+			};
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.nio.file.Path;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.lease.FileServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.JdbcServiceBrokerOperationLease;
+import org.springframework.cloud.servicebroker.service.lease.OperationLeaseManager;
+import org.springframework.cloud.servicebroker.service.lease.ServiceBrokerOperationLease;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class OperationLeaseAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(OperationLeaseAutoConfiguration.class));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void leaseManagerIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(OperationLeaseManager.class));
+	}
+
+	@Test
+	void leasesAreKeptInTheSharedDirectory() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.operation-lease.enabled=true",
+						"spring.cloud.openservicebroker.operation-lease.directory=" + this.directory,
+						"spring.cloud.openservicebroker.operation-lease.time-to-live=1m")
+				.run(context -> {
+					assertThat(context).hasSingleBean(FileServiceBrokerOperationLease.class);
+					assertThat(context).hasSingleBean(OperationLeaseManager.class);
+				});
+	}
+
+	@Test
+	void leasesAreKeptInTheDatabase() {
+		this.contextRunner
+				.withBean(DataSource.class, () -> mock(DataSource.class))
+				.withPropertyValues("spring.cloud.openservicebroker.operation-lease.enabled=true",
+						"spring.cloud.openservicebroker.operation-lease.store=jdbc",
+						"spring.cloud.openservicebroker.operation-lease.renew-interval=5s")
+				.run(context -> {
+					assertThat(context).hasSingleBean(JdbcServiceBrokerOperationLease.class);
+					assertThat(context).hasSingleBean(OperationLeaseManager.class);
+				});
+	}
+
+	@Test
+	void leasesAreKeptInTheProvidedStore() {
+		this.contextRunner
+				.withBean(ServiceBrokerOperationLease.class, () -> mock(ServiceBrokerOperationLease.class))
+				.withPropertyValues("spring.cloud.openservicebroker.operation-lease.enabled=true")
+				.run(context -> {
+					assertThat(context).doesNotHaveBean(FileServiceBrokerOperationLease.class);
+					assertThat(context).hasSingleBean(OperationLeaseManager.class);
+				});
+	}
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.cloud.servicebroker.autoconfigure.web.reactive.PlatformRateLimitWebFilter;
+import org.springframework.cloud.servicebroker.autoconfigure.web.reactive.PlatformRateLimitWebFluxAutoConfiguration;
+import org.springframework.cloud.servicebroker.autoconfigure.web.servlet.PlatformRateLimitInterceptor;
+import org.springframework.cloud.servicebroker.autoconfigure.web.servlet.PlatformRateLimitWebMvcAutoConfiguration;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlatformRateLimitAutoConfigurationTest {
+
+	private static final AutoConfigurations CONFIGURATIONS = AutoConfigurations.of(
+			PlatformRateLimitAutoConfiguration.class, PlatformRateLimitWebMvcAutoConfiguration.class,
+			PlatformRateLimitWebFluxAutoConfiguration.class);
+
+	@Test
+	void limiterIsNotCreatedUnlessEnabled() {
+		new WebApplicationContextRunner()
+				.withConfiguration(CONFIGURATIONS)
+				.run(context -> {
+					assertThat(context).doesNotHaveBean(PlatformRateLimiter.class);
+					assertThat(context).doesNotHaveBean(PlatformRateLimitInterceptor.class);
+				});
+	}
+
+	@Test
+	void limiterIsCreatedWhenEnabled() {
+		new ApplicationContextRunner()
+				.withConfiguration(CONFIGURATIONS)
+				.withPropertyValues("spring.cloud.openservicebroker.platform-rate-limit.enabled=true",
+						"spring.cloud.openservicebroker.platform-rate-limit.rate=5",
+						"spring.cloud.openservicebroker.platform-rate-limit.max-concurrent=3")
+				.run(context -> {
+					assertThat(context).hasSingleBean(PlatformRateLimiter.class);
+					assertThat(context).doesNotHaveBean(PlatformRateLimitInterceptor.class);
+					assertThat(context).doesNotHaveBean(PlatformRateLimitWebFilter.class);
+				});
+	}
+
+	@Test
+	void interceptorIsAppliedToServletApplications() {
+		new WebApplicationContextRunner()
+				.withConfiguration(CONFIGURATIONS)
+				.withPropertyValues("spring.cloud.openservicebroker.platform-rate-limit.enabled=true")
+				.run(context -> {
+					assertThat(context).hasSingleBean(PlatformRateLimitInterceptor.class);
+					assertThat(context).doesNotHaveBean(PlatformRateLimitWebFilter.class);
+				});
+	}
+
+	@Test
+	void webFilterIsAppliedToReactiveApplications() {
+		new ReactiveWebApplicationContextRunner()
+				.withConfiguration(CONFIGURATIONS)
+				.withPropertyValues("spring.cloud.openservicebroker.platform-rate-limit.enabled=true")
+				.run(context -> {
+					assertThat(context).hasSingleBean(PlatformRateLimitWebFilter.class);
+					assertThat(context).doesNotHaveBean(PlatformRateLimitInterceptor.class);
+				});
+	}
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.admission.PriorityDispatcher;
+import org.springframework.cloud.servicebroker.service.admission.PriorityLane;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityDispatchAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(PriorityDispatchAutoConfiguration.class));
+
+	@Test
+	void dispatcherIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(PriorityDispatcher.class));
+	}
+
+	@Test
+	void dispatcherIsCreatedWithConfiguredWeights() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.priority-dispatch.enabled=true",
+						"spring.cloud.openservicebroker.priority-dispatch.weights.poll=8",
+						"spring.cloud.openservicebroker.priority-dispatch.weights.create=3")
+				.run(context -> {
+					assertThat(context).hasSingleBean(PriorityDispatcher.class);
+					PriorityDispatcher dispatcher = context.getBean(PriorityDispatcher.class);
+					assertThat(dispatcher.getWeight(PriorityLane.POLL)).isEqualTo(8);
+					assertThat(dispatcher.getWeight(PriorityLane.DELETE))
+							.isEqualTo(PriorityLane.DELETE.getDefaultWeight());
+					assertThat(dispatcher.getWeight(PriorityLane.CREATE)).isEqualTo(3);
+				});
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.BatchResult;
+import org.springframework.cloud.servicebroker.service.BulkServiceInstanceService;
+import org.springframework.cloud.servicebroker.service.ProvisioningBatchDispatcher;
+import org.springframework.cloud.servicebroker.service.admission.Bulkheads;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProvisioningBatchAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(ProvisioningBatchAutoConfiguration.class));
+
+	@Test
+	void dispatcherIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.withUserConfiguration(BulkServiceConfiguration.class)
+				.run(context -> assertThat(context).doesNotHaveBean(ProvisioningBatchDispatcher.class));
+	}
+
+	@Test
+	void dispatcherIsNotCreatedWithoutBulkService() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.provisioning-batch.enabled=true")
+				.run(context -> assertThat(context).doesNotHaveBean(ProvisioningBatchDispatcher.class));
+	}
+
+	@Test
+	void dispatcherIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withUserConfiguration(BulkServiceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.provisioning-batch.enabled=true",
+						"spring.cloud.openservicebroker.provisioning-batch.window=50ms")
+				.run(context -> assertThat(context).hasSingleBean(ProvisioningBatchDispatcher.class));
+	}
+
+	@Test
+	void batchesRunInTheirBulkheadLaneWhenBulkheadsAreEnabled() {
+		this.contextRunner
+				.withConfiguration(AutoConfigurations.of(BulkheadAutoConfiguration.class))
+				.withUserConfiguration(BulkServiceConfiguration.class)
+				.withPropertyValues("spring.cloud.openservicebroker.provisioning-batch.enabled=true",
+						"spring.cloud.openservicebroker.bulkhead.enabled=true")
+				.run(context -> {
+					CreateServiceInstanceResponse response = context.getBean(ProvisioningBatchDispatcher.class)
+							.createServiceInstance(CreateServiceInstanceRequest.builder()
+									.serviceDefinitionId("service")
+									.serviceInstanceId("instance")
+									.build())
+							.block(Duration.ofSeconds(5));
+
+					assertThat(response.getOperation()).startsWith("bulkhead-" + Bulkheads.DEFAULT_LANE);
+					assertThat(context.getBean(Bulkheads.class).getLaneNames())
+							.containsExactly(Bulkheads.DEFAULT_LANE);
+				});
+	}
+
+	@TestConfiguration
+	protected static class BulkServiceConfiguration {
+
+		@Bean
+		public BulkServiceInstanceService bulkServiceInstanceService() {
+			return new BulkServiceInstanceService() {
+
+				@Override
+				public Mono<Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>>>
+						createServiceInstances(List<CreateServiceInstanceRequest> requests) {
+					return Mono.fromCallable(() -> requests.stream()
+							.collect(Collectors.toMap(Function.identity(), request -> BatchResult.of(
+									CreateServiceInstanceResponse.builder()
+											.operation(Thread.currentThread().getName())
+											.build()))));
+				}
+
+				@Override
+				public Mono<Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>>>
+						deleteServiceInstances(List<DeleteServiceInstanceRequest> requests) {
+					return Mono.just(Collections.emptyMap());
+				}
+
+				@Override
+				public Mono<CreateServiceInstanceResponse> createServiceInstance(
+						CreateServiceInstanceRequest request) {
+					return Mono.empty();
+				}
+
+				@Override
+				public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(
+						DeleteServiceInstanceRequest request) {
+					return Mono.empty();
+				}
+
+			};
+		}
+
+	}
+
+}
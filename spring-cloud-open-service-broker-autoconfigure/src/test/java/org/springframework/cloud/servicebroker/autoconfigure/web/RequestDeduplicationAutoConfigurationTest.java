@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.cloud.servicebroker.service.RequestDeduplicator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestDeduplicationAutoConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+			.withConfiguration(AutoConfigurations.of(RequestDeduplicationAutoConfiguration.class));
+
+	@Test
+	void deduplicatorIsNotCreatedUnlessEnabled() {
+		this.contextRunner
+				.run(context -> assertThat(context).doesNotHaveBean(RequestDeduplicator.class));
+	}
+
+	@Test
+	void deduplicatorIsCreatedWhenEnabled() {
+		this.contextRunner
+				.withPropertyValues("spring.cloud.openservicebroker.request-deduplication.enabled=true",
+						"spring.cloud.openservicebroker.request-deduplication.time-to-live=5m",
+						"spring.cloud.openservicebroker.request-deduplication.maximum-size=100")
+				.run(context -> assertThat(context).hasSingleBean(RequestDeduplicator.class));
+	}
+
+}
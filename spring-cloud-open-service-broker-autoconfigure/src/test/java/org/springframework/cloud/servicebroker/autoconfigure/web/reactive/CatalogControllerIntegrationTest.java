@@ -34,6 +34,7 @@ import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.Schemas;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -77,6 +78,36 @@ class CatalogControllerIntegrationTest {
 		assertCatalog("/123/v2/catalog");
 	}
 
+	@Test
+	void catalogIsNotModifiedWhenETagMatches() {
+		String eTag = client.get().uri("/v2/catalog")
+				.accept(MediaType.APPLICATION_JSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().exists(HttpHeaders.ETAG)
+				.returnResult(String.class)
+				.getResponseHeaders().getETag();
+
+		client.get().uri("/v2/catalog")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.IF_NONE_MATCH, eTag)
+				.exchange()
+				.expectStatus().isNotModified()
+				.expectHeader().valueEquals(HttpHeaders.ETAG, eTag)
+				.expectBody().isEmpty();
+	}
+
+	@Test
+	void catalogIsCompressedWhenGzipIsAccepted() {
+		client.get().uri("/v2/catalog")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+				.exchange()
+				.expectStatus().isOk()
+				.expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+				.expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON);
+	}
+
 	private void assertCatalog(final String uri) {
 		List<Plan> plans = serviceDefinition.getPlans();
 		Schemas schemas = plans.get(1).getSchemas();
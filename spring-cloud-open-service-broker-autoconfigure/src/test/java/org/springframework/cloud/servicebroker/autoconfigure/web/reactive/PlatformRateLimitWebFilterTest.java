@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.reactive;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlatformRateLimitWebFilterTest {
+
+	private static final WebFilterChain COMPLETING_CHAIN = exchange -> Mono.empty();
+
+	@Test
+	void requestsBeyondTheRateOfThePlatformInstanceAreRejectedWithTooManyRequests() {
+		PlatformRateLimiter limiter = limiter(1, 10);
+		PlatformRateLimitWebFilter webFilter = new PlatformRateLimitWebFilter(limiter);
+		MockServerWebExchange first = MockServerWebExchange.from(MockServerHttpRequest.get("/cf-east/v2/catalog"));
+		MockServerWebExchange second = MockServerWebExchange.from(MockServerHttpRequest.get("/cf-east/v2/catalog"));
+
+		webFilter.filter(first, COMPLETING_CHAIN).block();
+		webFilter.filter(second, COMPLETING_CHAIN).block();
+
+		assertThat(first.getResponse().getStatusCode()).isNull();
+		assertThat(second.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+		assertThat(second.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(second.getResponse().getBodyAsString().block()).contains("request rate limit exceeded");
+		assertThat(limiter.getRateLimitedCount("platform:cf-east")).isEqualTo(1);
+		assertThat(limiter.getInFlightCount("platform:cf-east")).isZero();
+	}
+
+	@Test
+	void requestsBeyondTheConcurrencyAreRejectedWithServiceUnavailable() {
+		PlatformRateLimiter limiter = limiter(10, 1);
+		PlatformRateLimitWebFilter webFilter = new PlatformRateLimitWebFilter(limiter);
+		MockServerWebExchange rejected = MockServerWebExchange.from(MockServerHttpRequest.get("/v2/catalog"));
+		Disposable inFlight = webFilter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/v2/catalog")),
+				exchange -> Mono.never()).subscribe();
+
+		webFilter.filter(rejected, COMPLETING_CHAIN).block();
+
+		assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+		inFlight.dispose();
+		assertThat(limiter.getInFlightCount(PlatformRateLimiter.ANONYMOUS_KEY)).isZero();
+	}
+
+	@Test
+	void requestsOutsideTheServiceBrokerApiAreNotLimited() {
+		PlatformRateLimiter limiter = limiter(1, 1);
+		PlatformRateLimitWebFilter webFilter = new PlatformRateLimitWebFilter(limiter);
+
+		webFilter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/actuator/health")), COMPLETING_CHAIN)
+				.block();
+
+		assertThat(limiter.getPlatformKeys()).isEmpty();
+	}
+
+	private static PlatformRateLimiter limiter(int burst, int maxConcurrent) {
+		return new PlatformRateLimiter(1, burst, maxConcurrent, 10, Duration.ofMinutes(1), Duration.ofSeconds(7),
+				Clock.fixed(Instant.parse("2022-01-01T00:00:00Z"), ZoneOffset.UTC));
+	}
+
+}
@@ -24,6 +24,8 @@ import org.springframework.boot.test.context.runner.ReactiveWebApplicationContex
 import org.springframework.cloud.servicebroker.autoconfigure.web.AbstractServiceBrokerWebAutoConfigurationTest;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.ServiceInstanceServiceBeanDoesNotExistException;
 import org.springframework.cloud.servicebroker.controller.CatalogController;
+import org.springframework.cloud.servicebroker.controller.CatalogResponseCache;
+import org.springframework.cloud.servicebroker.controller.OriginatingIdentityParser;
 import org.springframework.cloud.servicebroker.controller.ServiceBrokerWebFluxExceptionHandler;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
@@ -46,6 +48,8 @@ class ServiceBrokerWebFluxAutoConfigurationTest extends AbstractServiceBrokerWeb
 				.run(context -> assertThat(context).hasSingleBean(CatalogController.class)
 						.hasSingleBean(ServiceInstanceController.class)
 						.hasSingleBean(ServiceInstanceBindingController.class)
+						.hasSingleBean(OriginatingIdentityParser.class)
+						.hasSingleBean(CatalogResponseCache.class)
 						.hasSingleBean(ServiceBrokerWebFluxExceptionHandler.class));
 	}
 
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.autoconfigure.web.servlet;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import javax.servlet.DispatcherType;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.service.admission.PlatformRateLimiter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PlatformRateLimitInterceptorTest {
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@Test
+	void permitOfPlatformInstanceIsReleasedAfterCompletion() {
+		PlatformRateLimiter limiter = limiter(10, 10);
+		PlatformRateLimitInterceptor interceptor = new PlatformRateLimitInterceptor(limiter);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cf-east/v2/catalog");
+		request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+				Collections.singletonMap("platformInstanceId", "cf-east"));
+
+		assertThat(interceptor.preHandle(request, this.response, null)).isTrue();
+		assertThat(limiter.getInFlightCount("platform:cf-east")).isEqualTo(1);
+
+		request.setDispatcherType(DispatcherType.ASYNC);
+		assertThat(interceptor.preHandle(request, this.response, null)).isTrue();
+		interceptor.afterCompletion(request, this.response, null, null);
+		assertThat(limiter.getInFlightCount("platform:cf-east")).isZero();
+		assertThat(limiter.getAdmittedCount("platform:cf-east")).isEqualTo(1);
+	}
+
+	@Test
+	void requestsBeyondTheRateOfTheOriginatingIdentityAreRejected() {
+		PlatformRateLimitInterceptor interceptor = new PlatformRateLimitInterceptor(limiter(1, 10));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/catalog");
+		request.addHeader(ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER, "cloudfoundry eyJ1c2VyX2lkIjoiMSJ9");
+		interceptor.preHandle(request, this.response, null);
+		interceptor.afterCompletion(request, this.response, null, null);
+
+		assertThatExceptionOfType(ServiceBrokerRateLimitedException.class)
+				.isThrownBy(() -> interceptor.preHandle(request, this.response, null));
+	}
+
+	@Test
+	void requestsBeyondTheConcurrencyOfThePrincipalAreRejected() {
+		PlatformRateLimiter limiter = limiter(10, 1);
+		PlatformRateLimitInterceptor interceptor = new PlatformRateLimitInterceptor(limiter);
+		MockHttpServletRequest first = new MockHttpServletRequest("GET", "/v2/catalog");
+		first.setUserPrincipal(() -> "broker-user");
+		MockHttpServletRequest second = new MockHttpServletRequest("GET", "/v2/catalog");
+		second.setUserPrincipal(() -> "broker-user");
+		interceptor.preHandle(first, this.response, null);
+
+		assertThatExceptionOfType(ServiceBrokerOverloadedException.class)
+				.isThrownBy(() -> interceptor.preHandle(second, this.response, null));
+		assertThat(limiter.getConcurrencyLimitedCount("principal:broker-user")).isEqualTo(1);
+	}
+
+	private static PlatformRateLimiter limiter(int burst, int maxConcurrent) {
+		return new PlatformRateLimiter(1, burst, maxConcurrent, 10, Duration.ofMinutes(1), Duration.ofSeconds(7),
+				Clock.fixed(Instant.parse("2022-01-01T00:00:00Z"), ZoneOffset.UTC));
+	}
+
+}
@@ -25,6 +25,8 @@ import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 import org.springframework.cloud.servicebroker.autoconfigure.web.AbstractServiceBrokerWebAutoConfigurationTest;
 import org.springframework.cloud.servicebroker.autoconfigure.web.exception.ServiceInstanceServiceBeanDoesNotExistException;
 import org.springframework.cloud.servicebroker.controller.CatalogController;
+import org.springframework.cloud.servicebroker.controller.CatalogResponseCache;
+import org.springframework.cloud.servicebroker.controller.OriginatingIdentityParser;
 import org.springframework.cloud.servicebroker.controller.ServiceBrokerWebMvcExceptionHandler;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceBindingController;
 import org.springframework.cloud.servicebroker.controller.ServiceInstanceController;
@@ -47,6 +49,8 @@ class ServiceBrokerWebMvcAutoConfigurationTest extends AbstractServiceBrokerWebA
 				.run(context -> assertThat(context).hasSingleBean(CatalogController.class)
 						.hasSingleBean(ServiceInstanceController.class)
 						.hasSingleBean(ServiceInstanceBindingController.class)
+						.hasSingleBean(OriginatingIdentityParser.class)
+						.hasSingleBean(CatalogResponseCache.class)
 						.hasSingleBean(ServiceBrokerWebMvcExceptionHandler.class));
 	}
 
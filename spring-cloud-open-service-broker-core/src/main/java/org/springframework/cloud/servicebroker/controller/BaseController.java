@@ -16,30 +16,22 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
-import java.io.IOException;
-import java.util.Map;
+import java.time.Duration;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
 import org.springframework.cloud.servicebroker.exception.ServiceDefinitionDoesNotExistException;
 import org.springframework.cloud.servicebroker.exception.ServiceDefinitionPlanDoesNotExistException;
 import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
-import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
 import org.springframework.cloud.servicebroker.model.Context;
-import org.springframework.cloud.servicebroker.model.KubernetesContext;
-import org.springframework.cloud.servicebroker.model.PlatformContext;
 import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
-import org.springframework.util.Base64Utils;
 
 /**
  * Base functionality shared by controllers.
@@ -50,17 +42,29 @@ import org.springframework.util.Base64Utils;
  */
 public class BaseController {
 
-	private static final int ORIGINATING_IDENTITY_HEADER_PARTS = 2;
-
 	protected CatalogService catalogService;
 
+	private final OriginatingIdentityParser originatingIdentityParser;
+
 	/**
 	 * Construct a new {@link BaseController}
 	 *
 	 * @param catalogService the catalog service
 	 */
 	public BaseController(CatalogService catalogService) {
+		this(catalogService, null);
+	}
+
+	/**
+	 * Construct a new {@link BaseController}
+	 *
+	 * @param catalogService the catalog service
+	 * @param originatingIdentityParser the originating identity parser, or {@literal null} for a private one
+	 */
+	public BaseController(CatalogService catalogService, OriginatingIdentityParser originatingIdentityParser) {
 		this.catalogService = catalogService;
+		this.originatingIdentityParser = (originatingIdentityParser == null) ? new OriginatingIdentityParser() :
+				originatingIdentityParser;
 	}
 
 	/**
@@ -125,18 +129,18 @@ public class BaseController {
 	}
 
 	/**
-	 * Find the Plan for the Service Definition and Plan ID, or empty if not found.
+	 * Find the Plan for the Service Definition and Plan ID, or empty if not found. The plan is looked up in the
+	 * {@link CatalogService}, which implementations backed by a fixed catalog index by plan ID.
 	 *
 	 * @param serviceDefinition the Service Definition
 	 * @param planId the plan ID
 	 * @return the Plan
 	 */
 	protected Mono<Plan> getServiceDefinitionPlan(ServiceDefinition serviceDefinition, String planId) {
-		return Mono.justOrEmpty(serviceDefinition)
-				.flatMap(serviceDef -> Mono.justOrEmpty(serviceDef.getPlans())
-						.flatMap(plans -> Flux.fromIterable(plans)
-								.filter(plan -> plan.getId().equals(planId))
-								.singleOrEmpty()));
+		if (serviceDefinition == null) {
+			return Mono.empty();
+		}
+		return catalogService.getPlan(serviceDefinition.getId(), planId);
 	}
 
 	/**
@@ -158,65 +162,7 @@ public class BaseController {
 	 * @return the Context
 	 */
 	protected Context parseOriginatingIdentity(String originatingIdentityString) {
-		if (originatingIdentityString == null) {
-			return null;
-		}
-
-		String[] parts = splitOriginatingIdentityHeaderParts(originatingIdentityString);
-		String encodedProperties = decodeOriginatingIdentityHeader(parts[1]);
-		Map<String, Object> properties = parseOriginatingIdentityHeader(encodedProperties);
-		String platform = parts[0];
-
-		if (CloudFoundryContext.CLOUD_FOUNDRY_PLATFORM.equals(platform)) {
-			return CloudFoundryContext.builder()
-					.properties(properties)
-					.build();
-		}
-		else if (KubernetesContext.KUBERNETES_PLATFORM.equals(platform)) {
-			return KubernetesContext.builder()
-					.properties(properties)
-					.build();
-		}
-		else {
-			return PlatformContext.builder()
-					.platform(platform)
-					.properties(properties)
-					.build();
-		}
-	}
-
-	private String[] splitOriginatingIdentityHeaderParts(String header) {
-		String[] parts = header.split(" ", ORIGINATING_IDENTITY_HEADER_PARTS);
-		if (parts.length != ORIGINATING_IDENTITY_HEADER_PARTS) {
-			throw new ServiceBrokerInvalidOriginatingIdentityException("Expected platform and properties values in "
-					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request");
-		}
-		return parts;
-	}
-
-	private String decodeOriginatingIdentityHeader(String encodedProperties) {
-		try {
-			return new String(Base64Utils.decode(encodedProperties.getBytes()));
-		}
-		catch (IllegalArgumentException e) {
-			throw new ServiceBrokerInvalidOriginatingIdentityException("Error decoding JSON properties from "
-					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request", e);
-		}
-	}
-
-	private Map<String, Object> parseOriginatingIdentityHeader(String encodedProperties) {
-		try {
-			return readJsonFromString(encodedProperties);
-		}
-		catch (IOException e) {
-			throw new ServiceBrokerInvalidOriginatingIdentityException("Error parsing JSON properties from "
-					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request", e);
-		}
-	}
-
-	private Map<String, Object> readJsonFromString(String value) throws IOException {
-		ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
-		return objectMapper.readValue(value, new TypeReference<Map<String, Object>>() {});
+		return this.originatingIdentityParser.parse(originatingIdentityString);
 	}
 
 	/**
@@ -232,4 +178,21 @@ public class BaseController {
 		return HttpStatus.OK;
 	}
 
+	/**
+	 * If an operation is in progress and a retry interval is provided, then return a {@literal Retry-After} header
+	 * with the interval in whole seconds, rounded up
+	 *
+	 * @param state the state of the operation
+	 * @param retryAfter how long the platform should wait before polling again, or {@literal null}
+	 * @return the HTTP headers
+	 */
+	protected HttpHeaders getLastOperationHeaders(OperationState state, Duration retryAfter) {
+		HttpHeaders headers = new HttpHeaders();
+		if (OperationState.IN_PROGRESS.equals(state) && retryAfter != null && !retryAfter.isNegative()) {
+			long seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1 : 0);
+			headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+		}
+		return headers;
+	}
+
 }
@@ -23,7 +23,10 @@ import reactor.core.publisher.Mono;
 import org.springframework.cloud.servicebroker.annotation.ServiceBrokerRestController;
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
 import org.springframework.cloud.servicebroker.service.CatalogService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 /**
  * Provide endpoints for the catalog API.
@@ -38,21 +41,49 @@ public class CatalogController extends BaseController {
 
 	private static final Logger LOG = LoggerFactory.getLogger(CatalogController.class);
 
+	private final CatalogResponseCache catalogResponseCache;
+
 	/**
 	 * Construct a new {@link CatalogController}
 	 *
 	 * @param service the catalog service
 	 */
 	public CatalogController(CatalogService service) {
+		this(service, null);
+	}
+
+	/**
+	 * Construct a new {@link CatalogController}
+	 *
+	 * @param service the catalog service
+	 * @param catalogResponseCache the catalog response cache, or {@literal null} for a private one
+	 */
+	public CatalogController(CatalogService service, CatalogResponseCache catalogResponseCache) {
 		super(service);
+		this.catalogResponseCache = (catalogResponseCache == null) ? new CatalogResponseCache() :
+				catalogResponseCache;
 	}
 
 	/**
 	 * REST controller for getting a catalog
 	 *
-	 * @return the catalog
+	 * @param ifNoneMatch the ETags of catalogs already held by the platform
+	 * @param acceptEncoding the content encodings accepted by the platform
+	 * @return the serialized catalog, or an empty response if the platform's copy is current
 	 */
 	@GetMapping({"/v2/catalog", "{platformInstanceId}/v2/catalog"})
+	public Mono<ResponseEntity<byte[]>> getCatalogResponse(
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		return getCatalog()
+				.map(catalog -> catalogResponseCache.getResponse(catalog, ifNoneMatch, acceptEncoding));
+	}
+
+	/**
+	 * Get the catalog from the catalog service
+	 *
+	 * @return the catalog
+	 */
 	public Mono<Catalog> getCatalog() {
 		return catalogService.getCatalog()
 				.doOnRequest(v -> LOG.info("Retrieving catalog"))
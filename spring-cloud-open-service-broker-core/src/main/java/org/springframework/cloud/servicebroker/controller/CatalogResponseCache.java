@@ -0,0 +1,351 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.controller;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * Holds the serialized form of the {@link Catalog} returned by the catalog endpoint.
+ *
+ * <p>
+ * The catalog is serialized to JSON once, together with a gzip compressed copy and a strong ETag computed from the
+ * SHA-256 hash of the JSON. The gzip compressed copy has an ETag of its own, with a {@literal -gzip} suffix, since
+ * strong validators must differ between content codings. When the
+ * {@link org.springframework.cloud.servicebroker.service.CatalogService} returns a different {@link Catalog}
+ * instance, the catalog is serialized again, but the compressed copy and the ETags are rebuilt only if the JSON has
+ * changed. {@link #invalidate()} discards the cached form. Requests with an {@literal If-None-Match} header matching
+ * the ETag of the selected content coding are answered with {@literal 304 Not Modified}.
+ */
+public class CatalogResponseCache {
+
+	private static final String GZIP = "gzip";
+
+	private static final String WEAK_PREFIX = "W/";
+
+	private static final String ANY_TAG = "*";
+
+	private static final String GZIP_SUFFIX = "-gzip";
+
+	private final ObjectMapper objectMapper;
+
+	private final AtomicReference<SerializedCatalog> serializedCatalog = new AtomicReference<>();
+
+	private final AtomicLong rebuildCount = new AtomicLong();
+
+	private final AtomicLong notModifiedCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link CatalogResponseCache} with a default {@link ObjectMapper}
+	 */
+	public CatalogResponseCache() {
+		this(Jackson2ObjectMapperBuilder.json().build());
+	}
+
+	/**
+	 * Construct a new {@link CatalogResponseCache}
+	 *
+	 * @param objectMapper the object mapper used to serialize the catalog
+	 */
+	public CatalogResponseCache(ObjectMapper objectMapper) {
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Build the catalog response, serializing the catalog only if it has changed since the last call
+	 *
+	 * @param catalog the catalog
+	 * @param ifNoneMatch the value of the {@literal If-None-Match} request header, or {@literal null}
+	 * @param acceptEncoding the value of the {@literal Accept-Encoding} request header, or {@literal null}
+	 * @return the response
+	 */
+	public ResponseEntity<byte[]> getResponse(Catalog catalog, String ifNoneMatch, String acceptEncoding) {
+		SerializedCatalog serialized = getSerializedCatalog(catalog);
+		boolean gzip = acceptsGzip(acceptEncoding);
+		String eTag = gzip ? serialized.getGzipETag() : serialized.getETag();
+		if (matches(ifNoneMatch, eTag)) {
+			this.notModifiedCount.incrementAndGet();
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(eTag)
+					.varyBy(HttpHeaders.ACCEPT_ENCODING)
+					.build();
+		}
+		if (gzip) {
+			return ResponseEntity.ok()
+					.eTag(eTag)
+					.varyBy(HttpHeaders.ACCEPT_ENCODING)
+					.contentType(MediaType.APPLICATION_JSON)
+					.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+					.body(serialized.getGzipBody());
+		}
+		return ResponseEntity.ok()
+				.eTag(serialized.getETag())
+				.varyBy(HttpHeaders.ACCEPT_ENCODING)
+				.contentType(MediaType.APPLICATION_JSON)
+				.body(serialized.getBody());
+	}
+
+	/**
+	 * The strong ETag of the uncompressed catalog, serializing the catalog only if it has changed since the last call
+	 *
+	 * @param catalog the catalog
+	 * @return the quoted ETag
+	 */
+	public String getETag(Catalog catalog) {
+		return getSerializedCatalog(catalog).getETag();
+	}
+
+	/**
+	 * The serialized JSON of the catalog, serializing the catalog only if it has changed since the last call
+	 *
+	 * @param catalog the catalog
+	 * @return a read-only view of the JSON
+	 */
+	public ByteBuffer getBody(Catalog catalog) {
+		return ByteBuffer.wrap(getSerializedCatalog(catalog).getBody()).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Discard the cached form of the catalog, so that it is serialized again on the next request. This can be used
+	 * when a {@link Catalog} instance has been modified in place.
+	 */
+	public void invalidate() {
+		this.serializedCatalog.set(null);
+	}
+
+	/**
+	 * The number of times the cached form has been rebuilt because the serialized catalog changed
+	 *
+	 * @return the rebuild count
+	 */
+	public long getRebuildCount() {
+		return this.rebuildCount.get();
+	}
+
+	/**
+	 * The number of requests answered with {@literal 304 Not Modified}
+	 *
+	 * @return the not modified count
+	 */
+	public long getNotModifiedCount() {
+		return this.notModifiedCount.get();
+	}
+
+	private SerializedCatalog getSerializedCatalog(Catalog catalog) {
+		SerializedCatalog current = this.serializedCatalog.get();
+		if (current != null && current.isFor(catalog)) {
+			return current;
+		}
+		byte[] body = serialize(catalog);
+		if (current != null && current.hasBody(body)) {
+			SerializedCatalog unchanged = current.withCatalog(catalog);
+			this.serializedCatalog.set(unchanged);
+			return unchanged;
+		}
+		SerializedCatalog rebuilt = SerializedCatalog.of(catalog, body);
+		this.rebuildCount.incrementAndGet();
+		this.serializedCatalog.set(rebuilt);
+		return rebuilt;
+	}
+
+	private byte[] serialize(Catalog catalog) {
+		try {
+			return this.objectMapper.writeValueAsBytes(catalog);
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalStateException("Error serializing catalog", e);
+		}
+	}
+
+	private static boolean matches(String ifNoneMatch, String eTag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String tag : ifNoneMatch.split(",")) {
+			String candidate = tag.trim();
+			if (candidate.startsWith(WEAK_PREFIX)) {
+				candidate = candidate.substring(WEAK_PREFIX.length());
+			}
+			if (ANY_TAG.equals(candidate) || eTag.equals(candidate)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.split(";");
+			if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+				return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * An immutable serialized form of a {@link Catalog}
+	 */
+	private static final class SerializedCatalog {
+
+		private final Catalog catalog;
+
+		private final byte[] body;
+
+		private final byte[] gzipBody;
+
+		private final String eTag;
+
+		private final String gzipETag;
+
+		private SerializedCatalog(Catalog catalog, byte[] body, byte[] gzipBody, String eTag, String gzipETag) {
+			this.catalog = catalog;
+			this.body = body;
+			this.gzipBody = gzipBody;
+			this.eTag = eTag;
+			this.gzipETag = gzipETag;
+		}
+
+		/**
+		 * Compress and hash the JSON form of a catalog
+		 *
+		 * @param catalog the catalog
+		 * @param body the JSON form of the catalog
+		 * @return the serialized catalog
+		 */
+		public static SerializedCatalog of(Catalog catalog, byte[] body) {
+			String hash = hash(body);
+			return new SerializedCatalog(catalog, body, gzip(body), "\"" + hash + "\"",
+					"\"" + hash + GZIP_SUFFIX + "\"");
+		}
+
+		/**
+		 * The same serialized form for another catalog instance with the same JSON form
+		 *
+		 * @param catalog the catalog
+		 * @return the serialized catalog
+		 */
+		public SerializedCatalog withCatalog(Catalog catalog) {
+			return new SerializedCatalog(catalog, this.body, this.gzipBody, this.eTag, this.gzipETag);
+		}
+
+		/**
+		 * Whether the JSON form of the catalog is equal to the given JSON
+		 *
+		 * @param body the JSON
+		 * @return true if the JSON is equal
+		 */
+		public boolean hasBody(byte[] body) {
+			return Arrays.equals(this.body, body);
+		}
+
+		/**
+		 * Whether this is the serialized form of the given catalog instance
+		 *
+		 * @param catalog the catalog
+		 * @return true if the catalog is the same instance
+		 */
+		@SuppressWarnings("PMD.CompareObjectsWithEquals")
+		public boolean isFor(Catalog catalog) {
+			return this.catalog == catalog;
+		}
+
+		/**
+		 * The JSON form of the catalog. Callers must not modify the returned array.
+		 *
+		 * @return the JSON
+		 */
+		@SuppressWarnings("PMD.MethodReturnsInternalArray")
+		public byte[] getBody() {
+			return this.body;
+		}
+
+		/**
+		 * The gzip compressed JSON form of the catalog. Callers must not modify the returned array.
+		 *
+		 * @return the compressed JSON
+		 */
+		@SuppressWarnings("PMD.MethodReturnsInternalArray")
+		public byte[] getGzipBody() {
+			return this.gzipBody;
+		}
+
+		/**
+		 * The quoted strong ETag of the JSON form
+		 *
+		 * @return the ETag
+		 */
+		public String getETag() {
+			return this.eTag;
+		}
+
+		/**
+		 * The quoted strong ETag of the gzip compressed JSON form
+		 *
+		 * @return the ETag
+		 */
+		public String getGzipETag() {
+			return this.gzipETag;
+		}
+
+		private static byte[] gzip(byte[] body) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+				gzip.write(body);
+			}
+			catch (IOException e) {
+				throw new IllegalStateException("Error compressing catalog", e);
+			}
+			return out.toByteArray();
+		}
+
+		private static String hash(byte[] body) {
+			try {
+				byte[] hash = MessageDigest.getInstance("SHA-256").digest(body);
+				return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+			}
+			catch (NoSuchAlgorithmException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+	}
+
+}
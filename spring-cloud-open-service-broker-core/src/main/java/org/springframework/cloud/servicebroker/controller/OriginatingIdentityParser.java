@@ -0,0 +1,318 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.KubernetesContext;
+import org.springframework.cloud.servicebroker.model.PlatformContext;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.Assert;
+import org.springframework.util.Base64Utils;
+
+/**
+ * Parses the {@literal X-Broker-API-Originating-Identity} header into a platform specific {@link Context}.
+ *
+ * <p>
+ * Platforms send the same identities over and over, so decoded identities are kept in a bounded, concurrent LRU cache
+ * keyed by the raw header value. The cache holds an immutable snapshot of the decoded properties, and every call
+ * returns a new {@link Context} built from that snapshot, so a request that modifies its context can never affect
+ * another request. Invalid headers are never cached.
+ */
+public class OriginatingIdentityParser {
+
+	/**
+	 * The default maximum number of decoded identities to cache
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+
+	private static final int ORIGINATING_IDENTITY_HEADER_PARTS = 2;
+
+	private static final int SEGMENTS = 16;
+
+	private static final TypeReference<Map<String, Object>> PROPERTIES_TYPE =
+			new TypeReference<Map<String, Object>>() {};
+
+	private final ObjectMapper objectMapper;
+
+	private final boolean cacheEnabled;
+
+	private final Segment[] segments;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link OriginatingIdentityParser} with the default cache size
+	 */
+	public OriginatingIdentityParser() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Construct a new {@link OriginatingIdentityParser}
+	 *
+	 * @param maximumSize the maximum number of decoded identities to cache, or {@literal 0} to disable caching
+	 */
+	public OriginatingIdentityParser(int maximumSize) {
+		Assert.isTrue(maximumSize >= 0, "maximumSize must not be negative");
+		this.objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		this.cacheEnabled = maximumSize > 0;
+		this.segments = new Segment[SEGMENTS];
+		int segmentSize = (maximumSize + SEGMENTS - 1) / SEGMENTS;
+		Arrays.setAll(this.segments, i -> new Segment(segmentSize, this.evictionCount));
+	}
+
+	/**
+	 * Populates a platform specific context from the originating identity
+	 *
+	 * @param originatingIdentityString identity of the user that initiated the request from the platform
+	 * @return the Context, or {@literal null} if no originating identity was provided
+	 */
+	public Context parse(String originatingIdentityString) {
+		if (originatingIdentityString == null) {
+			return null;
+		}
+		if (!this.cacheEnabled) {
+			this.missCount.incrementAndGet();
+			return decode(originatingIdentityString).toContext();
+		}
+
+		Segment segment = segmentFor(originatingIdentityString);
+		DecodedIdentity identity = segment.get(originatingIdentityString);
+		if (identity == null) {
+			this.missCount.incrementAndGet();
+			identity = decode(originatingIdentityString);
+			segment.put(originatingIdentityString, identity);
+		}
+		else {
+			this.hitCount.incrementAndGet();
+		}
+		return identity.toContext();
+	}
+
+	/**
+	 * The number of lookups answered from the cache
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * The number of lookups that required the header to be decoded
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * The number of decoded identities removed from the cache to make room for new ones
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * The number of decoded identities currently cached
+	 *
+	 * @return the cache size
+	 */
+	public int getCacheSize() {
+		int size = 0;
+		for (Segment segment : this.segments) {
+			size += segment.size();
+		}
+		return size;
+	}
+
+	private Segment segmentFor(String key) {
+		int hash = key.hashCode();
+		hash ^= hash >>> 16;
+		return this.segments[hash & (SEGMENTS - 1)];
+	}
+
+	private DecodedIdentity decode(String header) {
+		String[] parts = header.split(" ", ORIGINATING_IDENTITY_HEADER_PARTS);
+		if (parts.length != ORIGINATING_IDENTITY_HEADER_PARTS) {
+			throw new ServiceBrokerInvalidOriginatingIdentityException("Expected platform and properties values in "
+					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request");
+		}
+		return new DecodedIdentity(parts[0], readProperties(decodeProperties(parts[1])));
+	}
+
+	private byte[] decodeProperties(String encodedProperties) {
+		try {
+			return Base64Utils.decode(encodedProperties.getBytes(StandardCharsets.UTF_8));
+		}
+		catch (IllegalArgumentException e) {
+			throw new ServiceBrokerInvalidOriginatingIdentityException("Error decoding JSON properties from "
+					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request", e);
+		}
+	}
+
+	private Map<String, Object> readProperties(byte[] json) {
+		try {
+			return this.objectMapper.readValue(json, PROPERTIES_TYPE);
+		}
+		catch (IOException e) {
+			throw new ServiceBrokerInvalidOriginatingIdentityException("Error parsing JSON properties from "
+					+ ServiceBrokerRequest.ORIGINATING_IDENTITY_HEADER + " header in request", e);
+		}
+	}
+
+	/**
+	 * An immutable snapshot of a decoded originating identity header
+	 */
+	private static final class DecodedIdentity {
+
+		private final String platform;
+
+		private final Map<String, Object> properties;
+
+		@SuppressWarnings("unchecked")
+		private DecodedIdentity(String platform, Map<String, Object> properties) {
+			this.platform = platform;
+			this.properties = (Map<String, Object>) freeze(properties);
+		}
+
+		/**
+		 * Build a new {@link Context} from the snapshot
+		 *
+		 * @return the Context
+		 */
+		public Context toContext() {
+			if (CloudFoundryContext.CLOUD_FOUNDRY_PLATFORM.equals(this.platform)) {
+				return CloudFoundryContext.builder()
+						.properties(this.properties)
+						.build();
+			}
+			else if (KubernetesContext.KUBERNETES_PLATFORM.equals(this.platform)) {
+				return KubernetesContext.builder()
+						.properties(this.properties)
+						.build();
+			}
+			else {
+				return PlatformContext.builder()
+						.platform(this.platform)
+						.properties(this.properties)
+						.build();
+			}
+		}
+
+		@SuppressWarnings("unchecked")
+		private static Object freeze(Object value) {
+			if (value instanceof Map) {
+				Map<String, Object> copy = new LinkedHashMap<>();
+				((Map<String, Object>) value).forEach((k, v) -> copy.put(k, freeze(v)));
+				return Collections.unmodifiableMap(copy);
+			}
+			if (value instanceof List) {
+				List<Object> copy = new ArrayList<>();
+				((List<Object>) value).forEach(v -> copy.add(freeze(v)));
+				return Collections.unmodifiableList(copy);
+			}
+			return value;
+		}
+
+	}
+
+	/**
+	 * One lock stripe of the cache, holding entries in access order
+	 */
+	private static final class Segment {
+
+		private final Map<String, DecodedIdentity> entries;
+
+		private Segment(int maximumSize, AtomicLong evictionCount) {
+			this.entries = new LinkedHashMap<String, DecodedIdentity>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, DecodedIdentity> eldest) {
+					if (size() > maximumSize) {
+						evictionCount.incrementAndGet();
+						return true;
+					}
+					return false;
+				}
+
+			};
+		}
+
+		/**
+		 * Look up a decoded identity, marking it as recently used
+		 *
+		 * @param key the raw header value
+		 * @return the decoded identity, or {@literal null} if not cached
+		 */
+		public DecodedIdentity get(String key) {
+			synchronized (this.entries) {
+				return this.entries.get(key);
+			}
+		}
+
+		/**
+		 * Cache a decoded identity, evicting the least recently used entry if the segment is full
+		 *
+		 * @param key the raw header value
+		 * @param identity the decoded identity
+		 */
+		public void put(String key, DecodedIdentity identity) {
+			synchronized (this.entries) {
+				this.entries.put(key, identity);
+			}
+		}
+
+		/**
+		 * The number of cached entries in this segment
+		 *
+		 * @return the size
+		 */
+		public int size() {
+			synchronized (this.entries) {
+				return this.entries.size();
+			}
+		}
+
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
+import java.time.Duration;
+
 import org.slf4j.Logger;
 
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerApiVersionException;
@@ -30,6 +32,8 @@ import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOri
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidParametersException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerMaintenanceInfoConflictException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerUpdateOperationInProgressException;
 import org.springframework.cloud.servicebroker.exception.ServiceDefinitionDoesNotExistException;
@@ -41,7 +45,9 @@ import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsEx
 import org.springframework.cloud.servicebroker.exception.ServiceInstanceUpdateNotSupportedException;
 import org.springframework.cloud.servicebroker.model.error.ErrorMessage;
 import org.springframework.cloud.servicebroker.model.error.OperationInProgressMessage;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -221,6 +227,32 @@ public abstract class ServiceBrokerExceptionHandler {
 		return getErrorResponse(ex);
 	}
 
+	/**
+	 * Handle a {@link ServiceBrokerOverloadedException}, with a {@literal Retry-After} header with the retry interval
+	 * in whole seconds, rounded up
+	 *
+	 * @param ex the exception
+	 * @return an error message
+	 */
+	@ExceptionHandler(ServiceBrokerOverloadedException.class)
+	public ResponseEntity<ErrorMessage> handleException(ServiceBrokerOverloadedException ex) {
+		return new ResponseEntity<>(getErrorResponse(ex), getRetryAfterHeaders(ex.getRetryAfter()),
+				HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	/**
+	 * Handle a {@link ServiceBrokerRateLimitedException}, with a {@literal Retry-After} header with the retry interval
+	 * in whole seconds, rounded up
+	 *
+	 * @param ex the exception
+	 * @return an error message
+	 */
+	@ExceptionHandler(ServiceBrokerRateLimitedException.class)
+	public ResponseEntity<ErrorMessage> handleException(ServiceBrokerRateLimitedException ex) {
+		return new ResponseEntity<>(getErrorResponse(ex), getRetryAfterHeaders(ex.getRetryAfter()),
+				HttpStatus.TOO_MANY_REQUESTS);
+	}
+
 	/**
 	 * Handle a {@link ServiceBrokerConcurrencyException}
 	 *
@@ -373,6 +405,22 @@ public abstract class ServiceBrokerExceptionHandler {
 		return new ErrorMessage(message);
 	}
 
+	/**
+	 * Create the headers that ask the platform to retry a rejected request after the retry interval, in whole seconds,
+	 * rounded up
+	 *
+	 * @param retryAfter the retry interval, or {@literal null}
+	 * @return the headers
+	 */
+	protected HttpHeaders getRetryAfterHeaders(Duration retryAfter) {
+		HttpHeaders headers = new HttpHeaders();
+		if (retryAfter != null && !retryAfter.isNegative()) {
+			long seconds = retryAfter.getSeconds() + (retryAfter.getNano() > 0 ? 1 : 0);
+			headers.set(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+		}
+		return headers;
+	}
+
 	/**
 	 * Creates an error message for binding errors
 	 *
@@ -85,6 +85,20 @@ public class ServiceInstanceBindingController extends BaseController {
 		this.service = serviceInstanceBindingService;
 	}
 
+	/**
+	 * Construct a new {@link ServiceInstanceBindingController}
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param originatingIdentityParser the parser for the originating identity header
+	 */
+	public ServiceInstanceBindingController(CatalogService catalogService,
+			ServiceInstanceBindingService serviceInstanceBindingService,
+			OriginatingIdentityParser originatingIdentityParser) {
+		super(catalogService, originatingIdentityParser);
+		this.service = serviceInstanceBindingService;
+	}
+
 	/**
 	 * REST controller for creating a service instance binding
 	 *
@@ -262,6 +276,7 @@ public class ServiceInstanceBindingController extends BaseController {
 						.just(response.getState().equals(OperationState.SUCCEEDED) && response.isDeleteOperation())
 						.flatMap(isSuccessfulDelete ->
 								Mono.just(new ResponseEntity<>(response,
+										getLastOperationHeaders(response.getState(), response.getRetryAfter()),
 										isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK))));
 	}
 
@@ -87,6 +87,19 @@ public class ServiceInstanceController extends BaseController {
 		this.service = serviceInstanceService;
 	}
 
+	/**
+	 * Construct a new {@link ServiceInstanceController}
+	 *
+	 * @param catalogService the catalog service
+	 * @param serviceInstanceService the service instance service
+	 * @param originatingIdentityParser the parser for the originating identity header
+	 */
+	public ServiceInstanceController(CatalogService catalogService, ServiceInstanceService serviceInstanceService,
+			OriginatingIdentityParser originatingIdentityParser) {
+		super(catalogService, originatingIdentityParser);
+		this.service = serviceInstanceService;
+	}
+
 	/**
 	 * REST controller for creating a service instance
 	 *
@@ -249,7 +262,9 @@ public class ServiceInstanceController extends BaseController {
 				.map(response -> {
 					boolean isSuccessfulDelete = OperationState.SUCCEEDED.equals(response.getState()) && response
 							.isDeleteOperation();
-					return new ResponseEntity<>(response, isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK);
+					return new ResponseEntity<>(response,
+							getLastOperationHeaders(response.getState(), response.getRetryAfter()),
+							isSuccessfulDelete ? HttpStatus.GONE : HttpStatus.OK);
 				})
 				.onErrorResume(e -> {
 					if (e instanceof ServiceInstanceDoesNotExistException) {
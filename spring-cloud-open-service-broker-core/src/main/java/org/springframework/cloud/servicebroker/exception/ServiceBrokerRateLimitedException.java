@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.exception;
+
+import java.time.Duration;
+
+/**
+ * Thrown to indicate that a platform sent more requests than its rate limit allows, and that the request was rejected
+ * without processing it, so that the platform can retry the request later.
+ *
+ * <p>
+ * Throwing this exception will result in an HTTP status code {@literal 429 TOO MANY REQUESTS} being returned to the
+ * platform, with a {@literal Retry-After} header if a retry interval is provided.
+ */
+public class ServiceBrokerRateLimitedException extends ServiceBrokerException {
+
+	private static final long serialVersionUID = -1986524710470529136L;
+
+	private final Duration retryAfter;
+
+	/**
+	 * Construct an exception with the provided message and retry interval.
+	 *
+	 * @param message the exception message
+	 * @param retryAfter how long the platform should wait before retrying the request, or {@literal null}
+	 */
+	public ServiceBrokerRateLimitedException(String message, Duration retryAfter) {
+		super(message);
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * How long the platform should wait before retrying the request
+	 *
+	 * @return the retry interval, or {@literal null}
+	 */
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
+}
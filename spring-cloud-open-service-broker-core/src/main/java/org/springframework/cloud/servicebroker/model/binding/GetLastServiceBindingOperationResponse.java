@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.servicebroker.model.binding;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
@@ -47,6 +48,9 @@ public class GetLastServiceBindingOperationResponse {
 	@JsonIgnore
 	private final boolean deleteOperation;
 
+	@JsonIgnore
+	private final Duration retryAfter;
+
 	/**
 	 * Construct a new {@link GetLastServiceBindingOperationResponse}
 	 */
@@ -62,9 +66,23 @@ public class GetLastServiceBindingOperationResponse {
 	 * @param deleteOperation is delete operation
 	 */
 	public GetLastServiceBindingOperationResponse(OperationState state, String description, boolean deleteOperation) {
+		this(state, description, deleteOperation, null);
+	}
+
+	/**
+	 * Construct a new {@link GetLastServiceBindingOperationResponse}
+	 *
+	 * @param state the current state
+	 * @param description the description
+	 * @param deleteOperation is delete operation
+	 * @param retryAfter how long the platform should wait before polling again, or {@literal null}
+	 */
+	public GetLastServiceBindingOperationResponse(OperationState state, String description, boolean deleteOperation,
+			Duration retryAfter) {
 		this.state = state;
 		this.description = description;
 		this.deleteOperation = deleteOperation;
+		this.retryAfter = retryAfter;
 	}
 
 	/**
@@ -94,6 +112,15 @@ public class GetLastServiceBindingOperationResponse {
 		return this.deleteOperation;
 	}
 
+	/**
+	 * Get how long the platform should wait before polling the state of the operation again.
+	 *
+	 * @return the duration, or {@literal null} if not provided
+	 */
+	public Duration getRetryAfter() {
+		return this.retryAfter;
+	}
+
 	/**
 	 * Create a builder that provides a fluent API for constructing a {@literal GetLastServiceBindingOperationResponse}.
 	 *
@@ -114,12 +141,13 @@ public class GetLastServiceBindingOperationResponse {
 		GetLastServiceBindingOperationResponse that = (GetLastServiceBindingOperationResponse) o;
 		return deleteOperation == that.deleteOperation &&
 				state == that.state &&
-				Objects.equals(description, that.description);
+				Objects.equals(description, that.description) &&
+				Objects.equals(retryAfter, that.retryAfter);
 	}
 
 	@Override
 	public final int hashCode() {
-		return Objects.hash(state, description, deleteOperation);
+		return Objects.hash(state, description, deleteOperation, retryAfter);
 	}
 
 	@Override
@@ -128,6 +156,7 @@ public class GetLastServiceBindingOperationResponse {
 				"state=" + state +
 				", description='" + description + '\'' +
 				", deleteOperation=" + deleteOperation +
+				", retryAfter=" + retryAfter +
 				'}';
 	}
 
@@ -142,6 +171,8 @@ public class GetLastServiceBindingOperationResponse {
 
 		private boolean deleteOperation;
 
+		private Duration retryAfter;
+
 		private GetLastServiceBindingOperationResponseBuilder() {
 		}
 
@@ -198,13 +229,29 @@ public class GetLastServiceBindingOperationResponse {
 			return this;
 		}
 
+		/**
+		 * Set how long the platform should wait before polling the state of the operation again. Can be {@literal
+		 * null}.
+		 *
+		 * <p>
+		 * This value will set the {@literal Retry-After} header of the response to the platform if the {@link
+		 * #operationState(OperationState)} is {@link OperationState#IN_PROGRESS}.
+		 *
+		 * @param retryAfter the duration
+		 * @return the builder
+		 */
+		public GetLastServiceBindingOperationResponseBuilder retryAfter(Duration retryAfter) {
+			this.retryAfter = retryAfter;
+			return this;
+		}
+
 		/**
 		 * Construct a {@link GetLastServiceBindingOperationResponse} from the provided values.
 		 *
 		 * @return the newly constructed {@literal GetLastServiceOperationResponse}
 		 */
 		public GetLastServiceBindingOperationResponse build() {
-			return new GetLastServiceBindingOperationResponse(state, description, deleteOperation);
+			return new GetLastServiceBindingOperationResponse(state, description, deleteOperation, retryAfter);
 		}
 
 	}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Objects;
+
+import org.springframework.util.Assert;
+
+/**
+ * The outcome of one request in a batch: either the response to the request, or the error that failed it.
+ *
+ * @param <T> the type of the response
+ * @see BulkServiceInstanceService
+ */
+public final class BatchResult<T> {
+
+	private final T response;
+
+	private final Throwable error;
+
+	private BatchResult(T response, Throwable error) {
+		this.response = response;
+		this.error = error;
+	}
+
+	/**
+	 * A request that succeeded
+	 *
+	 * @param response the response to the request
+	 * @param <T> the type of the response
+	 * @return the result
+	 */
+	public static <T> BatchResult<T> of(T response) {
+		Assert.notNull(response, "response must not be null");
+		return new BatchResult<>(response, null);
+	}
+
+	/**
+	 * A request that failed
+	 *
+	 * @param error the error that failed the request, such as a
+	 * 	{@link org.springframework.cloud.servicebroker.exception.ServiceBrokerException}
+	 * @param <T> the type of the response
+	 * @return the result
+	 */
+	public static <T> BatchResult<T> error(Throwable error) {
+		Assert.notNull(error, "error must not be null");
+		return new BatchResult<>(null, error);
+	}
+
+	/**
+	 * The response to the request
+	 *
+	 * @return the response, or {@literal null} if the request failed
+	 */
+	public T getResponse() {
+		return this.response;
+	}
+
+	/**
+	 * The error that failed the request
+	 *
+	 * @return the error, or {@literal null} if the request succeeded
+	 */
+	public Throwable getError() {
+		return this.error;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof BatchResult)) {
+			return false;
+		}
+		BatchResult<?> that = (BatchResult<?>) o;
+		return Objects.equals(this.response, that.response) && Objects.equals(this.error, that.error);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.response, this.error);
+	}
+
+	@Override
+	public String toString() {
+		return "BatchResult{" +
+				"response=" + this.response +
+				", error=" + this.error +
+				'}';
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+
+/**
+ * This interface is optionally implemented by service brokers whose backend can report the status of the last
+ * operations of many service instances in a single call. Concurrent last operation requests are then collected by a
+ * {@link LastOperationBatchDispatcher} and passed to {@link #getLastOperations(List)} together.
+ */
+public interface BatchingServiceInstanceService extends ServiceInstanceService {
+
+	/**
+	 * Get the status of the last requested operations for several service instances.
+	 *
+	 * <p>
+	 * A request that is missing from the returned map is answered by
+	 * {@link #getLastOperation(GetLastServiceOperationRequest)} instead, for example to report that the service
+	 * instance is not known to the broker. An error fails every request in the batch.
+	 *
+	 * @param requests containing the details of the requests
+	 * @return the {@link GetLastServiceOperationResponse responses}, keyed by request
+	 */
+	Mono<Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse>> getLastOperations(
+			List<GetLastServiceOperationRequest> requests);
+
+}
@@ -16,24 +16,21 @@
 
 package org.springframework.cloud.servicebroker.service;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 
 /**
  * An implementation of the {@link CatalogService} that allows the {@link Catalog} to be specified as a Spring Bean.
+ * Service definitions and plans are indexed by ID once, when the service is constructed.
  *
  * @author sgreenberg@pivotal.io
  */
 public class BeanCatalogService implements CatalogService {
 
-	private final Catalog catalog;
-
-	private final Map<String, ServiceDefinition> serviceDefs = new HashMap<>();
+	private final CatalogIndex catalogIndex;
 
 	/**
 	 * Construct a service with the provided {@link Catalog bean}.
@@ -41,22 +38,27 @@ public class BeanCatalogService implements CatalogService {
 	 * @param catalog the {@link Catalog} bean
 	 */
 	public BeanCatalogService(Catalog catalog) {
-		this.catalog = catalog;
-		initializeMap();
-	}
-
-	private void initializeMap() {
-		catalog.getServiceDefinitions().forEach(def -> serviceDefs.put(def.getId(), def));
+		this.catalogIndex = new CatalogIndex(catalog);
 	}
 
 	@Override
 	public Mono<Catalog> getCatalog() {
-		return Mono.just(catalog);
+		return Mono.just(catalogIndex.getCatalog());
 	}
 
 	@Override
 	public Mono<ServiceDefinition> getServiceDefinition(final String serviceId) {
-		return Mono.justOrEmpty(serviceDefs.get(serviceId));
+		return Mono.justOrEmpty(catalogIndex.getServiceDefinition(serviceId));
+	}
+
+	@Override
+	public Mono<Plan> getPlan(String serviceId, String planId) {
+		return Mono.justOrEmpty(catalogIndex.getPlan(serviceId, planId));
+	}
+
+	@Override
+	public Mono<ServiceDefinitionPlan> getServiceDefinitionPlan(String planId) {
+		return Mono.justOrEmpty(catalogIndex.getServiceDefinitionPlan(planId));
 	}
 
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+
+/**
+ * This interface is optionally implemented by service brokers whose backend can create or delete many service
+ * instances in a single call. Concurrent create and delete requests for the same service offering are then collected
+ * by a {@link ProvisioningBatchDispatcher} and passed to {@link #createServiceInstances(List)} or
+ * {@link #deleteServiceInstances(List)} together.
+ *
+ * <p>
+ * Each request in a batch succeeds or fails on its own, with a {@link BatchResult}. A request that is missing from
+ * the returned map is dispatched on its own to {@link #createServiceInstance(CreateServiceInstanceRequest)} or
+ * {@link #deleteServiceInstance(DeleteServiceInstanceRequest)} instead. An error fails every request in the batch.
+ */
+public interface BulkServiceInstanceService extends ServiceInstanceService {
+
+	/**
+	 * Create (provision) several service instances of the same service offering.
+	 *
+	 * @param requests containing the details of the requests
+	 * @return the {@link BatchResult results}, keyed by request
+	 */
+	Mono<Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>>> createServiceInstances(
+			List<CreateServiceInstanceRequest> requests);
+
+	/**
+	 * Delete (deprovision) several service instances of the same service offering.
+	 *
+	 * @param requests containing the details of the requests
+	 * @return the {@link BatchResult results}, keyed by request
+	 */
+	Mono<Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>>> deleteServiceInstances(
+			List<DeleteServiceInstanceRequest> requests);
+
+}
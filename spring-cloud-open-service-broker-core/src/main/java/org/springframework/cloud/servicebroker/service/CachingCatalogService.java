@@ -0,0 +1,278 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link CatalogService} that caches the {@link Catalog} of another, typically remote, {@link CatalogService}.
+ *
+ * <p>
+ * The catalog is loaded from the delegate once and indexed, and service definitions and plans are then looked up in
+ * the cached index. A cached catalog older than the refresh-after duration is still served, while a new copy is
+ * loaded in the background. A cached catalog older than the time-to-live is served only if loading a new copy fails.
+ * Concurrent requests share a single load, so a cache miss results in exactly one call to the delegate. The delegate
+ * is subscribed on a separate scheduler, so that a delegate that blocks does not block the requests that trigger a
+ * background refresh.
+ */
+public class CachingCatalogService implements CatalogService {
+
+	private static final Logger LOG = LoggerFactory.getLogger(CachingCatalogService.class);
+
+	private final CatalogService delegate;
+
+	private final long timeToLiveMillis;
+
+	private final long refreshAfterMillis;
+
+	private final Clock clock;
+
+	private final Scheduler scheduler;
+
+	private final AtomicReference<CachedCatalog> cachedCatalog = new AtomicReference<>();
+
+	private final Object loadMonitor = new Object();
+
+	private final AtomicReference<Mono<CatalogIndex>> inFlightLoad = new AtomicReference<>();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong loadCount = new AtomicLong();
+
+	private final AtomicLong loadFailureCount = new AtomicLong();
+
+	private final AtomicLong staleCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link CachingCatalogService}
+	 *
+	 * @param delegate the catalog service to cache
+	 * @param timeToLive how long a loaded catalog is served without waiting for a new copy
+	 * @param refreshAfter how long a loaded catalog is served before a new copy is loaded in the background
+	 */
+	public CachingCatalogService(CatalogService delegate, Duration timeToLive, Duration refreshAfter) {
+		this(delegate, timeToLive, refreshAfter, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link CachingCatalogService}
+	 *
+	 * @param delegate the catalog service to cache
+	 * @param timeToLive how long a loaded catalog is served without waiting for a new copy
+	 * @param refreshAfter how long a loaded catalog is served before a new copy is loaded in the background
+	 * @param clock the clock used to determine the age of the cached catalog
+	 */
+	public CachingCatalogService(CatalogService delegate, Duration timeToLive, Duration refreshAfter, Clock clock) {
+		this(delegate, timeToLive, refreshAfter, clock, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Construct a new {@link CachingCatalogService}
+	 *
+	 * @param delegate the catalog service to cache
+	 * @param timeToLive how long a loaded catalog is served without waiting for a new copy
+	 * @param refreshAfter how long a loaded catalog is served before a new copy is loaded in the background
+	 * @param clock the clock used to determine the age of the cached catalog
+	 * @param scheduler the scheduler the delegate is subscribed on
+	 */
+	public CachingCatalogService(CatalogService delegate, Duration timeToLive, Duration refreshAfter, Clock clock,
+			Scheduler scheduler) {
+		Assert.notNull(delegate, "delegate must not be null");
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(),
+				"timeToLive must be positive");
+		Assert.isTrue(refreshAfter != null && !refreshAfter.isNegative() && refreshAfter.compareTo(timeToLive) <= 0,
+				"refreshAfter must not be negative or longer than timeToLive");
+		Assert.notNull(clock, "clock must not be null");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		this.delegate = delegate;
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.refreshAfterMillis = refreshAfter.toMillis();
+		this.clock = clock;
+		this.scheduler = scheduler;
+	}
+
+	@Override
+	public Mono<Catalog> getCatalog() {
+		return getCatalogIndex().map(CatalogIndex::getCatalog);
+	}
+
+	@Override
+	public Mono<ServiceDefinition> getServiceDefinition(String serviceId) {
+		return getCatalogIndex().flatMap(index -> Mono.justOrEmpty(index.getServiceDefinition(serviceId)));
+	}
+
+	@Override
+	public Mono<Plan> getPlan(String serviceId, String planId) {
+		return getCatalogIndex().flatMap(index -> Mono.justOrEmpty(index.getPlan(serviceId, planId)));
+	}
+
+	@Override
+	public Mono<ServiceDefinitionPlan> getServiceDefinitionPlan(String planId) {
+		return getCatalogIndex().flatMap(index -> Mono.justOrEmpty(index.getServiceDefinitionPlan(planId)));
+	}
+
+	/**
+	 * Discard the cached catalog, so that the next request loads a new copy from the delegate
+	 */
+	public void invalidate() {
+		this.cachedCatalog.set(null);
+	}
+
+	/**
+	 * The number of requests served from the cached catalog without waiting for a load
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * The number of times the catalog has been loaded from the delegate
+	 *
+	 * @return the load count
+	 */
+	public long getLoadCount() {
+		return this.loadCount.get();
+	}
+
+	/**
+	 * The number of loads from the delegate that failed
+	 *
+	 * @return the load failure count
+	 */
+	public long getLoadFailureCount() {
+		return this.loadFailureCount.get();
+	}
+
+	/**
+	 * The number of requests served from an expired catalog because loading a new copy failed
+	 *
+	 * @return the stale count
+	 */
+	public long getStaleCount() {
+		return this.staleCount.get();
+	}
+
+	private Mono<CatalogIndex> getCatalogIndex() {
+		return Mono.defer(() -> {
+			CachedCatalog cached = this.cachedCatalog.get();
+			if (cached == null) {
+				return load();
+			}
+			long age = this.clock.millis() - cached.getLoadedAt();
+			if (age < this.refreshAfterMillis) {
+				this.hitCount.incrementAndGet();
+				return Mono.just(cached.getIndex());
+			}
+			if (age < this.timeToLiveMillis) {
+				this.hitCount.incrementAndGet();
+				load().subscribe(index -> { }, e -> { });
+				return Mono.just(cached.getIndex());
+			}
+			return load()
+					.onErrorResume(e -> {
+						this.staleCount.incrementAndGet();
+						return Mono.just(cached.getIndex());
+					});
+		});
+	}
+
+	private Mono<CatalogIndex> load() {
+		Sinks.One<CatalogIndex> sink;
+		synchronized (this.loadMonitor) {
+			Mono<CatalogIndex> inFlight = this.inFlightLoad.get();
+			if (inFlight != null) {
+				return inFlight;
+			}
+			sink = Sinks.one();
+			this.inFlightLoad.set(sink.asMono());
+		}
+		this.loadCount.incrementAndGet();
+		Mono.defer(this.delegate::getCatalog)
+				.subscribeOn(this.scheduler)
+				.switchIfEmpty(Mono.error(() -> new IllegalStateException("CatalogService returned no catalog")))
+				.map(CatalogIndex::new)
+				.doOnError(e -> LOG.error("Error loading catalog. error=" + e.getMessage(), e))
+				.subscribe(index -> {
+					this.cachedCatalog.set(new CachedCatalog(index, this.clock.millis()));
+					completeLoad();
+					sink.tryEmitValue(index);
+				}, e -> {
+					this.loadFailureCount.incrementAndGet();
+					completeLoad();
+					sink.tryEmitError(e);
+				});
+		return sink.asMono();
+	}
+
+	private void completeLoad() {
+		synchronized (this.loadMonitor) {
+			this.inFlightLoad.set(null);
+		}
+	}
+
+	/**
+	 * An indexed catalog and the time it was loaded
+	 */
+	private static final class CachedCatalog {
+
+		private final CatalogIndex index;
+
+		private final long loadedAt;
+
+		private CachedCatalog(CatalogIndex index, long loadedAt) {
+			this.index = index;
+			this.loadedAt = loadedAt;
+		}
+
+		/**
+		 * The indexed catalog
+		 *
+		 * @return the index
+		 */
+		public CatalogIndex getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * The time the catalog was loaded, in milliseconds since the epoch
+		 *
+		 * @return the load time
+		 */
+		public long getLoadedAt() {
+			return this.loadedAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+/**
+ * Describes the difference between two versions of a {@link Catalog}, emitted when a reloadable catalog changes.
+ *
+ * @see ReloadableCatalogService#getChanges()
+ */
+public final class CatalogDiff {
+
+	private final Catalog previousCatalog;
+
+	private final Catalog currentCatalog;
+
+	private final Set<String> addedServiceDefinitionIds;
+
+	private final Set<String> removedServiceDefinitionIds;
+
+	private final Set<String> changedServiceDefinitionIds;
+
+	private final Set<String> addedPlanIds;
+
+	private final Set<String> removedPlanIds;
+
+	/**
+	 * Construct a new {@link CatalogDiff} by comparing two indexed catalogs
+	 *
+	 * @param previous the index of the previous catalog
+	 * @param current the index of the current catalog
+	 */
+	public CatalogDiff(CatalogIndex previous, CatalogIndex current) {
+		this.previousCatalog = previous.getCatalog();
+		this.currentCatalog = current.getCatalog();
+		this.addedServiceDefinitionIds = difference(current.getServiceDefinitions(), previous.getServiceDefinitions());
+		this.removedServiceDefinitionIds = difference(previous.getServiceDefinitions(),
+				current.getServiceDefinitions());
+		this.addedPlanIds = difference(current.getPlans(), previous.getPlans());
+		this.removedPlanIds = difference(previous.getPlans(), current.getPlans());
+		Set<String> changed = new LinkedHashSet<>();
+		current.getServiceDefinitions().forEach((id, serviceDefinition) -> {
+			ServiceDefinition previousServiceDefinition = previous.getServiceDefinition(id);
+			if (previousServiceDefinition != null && !previousServiceDefinition.equals(serviceDefinition)) {
+				changed.add(id);
+			}
+		});
+		this.changedServiceDefinitionIds = Collections.unmodifiableSet(changed);
+	}
+
+	/**
+	 * The catalog before the change
+	 *
+	 * @return the previous catalog
+	 */
+	public Catalog getPreviousCatalog() {
+		return this.previousCatalog;
+	}
+
+	/**
+	 * The catalog after the change
+	 *
+	 * @return the current catalog
+	 */
+	public Catalog getCurrentCatalog() {
+		return this.currentCatalog;
+	}
+
+	/**
+	 * The IDs of service definitions that were added to the catalog
+	 *
+	 * @return the service definition IDs
+	 */
+	public Set<String> getAddedServiceDefinitionIds() {
+		return this.addedServiceDefinitionIds;
+	}
+
+	/**
+	 * The IDs of service definitions that were removed from the catalog
+	 *
+	 * @return the service definition IDs
+	 */
+	public Set<String> getRemovedServiceDefinitionIds() {
+		return this.removedServiceDefinitionIds;
+	}
+
+	/**
+	 * The IDs of service definitions that exist in both catalogs but were modified, including changes to their plans
+	 *
+	 * @return the service definition IDs
+	 */
+	public Set<String> getChangedServiceDefinitionIds() {
+		return this.changedServiceDefinitionIds;
+	}
+
+	/**
+	 * The IDs of plans that were added to the catalog
+	 *
+	 * @return the plan IDs
+	 */
+	public Set<String> getAddedPlanIds() {
+		return this.addedPlanIds;
+	}
+
+	/**
+	 * The IDs of plans that were removed from the catalog
+	 *
+	 * @return the plan IDs
+	 */
+	public Set<String> getRemovedPlanIds() {
+		return this.removedPlanIds;
+	}
+
+	/**
+	 * Whether the two catalogs are equivalent
+	 *
+	 * @return true if nothing was added, removed or changed
+	 */
+	public boolean isEmpty() {
+		return this.addedServiceDefinitionIds.isEmpty() && this.removedServiceDefinitionIds.isEmpty()
+				&& this.changedServiceDefinitionIds.isEmpty();
+	}
+
+	private static Set<String> difference(Map<String, ?> left, Map<String, ?> right) {
+		Set<String> keys = new LinkedHashSet<>(left.keySet());
+		keys.removeAll(right.keySet());
+		return Collections.unmodifiableSet(keys);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof CatalogDiff)) {
+			return false;
+		}
+		CatalogDiff that = (CatalogDiff) o;
+		return Objects.equals(previousCatalog, that.previousCatalog) &&
+				Objects.equals(currentCatalog, that.currentCatalog);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(previousCatalog, currentCatalog);
+	}
+
+	@Override
+	public String toString() {
+		return "CatalogDiff{" +
+				"addedServiceDefinitionIds=" + addedServiceDefinitionIds +
+				", removedServiceDefinitionIds=" + removedServiceDefinitionIds +
+				", changedServiceDefinitionIds=" + changedServiceDefinitionIds +
+				", addedPlanIds=" + addedPlanIds +
+				", removedPlanIds=" + removedPlanIds +
+				'}';
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+/**
+ * An immutable index of the service definitions and plans in a {@link Catalog}, built once when the index is
+ * constructed. Lookups are constant time and safe to perform from any thread.
+ */
+public final class CatalogIndex {
+
+	private final Catalog catalog;
+
+	private final Map<String, ServiceDefinition> serviceDefinitions;
+
+	private final Map<String, ServiceDefinitionPlan> plans;
+
+	/**
+	 * Construct a new {@link CatalogIndex}
+	 *
+	 * @param catalog the catalog to index
+	 */
+	public CatalogIndex(Catalog catalog) {
+		Map<String, ServiceDefinition> serviceDefinitionsById = new HashMap<>();
+		Map<String, ServiceDefinitionPlan> plansById = new HashMap<>();
+		catalog.getServiceDefinitions().forEach(def -> {
+			serviceDefinitionsById.put(def.getId(), def);
+			if (def.getPlans() != null) {
+				def.getPlans().forEach(plan -> plansById.put(plan.getId(), new ServiceDefinitionPlan(def, plan)));
+			}
+		});
+		this.catalog = catalog;
+		this.serviceDefinitions = Collections.unmodifiableMap(serviceDefinitionsById);
+		this.plans = Collections.unmodifiableMap(plansById);
+	}
+
+	/**
+	 * The indexed catalog
+	 *
+	 * @return the catalog
+	 */
+	public Catalog getCatalog() {
+		return this.catalog;
+	}
+
+	/**
+	 * Find a service definition by ID
+	 *
+	 * @param serviceId the service definition ID
+	 * @return the service definition, or {@literal null} if it doesn't exist
+	 */
+	public ServiceDefinition getServiceDefinition(String serviceId) {
+		return this.serviceDefinitions.get(serviceId);
+	}
+
+	/**
+	 * Find a plan of a service definition by ID
+	 *
+	 * @param serviceId the service definition ID
+	 * @param planId the plan ID
+	 * @return the plan, or {@literal null} if the plan doesn't exist or belongs to another service definition
+	 */
+	public Plan getPlan(String serviceId, String planId) {
+		ServiceDefinitionPlan serviceDefinitionPlan = this.plans.get(planId);
+		if (serviceDefinitionPlan == null
+				|| !Objects.equals(serviceDefinitionPlan.getServiceDefinition().getId(), serviceId)) {
+			return null;
+		}
+		return serviceDefinitionPlan.getPlan();
+	}
+
+	/**
+	 * Find a plan and the service definition containing it by plan ID
+	 *
+	 * @param planId the plan ID
+	 * @return the plan and its service definition, or {@literal null} if the plan doesn't exist
+	 */
+	public ServiceDefinitionPlan getServiceDefinitionPlan(String planId) {
+		return this.plans.get(planId);
+	}
+
+	/**
+	 * The indexed service definitions by ID
+	 *
+	 * @return an unmodifiable map of service definitions
+	 */
+	public Map<String, ServiceDefinition> getServiceDefinitions() {
+		return this.serviceDefinitions;
+	}
+
+	/**
+	 * The indexed plans by ID
+	 *
+	 * @return an unmodifiable map of plans and their service definitions
+	 */
+	public Map<String, ServiceDefinitionPlan> getPlans() {
+		return this.plans;
+	}
+
+}
@@ -19,6 +19,7 @@ package org.springframework.cloud.servicebroker.service;
 import reactor.core.publisher.Mono;
 
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 
 /**
@@ -43,4 +44,51 @@ public interface CatalogService {
 	 */
 	Mono<ServiceDefinition> getServiceDefinition(String serviceId);
 
+	/**
+	 * Get a plan of a service definition from the catalog by ID.
+	 *
+	 * <p>
+	 * The default implementation searches the plans of the service definition returned by
+	 * {@link #getServiceDefinition(String)}. Implementations backed by a fixed catalog should override this with an
+	 * indexed lookup.
+	 *
+	 * @param serviceId The ID of the service definition in the catalog
+	 * @param planId The ID of the plan in the service definition
+	 * @return the plan, or empty if the service definition or plan doesn't exist
+	 */
+	default Mono<Plan> getPlan(String serviceId, String planId) {
+		return getServiceDefinition(serviceId)
+				.flatMap(serviceDefinition -> {
+					if (serviceDefinition.getPlans() != null) {
+						for (Plan plan : serviceDefinition.getPlans()) {
+							if (plan.getId().equals(planId)) {
+								return Mono.just(plan);
+							}
+						}
+					}
+					return Mono.empty();
+				});
+	}
+
+	/**
+	 * Get a plan and the service definition containing it from the catalog by plan ID. Plan IDs are unique across
+	 * all service definitions in a catalog.
+	 *
+	 * <p>
+	 * The default implementation searches every service definition returned by {@link #getCatalog()}.
+	 * Implementations backed by a fixed catalog should override this with an indexed lookup.
+	 *
+	 * @param planId The ID of the plan in the catalog
+	 * @return the plan and its service definition, or empty if the plan doesn't exist
+	 */
+	default Mono<ServiceDefinitionPlan> getServiceDefinitionPlan(String planId) {
+		return getCatalog()
+				.flatMap(catalog -> Mono.justOrEmpty(catalog.getServiceDefinitions().stream()
+						.filter(serviceDefinition -> serviceDefinition.getPlans() != null)
+						.flatMap(serviceDefinition -> serviceDefinition.getPlans().stream()
+								.filter(plan -> plan.getId().equals(planId))
+								.map(plan -> new ServiceDefinitionPlan(serviceDefinition, plan)))
+						.findFirst()));
+	}
+
 }
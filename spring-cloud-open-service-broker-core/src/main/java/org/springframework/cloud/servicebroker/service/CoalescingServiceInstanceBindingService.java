@@ -0,0 +1,89 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that coalesces last operation requests with a
+ * {@link LastOperationCoalescer}. Create and delete requests discard the coalesced responses of the binding.
+ */
+public class CoalescingServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final LastOperationCoalescer coalescer;
+
+	/**
+	 * Construct a new {@link CoalescingServiceInstanceBindingService}
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param coalescer the last operation coalescer
+	 */
+	public CoalescingServiceInstanceBindingService(ServiceInstanceBindingService serviceInstanceBindingService,
+			LastOperationCoalescer coalescer) {
+		this.service = serviceInstanceBindingService;
+		this.coalescer = coalescer;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return invalidating(request.getServiceInstanceId(), request.getBindingId(),
+				() -> this.service.createServiceInstanceBinding(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return this.service.getServiceInstanceBinding(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return this.coalescer.getLastOperation(request.getServiceInstanceId(), request.getBindingId(),
+				request.getOperation(), GetLastServiceBindingOperationResponse::getState,
+				() -> this.service.getLastOperation(request));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return invalidating(request.getServiceInstanceId(), request.getBindingId(),
+				() -> this.service.deleteServiceInstanceBinding(request));
+	}
+
+	private <T> Mono<T> invalidating(String serviceInstanceId, String bindingId, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			this.coalescer.invalidate(serviceInstanceId, bindingId);
+			return operation.get();
+		}).doOnTerminate(() -> this.coalescer.invalidate(serviceInstanceId, bindingId));
+	}
+
+}
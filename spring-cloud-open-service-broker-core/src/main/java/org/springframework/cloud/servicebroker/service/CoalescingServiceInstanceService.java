@@ -0,0 +1,91 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that coalesces last operation requests with a
+ * {@link LastOperationCoalescer}. Create, update, and delete requests discard the coalesced responses of the service
+ * instance.
+ */
+public class CoalescingServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final LastOperationCoalescer coalescer;
+
+	/**
+	 * Construct a new {@link CoalescingServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param coalescer the last operation coalescer
+	 */
+	public CoalescingServiceInstanceService(ServiceInstanceService serviceInstanceService,
+			LastOperationCoalescer coalescer) {
+		this.service = serviceInstanceService;
+		this.coalescer = coalescer;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return invalidating(request.getServiceInstanceId(), () -> this.service.createServiceInstance(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.service.getServiceInstance(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.coalescer.getLastOperation(request.getServiceInstanceId(), null, request.getOperation(),
+				GetLastServiceOperationResponse::getState, () -> this.service.getLastOperation(request));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return invalidating(request.getServiceInstanceId(), () -> this.service.deleteServiceInstance(request));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return invalidating(request.getServiceInstanceId(), () -> this.service.updateServiceInstance(request));
+	}
+
+	private <T> Mono<T> invalidating(String serviceInstanceId, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			this.coalescer.invalidate(serviceInstanceId, null);
+			return operation.get();
+		}).doOnTerminate(() -> this.coalescer.invalidate(serviceInstanceId, null));
+	}
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingExistsException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that de-duplicates retried create requests with a
+ * {@link RequestDeduplicator}. A retry of a completed synchronous create is answered with the stored response marked
+ * as {@literal bindingExisted}, and a retry of an asynchronous create with the stored response. A different create
+ * request for the same binding is rejected with a {@link ServiceInstanceBindingExistsException}. Delete requests make
+ * the binding forget its create requests.
+ */
+public class DeduplicatingServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final RequestDeduplicator deduplicator;
+
+	/**
+	 * Construct a new {@link DeduplicatingServiceInstanceBindingService}
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param deduplicator the request deduplicator
+	 */
+	public DeduplicatingServiceInstanceBindingService(ServiceInstanceBindingService serviceInstanceBindingService,
+			RequestDeduplicator deduplicator) {
+		this.service = serviceInstanceBindingService;
+		this.deduplicator = deduplicator;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return Mono.defer(() -> this.deduplicator.deduplicate(request.getServiceInstanceId(), request.getBindingId(),
+				this.deduplicator.fingerprint(request), () -> this.service.createServiceInstanceBinding(request),
+				DeduplicatingServiceInstanceBindingService::existed,
+				() -> new ServiceInstanceBindingExistsException(request.getServiceInstanceId(),
+						request.getBindingId())));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return this.service.getServiceInstanceBinding(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return this.service.getLastOperation(request);
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return Mono.defer(() -> this.service.deleteServiceInstanceBinding(request))
+				.doOnTerminate(() -> this.deduplicator.invalidate(request.getServiceInstanceId(),
+						request.getBindingId()));
+	}
+
+	private static CreateServiceInstanceBindingResponse existed(CreateServiceInstanceBindingResponse response) {
+		if (response.isAsync()) {
+			return response;
+		}
+		if (response instanceof CreateServiceInstanceAppBindingResponse) {
+			CreateServiceInstanceAppBindingResponse app = (CreateServiceInstanceAppBindingResponse) response;
+			return new CreateServiceInstanceAppBindingResponse(false, app.getOperation(), true, app.getMetadata(),
+					app.getCredentials(), app.getSyslogDrainUrl(), app.getVolumeMounts(), app.getEndpoints());
+		}
+		if (response instanceof CreateServiceInstanceRouteBindingResponse) {
+			CreateServiceInstanceRouteBindingResponse route = (CreateServiceInstanceRouteBindingResponse) response;
+			return new CreateServiceInstanceRouteBindingResponse(false, route.getOperation(), true,
+					route.getMetadata(), route.getRouteServiceUrl());
+		}
+		return response;
+	}
+
+}
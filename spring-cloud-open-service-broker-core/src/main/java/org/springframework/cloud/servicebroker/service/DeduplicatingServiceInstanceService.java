@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that de-duplicates retried create requests with a
+ * {@link RequestDeduplicator}. A retry of a completed synchronous create is answered with the stored response marked
+ * as {@literal instanceExisted}, and a retry of an asynchronous create with the stored response, so that the platform
+ * keeps polling the same operation. A different create request for the same service instance is rejected with a
+ * {@link ServiceInstanceExistsException}. Delete requests make the service instance forget its create requests.
+ */
+public class DeduplicatingServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final RequestDeduplicator deduplicator;
+
+	/**
+	 * Construct a new {@link DeduplicatingServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param deduplicator the request deduplicator
+	 */
+	public DeduplicatingServiceInstanceService(ServiceInstanceService serviceInstanceService,
+			RequestDeduplicator deduplicator) {
+		this.service = serviceInstanceService;
+		this.deduplicator = deduplicator;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return Mono.defer(() -> this.deduplicator.deduplicate(request.getServiceInstanceId(), null,
+				this.deduplicator.fingerprint(request), () -> this.service.createServiceInstance(request),
+				DeduplicatingServiceInstanceService::existed,
+				() -> new ServiceInstanceExistsException(request.getServiceInstanceId(),
+						request.getServiceDefinitionId())));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.service.getServiceInstance(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.service.getLastOperation(request);
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return invalidating(request.getServiceInstanceId(), () -> this.service.deleteServiceInstance(request));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return this.service.updateServiceInstance(request);
+	}
+
+	private <T> Mono<T> invalidating(String serviceInstanceId, Supplier<Mono<T>> operation) {
+		return Mono.defer(operation)
+				.doOnTerminate(() -> this.deduplicator.invalidate(serviceInstanceId, null));
+	}
+
+	private static CreateServiceInstanceResponse existed(CreateServiceInstanceResponse response) {
+		if (response.isAsync()) {
+			return response;
+		}
+		return new CreateServiceInstanceResponse(false, response.getOperation(), response.getDashboardUrl(), true,
+				response.getMetadata());
+	}
+
+}
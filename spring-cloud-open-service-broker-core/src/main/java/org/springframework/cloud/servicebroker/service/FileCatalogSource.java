@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.Assert;
+
+/**
+ * A source of a {@link Catalog} read from a JSON file in the format of the catalog API response. The file is parsed
+ * again only when its modification time or size changes; otherwise the previously parsed {@link Catalog} instance
+ * is returned.
+ *
+ * @see ReloadableCatalogService
+ */
+public class FileCatalogSource implements Supplier<Catalog> {
+
+	private final Path path;
+
+	private final ObjectMapper objectMapper;
+
+	private final AtomicReference<LoadedCatalog> loaded = new AtomicReference<>();
+
+	/**
+	 * Construct a new {@link FileCatalogSource} with a default {@link ObjectMapper}
+	 *
+	 * @param path the path of the catalog file
+	 */
+	public FileCatalogSource(Path path) {
+		this(path, Jackson2ObjectMapperBuilder.json().build());
+	}
+
+	/**
+	 * Construct a new {@link FileCatalogSource}
+	 *
+	 * @param path the path of the catalog file
+	 * @param objectMapper the object mapper used to parse the file
+	 */
+	public FileCatalogSource(Path path, ObjectMapper objectMapper) {
+		Assert.notNull(path, "path must not be null");
+		Assert.notNull(objectMapper, "objectMapper must not be null");
+		this.path = path;
+		this.objectMapper = objectMapper;
+	}
+
+	/**
+	 * Read the catalog, parsing the file only if it has changed since it was last read
+	 *
+	 * @return the catalog
+	 * @throws UncheckedIOException if the file cannot be read or parsed
+	 */
+	@Override
+	public Catalog get() {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(this.path, BasicFileAttributes.class);
+			LoadedCatalog current = this.loaded.get();
+			if (current != null && current.isUnchanged(attributes)) {
+				return current.getCatalog();
+			}
+			Catalog catalog = this.objectMapper.readValue(this.path.toFile(), Catalog.class);
+			this.loaded.set(new LoadedCatalog(catalog, attributes));
+			return catalog;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error reading catalog from " + this.path, e);
+		}
+	}
+
+	/**
+	 * A parsed catalog and the attributes of the file it was parsed from
+	 */
+	private static final class LoadedCatalog {
+
+		private final Catalog catalog;
+
+		private final FileTime lastModifiedTime;
+
+		private final long size;
+
+		private LoadedCatalog(Catalog catalog, BasicFileAttributes attributes) {
+			this.catalog = catalog;
+			this.lastModifiedTime = attributes.lastModifiedTime();
+			this.size = attributes.size();
+		}
+
+		/**
+		 * The parsed catalog
+		 *
+		 * @return the catalog
+		 */
+		public Catalog getCatalog() {
+			return this.catalog;
+		}
+
+		/**
+		 * Whether the file is unchanged since the catalog was parsed
+		 *
+		 * @param attributes the current attributes of the file
+		 * @return true if the file is unchanged
+		 */
+		public boolean isUnchanged(BasicFileAttributes attributes) {
+			return Objects.equals(this.lastModifiedTime, attributes.lastModifiedTime())
+					&& this.size == attributes.size();
+		}
+
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.util.Assert;
+
+/**
+ * A registry of the operations that are in flight in this service broker, keyed by service instance ID and binding
+ * ID. An operation that modifies a service instance or a service instance binding while another one is in flight for
+ * the same resource is rejected with a {@link ServiceBrokerConcurrencyException} before it is dispatched.
+ *
+ * <p>
+ * Operations on a service instance are keyed by the service instance ID alone, and operations on a binding by both
+ * IDs, so that different bindings of a service instance can be modified concurrently. An operation on a binding is
+ * also rejected while an operation on its service instance is in flight, so that a binding cannot race the deletion
+ * of its service instance. The registry does not lock: an
+ * operation is admitted by a single {@link ConcurrentMap#putIfAbsent(Object, Object)}, and the counters are striped
+ * so that concurrent operations on different resources do not contend on them. Operations are only registered while
+ * they are dispatched to the service in this JVM, including the time an {@link OperationHold} is retained for an
+ * operation that completes in the background.
+ */
+public class InFlightOperationRegistry {
+
+	private static final Object IN_FLIGHT = new Object();
+
+	private final ConcurrentMap<String, Object> instanceOperations = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<BindingKey, Object> bindingOperations = new ConcurrentHashMap<>();
+
+	private final LongAdder acquiredCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * Register an operation on a service instance or service instance binding, unless another one is in flight for
+	 * the same resource or, for a binding, for its service instance. An operation that was registered must be released with {@link #release(String, String)}.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 * @return {@literal true} if the operation was registered, {@literal false} if another one is in flight
+	 */
+	public boolean tryAcquire(String serviceInstanceId, String bindingId) {
+		Assert.notNull(serviceInstanceId, "serviceInstanceId must not be null");
+		boolean acquired = (bindingId == null)
+				? this.instanceOperations.putIfAbsent(serviceInstanceId, IN_FLIGHT) == null
+				: tryAcquireBinding(serviceInstanceId, bindingId);
+		if (acquired) {
+			this.acquiredCount.increment();
+			return true;
+		}
+		this.rejectedCount.increment();
+		return false;
+	}
+
+	/**
+	 * Remove a registered operation on a service instance or service instance binding
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 */
+	public void release(String serviceInstanceId, String bindingId) {
+		if (bindingId == null) {
+			this.instanceOperations.remove(serviceInstanceId);
+		}
+		else {
+			this.bindingOperations.remove(new BindingKey(serviceInstanceId, bindingId));
+		}
+	}
+
+	/**
+	 * Run an operation on a service instance or service instance binding while it is registered. The operation is
+	 * registered on subscription and released when it terminates or is cancelled, or when the service completes it in
+	 * the background if it is promoted to an asynchronous operation. If another operation is in flight
+	 * for the same resource, the operation is not called and the returned {@link Mono} fails with a
+	 * {@link ServiceBrokerConcurrencyException}.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 * @param operation the operation
+	 * @param <T> the type of the operation response
+	 * @return the operation response
+	 */
+	public <T> Mono<T> serialize(String serviceInstanceId, String bindingId, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			if (!tryAcquire(serviceInstanceId, bindingId)) {
+				return Mono.error(new ServiceBrokerConcurrencyException("Another operation on this service " +
+						"instance or binding is in progress. serviceInstanceId=" + serviceInstanceId +
+						", bindingId=" + bindingId));
+			}
+			return OperationHold.hold(operation, () -> release(serviceInstanceId, bindingId));
+		});
+	}
+
+	/**
+	 * The number of operations that are in flight
+	 *
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount() {
+		return this.instanceOperations.size() + this.bindingOperations.size();
+	}
+
+	/**
+	 * The number of operations that were registered
+	 *
+	 * @return the acquired count
+	 */
+	public long getAcquiredCount() {
+		return this.acquiredCount.sum();
+	}
+
+	/**
+	 * The number of operations that were rejected because another one was in flight for the same resource
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	/**
+	 * The fraction of operations that were rejected because another one was in flight for the same resource
+	 *
+	 * @return the contention rate, between 0 and 1
+	 */
+	public double getContentionRate() {
+		long rejected = this.rejectedCount.sum();
+		long total = rejected + this.acquiredCount.sum();
+		return total == 0 ? 0.0 : (double) rejected / total;
+	}
+
+	private boolean tryAcquireBinding(String serviceInstanceId, String bindingId) {
+		if (this.instanceOperations.containsKey(serviceInstanceId)) {
+			return false;
+		}
+		BindingKey key = new BindingKey(serviceInstanceId, bindingId);
+		if (this.bindingOperations.putIfAbsent(key, IN_FLIGHT) != null) {
+			return false;
+		}
+		if (this.instanceOperations.containsKey(serviceInstanceId)) {
+			// an operation on the service instance was registered concurrently
+			this.bindingOperations.remove(key);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * The key of an operation on a service instance binding
+	 */
+	private static final class BindingKey {
+
+		private final String serviceInstanceId;
+
+		private final String bindingId;
+
+		private BindingKey(String serviceInstanceId, String bindingId) {
+			this.serviceInstanceId = serviceInstanceId;
+			this.bindingId = bindingId;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof BindingKey)) {
+				return false;
+			}
+			BindingKey that = (BindingKey) o;
+			return this.serviceInstanceId.equals(that.serviceInstanceId) && this.bindingId.equals(that.bindingId);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * this.serviceInstanceId.hashCode() + this.bindingId.hashCode();
+		}
+
+	}
+
+}
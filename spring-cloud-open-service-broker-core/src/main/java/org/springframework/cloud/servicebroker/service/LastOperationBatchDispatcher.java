@@ -0,0 +1,126 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.util.Assert;
+
+/**
+ * Collects concurrent last operation requests for service instances into batches for a
+ * {@link BatchingServiceInstanceService}. A batch is dispatched when the window after its first request has passed,
+ * or as soon as it reaches the maximum size, and each response is handed back to the request it answers.
+ *
+ * @see RequestBatcher
+ */
+public class LastOperationBatchDispatcher {
+
+	/**
+	 * The default time a batch collects requests
+	 */
+	public static final Duration DEFAULT_WINDOW = Duration.ofMillis(10);
+
+	/**
+	 * The default maximum number of requests in a batch
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 100;
+
+	private final RequestBatcher<GetLastServiceOperationRequest, GetLastServiceOperationResponse> batcher;
+
+	/**
+	 * Construct a new {@link LastOperationBatchDispatcher} with the default window and maximum size
+	 *
+	 * @param service the service that answers batches
+	 */
+	public LastOperationBatchDispatcher(BatchingServiceInstanceService service) {
+		this(service, DEFAULT_WINDOW, DEFAULT_MAXIMUM_SIZE, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Construct a new {@link LastOperationBatchDispatcher}
+	 *
+	 * @param service the service that answers batches
+	 * @param window how long a batch collects requests after its first request
+	 * @param maximumSize the maximum number of requests in a batch
+	 * @param timer the scheduler on which batches are dispatched, which must allow blocking if the service blocks
+	 */
+	public LastOperationBatchDispatcher(BatchingServiceInstanceService service, Duration window, int maximumSize,
+			Scheduler timer) {
+		Assert.notNull(service, "service must not be null");
+		this.batcher = new RequestBatcher<>(requests -> service.getLastOperations(requests)
+				.map(LastOperationBatchDispatcher::toResults), service::getLastOperation, window, maximumSize, timer);
+	}
+
+	/**
+	 * Add a request to the current batch
+	 *
+	 * @param request the request
+	 * @return the response to the request
+	 */
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.batcher.submit(request);
+	}
+
+	/**
+	 * The number of batches dispatched
+	 *
+	 * @return the batch count
+	 */
+	public long getBatchCount() {
+		return this.batcher.getBatchCount();
+	}
+
+	/**
+	 * The number of requests dispatched in batches
+	 *
+	 * @return the request count
+	 */
+	public long getRequestCount() {
+		return this.batcher.getRequestCount();
+	}
+
+	/**
+	 * The average number of requests in a batch
+	 *
+	 * @return the average batch size, or zero if no batches have been dispatched
+	 */
+	public double getAverageBatchSize() {
+		return this.batcher.getAverageBatchSize();
+	}
+
+	private static Map<GetLastServiceOperationRequest, BatchResult<GetLastServiceOperationResponse>> toResults(
+			Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse> responses) {
+		Map<GetLastServiceOperationRequest, BatchResult<GetLastServiceOperationResponse>> results =
+				new LinkedHashMap<>(responses.size() * 2);
+		responses.forEach((request, response) -> {
+			if (response != null) {
+				results.put(request, BatchResult.of(response));
+			}
+		});
+		return results;
+	}
+
+}
@@ -0,0 +1,327 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.util.Assert;
+
+/**
+ * Coalesces last operation requests for service instances and service instance bindings. Concurrent requests for
+ * the same service instance, binding and operation share a single call to the service. A response that reports a
+ * succeeded or failed operation is cached for the time-to-live, and answers later requests for the same operation
+ * without calling the service.
+ *
+ * <p>
+ * At most one response is cached per service instance or binding. The cached response and any call in progress are
+ * discarded when a new operation is requested on the service instance or binding through this broker. Operations
+ * started by other broker instances are not seen, so the time-to-live should be short when the broker is scaled out.
+ * When the maximum size is reached, expired responses are evicted first, and then the oldest response. The responses
+ * are kept in the order they were cached, so that both are found at the head of the cache in constant time.
+ */
+public class LastOperationCoalescer {
+
+	/**
+	 * The default time a response is cached
+	 */
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+	/**
+	 * The default maximum number of cached responses
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+	private final ConcurrentMap<List<String>, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+	private final Map<List<String>, CachedResponse> cache = new LinkedHashMap<>();
+
+	private final Object monitor = new Object();
+
+	private final long timeToLiveMillis;
+
+	private final int maximumSize;
+
+	private final Clock clock;
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link LastOperationCoalescer} with the default time-to-live and maximum size
+	 */
+	public LastOperationCoalescer() {
+		this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAXIMUM_SIZE, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link LastOperationCoalescer}
+	 *
+	 * @param timeToLive how long a response that reports a succeeded or failed operation is cached, or zero to only
+	 * 	share calls in progress
+	 * @param maximumSize the maximum number of cached responses
+	 * @param clock the clock used to determine the age of cached responses
+	 */
+	public LastOperationCoalescer(Duration timeToLive, int maximumSize, Clock clock) {
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative(), "timeToLive must not be negative");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(clock, "clock must not be null");
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.maximumSize = maximumSize;
+		this.clock = clock;
+	}
+
+	/**
+	 * Answer a last operation request from the cache, from a call to the service in progress for the same request, or
+	 * else from a new call to the service
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param operation the operation token of the request, or {@literal null}
+	 * @param stateOf extracts the operation state from a response
+	 * @param call calls the service
+	 * @param <T> the type of the response
+	 * @return the response
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Mono<T> getLastOperation(String serviceInstanceId, String bindingId, String operation,
+			Function<T, OperationState> stateOf, Supplier<Mono<T>> call) {
+		return Mono.defer(() -> {
+			List<String> target = Arrays.asList(serviceInstanceId, bindingId);
+			CachedResponse cached = getCached(target, operation);
+			if (cached != null) {
+				this.hitCount.incrementAndGet();
+				return Mono.just((T) cached.getResponse());
+			}
+			return call(Arrays.asList(serviceInstanceId, bindingId, operation), target,
+					response -> isTerminal(stateOf.apply(response)), call);
+		});
+	}
+
+	/**
+	 * Discard the cached response and any calls in progress for a service instance or binding, for example because a
+	 * new operation was requested on it
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for a service instance
+	 */
+	public void invalidate(String serviceInstanceId, String bindingId) {
+		synchronized (this.monitor) {
+			this.cache.remove(Arrays.asList(serviceInstanceId, bindingId));
+		}
+		this.inFlight.keySet().removeIf(key -> Objects.equals(key.get(0), serviceInstanceId)
+				&& Objects.equals(key.get(1), bindingId));
+	}
+
+	/**
+	 * The number of requests answered from the cache
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * The number of requests that shared a call to the service in progress
+	 *
+	 * @return the coalesced count
+	 */
+	public long getCoalescedCount() {
+		return this.coalescedCount.get();
+	}
+
+	/**
+	 * The number of requests that called the service
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * The number of cached responses evicted to stay within the maximum size
+	 *
+	 * @return the eviction count
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * The fraction of requests that did not call the service, because they were answered from the cache or shared a
+	 * call in progress
+	 *
+	 * @return the hit rate, or zero if there were no requests
+	 */
+	public double getHitRate() {
+		long hits = this.hitCount.get() + this.coalescedCount.get();
+		long total = hits + this.missCount.get();
+		return total == 0 ? 0 : (double) hits / total;
+	}
+
+	/**
+	 * The number of cached responses
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		synchronized (this.monitor) {
+			return this.cache.size();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Mono<T> call(List<String> key, List<String> target, Predicate<T> terminal, Supplier<Mono<T>> call) {
+		Sinks.One<T> sink = Sinks.one();
+		Mono<T> shared = sink.asMono();
+		Mono<?> existing = this.inFlight.putIfAbsent(key, shared);
+		if (existing != null) {
+			this.coalescedCount.incrementAndGet();
+			return (Mono<T>) existing;
+		}
+		this.missCount.incrementAndGet();
+		call.get().subscribe(response -> {
+			if (this.inFlight.remove(key, shared) && terminal.test(response)) {
+				cache(target, new CachedResponse(key.get(2), response, this.clock.millis()));
+			}
+			sink.tryEmitValue(response);
+		}, error -> {
+			this.inFlight.remove(key, shared);
+			sink.tryEmitError(error);
+		}, () -> {
+			this.inFlight.remove(key, shared);
+			sink.tryEmitEmpty();
+		});
+		return shared;
+	}
+
+	private CachedResponse getCached(List<String> target, String operation) {
+		synchronized (this.monitor) {
+			CachedResponse cached = this.cache.get(target);
+			if (cached == null || !Objects.equals(cached.getOperation(), operation)) {
+				return null;
+			}
+			if (this.clock.millis() - cached.getCachedAt() < this.timeToLiveMillis) {
+				return cached;
+			}
+			this.cache.remove(target);
+			return null;
+		}
+	}
+
+	private void cache(List<String> target, CachedResponse response) {
+		if (this.timeToLiveMillis == 0) {
+			return;
+		}
+		synchronized (this.monitor) {
+			if (this.cache.remove(target) == null && this.cache.size() >= this.maximumSize) {
+				evict();
+			}
+			this.cache.put(target, response);
+		}
+	}
+
+	private void evict() {
+		long expiredBefore = this.clock.millis() - this.timeToLiveMillis;
+		Iterator<CachedResponse> oldest = this.cache.values().iterator();
+		int evicted = 0;
+		while (oldest.hasNext()) {
+			CachedResponse cached = oldest.next();
+			if (cached.getCachedAt() > expiredBefore && this.cache.size() < this.maximumSize) {
+				break;
+			}
+			oldest.remove();
+			evicted++;
+		}
+		this.evictionCount.addAndGet(evicted);
+	}
+
+	private static boolean isTerminal(OperationState state) {
+		return OperationState.SUCCEEDED.equals(state) || OperationState.FAILED.equals(state);
+	}
+
+	/**
+	 * A response that reports a succeeded or failed operation, and the time it was cached
+	 */
+	private static final class CachedResponse {
+
+		private final String operation;
+
+		private final Object response;
+
+		private final long cachedAt;
+
+		private CachedResponse(String operation, Object response, long cachedAt) {
+			this.operation = operation;
+			this.response = response;
+			this.cachedAt = cachedAt;
+		}
+
+		/**
+		 * The operation token of the request
+		 *
+		 * @return the operation token
+		 */
+		public String getOperation() {
+			return this.operation;
+		}
+
+		/**
+		 * The cached response
+		 *
+		 * @return the response
+		 */
+		public Object getResponse() {
+			return this.response;
+		}
+
+		/**
+		 * The time the response was cached, in milliseconds since the epoch
+		 *
+		 * @return the cache time
+		 */
+		public long getCachedAt() {
+			return this.cachedAt;
+		}
+
+	}
+
+}
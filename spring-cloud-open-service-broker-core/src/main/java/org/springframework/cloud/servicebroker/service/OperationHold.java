@@ -0,0 +1,108 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+
+/**
+ * A resource that a decorator holds while an operation runs, such as an in-flight registration or a lease, and that
+ * is released when the operation terminates or is cancelled. If an {@link AsyncOperationPromoter} decorated by the
+ * holder promotes the operation, it retains the hold until the service completes the operation in the background,
+ * so that the resource is not released when the asynchronous response is returned while the service is still
+ * working on the resource.
+ *
+ * <p>
+ * The holds of an operation are passed to the promoter in the subscriber context.
+ */
+public final class OperationHold {
+
+	private static final String CONTEXT_KEY = OperationHold.class.getName();
+
+	private final Runnable release;
+
+	private final AtomicInteger holders = new AtomicInteger(1);
+
+	private OperationHold(Runnable release) {
+		this.release = release;
+	}
+
+	/**
+	 * Run an operation while holding a resource
+	 *
+	 * @param operation the operation
+	 * @param release releases the resource, once the operation and any background completion of it terminated
+	 * @param <T> the type of the operation response
+	 * @return the operation response
+	 */
+	public static <T> Mono<T> hold(Supplier<Mono<T>> operation, Runnable release) {
+		return Mono.defer(() -> {
+			OperationHold hold = new OperationHold(release);
+			return Mono.defer(operation)
+					.doFinally(signal -> hold.release())
+					.contextWrite(context -> with(context, hold));
+		});
+	}
+
+	/**
+	 * Retain the holds of an operation that continues in the background after its response was returned
+	 *
+	 * @param context the subscriber context of the operation
+	 * @return the retained holds, to be released with {@link #releaseAll(List)} when the background operation
+	 * 		terminates
+	 */
+	public static List<OperationHold> retainAll(ContextView context) {
+		List<OperationHold> holds = context.getOrDefault(CONTEXT_KEY, Collections.emptyList());
+		holds.forEach(OperationHold::retain);
+		return holds;
+	}
+
+	/**
+	 * Release holds that were retained with {@link #retainAll(ContextView)}
+	 *
+	 * @param holds the holds
+	 */
+	public static void releaseAll(List<OperationHold> holds) {
+		holds.forEach(OperationHold::release);
+	}
+
+	private void retain() {
+		this.holders.incrementAndGet();
+	}
+
+	private void release() {
+		if (this.holders.decrementAndGet() == 0) {
+			this.release.run();
+		}
+	}
+
+	private static Context with(Context context, OperationHold hold) {
+		List<OperationHold> holds = new ArrayList<>(context.getOrDefault(CONTEXT_KEY, Collections.emptyList()));
+		holds.add(hold);
+		return context.put(CONTEXT_KEY, Collections.unmodifiableList(holds));
+	}
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.util.Assert;
+
+/**
+ * Collects concurrent create and delete requests for service instances into batches for a
+ * {@link BulkServiceInstanceService}, with one batch per operation and service offering. A batch is dispatched when
+ * the window after its first request has passed, or as soon as it reaches the maximum size, and the result of each
+ * request is handed back to it. The service offerings are those of the catalog, so the number of batches is bounded
+ * by the size of the catalog.
+ *
+ * @see RequestBatcher
+ */
+public class ProvisioningBatchDispatcher {
+
+	/**
+	 * The default time a batch collects requests
+	 */
+	public static final Duration DEFAULT_WINDOW = Duration.ofMillis(20);
+
+	/**
+	 * The default maximum number of requests in a batch
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 50;
+
+	private final ConcurrentMap<String, RequestBatcher<CreateServiceInstanceRequest, CreateServiceInstanceResponse>>
+			createBatchers = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<String, RequestBatcher<DeleteServiceInstanceRequest, DeleteServiceInstanceResponse>>
+			deleteBatchers = new ConcurrentHashMap<>();
+
+	private final BulkServiceInstanceService service;
+
+	private final Duration window;
+
+	private final int maximumSize;
+
+	private final Scheduler timer;
+
+	/**
+	 * Construct a new {@link ProvisioningBatchDispatcher} with the default window and maximum size
+	 *
+	 * @param service the service that processes batches
+	 */
+	public ProvisioningBatchDispatcher(BulkServiceInstanceService service) {
+		this(service, DEFAULT_WINDOW, DEFAULT_MAXIMUM_SIZE, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Construct a new {@link ProvisioningBatchDispatcher}
+	 *
+	 * @param service the service that processes batches
+	 * @param window how long a batch collects requests after its first request
+	 * @param maximumSize the maximum number of requests in a batch
+	 * @param timer the scheduler on which batches are dispatched, which must allow blocking if the service blocks
+	 */
+	public ProvisioningBatchDispatcher(BulkServiceInstanceService service, Duration window, int maximumSize,
+			Scheduler timer) {
+		Assert.notNull(service, "service must not be null");
+		Assert.isTrue(window != null && !window.isNegative() && !window.isZero(), "window must be positive");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(timer, "timer must not be null");
+		this.service = service;
+		this.window = window;
+		this.maximumSize = maximumSize;
+		this.timer = timer;
+	}
+
+	/**
+	 * Add a create request to the current batch of its service offering
+	 *
+	 * @param request the request
+	 * @return the response to the request
+	 */
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return Mono.defer(() -> this.createBatchers.computeIfAbsent(String.valueOf(request.getServiceDefinitionId()),
+				id -> new RequestBatcher<>(this.service::createServiceInstances, this.service::createServiceInstance,
+						this.window, this.maximumSize, this.timer))
+				.submit(request));
+	}
+
+	/**
+	 * Add a delete request to the current batch of its service offering
+	 *
+	 * @param request the request
+	 * @return the response to the request
+	 */
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return Mono.defer(() -> this.deleteBatchers.computeIfAbsent(String.valueOf(request.getServiceDefinitionId()),
+				id -> new RequestBatcher<>(this.service::deleteServiceInstances, this.service::deleteServiceInstance,
+						this.window, this.maximumSize, this.timer))
+				.submit(request));
+	}
+
+	/**
+	 * The number of batches dispatched
+	 *
+	 * @return the batch count
+	 */
+	public long getBatchCount() {
+		return this.createBatchers.values().stream().mapToLong(RequestBatcher::getBatchCount).sum()
+				+ this.deleteBatchers.values().stream().mapToLong(RequestBatcher::getBatchCount).sum();
+	}
+
+	/**
+	 * The number of requests dispatched in batches
+	 *
+	 * @return the request count
+	 */
+	public long getRequestCount() {
+		return this.createBatchers.values().stream().mapToLong(RequestBatcher::getRequestCount).sum()
+				+ this.deleteBatchers.values().stream().mapToLong(RequestBatcher::getRequestCount).sum();
+	}
+
+	/**
+	 * The average number of requests in a batch
+	 *
+	 * @return the average batch size, or zero if no batches have been dispatched
+	 */
+	public double getAverageBatchSize() {
+		long batches = getBatchCount();
+		return batches == 0 ? 0 : (double) getRequestCount() / batches;
+	}
+
+}
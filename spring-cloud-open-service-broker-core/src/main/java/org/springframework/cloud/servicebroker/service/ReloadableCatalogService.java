@@ -0,0 +1,257 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.util.Assert;
+
+/**
+ * An implementation of the {@link CatalogService} that can reload the {@link Catalog} from a source, such as a
+ * {@link FileCatalogSource} or any other {@link Supplier}, without restarting the service broker.
+ *
+ * <p>
+ * Each reload builds a new immutable {@link CatalogIndex} and publishes it with a single atomic reference swap, so
+ * requests never take a lock and never observe a partially built index. Reloads can be triggered with
+ * {@link #reload()} or periodically with {@link #watch(Duration)}. Every reload that changes the catalog emits a
+ * {@link CatalogDiff} on {@link #getChanges()}.
+ */
+public class ReloadableCatalogService implements CatalogService, AutoCloseable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ReloadableCatalogService.class);
+
+	private final Supplier<Catalog> catalogSource;
+
+	private final AtomicReference<CatalogIndex> catalogIndex;
+
+	private final Sinks.Many<CatalogDiff> changes = Sinks.many().multicast().directBestEffort();
+
+	private final Object reloadMonitor = new Object();
+
+	private final AtomicReference<Disposable> watcher = new AtomicReference<>();
+
+	private final AtomicLong reloadCount = new AtomicLong();
+
+	private final AtomicLong reloadFailureCount = new AtomicLong();
+
+	private final AtomicLong changeCount = new AtomicLong();
+
+	private final AtomicLong lastReloadNanos = new AtomicLong();
+
+	/**
+	 * Construct a new {@link ReloadableCatalogService}, loading the initial catalog from the source
+	 *
+	 * @param catalogSource the source of the catalog
+	 */
+	public ReloadableCatalogService(Supplier<Catalog> catalogSource) {
+		Assert.notNull(catalogSource, "catalogSource must not be null");
+		this.catalogSource = catalogSource;
+		this.catalogIndex = new AtomicReference<>(new CatalogIndex(loadCatalog()));
+	}
+
+	@Override
+	public Mono<Catalog> getCatalog() {
+		return Mono.fromSupplier(() -> catalogIndex.get().getCatalog());
+	}
+
+	@Override
+	public Mono<ServiceDefinition> getServiceDefinition(String serviceId) {
+		return Mono.justOrEmpty(catalogIndex.get().getServiceDefinition(serviceId));
+	}
+
+	@Override
+	public Mono<Plan> getPlan(String serviceId, String planId) {
+		return Mono.justOrEmpty(catalogIndex.get().getPlan(serviceId, planId));
+	}
+
+	@Override
+	public Mono<ServiceDefinitionPlan> getServiceDefinitionPlan(String planId) {
+		return Mono.justOrEmpty(catalogIndex.get().getServiceDefinitionPlan(planId));
+	}
+
+	/**
+	 * Load the catalog from the source and publish it if it differs from the current catalog. Concurrent reloads are
+	 * serialized; requests continue to be served from the current catalog while a reload is in progress.
+	 *
+	 * @return the difference between the previous and the new catalog, or {@literal null} if the catalog has not
+	 * 		changed
+	 */
+	public CatalogDiff reload() {
+		synchronized (this.reloadMonitor) {
+			long start = System.nanoTime();
+			Catalog catalog = null;
+			try {
+				catalog = loadCatalog();
+			}
+			finally {
+				this.lastReloadNanos.set(System.nanoTime() - start);
+				if (catalog == null) {
+					this.reloadFailureCount.incrementAndGet();
+				}
+			}
+			this.reloadCount.incrementAndGet();
+
+			CatalogIndex previous = this.catalogIndex.get();
+			if (catalog.equals(previous.getCatalog())) {
+				return null;
+			}
+			CatalogIndex current = new CatalogIndex(catalog);
+			this.catalogIndex.set(current);
+			this.lastReloadNanos.set(System.nanoTime() - start);
+			this.changeCount.incrementAndGet();
+
+			CatalogDiff diff = new CatalogDiff(previous, current);
+			LOG.info("Reloaded catalog. changes={}", diff);
+			this.changes.tryEmitNext(diff);
+			return diff;
+		}
+	}
+
+	/**
+	 * Reload the catalog periodically on the bounded elastic scheduler. Failed reloads are logged and the current
+	 * catalog is kept.
+	 *
+	 * @param interval the time between reloads
+	 * @return this service
+	 */
+	public ReloadableCatalogService watch(Duration interval) {
+		return watch(interval, Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Reload the catalog periodically. Failed reloads are logged and the current catalog is kept. Any previous watch
+	 * is stopped.
+	 *
+	 * @param interval the time between reloads
+	 * @param scheduler the scheduler on which to reload the catalog
+	 * @return this service
+	 */
+	public ReloadableCatalogService watch(Duration interval, Scheduler scheduler) {
+		Assert.isTrue(interval != null && !interval.isNegative() && !interval.isZero(),
+				"interval must be positive");
+		Disposable subscription = Flux.interval(interval, interval, scheduler)
+				.onBackpressureDrop()
+				.concatMap(tick -> Mono.fromCallable(this::reload)
+						.doOnError(e -> LOG.error("Error reloading catalog, keeping the current catalog. error="
+								+ e.getMessage(), e))
+						.onErrorResume(e -> Mono.empty()), 1)
+				.subscribe();
+		Disposable previous = this.watcher.getAndSet(subscription);
+		if (previous != null) {
+			previous.dispose();
+		}
+		return this;
+	}
+
+	/**
+	 * Stop watching the catalog source and complete the stream of changes
+	 */
+	@Override
+	public void close() {
+		Disposable previous = this.watcher.getAndSet(null);
+		if (previous != null) {
+			previous.dispose();
+		}
+		this.changes.tryEmitComplete();
+	}
+
+	/**
+	 * A hot stream of the changes made to the catalog by reloads. Subscribers receive only the changes made after
+	 * they subscribe.
+	 *
+	 * @return the changes
+	 */
+	public Flux<CatalogDiff> getChanges() {
+		return this.changes.asFlux();
+	}
+
+	/**
+	 * The number of times the catalog has been loaded from the source, excluding the initial load and failed loads
+	 *
+	 * @return the reload count
+	 */
+	public long getReloadCount() {
+		return this.reloadCount.get();
+	}
+
+	/**
+	 * The number of reloads that failed because the source could not provide a catalog
+	 *
+	 * @return the reload failure count
+	 */
+	public long getReloadFailureCount() {
+		return this.reloadFailureCount.get();
+	}
+
+	/**
+	 * The number of reloads that changed the catalog
+	 *
+	 * @return the change count
+	 */
+	public long getChangeCount() {
+		return this.changeCount.get();
+	}
+
+	/**
+	 * The time taken by the most recent reload, including indexing the catalog if it changed
+	 *
+	 * @return the reload duration
+	 */
+	public Duration getLastReloadDuration() {
+		return Duration.ofNanos(this.lastReloadNanos.get());
+	}
+
+	/**
+	 * The number of service definitions in the current catalog
+	 *
+	 * @return the service definition count
+	 */
+	public int getServiceDefinitionCount() {
+		return this.catalogIndex.get().getServiceDefinitions().size();
+	}
+
+	/**
+	 * The number of plans in the current catalog
+	 *
+	 * @return the plan count
+	 */
+	public int getPlanCount() {
+		return this.catalogIndex.get().getPlans().size();
+	}
+
+	private Catalog loadCatalog() {
+		Catalog catalog = this.catalogSource.get();
+		Assert.state(catalog != null, "catalogSource must not return null");
+		return catalog;
+	}
+
+}
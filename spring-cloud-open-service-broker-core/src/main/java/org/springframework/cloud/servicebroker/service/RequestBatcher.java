@@ -0,0 +1,244 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+
+import org.springframework.util.Assert;
+
+/**
+ * Collects concurrent requests into batches. A batch is dispatched when the window after its first request has
+ * passed, or as soon as it reaches the maximum size, and the result of each request is handed back to it. A request
+ * without a result is dispatched on its own, and an error of the batch fails every request in it. Batches and requests
+ * dispatched on their own are subscribed on the dispatch scheduler, so a bulk service that blocks does not block the
+ * thread that submitted the request that filled a batch. The dispatch scheduler must allow blocking, as the bounded
+ * elastic scheduler does, unless the bulk service never blocks.
+ *
+ * @param <Q> the type of the requests
+ * @param <R> the type of the responses
+ */
+public class RequestBatcher<Q, R> {
+
+	private final Function<List<Q>, Mono<Map<Q, BatchResult<R>>>> batchCall;
+
+	private final Function<Q, Mono<R>> singleCall;
+
+	private final Duration window;
+
+	private final int maximumSize;
+
+	private final Scheduler timer;
+
+	private final Object batchMonitor = new Object();
+
+	private List<PendingRequest<Q, R>> batch = new ArrayList<>();
+
+	private long generation;
+
+	private final AtomicLong batchCount = new AtomicLong();
+
+	private final AtomicLong requestCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link RequestBatcher}
+	 *
+	 * @param batchCall dispatches a batch of requests, and returns the results keyed by request
+	 * @param singleCall dispatches a request without a result in its batch
+	 * @param window how long a batch collects requests after its first request
+	 * @param maximumSize the maximum number of requests in a batch
+	 * @param timer the scheduler on which batches are dispatched, when their window has passed or when they are full
+	 */
+	public RequestBatcher(Function<List<Q>, Mono<Map<Q, BatchResult<R>>>> batchCall,
+			Function<Q, Mono<R>> singleCall, Duration window, int maximumSize, Scheduler timer) {
+		Assert.notNull(batchCall, "batchCall must not be null");
+		Assert.notNull(singleCall, "singleCall must not be null");
+		Assert.isTrue(window != null && !window.isNegative() && !window.isZero(), "window must be positive");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(timer, "timer must not be null");
+		this.batchCall = batchCall;
+		this.singleCall = singleCall;
+		this.window = window;
+		this.maximumSize = maximumSize;
+		this.timer = timer;
+	}
+
+	/**
+	 * Add a request to the current batch
+	 *
+	 * @param request the request
+	 * @return the response to the request
+	 */
+	public Mono<R> submit(Q request) {
+		return Mono.defer(() -> {
+			PendingRequest<Q, R> pending = new PendingRequest<>(request);
+			List<PendingRequest<Q, R>> full = null;
+			boolean started;
+			long current;
+			synchronized (this.batchMonitor) {
+				started = this.batch.isEmpty();
+				current = this.generation;
+				this.batch.add(pending);
+				if (this.batch.size() >= this.maximumSize) {
+					full = takeBatch();
+				}
+			}
+			if (full == null) {
+				if (started) {
+					this.timer.schedule(() -> dispatchIfCurrent(current), this.window.toNanos(),
+							TimeUnit.NANOSECONDS);
+				}
+			}
+			else {
+				dispatch(full);
+			}
+			return pending.getResponse();
+		});
+	}
+
+	/**
+	 * The number of batches dispatched
+	 *
+	 * @return the batch count
+	 */
+	public long getBatchCount() {
+		return this.batchCount.get();
+	}
+
+	/**
+	 * The number of requests dispatched in batches
+	 *
+	 * @return the request count
+	 */
+	public long getRequestCount() {
+		return this.requestCount.get();
+	}
+
+	/**
+	 * The average number of requests in a batch
+	 *
+	 * @return the average batch size, or zero if no batches have been dispatched
+	 */
+	public double getAverageBatchSize() {
+		long batches = this.batchCount.get();
+		return batches == 0 ? 0 : (double) this.requestCount.get() / batches;
+	}
+
+	private void dispatchIfCurrent(long scheduledGeneration) {
+		List<PendingRequest<Q, R>> scheduled;
+		synchronized (this.batchMonitor) {
+			if (this.generation != scheduledGeneration || this.batch.isEmpty()) {
+				return;
+			}
+			scheduled = takeBatch();
+		}
+		dispatch(scheduled);
+	}
+
+	private List<PendingRequest<Q, R>> takeBatch() {
+		List<PendingRequest<Q, R>> taken = this.batch;
+		this.batch = new ArrayList<>();
+		this.generation++;
+		return taken;
+	}
+
+	private void dispatch(List<PendingRequest<Q, R>> pendingRequests) {
+		this.batchCount.incrementAndGet();
+		this.requestCount.addAndGet(pendingRequests.size());
+		List<Q> requests = new ArrayList<>(pendingRequests.size());
+		for (PendingRequest<Q, R> pending : pendingRequests) {
+			requests.add(pending.getRequest());
+		}
+		Mono.defer(() -> this.batchCall.apply(Collections.unmodifiableList(requests)))
+				.subscribeOn(this.timer)
+				.defaultIfEmpty(Collections.emptyMap())
+				.subscribe(results -> complete(pendingRequests, results),
+						error -> pendingRequests.forEach(pending -> pending.getSink().tryEmitError(error)));
+	}
+
+	private void complete(List<PendingRequest<Q, R>> pendingRequests, Map<Q, BatchResult<R>> results) {
+		for (PendingRequest<Q, R> pending : pendingRequests) {
+			BatchResult<R> result = results.get(pending.getRequest());
+			Sinks.One<R> sink = pending.getSink();
+			if (result == null) {
+				Mono.defer(() -> this.singleCall.apply(pending.getRequest()))
+						.subscribeOn(this.timer)
+						.subscribe(sink::tryEmitValue, sink::tryEmitError, sink::tryEmitEmpty);
+			}
+			else if (result.getError() == null) {
+				sink.tryEmitValue(result.getResponse());
+			}
+			else {
+				sink.tryEmitError(result.getError());
+			}
+		}
+	}
+
+	/**
+	 * A request waiting in a batch, and the sink its response is emitted to
+	 */
+	private static final class PendingRequest<Q, R> {
+
+		private final Q request;
+
+		private final Sinks.One<R> sink = Sinks.one();
+
+		private PendingRequest(Q request) {
+			this.request = request;
+		}
+
+		/**
+		 * The request
+		 *
+		 * @return the request
+		 */
+		public Q getRequest() {
+			return this.request;
+		}
+
+		/**
+		 * The sink the response is emitted to
+		 *
+		 * @return the sink
+		 */
+		public Sinks.One<R> getSink() {
+			return this.sink;
+		}
+
+		/**
+		 * The response
+		 *
+		 * @return the response
+		 */
+		public Mono<R> getResponse() {
+			return this.sink.asMono();
+		}
+
+	}
+
+}
@@ -0,0 +1,438 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.util.Assert;
+
+/**
+ * De-duplicates requests to create service instances and service instance bindings that platforms retry, for example
+ * after a timeout. Requests are identified by a fingerprint, a hash of the canonical form of their IDs, service
+ * offering, plan, parameters, and context.
+ *
+ * <p>
+ * A request with the same fingerprint as a request in progress for the same service instance or binding shares its
+ * result. A request with the same fingerprint as a request that completed within the time-to-live is answered with
+ * the stored response, marked as existing. A request for the same service instance or binding with a different
+ * fingerprint is rejected as a conflict. None of these call the service. Failed requests are not stored, so that
+ * they can be retried. When the maximum size is reached, expired responses are evicted first, and then the oldest
+ * response. Completed requests are kept in the order they were stored, so that both are found at the head in constant
+ * time. Requests handled by other broker instances are not seen.
+ */
+public class RequestDeduplicator {
+
+	/**
+	 * The default time a completed request is remembered
+	 */
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	/**
+	 * The default maximum number of remembered completed requests
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10_000;
+
+	private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+			.enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+			.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+			.build();
+
+	private final ConcurrentMap<List<String>, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+
+	private final Map<List<String>, CompletedRequest> completed = new LinkedHashMap<>();
+
+	private final Object monitor = new Object();
+
+	private final long timeToLiveMillis;
+
+	private final int maximumSize;
+
+	private final Clock clock;
+
+	private final AtomicLong sharedCount = new AtomicLong();
+
+	private final AtomicLong replayedCount = new AtomicLong();
+
+	private final AtomicLong conflictCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link RequestDeduplicator} with the default time-to-live and maximum size
+	 */
+	public RequestDeduplicator() {
+		this(DEFAULT_TIME_TO_LIVE, DEFAULT_MAXIMUM_SIZE, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link RequestDeduplicator}
+	 *
+	 * @param timeToLive how long a completed request is remembered, or zero to only share requests in progress
+	 * @param maximumSize the maximum number of remembered completed requests
+	 * @param clock the clock used to determine the age of completed requests
+	 */
+	public RequestDeduplicator(Duration timeToLive, int maximumSize, Clock clock) {
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative(), "timeToLive must not be negative");
+		Assert.isTrue(maximumSize > 0, "maximumSize must be positive");
+		Assert.notNull(clock, "clock must not be null");
+		this.timeToLiveMillis = timeToLive.toMillis();
+		this.maximumSize = maximumSize;
+		this.clock = clock;
+	}
+
+	/**
+	 * Compute the fingerprint of a request to create a service instance
+	 *
+	 * @param request the request
+	 * @return the fingerprint
+	 */
+	@SuppressWarnings("deprecation")
+	public String fingerprint(CreateServiceInstanceRequest request) {
+		Map<String, Object> fields = new TreeMap<>();
+		fields.put("service_instance_id", request.getServiceInstanceId());
+		fields.put("service_id", request.getServiceDefinitionId());
+		fields.put("plan_id", request.getPlanId());
+		fields.put("organization_guid", request.getOrganizationGuid());
+		fields.put("space_guid", request.getSpaceGuid());
+		fields.put("parameters", request.getParameters());
+		fields.put("context", canonical(request.getContext()));
+		fields.put("maintenance_info", request.getMaintenanceInfo());
+		return hash(fields);
+	}
+
+	/**
+	 * Compute the fingerprint of a request to create a service instance binding
+	 *
+	 * @param request the request
+	 * @return the fingerprint
+	 */
+	@SuppressWarnings("deprecation")
+	public String fingerprint(CreateServiceInstanceBindingRequest request) {
+		Map<String, Object> fields = new TreeMap<>();
+		fields.put("service_instance_id", request.getServiceInstanceId());
+		fields.put("binding_id", request.getBindingId());
+		fields.put("service_id", request.getServiceDefinitionId());
+		fields.put("plan_id", request.getPlanId());
+		fields.put("app_guid", request.getAppGuid());
+		fields.put("bind_resource", request.getBindResource());
+		fields.put("parameters", request.getParameters());
+		fields.put("context", canonical(request.getContext()));
+		return hash(fields);
+	}
+
+	/**
+	 * Answer a request from a request in progress or completed for the same service instance or binding, or else
+	 * from a new call to the service
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for a request on a service instance
+	 * @param fingerprint the fingerprint of the request
+	 * @param call calls the service
+	 * @param existed marks a stored response as existing before it answers a retried request
+	 * @param conflict creates the error that rejects a different request for the same service instance or binding
+	 * @param <T> the type of the response
+	 * @return the response
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Mono<T> deduplicate(String serviceInstanceId, String bindingId, String fingerprint,
+			Supplier<Mono<T>> call, UnaryOperator<T> existed, Supplier<? extends ServiceBrokerException> conflict) {
+		return Mono.defer(() -> {
+			List<String> key = Arrays.asList(serviceInstanceId, bindingId);
+			CompletedRequest done = getCompleted(key);
+			if (done != null) {
+				return answer(done, fingerprint, existed, conflict);
+			}
+			Sinks.One<T> sink = Sinks.one();
+			InFlightRequest request = new InFlightRequest(fingerprint, sink.asMono());
+			InFlightRequest existing = this.inFlight.putIfAbsent(key, request);
+			if (existing != null) {
+				if (existing.getFingerprint().equals(fingerprint)) {
+					this.sharedCount.incrementAndGet();
+					return (Mono<T>) existing.getResult();
+				}
+				this.conflictCount.incrementAndGet();
+				return Mono.error(conflict.get());
+			}
+			done = getCompleted(key);
+			if (done == null) {
+				this.missCount.incrementAndGet();
+				call(key, request, call, sink);
+			}
+			else {
+				this.inFlight.remove(key, request);
+				answer(done, fingerprint, existed, conflict).subscribe(sink::tryEmitValue, sink::tryEmitError);
+			}
+			return sink.asMono();
+		});
+	}
+
+	/**
+	 * Forget the requests for a service instance or binding, for example because it was deleted
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for a service instance
+	 */
+	public void invalidate(String serviceInstanceId, String bindingId) {
+		List<String> key = Arrays.asList(serviceInstanceId, bindingId);
+		synchronized (this.monitor) {
+			this.completed.remove(key);
+		}
+		this.inFlight.remove(key);
+	}
+
+	/**
+	 * The number of requests that shared the result of an identical request in progress
+	 *
+	 * @return the shared count
+	 */
+	public long getSharedCount() {
+		return this.sharedCount.get();
+	}
+
+	/**
+	 * The number of requests answered with the stored response of an identical completed request
+	 *
+	 * @return the replayed count
+	 */
+	public long getReplayedCount() {
+		return this.replayedCount.get();
+	}
+
+	/**
+	 * The number of requests rejected because a different request for the same resource was in progress or completed
+	 *
+	 * @return the conflict count
+	 */
+	public long getConflictCount() {
+		return this.conflictCount.get();
+	}
+
+	/**
+	 * The number of requests that called the service
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * The number of remembered completed requests
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		synchronized (this.monitor) {
+			return this.completed.size();
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Mono<T> answer(CompletedRequest done, String fingerprint, UnaryOperator<T> existed,
+			Supplier<? extends ServiceBrokerException> conflict) {
+		if (done.getFingerprint().equals(fingerprint)) {
+			this.replayedCount.incrementAndGet();
+			return Mono.just(existed.apply((T) done.getResponse()));
+		}
+		this.conflictCount.incrementAndGet();
+		return Mono.error(conflict.get());
+	}
+
+	private <T> void call(List<String> key, InFlightRequest request, Supplier<Mono<T>> call, Sinks.One<T> sink) {
+		call.get().subscribe(response -> {
+			store(key, new CompletedRequest(request.getFingerprint(), response, this.clock.millis()));
+			this.inFlight.remove(key, request);
+			sink.tryEmitValue(response);
+		}, error -> {
+			this.inFlight.remove(key, request);
+			sink.tryEmitError(error);
+		}, () -> {
+			this.inFlight.remove(key, request);
+			sink.tryEmitEmpty();
+		});
+	}
+
+	private CompletedRequest getCompleted(List<String> key) {
+		synchronized (this.monitor) {
+			CompletedRequest done = this.completed.get(key);
+			if (done == null) {
+				return null;
+			}
+			if (this.clock.millis() - done.getCompletedAt() < this.timeToLiveMillis) {
+				return done;
+			}
+			this.completed.remove(key);
+			return null;
+		}
+	}
+
+	private void store(List<String> key, CompletedRequest request) {
+		if (this.timeToLiveMillis == 0) {
+			return;
+		}
+		synchronized (this.monitor) {
+			if (this.completed.remove(key) == null && this.completed.size() >= this.maximumSize) {
+				evict();
+			}
+			this.completed.put(key, request);
+		}
+	}
+
+	private void evict() {
+		long expiredBefore = this.clock.millis() - this.timeToLiveMillis;
+		Iterator<CompletedRequest> oldest = this.completed.values().iterator();
+		while (oldest.hasNext()) {
+			if (oldest.next().getCompletedAt() > expiredBefore && this.completed.size() < this.maximumSize) {
+				return;
+			}
+			oldest.remove();
+		}
+	}
+
+	private static Map<String, Object> canonical(Context context) {
+		if (context == null) {
+			return null;
+		}
+		Map<String, Object> fields = new TreeMap<>(context.getProperties());
+		fields.put(Context.PLATFORM_KEY, context.getPlatform());
+		return fields;
+	}
+
+	private static String hash(Map<String, Object> fields) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return Base64.getEncoder().encodeToString(digest.digest(CANONICAL_MAPPER.writeValueAsString(fields)
+					.getBytes(StandardCharsets.UTF_8)));
+		}
+		catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Error serializing request fields", e);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 is not supported", e);
+		}
+	}
+
+	/**
+	 * A request in progress and its shared result
+	 */
+	private static final class InFlightRequest {
+
+		private final String fingerprint;
+
+		private final Mono<?> result;
+
+		private InFlightRequest(String fingerprint, Mono<?> result) {
+			this.fingerprint = fingerprint;
+			this.result = result;
+		}
+
+		/**
+		 * The fingerprint of the request
+		 *
+		 * @return the fingerprint
+		 */
+		public String getFingerprint() {
+			return this.fingerprint;
+		}
+
+		/**
+		 * The shared result of the request
+		 *
+		 * @return the result
+		 */
+		public Mono<?> getResult() {
+			return this.result;
+		}
+
+	}
+
+	/**
+	 * A completed request, its response, and the time it completed
+	 */
+	private static final class CompletedRequest {
+
+		private final String fingerprint;
+
+		private final Object response;
+
+		private final long completedAt;
+
+		private CompletedRequest(String fingerprint, Object response, long completedAt) {
+			this.fingerprint = fingerprint;
+			this.response = response;
+			this.completedAt = completedAt;
+		}
+
+		/**
+		 * The fingerprint of the request
+		 *
+		 * @return the fingerprint
+		 */
+		public String getFingerprint() {
+			return this.fingerprint;
+		}
+
+		/**
+		 * The response of the request
+		 *
+		 * @return the response
+		 */
+		public Object getResponse() {
+			return this.response;
+		}
+
+		/**
+		 * The time the request completed, in milliseconds since the epoch
+		 *
+		 * @return the completion time
+		 */
+		public long getCompletedAt() {
+			return this.completedAt;
+		}
+
+	}
+
+}
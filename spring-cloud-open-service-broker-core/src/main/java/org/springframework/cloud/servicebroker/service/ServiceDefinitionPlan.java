@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.Objects;
+
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+/**
+ * A {@link Plan} from the catalog together with the {@link ServiceDefinition} that contains it.
+ */
+public final class ServiceDefinitionPlan {
+
+	private final ServiceDefinition serviceDefinition;
+
+	private final Plan plan;
+
+	/**
+	 * Construct a new {@link ServiceDefinitionPlan}
+	 *
+	 * @param serviceDefinition the service definition containing the plan
+	 * @param plan the plan
+	 */
+	public ServiceDefinitionPlan(ServiceDefinition serviceDefinition, Plan plan) {
+		this.serviceDefinition = serviceDefinition;
+		this.plan = plan;
+	}
+
+	/**
+	 * The service definition containing the plan
+	 *
+	 * @return the service definition
+	 */
+	public ServiceDefinition getServiceDefinition() {
+		return this.serviceDefinition;
+	}
+
+	/**
+	 * The plan
+	 *
+	 * @return the plan
+	 */
+	public Plan getPlan() {
+		return this.plan;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof ServiceDefinitionPlan)) {
+			return false;
+		}
+		ServiceDefinitionPlan that = (ServiceDefinitionPlan) o;
+		return Objects.equals(serviceDefinition, that.serviceDefinition) &&
+				Objects.equals(plan, that.plan);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(serviceDefinition, plan);
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceDefinitionPlan{" +
+				"serviceDefinition=" + serviceDefinition +
+				", plan=" + plan +
+				'}';
+	}
+
+}
@@ -18,6 +18,7 @@ package org.springframework.cloud.servicebroker.service;
 
 import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
 import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
 import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
@@ -27,6 +28,9 @@ import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindi
 import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
 import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 
 /**
  * Internal implementation of {@link ServiceInstanceBindingService} that attaches event hooks to the requests to create
@@ -40,6 +44,8 @@ public class ServiceInstanceBindingEventService implements ServiceInstanceBindin
 
 	private final EventFlowRegistries flows;
 
+	private final ServiceBrokerEventStream events;
+
 	/**
 	 * Construct a new {@link ServiceInstanceBindingEventService}
 	 *
@@ -47,19 +53,28 @@ public class ServiceInstanceBindingEventService implements ServiceInstanceBindin
 	 * @param flows the event flow registries
 	 */
 	public ServiceInstanceBindingEventService(ServiceInstanceBindingService service, EventFlowRegistries flows) {
+		this(service, flows, null);
+	}
+
+	/**
+	 * Construct a new {@link ServiceInstanceBindingEventService}
+	 *
+	 * @param service the service instance binding service
+	 * @param flows the event flow registries
+	 * @param events the stream the outcomes of operations are published to, or {@literal null}
+	 */
+	public ServiceInstanceBindingEventService(ServiceInstanceBindingService service, EventFlowRegistries flows,
+			ServiceBrokerEventStream events) {
 		this.service = service;
 		this.flows = flows;
+		this.events = events;
 	}
 
 	@Override
 	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
 			CreateServiceInstanceBindingRequest request) {
-		return flows.getCreateInstanceBindingRegistry().getInitializationFlows(request)
-				.then(service.createServiceInstanceBinding(request))
-				.onErrorResume(e -> flows.getCreateInstanceBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getCreateInstanceBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.CREATE_SERVICE_INSTANCE_BINDING, request,
+				flows.getCreateInstanceBindingRegistry(), service.createServiceInstanceBinding(request));
 	}
 
 	@Override
@@ -70,23 +85,23 @@ public class ServiceInstanceBindingEventService implements ServiceInstanceBindin
 	@Override
 	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
 			GetLastServiceBindingOperationRequest request) {
-		return flows.getAsyncOperationBindingRegistry().getInitializationFlows(request)
-				.then(service.getLastOperation(request))
-				.onErrorResume(e -> flows.getAsyncOperationBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getAsyncOperationBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.SERVICE_INSTANCE_BINDING_LAST_OPERATION, request,
+				flows.getAsyncOperationBindingRegistry(), service.getLastOperation(request));
 	}
 
 	@Override
 	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
 			DeleteServiceInstanceBindingRequest request) {
-		return flows.getDeleteInstanceBindingRegistry().getInitializationFlows(request)
-				.then(service.deleteServiceInstanceBinding(request))
-				.onErrorResume(e -> flows.getDeleteInstanceBindingRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getDeleteInstanceBindingRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.DELETE_SERVICE_INSTANCE_BINDING, request,
+				flows.getDeleteInstanceBindingRegistry(), service.deleteServiceInstanceBinding(request));
+	}
+
+	private <R extends ServiceBrokerRequest, S> Mono<S> publish(ServiceBrokerEvent.Type type, R request,
+			EventFlowRegistry<?, ?, ?, R, S> registry, Mono<S> operation) {
+		if (this.events == null) {
+			return registry.attachFlows(request, operation);
+		}
+		return this.events.observe(type, request, operation, registry);
 	}
 
 }
@@ -18,6 +18,7 @@ package org.springframework.cloud.servicebroker.service;
 
 import reactor.core.publisher.Mono;
 
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
@@ -29,6 +30,9 @@ import org.springframework.cloud.servicebroker.model.instance.GetServiceInstance
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventFlowRegistry;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 
 /**
  * Internal implementation of {@link ServiceInstanceService} that attaches event hooks to requests related to
@@ -42,6 +46,8 @@ public class ServiceInstanceEventService implements ServiceInstanceService {
 
 	private final EventFlowRegistries flows;
 
+	private final ServiceBrokerEventStream events;
+
 	/**
 	 * Constructs a new {@link ServiceInstanceEventService}
 	 *
@@ -50,18 +56,27 @@ public class ServiceInstanceEventService implements ServiceInstanceService {
 	 */
 	public ServiceInstanceEventService(ServiceInstanceService serviceInstanceService,
 			EventFlowRegistries eventFlowRegistries) {
+		this(serviceInstanceService, eventFlowRegistries, null);
+	}
+
+	/**
+	 * Constructs a new {@link ServiceInstanceEventService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param eventFlowRegistries the event flow registries
+	 * @param eventStream the stream the outcomes of operations are published to, or {@literal null}
+	 */
+	public ServiceInstanceEventService(ServiceInstanceService serviceInstanceService,
+			EventFlowRegistries eventFlowRegistries, ServiceBrokerEventStream eventStream) {
 		this.service = serviceInstanceService;
 		this.flows = eventFlowRegistries;
+		this.events = eventStream;
 	}
 
 	@Override
 	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
-		return flows.getCreateInstanceRegistry().getInitializationFlows(request)
-				.then(service.createServiceInstance(request))
-				.onErrorResume(e -> flows.getCreateInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getCreateInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.CREATE_SERVICE_INSTANCE, request,
+				flows.getCreateInstanceRegistry(), service.createServiceInstance(request));
 	}
 
 	@Override
@@ -71,32 +86,28 @@ public class ServiceInstanceEventService implements ServiceInstanceService {
 
 	@Override
 	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
-		return flows.getAsyncOperationRegistry().getInitializationFlows(request)
-				.then(service.getLastOperation(request))
-				.onErrorResume(e -> flows.getAsyncOperationRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getAsyncOperationRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.SERVICE_INSTANCE_LAST_OPERATION, request,
+				flows.getAsyncOperationRegistry(), service.getLastOperation(request));
 	}
 
 	@Override
 	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
-		return flows.getDeleteInstanceRegistry().getInitializationFlows(request)
-				.then(service.deleteServiceInstance(request))
-				.onErrorResume(e -> flows.getDeleteInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getDeleteInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.DELETE_SERVICE_INSTANCE, request,
+				flows.getDeleteInstanceRegistry(), service.deleteServiceInstance(request));
 	}
 
 	@Override
 	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
-		return flows.getUpdateInstanceRegistry().getInitializationFlows(request)
-				.then(service.updateServiceInstance(request))
-				.onErrorResume(e -> flows.getUpdateInstanceRegistry().getErrorFlows(request, e)
-						.then(Mono.error(e)))
-				.flatMap(response -> flows.getUpdateInstanceRegistry().getCompletionFlows(request, response)
-						.then(Mono.just(response)));
+		return publish(ServiceBrokerEvent.Type.UPDATE_SERVICE_INSTANCE, request,
+				flows.getUpdateInstanceRegistry(), service.updateServiceInstance(request));
+	}
+
+	private <R extends ServiceBrokerRequest, S> Mono<S> publish(ServiceBrokerEvent.Type type, R request,
+			EventFlowRegistry<?, ?, ?, R, S> registry, Mono<S> operation) {
+		if (this.events == null) {
+			return registry.attachFlows(request, operation);
+		}
+		return this.events.observe(type, request, operation, registry);
 	}
 
 }
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.util.Assert;
+
+/**
+ * Limits the number of operations that are dispatched to the service at once for each service definition and
+ * operation type, and adapts the limit to the latency of the service. Operations beyond the limit are rejected with a
+ * {@link ServiceBrokerOverloadedException}, a {@link org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException},
+ * so that the platform retries them later.
+ *
+ * <p>
+ * The limit follows a gradient algorithm, and is adjusted once for each window of as many successful operations as
+ * the limit, counting only operations dispatched after the previous adjustment. The average round-trip latency of
+ * the window is compared to the latency of the service without load, and the limit is multiplied by the ratio,
+ * between one half and one, and then grown by its square root. While the latency stays within the tolerance of the
+ * no-load latency the limit grows, and when operations queue up in the service and the latency rises the limit
+ * shrinks, so the limit converges to the concurrency the service can handle without queueing. The new limit is
+ * smoothed with the previous one, and the limit only grows while at least half of it is used.
+ *
+ * <p>
+ * The no-load latency is the shortest latency of a probe, and is lowered whenever an operation completes faster. A
+ * probe runs at the start and again after each probe interval, shortened by a random jitter so that the probes of
+ * different service definitions and replicas do not line up. While a probe runs, the concurrency is reduced to the
+ * probe ratio of the limit rather than to the minimum limit, which is enough to drain the queue of a service whose
+ * latency stays within the tolerance, and the probe ends as soon as a few operations dispatched at that concurrency
+ * have completed. The probes let the limiter follow a service that becomes permanently slower. Failed and cancelled
+ * operations do not change the limit.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	/**
+	 * The default limit before the first adjustment
+	 */
+	public static final int DEFAULT_INITIAL_LIMIT = 20;
+
+	/**
+	 * The default minimum limit
+	 */
+	public static final int DEFAULT_MIN_LIMIT = 2;
+
+	/**
+	 * The default maximum limit
+	 */
+	public static final int DEFAULT_MAX_LIMIT = 500;
+
+	/**
+	 * The default ratio by which the latency may exceed the no-load latency before the limit shrinks
+	 */
+	public static final double DEFAULT_TOLERANCE = 1.5;
+
+	/**
+	 * The default maximum interval after which the no-load latency is measured again
+	 */
+	public static final Duration DEFAULT_PROBE_INTERVAL = Duration.ofMinutes(1);
+
+	/**
+	 * The default ratio of the limit to which the concurrency is reduced while the no-load latency is measured
+	 */
+	public static final double DEFAULT_PROBE_RATIO = 0.5;
+
+	/**
+	 * The default interval after which the platform is asked to retry a rejected operation
+	 */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+	private final double initialLimit;
+
+	private final int minLimit;
+
+	private final int maxLimit;
+
+	private final double tolerance;
+
+	private final long probeIntervalNanos;
+
+	private final double probeRatio;
+
+	private final Duration retryAfter;
+
+	private final LongSupplier nanoTime;
+
+	private final ConcurrentMap<List<Object>, OperationLimit> limits = new ConcurrentHashMap<>();
+
+	private final LongAdder admittedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * Construct a new {@link AdaptiveConcurrencyLimiter} with the default settings
+	 */
+	public AdaptiveConcurrencyLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_TOLERANCE, DEFAULT_PROBE_INTERVAL,
+				DEFAULT_PROBE_RATIO, DEFAULT_RETRY_AFTER, System::nanoTime);
+	}
+
+	/**
+	 * Construct a new {@link AdaptiveConcurrencyLimiter} with the default probe ratio
+	 *
+	 * @param initialLimit the limit before the first adjustment
+	 * @param minLimit the minimum limit
+	 * @param maxLimit the maximum limit
+	 * @param tolerance the ratio by which the latency may exceed the no-load latency before the limit shrinks
+	 * @param probeInterval the maximum interval after which the no-load latency is measured again
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 * @param nanoTime the monotonic time source in nanoseconds used to measure latencies, such as
+	 * 		{@link System#nanoTime()}
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+			Duration probeInterval, Duration retryAfter, LongSupplier nanoTime) {
+		this(initialLimit, minLimit, maxLimit, tolerance, probeInterval, DEFAULT_PROBE_RATIO, retryAfter, nanoTime);
+	}
+
+	/**
+	 * Construct a new {@link AdaptiveConcurrencyLimiter}
+	 *
+	 * @param initialLimit the limit before the first adjustment
+	 * @param minLimit the minimum limit
+	 * @param maxLimit the maximum limit
+	 * @param tolerance the ratio by which the latency may exceed the no-load latency before the limit shrinks
+	 * @param probeInterval the maximum interval after which the no-load latency is measured again
+	 * @param probeRatio the ratio of the limit to which the concurrency is reduced while the no-load latency is
+	 * 		measured, but not below the minimum limit
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 * @param nanoTime the monotonic time source in nanoseconds used to measure latencies, such as
+	 * 		{@link System#nanoTime()}
+	 */
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance,
+			Duration probeInterval, double probeRatio, Duration retryAfter, LongSupplier nanoTime) {
+		Assert.isTrue(minLimit > 0, "minLimit must be positive");
+		Assert.isTrue(minLimit <= initialLimit && initialLimit <= maxLimit,
+				"initialLimit must be between minLimit and maxLimit");
+		Assert.isTrue(tolerance >= 1.0, "tolerance must be at least 1");
+		Assert.isTrue(probeInterval != null && !probeInterval.isNegative() && !probeInterval.isZero(),
+				"probeInterval must be positive");
+		Assert.isTrue(probeRatio > 0 && probeRatio <= 1.0, "probeRatio must be positive and at most 1");
+		Assert.notNull(nanoTime, "nanoTime must not be null");
+		this.initialLimit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.probeIntervalNanos = probeInterval.toNanos();
+		this.probeRatio = probeRatio;
+		this.retryAfter = retryAfter;
+		this.nanoTime = nanoTime;
+	}
+
+	/**
+	 * Dispatch an operation if the limit of its service definition and operation type is not reached, and adjust the
+	 * limit to the latency of the operation when it completes.
+	 *
+	 * @param serviceDefinitionId the service definition ID of the operation
+	 * @param operationType the type of the operation
+	 * @param operation supplies the operation
+	 * @param <T> the type of the operation result
+	 * @return the result of the operation, or an error with a {@link ServiceBrokerOverloadedException} if the limit is
+	 * 		reached
+	 */
+	public <T> Mono<T> limit(String serviceDefinitionId, OperationType operationType, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			OperationLimit limit = getOrCreateLimit(serviceDefinitionId, operationType);
+			long epoch = limit.tryAcquire();
+			if (epoch < 0) {
+				this.rejectedCount.increment();
+				return Mono.error(new ServiceBrokerOverloadedException("concurrency limit reached; serviceDefinitionId="
+						+ serviceDefinitionId + ", operationType=" + operationType, this.retryAfter));
+			}
+			this.admittedCount.increment();
+			long start = nanos();
+			return Mono.defer(operation)
+					.doFinally(signal -> {
+						long now = nanos();
+						limit.release(epoch, (signal == SignalType.ON_COMPLETE) ? now - start : -1, now);
+					});
+		});
+	}
+
+	/**
+	 * The current limit of a service definition and operation type
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @param operationType the operation type
+	 * @return the limit
+	 */
+	public int getLimit(String serviceDefinitionId, OperationType operationType) {
+		OperationLimit limit = this.limits.get(Arrays.asList(serviceDefinitionId, operationType));
+		return (limit == null) ? (int) this.initialLimit : limit.getEffectiveLimit();
+	}
+
+	/**
+	 * The number of operations dispatched at once for a service definition and operation type
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @param operationType the operation type
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount(String serviceDefinitionId, OperationType operationType) {
+		OperationLimit limit = this.limits.get(Arrays.asList(serviceDefinitionId, operationType));
+		return (limit == null) ? 0 : limit.getInFlight();
+	}
+
+	/**
+	 * The latency of a service definition and operation type without load, as last measured
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @param operationType the operation type
+	 * @return the no-load latency, or {@literal null} if it has not been measured
+	 */
+	public Duration getNoLoadLatency(String serviceDefinitionId, OperationType operationType) {
+		OperationLimit limit = this.limits.get(Arrays.asList(serviceDefinitionId, operationType));
+		long noLoadNanos = (limit == null) ? 0 : limit.getNoLoadNanos();
+		return (noLoadNanos == 0) ? null : Duration.ofNanos(noLoadNanos);
+	}
+
+	/**
+	 * The number of operations that were dispatched
+	 *
+	 * @return the admitted count
+	 */
+	public long getAdmittedCount() {
+		return this.admittedCount.sum();
+	}
+
+	/**
+	 * The number of operations that were rejected because the limit was reached
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	private OperationLimit getOrCreateLimit(String serviceDefinitionId, OperationType operationType) {
+		return this.limits.computeIfAbsent(Arrays.asList(serviceDefinitionId, operationType),
+				key -> new OperationLimit(this.initialLimit, this.minLimit, this.maxLimit, this.tolerance,
+						this.probeIntervalNanos, this.probeRatio));
+	}
+
+	private long nanos() {
+		return this.nanoTime.getAsLong();
+	}
+
+	/**
+	 * The limit, in-flight operations and no-load latency of a service definition and operation type
+	 */
+	private static final class OperationLimit {
+
+		private static final int PROBE_SAMPLES = 10;
+
+		private static final double SMOOTHING = 0.5;
+
+		private static final double MIN_GRADIENT = 0.5;
+
+		private static final double PROBE_JITTER = 0.25;
+
+		private final Object monitor = new Object();
+
+		private final int minLimit;
+
+		private final int maxLimit;
+
+		private final double tolerance;
+
+		private final long probeIntervalNanos;
+
+		private final double probeRatio;
+
+		private double limit;
+
+		private int inFlight;
+
+		private long noLoadNanos;
+
+		private long epoch;
+
+		private boolean probing;
+
+		private long nextProbeAt;
+
+		private int windowSamples;
+
+		private long windowNanos;
+
+		private int windowMaxInFlight;
+
+		private OperationLimit(double initialLimit, int minLimit, int maxLimit, double tolerance,
+				long probeIntervalNanos, double probeRatio) {
+			this.limit = initialLimit;
+			this.minLimit = minLimit;
+			this.maxLimit = maxLimit;
+			this.tolerance = tolerance;
+			this.probeIntervalNanos = probeIntervalNanos;
+			this.probeRatio = probeRatio;
+			startProbe();
+		}
+
+		/**
+		 * Count an operation as in flight if the limit is not reached
+		 *
+		 * @return the epoch the operation was dispatched in, or {@literal -1} if the limit is reached
+		 */
+		public long tryAcquire() {
+			synchronized (this.monitor) {
+				if (this.inFlight >= getEffectiveLimit()) {
+					return -1;
+				}
+				this.inFlight++;
+				return this.epoch;
+			}
+		}
+
+		/**
+		 * Count an operation as no longer in flight, and adjust the limit or the no-load latency to its latency
+		 *
+		 * @param epochAtStart the epoch the operation was dispatched in
+		 * @param rttNanos the latency of the operation, or {@literal -1} if it failed or was cancelled
+		 * @param now the current time in nanoseconds
+		 */
+		public void release(long epochAtStart, long rttNanos, long now) {
+			synchronized (this.monitor) {
+				this.inFlight--;
+				if (rttNanos < 0) {
+					return;
+				}
+				if (!isProbing() && rttNanos < this.noLoadNanos) {
+					this.noLoadNanos = Math.max(1, rttNanos);
+				}
+				if (epochAtStart != this.epoch) {
+					return;
+				}
+				if (isProbing()) {
+					probe(rttNanos, now);
+				}
+				else if (now >= this.nextProbeAt) {
+					startProbe();
+				}
+				else {
+					adjust(rttNanos, this.inFlight + 1);
+				}
+			}
+		}
+
+		private void probe(long rttNanos, long now) {
+			this.windowSamples++;
+			this.windowNanos = Math.min(this.windowNanos, rttNanos);
+			if (this.windowSamples == PROBE_SAMPLES) {
+				this.noLoadNanos = Math.max(1, this.windowNanos);
+				this.nextProbeAt = now + (long) (this.probeIntervalNanos *
+						(1 - PROBE_JITTER * ThreadLocalRandom.current().nextDouble()));
+				this.probing = false;
+				startWindow();
+			}
+		}
+
+		private void adjust(long rttNanos, int inFlightAtCompletion) {
+			this.windowSamples++;
+			this.windowNanos += rttNanos;
+			this.windowMaxInFlight = Math.max(this.windowMaxInFlight, inFlightAtCompletion);
+			if (this.windowSamples < Math.max(this.minLimit, (int) this.limit)) {
+				return;
+			}
+			double averageNanos = (double) this.windowNanos / this.windowSamples;
+			double gradient = Math.max(MIN_GRADIENT,
+					Math.min(1.0, this.tolerance * this.noLoadNanos / averageNanos));
+			double newLimit = this.limit * gradient + Math.sqrt(this.limit);
+			if (newLimit <= this.limit || this.windowMaxInFlight * 2 >= this.limit) {
+				newLimit = this.limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+				this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, newLimit));
+			}
+			startWindow();
+		}
+
+		private boolean isProbing() {
+			return this.probing;
+		}
+
+		private void startProbe() {
+			this.probing = true;
+			this.windowSamples = 0;
+			this.windowNanos = Long.MAX_VALUE;
+			this.epoch++;
+		}
+
+		private void startWindow() {
+			this.windowSamples = 0;
+			this.windowNanos = 0;
+			this.windowMaxInFlight = 0;
+			this.epoch++;
+		}
+
+		/**
+		 * The number of operations that may be in flight at once, which is reduced to the probe ratio of the limit
+		 * while the no-load latency is measured
+		 *
+		 * @return the effective limit
+		 */
+		public int getEffectiveLimit() {
+			synchronized (this.monitor) {
+				if (isProbing()) {
+					return Math.max(this.minLimit, (int) (this.limit * this.probeRatio));
+				}
+				return (int) this.limit;
+			}
+		}
+
+		/**
+		 * The number of operations in flight
+		 *
+		 * @return the in-flight count
+		 */
+		public int getInFlight() {
+			synchronized (this.monitor) {
+				return this.inFlight;
+			}
+		}
+
+		/**
+		 * The latency without load, as last measured
+		 *
+		 * @return the no-load latency in nanoseconds, or zero if it has not been measured
+		 */
+		public long getNoLoadNanos() {
+			synchronized (this.monitor) {
+				return this.noLoadNanos;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.service.admission.PermitQueue.Entry;
+import org.springframework.cloud.servicebroker.service.admission.PermitQueue.Waiter;
+import org.springframework.util.Assert;
+
+/**
+ * Limits the number of operations that are dispatched to the service at once, for each combination of service
+ * definition, plan and operation type. An operation that exceeds the limit waits in a short queue until another one
+ * completes, and is rejected with a {@link ServiceBrokerOverloadedException} if the queue is full or it waits too long,
+ * so that an overloaded service sheds load instead of accepting more work than it can complete.
+ *
+ * <p>
+ * Each combination of service definition ID, plan ID and operation type is admitted through its own gate. The limits
+ * of a gate are those of the most specific {@link AdmissionRule} that matches it, or the default limits if no rule
+ * matches. Waiting operations do not block a thread, and are dispatched in the order they arrived.
+ */
+public class AdmissionController {
+
+	/**
+	 * The default maximum number of operations dispatched at once for a service definition, plan and operation type
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 50;
+
+	/**
+	 * The default maximum number of operations waiting for a service definition, plan and operation type
+	 */
+	public static final int DEFAULT_MAX_QUEUED = 50;
+
+	/**
+	 * The default maximum time an operation waits to be dispatched
+	 */
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+	/**
+	 * The default interval after which the platform is asked to retry a rejected operation
+	 */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+	private final List<AdmissionRule> rules;
+
+	private final AdmissionRule defaultRule;
+
+	private final Duration maxWait;
+
+	private final Duration retryAfter;
+
+	private final Scheduler scheduler;
+
+	private final ConcurrentMap<List<Object>, Gate> gates = new ConcurrentHashMap<>();
+
+	private final LongAdder admittedCount = new LongAdder();
+
+	private final LongAdder queuedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	/**
+	 * Construct a new {@link AdmissionController} with the default limits and no rules
+	 */
+	public AdmissionController() {
+		this(Collections.emptyList(), DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_QUEUED, DEFAULT_MAX_WAIT,
+				DEFAULT_RETRY_AFTER);
+	}
+
+	/**
+	 * Construct a new {@link AdmissionController}
+	 *
+	 * @param rules the limits of specific service definitions, plans and operation types
+	 * @param maxConcurrent the maximum number of operations dispatched at once when no rule matches
+	 * @param maxQueued the maximum number of operations waiting when no rule matches
+	 * @param maxWait the maximum time an operation waits to be dispatched
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 */
+	public AdmissionController(List<AdmissionRule> rules, int maxConcurrent, int maxQueued, Duration maxWait,
+			Duration retryAfter) {
+		this(rules, maxConcurrent, maxQueued, maxWait, retryAfter, Schedulers.parallel());
+	}
+
+	/**
+	 * Construct a new {@link AdmissionController}
+	 *
+	 * @param rules the limits of specific service definitions, plans and operation types
+	 * @param maxConcurrent the maximum number of operations dispatched at once when no rule matches
+	 * @param maxQueued the maximum number of operations waiting when no rule matches
+	 * @param maxWait the maximum time an operation waits to be dispatched
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 * @param scheduler the scheduler on which waiting operations time out
+	 */
+	public AdmissionController(List<AdmissionRule> rules, int maxConcurrent, int maxQueued, Duration maxWait,
+			Duration retryAfter, Scheduler scheduler) {
+		Assert.notNull(rules, "rules must not be null");
+		Assert.isTrue(maxWait != null && !maxWait.isNegative(), "maxWait must not be negative");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		this.rules = new ArrayList<>(rules);
+		this.defaultRule = new AdmissionRule(null, null, null, maxConcurrent, maxQueued);
+		this.maxWait = maxWait;
+		this.retryAfter = retryAfter;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Dispatch an operation once it is admitted by the gate of its service definition, plan and operation type. The
+	 * operation is subscribed when it is admitted, and counts towards the limit until it terminates or is cancelled.
+	 *
+	 * @param serviceDefinitionId the service definition ID of the operation
+	 * @param planId the plan ID of the operation, or {@literal null} if it is not known
+	 * @param operationType the type of the operation
+	 * @param operation supplies the operation
+	 * @param <T> the type of the operation result
+	 * @return the result of the operation, or an error with a {@link ServiceBrokerOverloadedException} if the
+	 * 		operation was not admitted
+	 */
+	public <T> Mono<T> admit(String serviceDefinitionId, String planId, OperationType operationType,
+			Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			Gate gate = getGate(serviceDefinitionId, planId, operationType);
+			return Mono.usingWhen(acquire(gate), permit -> Mono.defer(operation),
+					permit -> Mono.fromRunnable(() -> release(gate)));
+		});
+	}
+
+	/**
+	 * The number of operations dispatched at once for a service definition, plan and operation type
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @param planId the plan ID, or {@literal null}
+	 * @param operationType the operation type
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount(String serviceDefinitionId, String planId, OperationType operationType) {
+		Gate gate = this.gates.get(Arrays.asList(serviceDefinitionId, planId, operationType));
+		return (gate == null) ? 0 : gate.getInFlight();
+	}
+
+	/**
+	 * The number of operations waiting to be dispatched for a service definition, plan and operation type
+	 *
+	 * @param serviceDefinitionId the service definition ID
+	 * @param planId the plan ID, or {@literal null}
+	 * @param operationType the operation type
+	 * @return the queued count
+	 */
+	public int getQueuedCount(String serviceDefinitionId, String planId, OperationType operationType) {
+		Gate gate = this.gates.get(Arrays.asList(serviceDefinitionId, planId, operationType));
+		return (gate == null) ? 0 : gate.getQueued();
+	}
+
+	/**
+	 * The number of operations dispatched at once across all service definitions, plans and operation types
+	 *
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount() {
+		return this.gates.values().stream().mapToInt(Gate::getInFlight).sum();
+	}
+
+	/**
+	 * The number of operations waiting to be dispatched across all service definitions, plans and operation types
+	 *
+	 * @return the queued count
+	 */
+	public int getQueuedCount() {
+		return this.gates.values().stream().mapToInt(Gate::getQueued).sum();
+	}
+
+	/**
+	 * The number of operations that were admitted, with or without waiting
+	 *
+	 * @return the admitted count
+	 */
+	public long getAdmittedCount() {
+		return this.admittedCount.sum();
+	}
+
+	/**
+	 * The number of operations that had to wait before they were admitted or rejected
+	 *
+	 * @return the waited count
+	 */
+	public long getWaitedCount() {
+		return this.queuedCount.sum();
+	}
+
+	/**
+	 * The number of operations that were rejected because the queue was full or they waited too long
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	private Gate getGate(String serviceDefinitionId, String planId, OperationType operationType) {
+		return this.gates.computeIfAbsent(Arrays.asList(serviceDefinitionId, planId, operationType),
+				key -> new Gate(findRule(serviceDefinitionId, planId, operationType)));
+	}
+
+	private AdmissionRule findRule(String serviceDefinitionId, String planId, OperationType operationType) {
+		AdmissionRule found = this.defaultRule;
+		int specificity = -1;
+		for (AdmissionRule rule : this.rules) {
+			if (rule.matches(serviceDefinitionId, planId, operationType) && rule.getSpecificity() > specificity) {
+				found = rule;
+				specificity = rule.getSpecificity();
+			}
+		}
+		return found;
+	}
+
+	private Mono<Gate> acquire(Gate gate) {
+		return Mono.create(sink -> {
+			Waiter<Gate> waiter = new Waiter<>(sink, this.scheduler.now(TimeUnit.NANOSECONDS));
+			sink.onCancel(() -> cancel(gate, waiter));
+			Entry entry = gate.enter(waiter);
+			if (entry == Entry.ADMITTED) {
+				admit(gate, waiter);
+			}
+			else if (entry == Entry.QUEUED) {
+				this.queuedCount.increment();
+				waiter.setTimeout(this.scheduler.schedule(() -> expire(gate, waiter), this.maxWait.toMillis(),
+						TimeUnit.MILLISECONDS));
+			}
+			else if (entry == Entry.REJECTED) {
+				ServiceBrokerOverloadedException rejected = overloaded(gate.getRule());
+				sink.error(rejected);
+			}
+		});
+	}
+
+	private void release(Gate gate) {
+		Waiter<Gate> next = gate.leave();
+		if (next != null) {
+			admit(gate, next);
+		}
+	}
+
+	private void admit(Gate gate, Waiter<Gate> waiter) {
+		waiter.disposeTimeout();
+		this.admittedCount.increment();
+		waiter.getSink().success(gate);
+	}
+
+	private void cancel(Gate gate, Waiter<Gate> waiter) {
+		if (waiter.cancel()) {
+			gate.remove(waiter);
+		}
+		else if (waiter.isGranted()) {
+			release(gate);
+		}
+	}
+
+	private void expire(Gate gate, Waiter<Gate> waiter) {
+		if (waiter.cancel()) {
+			gate.remove(waiter);
+			ServiceBrokerOverloadedException expired = overloaded(gate.getRule());
+			waiter.getSink().error(expired);
+		}
+	}
+
+	private ServiceBrokerOverloadedException overloaded(AdmissionRule rule) {
+		this.rejectedCount.increment();
+		return new ServiceBrokerOverloadedException("too many concurrent requests; rule=" + rule, this.retryAfter);
+	}
+
+	/**
+	 * The permits and waiting operations of a service definition, plan and operation type
+	 */
+	private static final class Gate {
+
+		private final AdmissionRule rule;
+
+		private final Object monitor = new Object();
+
+		private final PermitQueue<Gate> waiters = new PermitQueue<>();
+
+		private int inFlight;
+
+		private Gate(AdmissionRule rule) {
+			this.rule = rule;
+		}
+
+		/**
+		 * Grant a permit to an operation if one is available, or else add it to the queue if it is not full
+		 *
+		 * @param waiter the operation
+		 * @return the outcome
+		 */
+		public Entry enter(Waiter<Gate> waiter) {
+			synchronized (this.monitor) {
+				if (this.inFlight < this.rule.getMaxConcurrent()) {
+					if (!waiter.grant()) {
+						return Entry.CANCELLED;
+					}
+					this.inFlight++;
+					return Entry.ADMITTED;
+				}
+				if (this.waiters.size() >= this.rule.getMaxQueued()) {
+					return Entry.REJECTED;
+				}
+				if (!waiter.isWaiting()) {
+					return Entry.CANCELLED;
+				}
+				this.waiters.add(waiter);
+				return Entry.QUEUED;
+			}
+		}
+
+		/**
+		 * Return the permit of a completed operation, handing it over to the first waiting operation if there is one
+		 *
+		 * @return the waiting operation that was granted the permit, or {@literal null}
+		 */
+		public Waiter<Gate> leave() {
+			synchronized (this.monitor) {
+				Waiter<Gate> next = this.waiters.poll();
+				if (next == null) {
+					this.inFlight--;
+				}
+				return next;
+			}
+		}
+
+		/**
+		 * Remove an operation from the queue
+		 *
+		 * @param waiter the operation
+		 */
+		public void remove(Waiter<Gate> waiter) {
+			synchronized (this.monitor) {
+				this.waiters.remove(waiter);
+			}
+		}
+
+		/**
+		 * The limits of the gate
+		 *
+		 * @return the rule
+		 */
+		public AdmissionRule getRule() {
+			return this.rule;
+		}
+
+		/**
+		 * The number of operations dispatched at once
+		 *
+		 * @return the in-flight count
+		 */
+		public int getInFlight() {
+			synchronized (this.monitor) {
+				return this.inFlight;
+			}
+		}
+
+		/**
+		 * The number of operations waiting to be dispatched
+		 *
+		 * @return the queued count
+		 */
+		public int getQueued() {
+			synchronized (this.monitor) {
+				return this.waiters.size();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import org.springframework.util.Assert;
+
+/**
+ * The concurrency limits of the operations admitted by an {@link AdmissionController} for a service definition, a
+ * plan and an operation type. A rule without a service definition ID, plan ID or operation type applies to any value
+ * of it. Instances are immutable.
+ */
+public final class AdmissionRule {
+
+	private static final int PLAN_SPECIFICITY = 4;
+
+	private static final int SERVICE_DEFINITION_SPECIFICITY = 2;
+
+	private static final int OPERATION_TYPE_SPECIFICITY = 1;
+
+	private final String serviceDefinitionId;
+
+	private final String planId;
+
+	private final OperationType operationType;
+
+	private final int maxConcurrent;
+
+	private final int maxQueued;
+
+	/**
+	 * Construct a new {@link AdmissionRule}
+	 *
+	 * @param serviceDefinitionId the service definition ID, or {@literal null} for any service definition
+	 * @param planId the plan ID, or {@literal null} for any plan
+	 * @param operationType the operation type, or {@literal null} for any operation type
+	 * @param maxConcurrent the maximum number of operations dispatched to the service at once
+	 * @param maxQueued the maximum number of operations waiting to be dispatched
+	 */
+	public AdmissionRule(String serviceDefinitionId, String planId, OperationType operationType, int maxConcurrent,
+			int maxQueued) {
+		Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be positive");
+		Assert.isTrue(maxQueued >= 0, "maxQueued must not be negative");
+		this.serviceDefinitionId = serviceDefinitionId;
+		this.planId = planId;
+		this.operationType = operationType;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueued = maxQueued;
+	}
+
+	/**
+	 * The ID of the service definition the rule applies to
+	 *
+	 * @return the service definition ID, or {@literal null} for any service definition
+	 */
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	/**
+	 * The ID of the plan the rule applies to
+	 *
+	 * @return the plan ID, or {@literal null} for any plan
+	 */
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	/**
+	 * The type of the operations the rule applies to
+	 *
+	 * @return the operation type, or {@literal null} for any operation type
+	 */
+	public OperationType getOperationType() {
+		return this.operationType;
+	}
+
+	/**
+	 * The maximum number of operations dispatched to the service at once
+	 *
+	 * @return the maximum concurrency
+	 */
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	/**
+	 * The maximum number of operations waiting to be dispatched
+	 *
+	 * @return the maximum queue length
+	 */
+	public int getMaxQueued() {
+		return this.maxQueued;
+	}
+
+	/**
+	 * Whether the rule applies to an operation
+	 *
+	 * @param serviceDefinitionId the service definition ID of the operation
+	 * @param planId the plan ID of the operation
+	 * @param operationType the type of the operation
+	 * @return {@literal true} if the rule applies
+	 */
+	public boolean matches(String serviceDefinitionId, String planId, OperationType operationType) {
+		return (this.serviceDefinitionId == null || this.serviceDefinitionId.equals(serviceDefinitionId))
+				&& (this.planId == null || this.planId.equals(planId))
+				&& (this.operationType == null || this.operationType == operationType);
+	}
+
+	/**
+	 * How specific the rule is. A rule for a plan is more specific than a rule for a service definition, which is more
+	 * specific than a rule for an operation type alone.
+	 *
+	 * @return the specificity
+	 */
+	public int getSpecificity() {
+		return (this.planId == null ? 0 : PLAN_SPECIFICITY)
+				+ (this.serviceDefinitionId == null ? 0 : SERVICE_DEFINITION_SPECIFICITY)
+				+ (this.operationType == null ? 0 : OPERATION_TYPE_SPECIFICITY);
+	}
+
+	@Override
+	public String toString() {
+		return "AdmissionRule{" +
+				"serviceDefinitionId='" + this.serviceDefinitionId + '\'' +
+				", planId='" + this.planId + '\'' +
+				", operationType=" + this.operationType +
+				", maxConcurrent=" + this.maxConcurrent +
+				", maxQueued=" + this.maxQueued +
+				'}';
+	}
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that dispatches each request to the service once
+ * it is admitted by an {@link AdmissionController} for its service definition, plan and operation type.
+ */
+public class AdmittingServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final AdmissionController admissionController;
+
+	/**
+	 * Construct a new {@link AdmittingServiceInstanceBindingService}
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param admissionController the admission controller
+	 */
+	public AdmittingServiceInstanceBindingService(ServiceInstanceBindingService serviceInstanceBindingService,
+			AdmissionController admissionController) {
+		this.service = serviceInstanceBindingService;
+		this.admissionController = admissionController;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.CREATE_BINDING, () -> this.service.createServiceInstanceBinding(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.GET_BINDING, () -> this.service.getServiceInstanceBinding(request));
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.LAST_BINDING_OPERATION, () -> this.service.getLastOperation(request));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.DELETE_BINDING, () -> this.service.deleteServiceInstanceBinding(request));
+	}
+
+}
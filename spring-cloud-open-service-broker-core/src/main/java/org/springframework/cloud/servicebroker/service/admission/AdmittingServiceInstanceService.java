@@ -0,0 +1,86 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that dispatches each request to the service once it is
+ * admitted by an {@link AdmissionController} for its service definition, plan and operation type.
+ */
+public class AdmittingServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final AdmissionController admissionController;
+
+	/**
+	 * Construct a new {@link AdmittingServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param admissionController the admission controller
+	 */
+	public AdmittingServiceInstanceService(ServiceInstanceService serviceInstanceService,
+			AdmissionController admissionController) {
+		this.service = serviceInstanceService;
+		this.admissionController = admissionController;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.CREATE, () -> this.service.createServiceInstance(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.GET, () -> this.service.getServiceInstance(request));
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.LAST_OPERATION, () -> this.service.getLastOperation(request));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.DELETE, () -> this.service.deleteServiceInstance(request));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return this.admissionController.admit(request.getServiceDefinitionId(), request.getPlanId(),
+				OperationType.UPDATE, () -> this.service.updateServiceInstance(request));
+	}
+
+}
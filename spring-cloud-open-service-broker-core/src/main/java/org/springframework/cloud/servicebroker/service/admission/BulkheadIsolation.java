@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+/**
+ * How a {@link Bulkheads} lane isolates the operations of its service definitions from those of other lanes.
+ */
+public enum BulkheadIsolation {
+
+	/**
+	 * Operations are subscribed on a bounded scheduler of the lane, so that a service that blocks its calling thread
+	 * only exhausts the threads of its own lane
+	 */
+	SCHEDULER,
+
+	/**
+	 * Operations are subscribed on the calling thread and only count against the budget of the lane, which suits
+	 * services that never block
+	 */
+	SEMAPHORE
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+/**
+ * A lane of {@link Bulkheads} that isolates the operations of a group of service definitions from those of other
+ * service definitions. Instances are immutable.
+ */
+public final class BulkheadRule {
+
+	private final String name;
+
+	private final List<String> serviceDefinitionIds;
+
+	private final BulkheadIsolation isolation;
+
+	private final int maxConcurrent;
+
+	/**
+	 * Construct a new {@link BulkheadRule}
+	 *
+	 * @param name the name of the lane
+	 * @param serviceDefinitionIds the IDs of the service definitions whose operations run in the lane
+	 * @param isolation how the operations of the lane are isolated
+	 * @param maxConcurrent the maximum number of operations of the lane that run at once
+	 */
+	public BulkheadRule(String name, List<String> serviceDefinitionIds, BulkheadIsolation isolation,
+			int maxConcurrent) {
+		Assert.hasText(name, "name must not be empty");
+		Assert.notEmpty(serviceDefinitionIds, "serviceDefinitionIds must not be empty");
+		Assert.notNull(isolation, "isolation must not be null");
+		Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be positive");
+		this.name = name;
+		this.serviceDefinitionIds = Collections.unmodifiableList(new ArrayList<>(serviceDefinitionIds));
+		this.isolation = isolation;
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * The name of the lane
+	 *
+	 * @return the name
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * The IDs of the service definitions whose operations run in the lane
+	 *
+	 * @return the service definition IDs
+	 */
+	public List<String> getServiceDefinitionIds() {
+		return this.serviceDefinitionIds;
+	}
+
+	/**
+	 * How the operations of the lane are isolated
+	 *
+	 * @return the isolation
+	 */
+	public BulkheadIsolation getIsolation() {
+		return this.isolation;
+	}
+
+	/**
+	 * The maximum number of operations of the lane that run at once
+	 *
+	 * @return the maximum concurrency
+	 */
+	public int getMaxConcurrent() {
+		return this.maxConcurrent;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkheadRule{" +
+				"name='" + this.name + '\'' +
+				", serviceDefinitionIds=" + this.serviceDefinitionIds +
+				", isolation=" + this.isolation +
+				", maxConcurrent=" + this.maxConcurrent +
+				'}';
+	}
+
+}
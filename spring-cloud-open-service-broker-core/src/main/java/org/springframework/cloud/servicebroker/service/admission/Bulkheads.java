@@ -0,0 +1,365 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.util.Assert;
+
+/**
+ * Isolates the operations of service definitions from each other in lanes, so that a service whose backend hangs
+ * only exhausts the budget of its own lane, and the operations of other service definitions keep their latency.
+ *
+ * <p>
+ * Each {@link BulkheadRule} defines a lane for a group of service definitions. A service definition of the catalog
+ * that no rule mentions gets a lane of its own with the default isolation and budget, named by its service definition
+ * ID. Operations without a service definition ID, or with an ID that is neither in a rule nor in the catalog, share
+ * the {@link #DEFAULT_LANE default lane}, so that the number of lanes is bounded by the rules and the catalog. Each lane
+ * admits at most its maximum number of operations at once, and rejects further operations immediately with a
+ * {@link ServiceBrokerOverloadedException}, rather than let them wait for a backend that is not responding. A lane
+ * with {@link BulkheadIsolation#SCHEDULER scheduler isolation} also subscribes its operations on a bounded scheduler
+ * of its own, so that services that block their calling thread do not block the threads of other lanes. The
+ * schedulers are disposed when the bulkheads are closed.
+ */
+public class Bulkheads implements AutoCloseable {
+
+	/**
+	 * The default maximum number of operations of a lane that run at once
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 10;
+
+	/**
+	 * The default interval after which the platform is asked to retry a rejected operation
+	 */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+	/**
+	 * The name of the lane shared by the operations of service definitions that are neither in a rule nor in the
+	 * catalog
+	 */
+	public static final String DEFAULT_LANE = "default";
+
+	private final Map<String, BulkheadRule> rulesByServiceDefinitionId = new HashMap<>();
+
+	private final Set<String> serviceDefinitionIds;
+
+	private final BulkheadIsolation defaultIsolation;
+
+	private final int defaultMaxConcurrent;
+
+	private final Duration retryAfter;
+
+	private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+	/**
+	 * Construct a new {@link Bulkheads} with a single default lane of default budget and scheduler isolation
+	 */
+	public Bulkheads() {
+		this(Collections.emptyList(), BulkheadIsolation.SCHEDULER, DEFAULT_MAX_CONCURRENT, DEFAULT_RETRY_AFTER);
+	}
+
+	/**
+	 * Construct a new {@link Bulkheads} whose service definitions that no rule mentions share the default lane
+	 *
+	 * @param rules the lanes of groups of service definitions
+	 * @param defaultIsolation the isolation of the default lane
+	 * @param defaultMaxConcurrent the budget of the default lane
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 */
+	public Bulkheads(List<BulkheadRule> rules, BulkheadIsolation defaultIsolation, int defaultMaxConcurrent,
+			Duration retryAfter) {
+		this(rules, Collections.emptySet(), defaultIsolation, defaultMaxConcurrent, retryAfter);
+	}
+
+	/**
+	 * Construct a new {@link Bulkheads}
+	 *
+	 * @param rules the lanes of groups of service definitions
+	 * @param serviceDefinitionIds the service definition IDs of the catalog, which get a lane of their own unless a
+	 * 		rule mentions them
+	 * @param defaultIsolation the isolation of the lanes of service definitions that no rule mentions
+	 * @param defaultMaxConcurrent the budget of the lanes of service definitions that no rule mentions
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 */
+	public Bulkheads(List<BulkheadRule> rules, Set<String> serviceDefinitionIds, BulkheadIsolation defaultIsolation,
+			int defaultMaxConcurrent, Duration retryAfter) {
+		Assert.notNull(rules, "rules must not be null");
+		Assert.notNull(serviceDefinitionIds, "serviceDefinitionIds must not be null");
+		Assert.notNull(defaultIsolation, "defaultIsolation must not be null");
+		Assert.isTrue(defaultMaxConcurrent > 0, "defaultMaxConcurrent must be positive");
+		for (BulkheadRule rule : rules) {
+			Assert.isTrue(!DEFAULT_LANE.equals(rule.getName()), "lane name must not be " + DEFAULT_LANE);
+			for (String serviceDefinitionId : rule.getServiceDefinitionIds()) {
+				BulkheadRule existing = this.rulesByServiceDefinitionId.put(serviceDefinitionId, rule);
+				Assert.isNull(existing, "service definition must be in one lane only; serviceDefinitionId="
+						+ serviceDefinitionId);
+			}
+		}
+		this.serviceDefinitionIds = new HashSet<>(serviceDefinitionIds);
+		this.defaultIsolation = defaultIsolation;
+		this.defaultMaxConcurrent = defaultMaxConcurrent;
+		this.retryAfter = retryAfter;
+	}
+
+	/**
+	 * Run an operation in the lane of its service definition, unless the lane is saturated. The operation is
+	 * subscribed on the scheduler of the lane if it has one, and counts against the budget of the lane until it
+	 * terminates or is cancelled. The budget is returned before the result is signalled, so that a caller that runs
+	 * one operation after another is not rejected by its own previous operation.
+	 *
+	 * @param serviceDefinitionId the service definition ID of the operation, or {@literal null}
+	 * @param operation supplies the operation
+	 * @param <T> the type of the operation result
+	 * @return the result of the operation, or an error with a {@link ServiceBrokerOverloadedException} if the lane is
+	 * 		saturated
+	 */
+	public <T> Mono<T> execute(String serviceDefinitionId, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			Lane lane = getLane(serviceDefinitionId);
+			if (!lane.tryAcquire()) {
+				lane.rejected();
+				return Mono.error(new ServiceBrokerOverloadedException(
+						"service bulkhead is saturated; lane=" + lane.getName(), this.retryAfter));
+			}
+			AtomicBoolean released = new AtomicBoolean();
+			Runnable release = () -> {
+				if (released.compareAndSet(false, true)) {
+					lane.release();
+				}
+			};
+			Mono<T> call = Mono.defer(operation);
+			if (lane.getScheduler() != null) {
+				call = call.subscribeOn(lane.getScheduler());
+			}
+			return call.doOnSuccess(result -> release.run())
+					.doOnError(e -> release.run())
+					.doOnCancel(release);
+		});
+	}
+
+	/**
+	 * The name of the lane of a service definition
+	 *
+	 * @param serviceDefinitionId the service definition ID, or {@literal null}
+	 * @return the lane name
+	 */
+	public String getLaneName(String serviceDefinitionId) {
+		if (serviceDefinitionId == null) {
+			return DEFAULT_LANE;
+		}
+		BulkheadRule rule = this.rulesByServiceDefinitionId.get(serviceDefinitionId);
+		if (rule != null) {
+			return rule.getName();
+		}
+		return this.serviceDefinitionIds.contains(serviceDefinitionId) ? serviceDefinitionId : DEFAULT_LANE;
+	}
+
+	/**
+	 * The names of the lanes that have run operations
+	 *
+	 * @return the lane names
+	 */
+	public Set<String> getLaneNames() {
+		return Collections.unmodifiableSet(new HashSet<>(this.lanes.keySet()));
+	}
+
+	/**
+	 * The number of operations of a lane that run at once
+	 *
+	 * @param laneName the lane name
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount(String laneName) {
+		Lane lane = this.lanes.get(laneName);
+		return (lane == null) ? 0 : lane.getInFlight();
+	}
+
+	/**
+	 * The fraction of the budget of a lane that is in use, where {@literal 1} means that further operations are
+	 * rejected
+	 *
+	 * @param laneName the lane name
+	 * @return the saturation, between 0 and 1
+	 */
+	public double getSaturation(String laneName) {
+		Lane lane = this.lanes.get(laneName);
+		return (lane == null) ? 0 : (double) lane.getInFlight() / lane.getMaxConcurrent();
+	}
+
+	/**
+	 * The number of operations of a lane that were rejected because the lane was saturated
+	 *
+	 * @param laneName the lane name
+	 * @return the rejected count
+	 */
+	public long getRejectedCount(String laneName) {
+		Lane lane = this.lanes.get(laneName);
+		return (lane == null) ? 0 : lane.getRejectedCount();
+	}
+
+	/**
+	 * Dispose the schedulers of the lanes
+	 */
+	@Override
+	public void close() {
+		this.lanes.values().forEach(Lane::dispose);
+	}
+
+	private Lane getLane(String serviceDefinitionId) {
+		BulkheadRule rule = (serviceDefinitionId == null) ? null
+				: this.rulesByServiceDefinitionId.get(serviceDefinitionId);
+		if (rule == null) {
+			return this.lanes.computeIfAbsent(getLaneName(serviceDefinitionId),
+					name -> new Lane(name, this.defaultIsolation, this.defaultMaxConcurrent));
+		}
+		return this.lanes.computeIfAbsent(rule.getName(),
+				name -> new Lane(name, rule.getIsolation(), rule.getMaxConcurrent()));
+	}
+
+	/**
+	 * The budget, the scheduler and the counters of a lane
+	 */
+	private static final class Lane {
+
+		private final String name;
+
+		private final int maxConcurrent;
+
+		private final Scheduler scheduler;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final LongAdder rejectedCount = new LongAdder();
+
+		private Lane(String name, BulkheadIsolation isolation, int maxConcurrent) {
+			this.name = name;
+			this.maxConcurrent = maxConcurrent;
+			this.scheduler = newScheduler(name, isolation, maxConcurrent);
+		}
+
+		private static Scheduler newScheduler(String name, BulkheadIsolation isolation, int maxConcurrent) {
+			if (isolation == BulkheadIsolation.SEMAPHORE) {
+				return null;
+			}
+			return Schedulers.newBoundedElastic(maxConcurrent, maxConcurrent, "bulkhead-" + name);
+		}
+
+		/**
+		 * The name of the lane
+		 *
+		 * @return the name
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * The maximum number of operations of the lane that run at once
+		 *
+		 * @return the maximum concurrency
+		 */
+		public int getMaxConcurrent() {
+			return this.maxConcurrent;
+		}
+
+		/**
+		 * The scheduler operations of the lane are subscribed on
+		 *
+		 * @return the scheduler, or {@literal null} if the lane uses semaphore isolation
+		 */
+		public Scheduler getScheduler() {
+			return this.scheduler;
+		}
+
+		/**
+		 * Count an operation against the budget, unless the budget is used up
+		 *
+		 * @return {@literal true} if the operation is counted
+		 */
+		public boolean tryAcquire() {
+			int current = this.inFlight.get();
+			while (current < this.maxConcurrent) {
+				if (this.inFlight.compareAndSet(current, current + 1)) {
+					return true;
+				}
+				current = this.inFlight.get();
+			}
+			return false;
+		}
+
+		/**
+		 * Return the budget of a completed operation
+		 */
+		public void release() {
+			this.inFlight.decrementAndGet();
+		}
+
+		/**
+		 * Count an operation that was rejected
+		 */
+		public void rejected() {
+			this.rejectedCount.increment();
+		}
+
+		/**
+		 * The number of operations of the lane that run at once
+		 *
+		 * @return the in-flight count
+		 */
+		public int getInFlight() {
+			return this.inFlight.get();
+		}
+
+		/**
+		 * The number of operations of the lane that were rejected
+		 *
+		 * @return the rejected count
+		 */
+		public long getRejectedCount() {
+			return this.rejectedCount.sum();
+		}
+
+		/**
+		 * Dispose the scheduler of the lane, if it has one
+		 */
+		public void dispose() {
+			if (this.scheduler != null) {
+				this.scheduler.dispose();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.service.BatchingServiceInstanceService;
+
+/**
+ * Internal implementation of {@link BatchingServiceInstanceService} that runs each request in the {@link Bulkheads}
+ * lane of its service definition, and splits each batch into one batch per lane. A lane that is saturated leaves its
+ * requests out of the responses, so that they are answered one by one and rejected by their lane, while the requests
+ * of other lanes are answered by their batches.
+ */
+public class IsolatingBatchingServiceInstanceService extends IsolatingServiceInstanceService
+		implements BatchingServiceInstanceService {
+
+	private final BatchingServiceInstanceService service;
+
+	private final Bulkheads bulkheads;
+
+	/**
+	 * Construct a new {@link IsolatingBatchingServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the batching service instance service
+	 * @param bulkheads the bulkheads
+	 */
+	public IsolatingBatchingServiceInstanceService(BatchingServiceInstanceService serviceInstanceService,
+			Bulkheads bulkheads) {
+		super(serviceInstanceService, bulkheads);
+		this.service = serviceInstanceService;
+		this.bulkheads = bulkheads;
+	}
+
+	@Override
+	public Mono<Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse>> getLastOperations(
+			List<GetLastServiceOperationRequest> requests) {
+		Map<String, List<GetLastServiceOperationRequest>> requestsByLane = requests.stream()
+				.collect(Collectors.groupingBy(request -> this.bulkheads.getLaneName(request.getServiceDefinitionId()),
+						LinkedHashMap::new, Collectors.toList()));
+		return Flux.fromIterable(requestsByLane.values())
+				.flatMap(laneRequests -> this.bulkheads.execute(laneRequests.get(0).getServiceDefinitionId(),
+						() -> this.service.getLastOperations(laneRequests))
+						.onErrorResume(ServiceBrokerOverloadedException.class, e -> Mono.empty()))
+				.collect(LinkedHashMap::new, Map::putAll);
+	}
+
+}
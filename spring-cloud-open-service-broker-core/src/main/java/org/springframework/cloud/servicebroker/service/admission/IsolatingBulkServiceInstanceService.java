@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.BatchResult;
+import org.springframework.cloud.servicebroker.service.BulkServiceInstanceService;
+
+/**
+ * Internal implementation of {@link BulkServiceInstanceService} that runs each request and each batch in the
+ * {@link Bulkheads} lane of its service definition. A batch holds the requests of a single service offering, and
+ * counts against the budget of its lane as one operation.
+ */
+public class IsolatingBulkServiceInstanceService extends IsolatingServiceInstanceService
+		implements BulkServiceInstanceService {
+
+	private final BulkServiceInstanceService service;
+
+	private final Bulkheads bulkheads;
+
+	/**
+	 * Construct a new {@link IsolatingBulkServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the bulk service instance service
+	 * @param bulkheads the bulkheads
+	 */
+	public IsolatingBulkServiceInstanceService(BulkServiceInstanceService serviceInstanceService,
+			Bulkheads bulkheads) {
+		super(serviceInstanceService, bulkheads);
+		this.service = serviceInstanceService;
+		this.bulkheads = bulkheads;
+	}
+
+	@Override
+	public Mono<Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>>> createServiceInstances(
+			List<CreateServiceInstanceRequest> requests) {
+		return this.bulkheads.execute(requests.get(0).getServiceDefinitionId(),
+				() -> this.service.createServiceInstances(requests));
+	}
+
+	@Override
+	public Mono<Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>>> deleteServiceInstances(
+			List<DeleteServiceInstanceRequest> requests) {
+		return this.bulkheads.execute(requests.get(0).getServiceDefinitionId(),
+				() -> this.service.deleteServiceInstances(requests));
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+/**
+ * The types of the operations of the service broker API, as distinguished by admission control.
+ */
+public enum OperationType {
+
+	/**
+	 * Creates a service instance
+	 */
+	CREATE,
+
+	/**
+	 * Updates a service instance
+	 */
+	UPDATE,
+
+	/**
+	 * Deletes a service instance
+	 */
+	DELETE,
+
+	/**
+	 * Retrieves a service instance
+	 */
+	GET,
+
+	/**
+	 * Retrieves the state of the last operation on a service instance
+	 */
+	LAST_OPERATION,
+
+	/**
+	 * Creates a service instance binding
+	 */
+	CREATE_BINDING,
+
+	/**
+	 * Deletes a service instance binding
+	 */
+	DELETE_BINDING,
+
+	/**
+	 * Retrieves a service instance binding
+	 */
+	GET_BINDING,
+
+	/**
+	 * Retrieves the state of the last operation on a service instance binding
+	 */
+	LAST_BINDING_OPERATION
+
+}
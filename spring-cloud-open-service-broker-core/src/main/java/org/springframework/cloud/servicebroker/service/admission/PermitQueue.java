@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * The operations waiting for a permit of an {@link AdmissionController} gate or a {@link PriorityDispatcher} lane,
+ * in the order they arrived. The queue is guarded by the monitor of its owner, while each {@link Waiter} is granted
+ * its permit or cancelled exactly once without a lock.
+ *
+ * @param <P> the type of the permit
+ */
+final class PermitQueue<P> {
+
+	private final Deque<Waiter<P>> waiters = new ArrayDeque<>();
+
+	/**
+	 * Add an operation to the end of the queue
+	 *
+	 * @param waiter the operation
+	 */
+	public void add(Waiter<P> waiter) {
+		this.waiters.add(waiter);
+	}
+
+	/**
+	 * Remove the first operation that is still waiting from the queue and grant it the permit, discarding the
+	 * cancelled operations before it
+	 *
+	 * @return the operation, or {@literal null} if no operation is waiting
+	 */
+	public Waiter<P> poll() {
+		Waiter<P> next = this.waiters.poll();
+		while (next != null && !next.grant()) {
+			next = this.waiters.poll();
+		}
+		return next;
+	}
+
+	/**
+	 * Remove an operation from the queue
+	 *
+	 * @param waiter the operation
+	 */
+	public void remove(Waiter<P> waiter) {
+		this.waiters.remove(waiter);
+	}
+
+	/**
+	 * The number of operations in the queue
+	 *
+	 * @return the queued count
+	 */
+	public int size() {
+		return this.waiters.size();
+	}
+
+	/**
+	 * The outcomes of an operation asking for a permit
+	 */
+	public enum Entry {
+
+		/**
+		 * The operation was granted a permit
+		 */
+		ADMITTED,
+
+		/**
+		 * The operation waits for a permit
+		 */
+		QUEUED,
+
+		/**
+		 * The queue is full
+		 */
+		REJECTED,
+
+		/**
+		 * The operation was cancelled before it asked for a permit
+		 */
+		CANCELLED
+
+	}
+
+	/**
+	 * An operation waiting for a permit. The permit is granted or the wait cancelled exactly once.
+	 *
+	 * @param <P> the type of the permit
+	 */
+	public static final class Waiter<P> {
+
+		private static final int WAITING = 0;
+
+		private static final int GRANTED = 1;
+
+		private static final int CANCELLED = 2;
+
+		private final MonoSink<P> sink;
+
+		private final long queuedAt;
+
+		private final AtomicInteger state = new AtomicInteger(WAITING);
+
+		private final AtomicReference<Disposable> timeout = new AtomicReference<>();
+
+		/**
+		 * Construct a new {@link Waiter}
+		 *
+		 * @param sink the sink the permit is emitted to
+		 * @param queuedAt the time the operation started waiting, in nanoseconds
+		 */
+		public Waiter(MonoSink<P> sink, long queuedAt) {
+			this.sink = sink;
+			this.queuedAt = queuedAt;
+		}
+
+		/**
+		 * Grant the permit, unless the wait was cancelled
+		 *
+		 * @return {@literal true} if the permit was granted
+		 */
+		public boolean grant() {
+			return this.state.compareAndSet(WAITING, GRANTED);
+		}
+
+		/**
+		 * Cancel the wait, unless the permit was granted
+		 *
+		 * @return {@literal true} if the wait was cancelled
+		 */
+		public boolean cancel() {
+			return this.state.compareAndSet(WAITING, CANCELLED);
+		}
+
+		/**
+		 * Whether the operation is still waiting
+		 *
+		 * @return {@literal true} if neither granted nor cancelled
+		 */
+		public boolean isWaiting() {
+			return this.state.get() == WAITING;
+		}
+
+		/**
+		 * Whether the permit was granted
+		 *
+		 * @return {@literal true} if granted
+		 */
+		public boolean isGranted() {
+			return this.state.get() == GRANTED;
+		}
+
+		/**
+		 * The sink the permit is emitted to
+		 *
+		 * @return the sink
+		 */
+		public MonoSink<P> getSink() {
+			return this.sink;
+		}
+
+		/**
+		 * The time the operation started waiting, in nanoseconds
+		 *
+		 * @return the queue time
+		 */
+		public long getQueuedAt() {
+			return this.queuedAt;
+		}
+
+		/**
+		 * Set the task that rejects the operation when it waited too long
+		 *
+		 * @param timeout the scheduled task
+		 */
+		public void setTimeout(Disposable timeout) {
+			this.timeout.set(timeout);
+		}
+
+		/**
+		 * Cancel the task that rejects the operation when it waited too long
+		 */
+		public void disposeTimeout() {
+			Disposable scheduled = this.timeout.get();
+			if (scheduled != null) {
+				scheduled.dispose();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.Disposable;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Limits the rate and the concurrency of the requests of each platform, so that one misbehaving platform cannot
+ * starve the other platforms that share the service broker. A request beyond the rate of its platform is rejected
+ * with a {@link ServiceBrokerRateLimitedException}, and a request beyond the concurrency of its platform with a
+ * {@link ServiceBrokerOverloadedException}, both of which ask the platform to retry later.
+ *
+ * <p>
+ * The platform of a request is identified by its platform instance ID, or else by its authenticated principal, or
+ * else by the platform named in its originating identity, as determined by
+ * {@link #platformKey(String, String, String)}. The rate of each
+ * platform is limited by a token bucket, implemented with the generic cell rate algorithm as a single atomic
+ * theoretical arrival time, so that taking a token is a compare-and-set without locking. Platforms that have no
+ * requests in flight and sent no request for the idle timeout are evicted. If the number of tracked platforms reaches
+ * the maximum even after eviction, new platforms share a single overflow bucket until idle platforms are evicted.
+ */
+public class PlatformRateLimiter {
+
+	/**
+	 * The default number of requests per second that each platform may send
+	 */
+	public static final double DEFAULT_RATE = 20;
+
+	/**
+	 * The default number of requests that each platform may send at once after it was idle
+	 */
+	public static final int DEFAULT_BURST = 40;
+
+	/**
+	 * The default maximum number of requests of each platform that are processed at once
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 20;
+
+	/**
+	 * The default maximum number of platforms that are tracked
+	 */
+	public static final int DEFAULT_MAX_PLATFORMS = 1000;
+
+	/**
+	 * The default time after which a platform that sent no requests is evicted
+	 */
+	public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+	/**
+	 * The default interval after which the platform is asked to retry a request rejected for its concurrency
+	 */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+	/**
+	 * The key of the bucket shared by the platforms beyond the maximum number of tracked platforms
+	 */
+	public static final String OVERFLOW_KEY = "overflow";
+
+	/**
+	 * The key of the requests that identify no platform, no originating identity and no principal
+	 */
+	public static final String ANONYMOUS_KEY = "anonymous";
+
+	private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+	private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+	private final long emissionIntervalNanos;
+
+	private final long burstNanos;
+
+	private final int maxConcurrent;
+
+	private final int maxPlatforms;
+
+	private final long idleTimeoutNanos;
+
+	private final Duration retryAfter;
+
+	private final Clock clock;
+
+	private final AtomicLong nextEvictionAt = new AtomicLong();
+
+	/**
+	 * Construct a new {@link PlatformRateLimiter} with the default limits
+	 */
+	public PlatformRateLimiter() {
+		this(DEFAULT_RATE, DEFAULT_BURST, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_PLATFORMS, DEFAULT_IDLE_TIMEOUT,
+				DEFAULT_RETRY_AFTER, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link PlatformRateLimiter}
+	 *
+	 * @param rate the number of requests per second that each platform may send
+	 * @param burst the number of requests that each platform may send at once after it was idle
+	 * @param maxConcurrent the maximum number of requests of each platform that are processed at once
+	 * @param maxPlatforms the maximum number of platforms that are tracked
+	 * @param idleTimeout the time after which a platform that sent no requests is evicted
+	 * @param retryAfter the interval after which the platform is asked to retry a request rejected for its
+	 * 		concurrency
+	 * @param clock the clock that measures the rate
+	 */
+	public PlatformRateLimiter(double rate, int burst, int maxConcurrent, int maxPlatforms, Duration idleTimeout,
+			Duration retryAfter, Clock clock) {
+		Assert.isTrue(rate > 0, "rate must be positive");
+		Assert.isTrue(burst > 0, "burst must be positive");
+		Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be positive");
+		Assert.isTrue(maxPlatforms > 0, "maxPlatforms must be positive");
+		Assert.isTrue(idleTimeout != null && !idleTimeout.isNegative(), "idleTimeout must not be negative");
+		Assert.notNull(clock, "clock must not be null");
+		this.emissionIntervalNanos = Math.max(1, (long) (NANOS_PER_SECOND / rate));
+		this.burstNanos = this.emissionIntervalNanos * burst;
+		this.maxConcurrent = maxConcurrent;
+		this.maxPlatforms = maxPlatforms;
+		this.idleTimeoutNanos = idleTimeout.toNanos();
+		this.retryAfter = retryAfter;
+		this.clock = clock;
+	}
+
+	/**
+	 * The key that identifies the platform of a request: the platform instance ID if there is one, or else the
+	 * authenticated principal, or else the platform named in the originating identity. Only the platform of the
+	 * originating identity is used, since its encoded properties identify the user rather than the platform.
+	 *
+	 * @param platformInstanceId the platform instance ID of the request, or {@literal null}
+	 * @param originatingIdentity the originating identity header of the request, or {@literal null}
+	 * @param principal the name of the authenticated principal of the request, or {@literal null}
+	 * @return the key
+	 */
+	public static String platformKey(String platformInstanceId, String originatingIdentity, String principal) {
+		if (StringUtils.hasText(platformInstanceId)) {
+			return "platform:" + platformInstanceId;
+		}
+		if (StringUtils.hasText(principal)) {
+			return "principal:" + principal;
+		}
+		if (StringUtils.hasText(originatingIdentity)) {
+			return "identity:" + originatingIdentityPlatform(originatingIdentity.trim());
+		}
+		return ANONYMOUS_KEY;
+	}
+
+	private static String originatingIdentityPlatform(String originatingIdentity) {
+		int separator = originatingIdentity.indexOf(' ');
+		return separator < 0 ? originatingIdentity : originatingIdentity.substring(0, separator);
+	}
+
+	/**
+	 * Take a token from the bucket of a platform and count the request as in flight, unless the platform exceeded its
+	 * rate or concurrency
+	 *
+	 * @param platformKey the key of the platform, as determined by {@link #platformKey(String, String, String)}
+	 * @return the permit of the request, which must be disposed when the request completes
+	 * @throws ServiceBrokerRateLimitedException if the platform exceeded its rate
+	 * @throws ServiceBrokerOverloadedException if the platform exceeded its concurrency
+	 */
+	public Disposable acquire(String platformKey) {
+		long now = nanos();
+		evictIdle(now, false);
+		Bucket bucket = getBucket(platformKey, now);
+		if (!bucket.tryEnter(this.maxConcurrent, now)) {
+			bucket.concurrencyLimited();
+			throw new ServiceBrokerOverloadedException("too many concurrent requests; platform=" + platformKey,
+					this.retryAfter);
+		}
+		long waitNanos = bucket.tryTake(this.emissionIntervalNanos, this.burstNanos, now);
+		if (waitNanos > 0) {
+			bucket.leave();
+			bucket.rateLimited();
+			throw new ServiceBrokerRateLimitedException("request rate limit exceeded; platform=" + platformKey,
+					Duration.ofNanos(waitNanos));
+		}
+		bucket.admitted();
+		return new Permit(bucket);
+	}
+
+	/**
+	 * The keys of the platforms that are tracked
+	 *
+	 * @return the platform keys
+	 */
+	public Set<String> getPlatformKeys() {
+		return Collections.unmodifiableSet(new HashSet<>(this.buckets.keySet()));
+	}
+
+	/**
+	 * The number of requests of a platform that are processed at once
+	 *
+	 * @param platformKey the key of the platform
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount(String platformKey) {
+		Bucket bucket = this.buckets.get(platformKey);
+		return (bucket == null) ? 0 : bucket.getInFlight();
+	}
+
+	/**
+	 * The number of requests of a platform that were admitted since the platform was last evicted
+	 *
+	 * @param platformKey the key of the platform
+	 * @return the admitted count
+	 */
+	public long getAdmittedCount(String platformKey) {
+		Bucket bucket = this.buckets.get(platformKey);
+		return (bucket == null) ? 0 : bucket.getAdmittedCount();
+	}
+
+	/**
+	 * The number of requests of a platform that were rejected for its rate since the platform was last evicted
+	 *
+	 * @param platformKey the key of the platform
+	 * @return the rate-limited count
+	 */
+	public long getRateLimitedCount(String platformKey) {
+		Bucket bucket = this.buckets.get(platformKey);
+		return (bucket == null) ? 0 : bucket.getRateLimitedCount();
+	}
+
+	/**
+	 * The number of requests of a platform that were rejected for its concurrency since the platform was last evicted
+	 *
+	 * @param platformKey the key of the platform
+	 * @return the concurrency-limited count
+	 */
+	public long getConcurrencyLimitedCount(String platformKey) {
+		Bucket bucket = this.buckets.get(platformKey);
+		return (bucket == null) ? 0 : bucket.getConcurrencyLimitedCount();
+	}
+
+	private Bucket getBucket(String platformKey, long now) {
+		Bucket bucket = this.buckets.get(platformKey);
+		if (bucket != null) {
+			return bucket;
+		}
+		if (this.buckets.size() >= this.maxPlatforms) {
+			evictIdle(now, true);
+		}
+		String key = this.buckets.size() < this.maxPlatforms ? platformKey : OVERFLOW_KEY;
+		return this.buckets.computeIfAbsent(key, k -> new Bucket(now));
+	}
+
+	private void evictIdle(long now, boolean force) {
+		long next = this.nextEvictionAt.get();
+		if (!force && (now < next || !this.nextEvictionAt.compareAndSet(next, now + this.idleTimeoutNanos))) {
+			return;
+		}
+		this.buckets.forEach((key, bucket) -> {
+			if (bucket.isIdle(now, this.idleTimeoutNanos)) {
+				this.buckets.remove(key, bucket);
+			}
+		});
+	}
+
+	private long nanos() {
+		return Duration.between(Instant.EPOCH, this.clock.instant()).toNanos();
+	}
+
+	/**
+	 * The token bucket, in-flight requests and counters of a platform
+	 */
+	private static final class Bucket {
+
+		private final AtomicLong theoreticalArrival;
+
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		private final AtomicLong lastUsed;
+
+		private final LongAdder admittedCount = new LongAdder();
+
+		private final LongAdder rateLimitedCount = new LongAdder();
+
+		private final LongAdder concurrencyLimitedCount = new LongAdder();
+
+		private Bucket(long now) {
+			this.theoreticalArrival = new AtomicLong(now);
+			this.lastUsed = new AtomicLong(now);
+		}
+
+		/**
+		 * Count a request as in flight, unless the maximum is reached
+		 *
+		 * @param maxConcurrent the maximum number of requests in flight
+		 * @param now the current time in nanoseconds
+		 * @return {@literal true} if the request is counted
+		 */
+		public boolean tryEnter(int maxConcurrent, long now) {
+			this.lastUsed.set(now);
+			int current = this.inFlight.get();
+			while (current < maxConcurrent) {
+				if (this.inFlight.compareAndSet(current, current + 1)) {
+					return true;
+				}
+				current = this.inFlight.get();
+			}
+			return false;
+		}
+
+		/**
+		 * Count a request as no longer in flight
+		 */
+		public void leave() {
+			this.inFlight.decrementAndGet();
+		}
+
+		/**
+		 * Take a token, unless the bucket is empty. The bucket is empty when the theoretical arrival time of the next
+		 * request lies more than the burst beyond the current time.
+		 *
+		 * @param emissionIntervalNanos the time in which the bucket gains one token
+		 * @param burstNanos the time in which the bucket fills up
+		 * @param now the current time in nanoseconds
+		 * @return zero if a token was taken, or else the time until a token is available in nanoseconds
+		 */
+		public long tryTake(long emissionIntervalNanos, long burstNanos, long now) {
+			while (true) {
+				long current = this.theoreticalArrival.get();
+				long next = Math.max(current, now) + emissionIntervalNanos;
+				long excess = next - now - burstNanos;
+				if (excess > 0) {
+					return excess;
+				}
+				if (this.theoreticalArrival.compareAndSet(current, next)) {
+					return 0;
+				}
+			}
+		}
+
+		/**
+		 * Whether the platform has no requests in flight and sent no request for the idle timeout
+		 *
+		 * @param now the current time in nanoseconds
+		 * @param idleTimeoutNanos the idle timeout in nanoseconds
+		 * @return {@literal true} if idle
+		 */
+		public boolean isIdle(long now, long idleTimeoutNanos) {
+			return this.inFlight.get() == 0 && now - this.lastUsed.get() >= idleTimeoutNanos;
+		}
+
+		/**
+		 * Count an admitted request
+		 */
+		public void admitted() {
+			this.admittedCount.increment();
+		}
+
+		/**
+		 * Count a request rejected for the rate
+		 */
+		public void rateLimited() {
+			this.rateLimitedCount.increment();
+		}
+
+		/**
+		 * Count a request rejected for the concurrency
+		 */
+		public void concurrencyLimited() {
+			this.concurrencyLimitedCount.increment();
+		}
+
+		/**
+		 * The number of requests in flight
+		 *
+		 * @return the in-flight count
+		 */
+		public int getInFlight() {
+			return this.inFlight.get();
+		}
+
+		/**
+		 * The number of admitted requests
+		 *
+		 * @return the admitted count
+		 */
+		public long getAdmittedCount() {
+			return this.admittedCount.sum();
+		}
+
+		/**
+		 * The number of requests rejected for the rate
+		 *
+		 * @return the rate-limited count
+		 */
+		public long getRateLimitedCount() {
+			return this.rateLimitedCount.sum();
+		}
+
+		/**
+		 * The number of requests rejected for the concurrency
+		 *
+		 * @return the concurrency-limited count
+		 */
+		public long getConcurrencyLimitedCount() {
+			return this.concurrencyLimitedCount.sum();
+		}
+
+	}
+
+	/**
+	 * The in-flight count of a request, which is released exactly once
+	 */
+	private static final class Permit implements Disposable {
+
+		private final Bucket bucket;
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		private Permit(Bucket bucket) {
+			this.bucket = bucket;
+		}
+
+		@Override
+		public void dispose() {
+			if (this.released.compareAndSet(false, true)) {
+				this.bucket.leave();
+			}
+		}
+
+		@Override
+		public boolean isDisposed() {
+			return this.released.get();
+		}
+
+	}
+
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.service.admission.PermitQueue.Entry;
+import org.springframework.cloud.servicebroker.service.admission.PermitQueue.Waiter;
+import org.springframework.cloud.servicebroker.service.async.LatencyHistogram;
+import org.springframework.util.Assert;
+
+/**
+ * Dispatches operations to the service through a shared pool of permits, queueing the operations that find no permit
+ * in a separate {@link PriorityLane} per operation class, so that cheap polls and cleanup deletes are not stuck
+ * behind expensive creates when the service is overloaded. An operation that finds its lane full or waits too long is
+ * rejected with a {@link ServiceBrokerOverloadedException}.
+ *
+ * <p>
+ * Permits are handed to the waiting lanes by weighted fair queuing. Every dispatch advances the virtual finish time
+ * of its lane by the inverse of the lane's weight, and the waiting lane with the earliest finish time is served next,
+ * so that each lane receives a share of the dispatches proportional to its weight while other lanes are waiting. A
+ * lane that was idle starts at the current virtual time, so that it cannot save up a burst of dispatches. A number of
+ * permits is reserved for the lanes that are not {@link PriorityLane#isThrottled() throttled}, so that polls and
+ * deletes keep flowing even when creates and updates occupy every other permit for a long time.
+ *
+ * <p>
+ * The time each operation waited for its permit is recorded in a {@link LatencyHistogram} per lane.
+ */
+public class PriorityDispatcher {
+
+	/**
+	 * The default maximum number of operations dispatched at once
+	 */
+	public static final int DEFAULT_MAX_CONCURRENT = 50;
+
+	/**
+	 * The default number of permits reserved for the lanes that are not throttled
+	 */
+	public static final int DEFAULT_RESERVED = 5;
+
+	/**
+	 * The default maximum number of operations waiting in each lane
+	 */
+	public static final int DEFAULT_MAX_QUEUED = 100;
+
+	/**
+	 * The default maximum time an operation waits to be dispatched
+	 */
+	public static final Duration DEFAULT_MAX_WAIT = Duration.ofSeconds(5);
+
+	/**
+	 * The default interval after which the platform is asked to retry a rejected operation
+	 */
+	public static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(5);
+
+	private final Map<PriorityLane, Lane> lanes = new EnumMap<>(PriorityLane.class);
+
+	private final int maxConcurrent;
+
+	private final int reserved;
+
+	private final int maxQueued;
+
+	private final Duration maxWait;
+
+	private final Duration retryAfter;
+
+	private final Scheduler scheduler;
+
+	private final Object monitor = new Object();
+
+	private int inFlight;
+
+	private double virtualTime;
+
+	/**
+	 * Construct a new {@link PriorityDispatcher} with the default weights and limits
+	 */
+	public PriorityDispatcher() {
+		this(new EnumMap<>(PriorityLane.class), DEFAULT_MAX_CONCURRENT, DEFAULT_RESERVED, DEFAULT_MAX_QUEUED,
+				DEFAULT_MAX_WAIT, DEFAULT_RETRY_AFTER);
+	}
+
+	/**
+	 * Construct a new {@link PriorityDispatcher}
+	 *
+	 * @param weights the weights of the lanes, where lanes that are not included have their default weight
+	 * @param maxConcurrent the maximum number of operations dispatched at once
+	 * @param reserved the number of permits reserved for the lanes that are not throttled
+	 * @param maxQueued the maximum number of operations waiting in each lane
+	 * @param maxWait the maximum time an operation waits to be dispatched
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 */
+	public PriorityDispatcher(Map<PriorityLane, Integer> weights, int maxConcurrent, int reserved, int maxQueued,
+			Duration maxWait, Duration retryAfter) {
+		this(weights, maxConcurrent, reserved, maxQueued, maxWait, retryAfter, Schedulers.parallel());
+	}
+
+	/**
+	 * Construct a new {@link PriorityDispatcher}
+	 *
+	 * @param weights the weights of the lanes, where lanes that are not included have their default weight
+	 * @param maxConcurrent the maximum number of operations dispatched at once
+	 * @param reserved the number of permits reserved for the lanes that are not throttled
+	 * @param maxQueued the maximum number of operations waiting in each lane
+	 * @param maxWait the maximum time an operation waits to be dispatched
+	 * @param retryAfter the interval after which the platform is asked to retry a rejected operation
+	 * @param scheduler the scheduler on which waiting operations time out, and whose clock measures wait times
+	 */
+	public PriorityDispatcher(Map<PriorityLane, Integer> weights, int maxConcurrent, int reserved, int maxQueued,
+			Duration maxWait, Duration retryAfter, Scheduler scheduler) {
+		Assert.notNull(weights, "weights must not be null");
+		Assert.isTrue(maxConcurrent > 0, "maxConcurrent must be positive");
+		Assert.isTrue(reserved >= 0 && reserved < maxConcurrent,
+				"reserved must not be negative and must be less than maxConcurrent");
+		Assert.isTrue(maxWait != null && !maxWait.isNegative(), "maxWait must not be negative");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		for (PriorityLane lane : PriorityLane.values()) {
+			Assert.isTrue(weights.getOrDefault(lane, lane.getDefaultWeight()) > 0,
+					"weight must be positive; lane=" + lane);
+		}
+		Arrays.stream(PriorityLane.values()).forEach(lane ->
+				this.lanes.put(lane, new Lane(lane, weights.getOrDefault(lane, lane.getDefaultWeight()))));
+		this.maxConcurrent = maxConcurrent;
+		this.reserved = reserved;
+		this.maxQueued = maxQueued;
+		this.maxWait = maxWait;
+		this.retryAfter = retryAfter;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Dispatch an operation once it is granted a permit. The operation is subscribed when the permit is granted, and
+	 * holds the permit until it terminates or is cancelled.
+	 *
+	 * @param operationType the type of the operation, which determines its lane
+	 * @param operation supplies the operation
+	 * @param <T> the type of the operation result
+	 * @return the result of the operation, or an error with a {@link ServiceBrokerOverloadedException} if the
+	 * 		operation was not dispatched
+	 */
+	public <T> Mono<T> dispatch(OperationType operationType, Supplier<Mono<T>> operation) {
+		return Mono.defer(() -> {
+			Lane lane = this.lanes.get(PriorityLane.of(operationType));
+			return Mono.usingWhen(acquire(lane), permit -> Mono.defer(operation),
+					permit -> Mono.fromRunnable(() -> release(lane)));
+		});
+	}
+
+	/**
+	 * The weight of a lane
+	 *
+	 * @param lane the lane
+	 * @return the weight
+	 */
+	public int getWeight(PriorityLane lane) {
+		return this.lanes.get(lane).getWeight();
+	}
+
+	/**
+	 * The number of operations dispatched at once
+	 *
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount() {
+		synchronized (this.monitor) {
+			return this.inFlight;
+		}
+	}
+
+	/**
+	 * The number of operations of a lane dispatched at once
+	 *
+	 * @param lane the lane
+	 * @return the in-flight count
+	 */
+	public int getInFlightCount(PriorityLane lane) {
+		synchronized (this.monitor) {
+			return this.lanes.get(lane).getInFlight();
+		}
+	}
+
+	/**
+	 * The number of operations waiting in a lane
+	 *
+	 * @param lane the lane
+	 * @return the queued count
+	 */
+	public int getQueuedCount(PriorityLane lane) {
+		synchronized (this.monitor) {
+			return this.lanes.get(lane).getQueued();
+		}
+	}
+
+	/**
+	 * The times the operations of a lane waited before they were dispatched, including the operations that were
+	 * dispatched without waiting
+	 *
+	 * @param lane the lane
+	 * @return the wait time histogram
+	 */
+	public LatencyHistogram getWaitTimes(PriorityLane lane) {
+		return this.lanes.get(lane).getWaitTimes();
+	}
+
+	/**
+	 * The number of operations of a lane that were rejected because the lane was full or they waited too long
+	 *
+	 * @param lane the lane
+	 * @return the rejected count
+	 */
+	public long getRejectedCount(PriorityLane lane) {
+		return this.lanes.get(lane).getRejectedCount();
+	}
+
+	private Mono<Lane> acquire(Lane lane) {
+		return Mono.create(sink -> {
+			Waiter<Lane> waiter = new Waiter<>(sink, this.scheduler.now(TimeUnit.NANOSECONDS));
+			sink.onCancel(() -> cancel(lane, waiter));
+			Entry entry = enter(lane, waiter);
+			if (entry == Entry.ADMITTED) {
+				lane.getWaitTimes().recordNanos(0);
+				sink.success(lane);
+			}
+			else if (entry == Entry.QUEUED) {
+				waiter.setTimeout(this.scheduler.schedule(() -> expire(lane, waiter), this.maxWait.toMillis(),
+						TimeUnit.MILLISECONDS));
+			}
+			else if (entry == Entry.REJECTED) {
+				ServiceBrokerOverloadedException rejected = overloaded(lane);
+				sink.error(rejected);
+			}
+		});
+	}
+
+	private Entry enter(Lane lane, Waiter<Lane> waiter) {
+		synchronized (this.monitor) {
+			if (lane.getQueued() == 0 && hasPermit(lane)) {
+				if (!waiter.grant()) {
+					return Entry.CANCELLED;
+				}
+				dispatched(lane);
+				return Entry.ADMITTED;
+			}
+			if (lane.getQueued() >= this.maxQueued) {
+				return Entry.REJECTED;
+			}
+			if (!waiter.isWaiting()) {
+				return Entry.CANCELLED;
+			}
+			if (lane.getQueued() == 0) {
+				lane.setFinishTime(Math.max(lane.getFinishTime(), this.virtualTime));
+			}
+			lane.add(waiter);
+			return Entry.QUEUED;
+		}
+	}
+
+	private void release(Lane lane) {
+		Waiter<Lane> next = null;
+		Lane nextLane;
+		synchronized (this.monitor) {
+			this.inFlight--;
+			lane.setInFlight(lane.getInFlight() - 1);
+			nextLane = selectLane();
+			while (nextLane != null && next == null) {
+				next = nextLane.poll();
+				if (next == null) {
+					nextLane = selectLane();
+				}
+			}
+			if (nextLane != null) {
+				this.virtualTime = nextLane.getFinishTime();
+				nextLane.setFinishTime(nextLane.getFinishTime() + 1.0 / nextLane.getWeight());
+				dispatched(nextLane);
+			}
+		}
+		if (next != null) {
+			next.disposeTimeout();
+			nextLane.getWaitTimes().recordNanos(this.scheduler.now(TimeUnit.NANOSECONDS) - next.getQueuedAt());
+			next.getSink().success(nextLane);
+		}
+	}
+
+	private Lane selectLane() {
+		Lane next = null;
+		for (Lane lane : this.lanes.values()) {
+			if (lane.getQueued() > 0 && hasPermit(lane)
+					&& (next == null || lane.getFinishTime() < next.getFinishTime())) {
+				next = lane;
+			}
+		}
+		return next;
+	}
+
+	private boolean hasPermit(Lane lane) {
+		int available = lane.getPriorityLane().isThrottled() ? this.maxConcurrent - this.reserved : this.maxConcurrent;
+		return this.inFlight < available;
+	}
+
+	private void dispatched(Lane lane) {
+		this.inFlight++;
+		lane.setInFlight(lane.getInFlight() + 1);
+	}
+
+	private void cancel(Lane lane, Waiter<Lane> waiter) {
+		if (waiter.cancel()) {
+			remove(lane, waiter);
+		}
+		else if (waiter.isGranted()) {
+			release(lane);
+		}
+	}
+
+	private void expire(Lane lane, Waiter<Lane> waiter) {
+		if (waiter.cancel()) {
+			remove(lane, waiter);
+			ServiceBrokerOverloadedException expired = overloaded(lane);
+			waiter.getSink().error(expired);
+		}
+	}
+
+	private void remove(Lane lane, Waiter<Lane> waiter) {
+		synchronized (this.monitor) {
+			lane.remove(waiter);
+		}
+	}
+
+	private ServiceBrokerOverloadedException overloaded(Lane lane) {
+		lane.rejected();
+		return new ServiceBrokerOverloadedException("too many concurrent requests; lane=" + lane.getPriorityLane(),
+				this.retryAfter);
+	}
+
+	/**
+	 * The waiting operations and the virtual finish time of a lane. The dispatcher guards the lane with its monitor,
+	 * except for the counters, which may be read at any time.
+	 */
+	private static final class Lane {
+
+		private final PriorityLane priorityLane;
+
+		private final int weight;
+
+		private final PermitQueue<Lane> waiters = new PermitQueue<>();
+
+		private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+		private final LongAdder rejectedCount = new LongAdder();
+
+		private int inFlight;
+
+		private double finishTime;
+
+		private Lane(PriorityLane priorityLane, int weight) {
+			this.priorityLane = priorityLane;
+			this.weight = weight;
+		}
+
+		/**
+		 * The operation class of the lane
+		 *
+		 * @return the lane
+		 */
+		public PriorityLane getPriorityLane() {
+			return this.priorityLane;
+		}
+
+		/**
+		 * The share of dispatches the lane receives while other lanes are also waiting
+		 *
+		 * @return the weight
+		 */
+		public int getWeight() {
+			return this.weight;
+		}
+
+		/**
+		 * Add an operation to the end of the lane
+		 *
+		 * @param waiter the operation
+		 */
+		public void add(Waiter<Lane> waiter) {
+			this.waiters.add(waiter);
+		}
+
+		/**
+		 * Remove the first operation that is still waiting from the lane and grant it the permit, discarding the
+		 * cancelled operations before it
+		 *
+		 * @return the operation, or {@literal null} if no operation is waiting
+		 */
+		public Waiter<Lane> poll() {
+			return this.waiters.poll();
+		}
+
+		/**
+		 * Remove an operation from the lane
+		 *
+		 * @param waiter the operation
+		 */
+		public void remove(Waiter<Lane> waiter) {
+			this.waiters.remove(waiter);
+		}
+
+		/**
+		 * The number of operations waiting in the lane
+		 *
+		 * @return the queued count
+		 */
+		public int getQueued() {
+			return this.waiters.size();
+		}
+
+		/**
+		 * The number of operations of the lane dispatched at once
+		 *
+		 * @return the in-flight count
+		 */
+		public int getInFlight() {
+			return this.inFlight;
+		}
+
+		/**
+		 * Set the number of operations of the lane dispatched at once
+		 *
+		 * @param inFlight the in-flight count
+		 */
+		public void setInFlight(int inFlight) {
+			this.inFlight = inFlight;
+		}
+
+		/**
+		 * The virtual time at which the next dispatch of the lane is due
+		 *
+		 * @return the finish time
+		 */
+		public double getFinishTime() {
+			return this.finishTime;
+		}
+
+		/**
+		 * Set the virtual time at which the next dispatch of the lane is due
+		 *
+		 * @param finishTime the finish time
+		 */
+		public void setFinishTime(double finishTime) {
+			this.finishTime = finishTime;
+		}
+
+		/**
+		 * The times the operations of the lane waited before they were dispatched
+		 *
+		 * @return the wait time histogram
+		 */
+		public LatencyHistogram getWaitTimes() {
+			return this.waitTimes;
+		}
+
+		/**
+		 * Count an operation of the lane that was rejected
+		 */
+		public void rejected() {
+			this.rejectedCount.increment();
+		}
+
+		/**
+		 * The number of operations of the lane that were rejected
+		 *
+		 * @return the rejected count
+		 */
+		public long getRejectedCount() {
+			return this.rejectedCount.sum();
+		}
+
+	}
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+/**
+ * The lanes in which the {@link PriorityDispatcher} queues operations, from the cheapest to the most expensive.
+ */
+public enum PriorityLane {
+
+	/**
+	 * Operations that fetch an instance or binding, or poll the state of its last operation
+	 */
+	POLL(4, false),
+
+	/**
+	 * Operations that delete an instance or binding
+	 */
+	DELETE(2, false),
+
+	/**
+	 * Operations that create or update an instance, or create a binding
+	 */
+	CREATE(1, true);
+
+	private final int defaultWeight;
+
+	private final boolean throttled;
+
+	PriorityLane(int defaultWeight, boolean throttled) {
+		this.defaultWeight = defaultWeight;
+		this.throttled = throttled;
+	}
+
+	/**
+	 * The share of dispatches the lane receives while other lanes are also waiting, unless configured otherwise
+	 *
+	 * @return the default weight
+	 */
+	public int getDefaultWeight() {
+		return this.defaultWeight;
+	}
+
+	/**
+	 * Whether operations in the lane may not use the permits reserved for the other lanes
+	 *
+	 * @return {@literal true} if the lane is throttled
+	 */
+	public boolean isThrottled() {
+		return this.throttled;
+	}
+
+	/**
+	 * The lane of an operation type
+	 *
+	 * @param operationType the operation type
+	 * @return the lane
+	 */
+	public static PriorityLane of(OperationType operationType) {
+		switch (operationType) {
+			case CREATE:
+			case UPDATE:
+			case CREATE_BINDING:
+				return CREATE;
+			case DELETE:
+			case DELETE_BINDING:
+				return DELETE;
+			default:
+				return POLL;
+		}
+	}
+
+}
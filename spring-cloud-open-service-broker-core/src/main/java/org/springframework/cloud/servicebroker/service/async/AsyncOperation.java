@@ -0,0 +1,223 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Instant;
+
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+/**
+ * The state of an asynchronous operation on a service instance or a service instance binding, as tracked by an
+ * {@link AsyncOperationRegistry}. Instances are immutable; a new instance is registered when the state changes.
+ */
+public final class AsyncOperation {
+
+	private final String serviceInstanceId;
+
+	private final String bindingId;
+
+	private final String operation;
+
+	private final Type type;
+
+	private final OperationState state;
+
+	private final String description;
+
+	private final Object result;
+
+	private final Instant startedAt;
+
+	private final Instant completedAt;
+
+	/**
+	 * Construct a new {@link AsyncOperation}
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param operation the operation token returned to the platform
+	 * @param type the type of the operation
+	 * @param state the state of the operation
+	 * @param description a description of the state, or {@literal null}
+	 * @param result the value the operation completed with, or {@literal null}
+	 * @param startedAt the time the operation was started
+	 * @param completedAt the time the operation completed, or {@literal null} if it is in progress
+	 */
+	public AsyncOperation(String serviceInstanceId, String bindingId, String operation, Type type,
+			OperationState state, String description, Object result, Instant startedAt, Instant completedAt) {
+		this.serviceInstanceId = serviceInstanceId;
+		this.bindingId = bindingId;
+		this.operation = operation;
+		this.type = type;
+		this.state = state;
+		this.description = description;
+		this.result = result;
+		this.startedAt = startedAt;
+		this.completedAt = completedAt;
+	}
+
+	/**
+	 * The service instance ID
+	 *
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * The binding ID
+	 *
+	 * @return the binding ID, or {@literal null} for an operation on a service instance
+	 */
+	public String getBindingId() {
+		return this.bindingId;
+	}
+
+	/**
+	 * The operation token returned to the platform
+	 *
+	 * @return the operation token
+	 */
+	public String getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * The type of the operation
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * The state of the operation
+	 *
+	 * @return the state
+	 */
+	public OperationState getState() {
+		return this.state;
+	}
+
+	/**
+	 * A description of the state, such as the message of the error the operation failed with
+	 *
+	 * @return the description, or {@literal null}
+	 */
+	public String getDescription() {
+		return this.description;
+	}
+
+	/**
+	 * The value the operation completed with, such as the response of a binding operation
+	 *
+	 * @return the result, or {@literal null}
+	 */
+	public Object getResult() {
+		return this.result;
+	}
+
+	/**
+	 * The time the operation was started
+	 *
+	 * @return the start time
+	 */
+	public Instant getStartedAt() {
+		return this.startedAt;
+	}
+
+	/**
+	 * The time the operation completed
+	 *
+	 * @return the completion time, or {@literal null} if the operation is in progress
+	 */
+	public Instant getCompletedAt() {
+		return this.completedAt;
+	}
+
+	/**
+	 * Whether the operation is in progress
+	 *
+	 * @return true if the operation is in progress
+	 */
+	public boolean isInProgress() {
+		return this.state == OperationState.IN_PROGRESS;
+	}
+
+	/**
+	 * Whether the operation deletes the service instance or binding
+	 *
+	 * @return true if the operation is a delete
+	 */
+	public boolean isDeleteOperation() {
+		return this.type == Type.DELETE;
+	}
+
+	/**
+	 * A copy of this operation in a terminal state
+	 *
+	 * @param state the terminal state
+	 * @param description a description of the state, or {@literal null}
+	 * @param result the value the operation completed with, or {@literal null}
+	 * @param completedAt the time the operation completed
+	 * @return the completed operation
+	 */
+	public AsyncOperation complete(OperationState state, String description, Object result, Instant completedAt) {
+		return new AsyncOperation(this.serviceInstanceId, this.bindingId, this.operation, this.type, state,
+				description, result, this.startedAt, completedAt);
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncOperation{" +
+				"serviceInstanceId='" + this.serviceInstanceId + '\'' +
+				", bindingId='" + this.bindingId + '\'' +
+				", operation='" + this.operation + '\'' +
+				", type=" + this.type +
+				", state=" + this.state +
+				", description='" + this.description + '\'' +
+				", startedAt=" + this.startedAt +
+				", completedAt=" + this.completedAt +
+				'}';
+	}
+
+	/**
+	 * The types of asynchronous operations
+	 */
+	public enum Type {
+
+		/**
+		 * Creates a service instance or binding
+		 */
+		CREATE,
+
+		/**
+		 * Updates a service instance
+		 */
+		UPDATE,
+
+		/**
+		 * Deletes a service instance or binding
+		 */
+		DELETE
+
+	}
+
+}
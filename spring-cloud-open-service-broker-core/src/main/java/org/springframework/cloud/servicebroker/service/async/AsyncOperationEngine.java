@@ -0,0 +1,348 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.util.Assert;
+
+/**
+ * Runs the work of service instance and service instance binding operations in the background, and answers the last
+ * operation requests of the platform from an {@link AsyncOperationRegistry}.
+ *
+ * <p>
+ * A {@link org.springframework.cloud.servicebroker.service.ServiceInstanceService} or
+ * {@link org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService} passes the request and a
+ * {@link Mono} that does the work to the engine, and delegates its {@literal getLastOperation} methods to the engine.
+ * When the platform accepts asynchronous operations, the engine registers the operation, subscribes to the work on a
+ * bounded scheduler, and answers immediately with an operation token, so that the request does not wait for the work.
+ * The outcome of the work is recorded in the registry when it completes. Work that does not complete within the
+ * {@literal maximum_polling_duration} of the plan, or within the default timeout if the plan has none, is cancelled
+ * and recorded as failed. When the platform does not accept asynchronous operations, the request waits for the work.
+ */
+public class AsyncOperationEngine implements AutoCloseable {
+
+	/**
+	 * The default maximum number of operations that run at once
+	 */
+	public static final int DEFAULT_CONCURRENCY = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+	/**
+	 * The default maximum number of operations that wait to run
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE;
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncOperationEngine.class);
+
+	private final Scheduler scheduler;
+
+	private final boolean ownsScheduler;
+
+	private final Duration defaultTimeout;
+
+	private final AsyncOperationRegistry registry;
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link AsyncOperationEngine} with the default concurrency and queue capacity, and no default
+	 * timeout
+	 */
+	public AsyncOperationEngine() {
+		this(DEFAULT_CONCURRENCY, DEFAULT_QUEUE_CAPACITY, null, new AsyncOperationRegistry());
+	}
+
+	/**
+	 * Construct a new {@link AsyncOperationEngine} that runs operations on its own bounded scheduler, which is disposed
+	 * when the engine is closed
+	 *
+	 * @param concurrency the maximum number of operations that run at once
+	 * @param queueCapacity the maximum number of operations that wait to run
+	 * @param defaultTimeout the timeout of operations whose plan has no maximum polling duration, or
+	 * 	{@literal null} for no timeout
+	 * @param registry the registry the operations are tracked in
+	 */
+	public AsyncOperationEngine(int concurrency, int queueCapacity, Duration defaultTimeout,
+			AsyncOperationRegistry registry) {
+		this(Schedulers.newBoundedElastic(concurrency, queueCapacity, "async-operation"), true, defaultTimeout,
+				registry);
+	}
+
+	/**
+	 * Construct a new {@link AsyncOperationEngine} that runs operations on a scheduler, which is not disposed when the
+	 * engine is closed
+	 *
+	 * @param scheduler the scheduler
+	 * @param defaultTimeout the timeout of operations whose plan has no maximum polling duration, or
+	 * 	{@literal null} for no timeout
+	 * @param registry the registry the operations are tracked in
+	 */
+	public AsyncOperationEngine(Scheduler scheduler, Duration defaultTimeout, AsyncOperationRegistry registry) {
+		this(scheduler, false, defaultTimeout, registry);
+	}
+
+	private AsyncOperationEngine(Scheduler scheduler, boolean ownsScheduler, Duration defaultTimeout,
+			AsyncOperationRegistry registry) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		Assert.isTrue(defaultTimeout == null || !defaultTimeout.isNegative() && !defaultTimeout.isZero(),
+				"defaultTimeout must be positive");
+		Assert.notNull(registry, "registry must not be null");
+		this.scheduler = scheduler;
+		this.ownsScheduler = ownsScheduler;
+		this.defaultTimeout = defaultTimeout;
+		this.registry = registry;
+	}
+
+	/**
+	 * Create a service instance
+	 *
+	 * @param request the request
+	 * @param work the work that creates the service instance
+	 * @return the response
+	 */
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request,
+			Mono<?> work) {
+		if (!request.isAsyncAccepted()) {
+			return run(work).thenReturn(CreateServiceInstanceResponse.builder().build());
+		}
+		return submit(request.getServiceInstanceId(), null, AsyncOperation.Type.CREATE, request.getPlan(), work)
+				.map(operation -> CreateServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Update a service instance
+	 *
+	 * @param request the request
+	 * @param work the work that updates the service instance
+	 * @return the response
+	 */
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request,
+			Mono<?> work) {
+		if (!request.isAsyncAccepted()) {
+			return run(work).thenReturn(UpdateServiceInstanceResponse.builder().build());
+		}
+		return submit(request.getServiceInstanceId(), null, AsyncOperation.Type.UPDATE, request.getPlan(), work)
+				.map(operation -> UpdateServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Delete a service instance
+	 *
+	 * @param request the request
+	 * @param work the work that deletes the service instance
+	 * @return the response
+	 */
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request,
+			Mono<?> work) {
+		if (!request.isAsyncAccepted()) {
+			return run(work).thenReturn(DeleteServiceInstanceResponse.builder().build());
+		}
+		return submit(request.getServiceInstanceId(), null, AsyncOperation.Type.DELETE, request.getPlan(), work)
+				.map(operation -> DeleteServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Get the state of the latest operation on a service instance
+	 *
+	 * @param request the request
+	 * @return the response, or an error with {@link ServiceInstanceDoesNotExistException} if the engine has no
+	 * 	matching operation
+	 */
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return Mono.defer(() -> find(request.getServiceInstanceId(), null, request.getOperation())
+				.map(operation -> Mono.just(GetLastServiceOperationResponse.builder()
+						.operationState(operation.getState())
+						.description(operation.getDescription())
+						.deleteOperation(operation.isDeleteOperation())
+						.build()))
+				.orElseGet(() -> Mono.error(new ServiceInstanceDoesNotExistException(
+						request.getServiceInstanceId()))));
+	}
+
+	/**
+	 * Create a service instance binding. When the operation runs in the background, the response of the work is
+	 * available as the {@link AsyncOperation#getResult() result} of the operation once it has succeeded.
+	 *
+	 * @param request the request
+	 * @param work the work that creates the binding
+	 * @return the response of the work, or an asynchronous response
+	 */
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request, Mono<? extends CreateServiceInstanceBindingResponse> work) {
+		if (!request.isAsyncAccepted()) {
+			return run(work).cast(CreateServiceInstanceBindingResponse.class);
+		}
+		return submit(request.getServiceInstanceId(), request.getBindingId(), AsyncOperation.Type.CREATE,
+				request.getPlan(), work)
+				.map(operation -> CreateServiceInstanceAppBindingResponse.builder()
+						.async(true)
+						.operation(operation)
+						.build());
+	}
+
+	/**
+	 * Delete a service instance binding
+	 *
+	 * @param request the request
+	 * @param work the work that deletes the binding
+	 * @return the response
+	 */
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request, Mono<?> work) {
+		if (!request.isAsyncAccepted()) {
+			return run(work).thenReturn(DeleteServiceInstanceBindingResponse.builder().build());
+		}
+		return submit(request.getServiceInstanceId(), request.getBindingId(), AsyncOperation.Type.DELETE,
+				request.getPlan(), work)
+				.map(operation -> DeleteServiceInstanceBindingResponse.builder()
+						.async(true)
+						.operation(operation)
+						.build());
+	}
+
+	/**
+	 * Get the state of the latest operation on a service instance binding
+	 *
+	 * @param request the request
+	 * @return the response, or an error with {@link ServiceInstanceBindingDoesNotExistException} if the engine has no
+	 * 	matching operation
+	 */
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return Mono.defer(() -> find(request.getServiceInstanceId(), request.getBindingId(), request.getOperation())
+				.map(operation -> Mono.just(GetLastServiceBindingOperationResponse.builder()
+						.operationState(operation.getState())
+						.description(operation.getDescription())
+						.deleteOperation(operation.isDeleteOperation())
+						.build()))
+				.orElseGet(() -> Mono.error(new ServiceInstanceBindingDoesNotExistException(
+						request.getBindingId()))));
+	}
+
+	/**
+	 * The registry the operations are tracked in
+	 *
+	 * @return the registry
+	 */
+	public AsyncOperationRegistry getRegistry() {
+		return this.registry;
+	}
+
+	/**
+	 * The timeout of operations whose plan has no maximum polling duration
+	 *
+	 * @return the default timeout, or {@literal null} for no timeout
+	 */
+	public Duration getDefaultTimeout() {
+		return this.defaultTimeout;
+	}
+
+	/**
+	 * The number of operations that were cancelled because they did not complete in time
+	 *
+	 * @return the timeout count
+	 */
+	public long getTimeoutCount() {
+		return this.timeoutCount.get();
+	}
+
+	/**
+	 * Dispose of the scheduler, if it was created by this engine, cancelling the operations that are running
+	 */
+	@Override
+	public void close() {
+		if (this.ownsScheduler) {
+			this.scheduler.dispose();
+		}
+	}
+
+	private <T> Mono<T> run(Mono<T> work) {
+		return work.subscribeOn(this.scheduler);
+	}
+
+	private Mono<String> submit(String serviceInstanceId, String bindingId, AsyncOperation.Type type, Plan plan,
+			Mono<?> work) {
+		return Mono.fromCallable(() -> this.registry.start(serviceInstanceId, bindingId, type))
+				.doOnNext(operation -> execute(operation, timeout(plan), work))
+				.map(AsyncOperation::getOperation);
+	}
+
+	private void execute(AsyncOperation operation, Duration timeout, Mono<?> work) {
+		Mono<Optional<Object>> running = work.subscribeOn(this.scheduler)
+				.map(Optional::<Object>of)
+				.defaultIfEmpty(Optional.empty());
+		if (timeout != null) {
+			running = running.timeout(timeout);
+		}
+		running.subscribe(result -> this.registry.succeed(operation, result.orElse(null)),
+				e -> fail(operation, timeout, e));
+	}
+
+	private void fail(AsyncOperation operation, Duration timeout, Throwable error) {
+		if (error instanceof TimeoutException) {
+			this.timeoutCount.incrementAndGet();
+			this.registry.fail(operation, "The operation did not complete within " + timeout.getSeconds() +
+					" seconds");
+		}
+		else {
+			this.registry.fail(operation, error.getMessage());
+		}
+		String reason = error.toString();
+		LOG.warn("Asynchronous operation failed. operation={}, error={}", operation, reason);
+	}
+
+	private Duration timeout(Plan plan) {
+		if (plan != null && plan.getMaximumPollingDuration() != null) {
+			return Duration.ofSeconds(plan.getMaximumPollingDuration());
+		}
+		return this.defaultTimeout;
+	}
+
+	private Optional<AsyncOperation> find(String serviceInstanceId, String bindingId, String token) {
+		return this.registry.get(serviceInstanceId, bindingId)
+				.filter(operation -> token == null || token.equals(operation.getOperation()));
+	}
+
+}
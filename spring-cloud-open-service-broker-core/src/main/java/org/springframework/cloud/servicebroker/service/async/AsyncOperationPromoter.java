@@ -0,0 +1,308 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.context.ContextView;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.OperationHold;
+import org.springframework.util.Assert;
+
+/**
+ * Promotes service instance and service instance binding operations that exceed a {@link LatencyBudget} from
+ * synchronous to asynchronous operations.
+ *
+ * <p>
+ * When the platform accepts asynchronous operations, the response of the service is awaited for the budget of the
+ * operation type and plan. A response within the budget is returned as it is. Otherwise the operation is registered
+ * in an {@link AsyncOperationRegistry} and an asynchronous response with an operation token is returned, while the
+ * service completes the operation in the background. An operation on a service instance or binding whose earlier
+ * promoted operation is still in progress is answered with the error of the registry before the service is called,
+ * so that a retried request of the same type receives the operation token of the operation in progress instead of
+ * starting it again. The outcome is recorded in the registry, so that it can be
+ * reported to later last operation requests. The {@link OperationHold holds} of the decorators around the promoter
+ * are retained until the service completes a promoted operation. The durations of completed operations are recorded in
+ * {@link OperationLatencies}, from which percentile budgets are derived.
+ *
+ * <p>
+ * The budget cannot be enforced for a service that blocks the calling thread before it returns its response.
+ *
+ * @see PromotingServiceInstanceService
+ * @see PromotingServiceInstanceBindingService
+ */
+public class AsyncOperationPromoter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(AsyncOperationPromoter.class);
+
+	private final LatencyBudget budget;
+
+	private final AsyncOperationRegistry registry;
+
+	private final OperationLatencies latencies;
+
+	private final Scheduler timer;
+
+	private final AtomicLong synchronousCount = new AtomicLong();
+
+	private final AtomicLong promotedCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link AsyncOperationPromoter}
+	 *
+	 * @param budget the latency budget
+	 */
+	public AsyncOperationPromoter(LatencyBudget budget) {
+		this(budget, new AsyncOperationRegistry(), new OperationLatencies(), Schedulers.parallel());
+	}
+
+	/**
+	 * Construct a new {@link AsyncOperationPromoter}
+	 *
+	 * @param budget the latency budget
+	 * @param registry the registry promoted operations are tracked in
+	 * @param latencies the durations of completed operations
+	 * @param timer the scheduler on which budgets expire
+	 */
+	public AsyncOperationPromoter(LatencyBudget budget, AsyncOperationRegistry registry, OperationLatencies latencies,
+			Scheduler timer) {
+		Assert.notNull(budget, "budget must not be null");
+		Assert.notNull(registry, "registry must not be null");
+		Assert.notNull(latencies, "latencies must not be null");
+		Assert.notNull(timer, "timer must not be null");
+		this.budget = budget;
+		this.registry = registry;
+		this.latencies = latencies;
+		this.timer = timer;
+	}
+
+	/**
+	 * Create a service instance
+	 *
+	 * @param request the request
+	 * @param response the response of the service
+	 * @return the response of the service, or an asynchronous response if it exceeds the budget
+	 */
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request,
+			Mono<CreateServiceInstanceResponse> response) {
+		return execute(request.isAsyncAccepted(), request.getServiceInstanceId(), null,
+				request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.CREATE, response,
+				operation -> CreateServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Update a service instance
+	 *
+	 * @param request the request
+	 * @param response the response of the service
+	 * @return the response of the service, or an asynchronous response if it exceeds the budget
+	 */
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request,
+			Mono<UpdateServiceInstanceResponse> response) {
+		return execute(request.isAsyncAccepted(), request.getServiceInstanceId(), null,
+				request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.UPDATE, response,
+				operation -> UpdateServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Delete a service instance
+	 *
+	 * @param request the request
+	 * @param response the response of the service
+	 * @return the response of the service, or an asynchronous response if it exceeds the budget
+	 */
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request,
+			Mono<DeleteServiceInstanceResponse> response) {
+		return execute(request.isAsyncAccepted(), request.getServiceInstanceId(), null,
+				request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.DELETE, response,
+				operation -> DeleteServiceInstanceResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Create a service instance binding
+	 *
+	 * @param request the request
+	 * @param response the response of the service
+	 * @return the response of the service, or an asynchronous response if it exceeds the budget
+	 */
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request, Mono<CreateServiceInstanceBindingResponse> response) {
+		return execute(request.isAsyncAccepted(), request.getServiceInstanceId(), request.getBindingId(),
+				request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.CREATE, response,
+				operation -> CreateServiceInstanceAppBindingResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * Delete a service instance binding
+	 *
+	 * @param request the request
+	 * @param response the response of the service
+	 * @return the response of the service, or an asynchronous response if it exceeds the budget
+	 */
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request, Mono<DeleteServiceInstanceBindingResponse> response) {
+		return execute(request.isAsyncAccepted(), request.getServiceInstanceId(), request.getBindingId(),
+				request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.DELETE, response,
+				operation -> DeleteServiceInstanceBindingResponse.builder().async(true).operation(operation).build());
+	}
+
+	/**
+	 * The latest promoted operation on a service instance or binding
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param operation the operation token of the request, or {@literal null} to match any operation
+	 * @return the operation, or empty if the latest operation was not promoted
+	 */
+	public Optional<AsyncOperation> getOperation(String serviceInstanceId, String bindingId, String operation) {
+		return this.registry.get(serviceInstanceId, bindingId)
+				.filter(promoted -> operation == null || operation.equals(promoted.getOperation()));
+	}
+
+	/**
+	 * The latency budget
+	 *
+	 * @return the budget
+	 */
+	public LatencyBudget getBudget() {
+		return this.budget;
+	}
+
+	/**
+	 * The registry promoted operations are tracked in
+	 *
+	 * @return the registry
+	 */
+	public AsyncOperationRegistry getRegistry() {
+		return this.registry;
+	}
+
+	/**
+	 * The durations of completed operations
+	 *
+	 * @return the latencies
+	 */
+	public OperationLatencies getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * The number of operations accepting asynchronous responses that completed within their budget
+	 *
+	 * @return the synchronous count
+	 */
+	public long getSynchronousCount() {
+		return this.synchronousCount.get();
+	}
+
+	/**
+	 * The number of operations that exceeded their budget and were promoted
+	 *
+	 * @return the promoted count
+	 */
+	public long getPromotedCount() {
+		return this.promotedCount.get();
+	}
+
+	private <T extends AsyncServiceBrokerResponse> Mono<T> execute(boolean asyncAccepted, String serviceInstanceId,
+			String bindingId, String serviceDefinitionId, String planId, AsyncOperation.Type type, Mono<T> response,
+			Function<String, T> promotedResponse) {
+		LatencyHistogram histogram = this.latencies.get(serviceDefinitionId, planId, type);
+		return Mono.defer(() -> {
+			try {
+				this.registry.checkNotInProgress(serviceInstanceId, bindingId, type);
+			}
+			catch (ServiceBrokerOperationInProgressException | ServiceBrokerConcurrencyException e) {
+				// the service is not called while a promoted operation is still running in the background
+				return Mono.error(e);
+			}
+			if (!asyncAccepted) {
+				return timed(response, histogram);
+			}
+			Sinks.One<T> result = Sinks.one();
+			timed(response, histogram).subscribe(result::tryEmitValue, result::tryEmitError, result::tryEmitEmpty);
+			return result.asMono()
+					.doOnSuccess(value -> {
+						this.synchronousCount.incrementAndGet();
+						this.registry.removeCompleted(serviceInstanceId, bindingId);
+					})
+					.timeout(this.budget.getBudget(histogram),
+							Mono.deferContextual(context -> promote(serviceInstanceId, bindingId, type, result.asMono(),
+									promotedResponse, context)),
+							this.timer);
+		});
+	}
+
+	private <T extends AsyncServiceBrokerResponse> Mono<T> promote(String serviceInstanceId, String bindingId,
+			AsyncOperation.Type type, Mono<T> result, Function<String, T> promotedResponse, ContextView context) {
+		AsyncOperation operation;
+		try {
+			operation = this.registry.start(serviceInstanceId, bindingId, type);
+		}
+		catch (ServiceBrokerOperationInProgressException | ServiceBrokerConcurrencyException e) {
+			// an earlier promoted operation is still in progress, so the platform is told to retry rather than wait
+			// beyond the budget for this one
+			return Mono.error(e);
+		}
+		this.promotedCount.incrementAndGet();
+		LOG.debug("Promoted operation to asynchronous. operation={}", operation);
+		List<OperationHold> holds = OperationHold.retainAll(context);
+		result.map(Optional::<Object>of)
+				.defaultIfEmpty(Optional.empty())
+				.doFinally(signal -> OperationHold.releaseAll(holds))
+				.subscribe(value -> this.registry.succeed(operation, value.orElse(null)),
+						e -> this.registry.fail(operation, e.getMessage()));
+		return Mono.just(promotedResponse.apply(operation.getOperation()));
+	}
+
+	private static <T extends AsyncServiceBrokerResponse> Mono<T> timed(Mono<T> response,
+			LatencyHistogram histogram) {
+		return Mono.defer(() -> {
+			long start = System.nanoTime();
+			return response.doOnSuccess(value -> {
+				if (value == null || !value.isAsync()) {
+					histogram.recordNanos(System.nanoTime() - start);
+				}
+			});
+		});
+	}
+
+}
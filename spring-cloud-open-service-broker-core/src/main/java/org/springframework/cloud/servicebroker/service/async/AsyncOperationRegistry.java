@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerCreateOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerDeleteOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUpdateOperationInProgressException;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.util.Assert;
+
+/**
+ * A table of the asynchronous operations on service instances and service instance bindings, keyed by service
+ * instance ID and binding ID.
+ *
+ * <p>
+ * At most one operation per service instance or binding is in progress at a time. A completed operation is kept
+ * until it is replaced by the next operation on the same service instance or binding, or until it is older than the
+ * retention period, so that the platform can poll for its outcome.
+ */
+public class AsyncOperationRegistry {
+
+	/**
+	 * The default time a completed operation is kept
+	 */
+	public static final Duration DEFAULT_RETENTION = Duration.ofHours(1);
+
+	private final ConcurrentMap<List<String>, AsyncOperation> operations = new ConcurrentHashMap<>();
+
+	private final long retentionMillis;
+
+	private final Clock clock;
+
+	private final AtomicLong nextEviction = new AtomicLong();
+
+	private final AtomicLong startedCount = new AtomicLong();
+
+	private final AtomicLong succeededCount = new AtomicLong();
+
+	private final AtomicLong failedCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link AsyncOperationRegistry} with the default retention
+	 */
+	public AsyncOperationRegistry() {
+		this(DEFAULT_RETENTION, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link AsyncOperationRegistry}
+	 *
+	 * @param retention how long a completed operation is kept
+	 * @param clock the clock used to time operations
+	 */
+	public AsyncOperationRegistry(Duration retention, Clock clock) {
+		Assert.isTrue(retention != null && !retention.isNegative(), "retention must not be negative");
+		Assert.notNull(clock, "clock must not be null");
+		this.retentionMillis = retention.toMillis();
+		this.clock = clock;
+	}
+
+	/**
+	 * Register a new operation in progress
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param type the type of the operation
+	 * @return the operation
+	 * @throws ServiceBrokerOperationInProgressException if an operation of the same type on the service instance or
+	 * 	binding is already in progress
+	 * @throws ServiceBrokerConcurrencyException if an operation of another type on the service instance or binding
+	 * 	is already in progress
+	 */
+	public AsyncOperation start(String serviceInstanceId, String bindingId, AsyncOperation.Type type) {
+		Assert.notNull(serviceInstanceId, "serviceInstanceId must not be null");
+		Assert.notNull(type, "type must not be null");
+		evictExpiredIfDue();
+		List<String> key = key(serviceInstanceId, bindingId);
+		AsyncOperation started = new AsyncOperation(serviceInstanceId, bindingId, UUID.randomUUID().toString(), type,
+				OperationState.IN_PROGRESS, null, null, this.clock.instant(), null);
+		AsyncOperation existing = this.operations.putIfAbsent(key, started);
+		while (existing != null) {
+			if (existing.isInProgress()) {
+				throw inProgress(type, existing);
+			}
+			if (this.operations.replace(key, existing, started)) {
+				break;
+			}
+			existing = this.operations.putIfAbsent(key, started);
+		}
+		this.startedCount.incrementAndGet();
+		return started;
+	}
+
+	/**
+	 * Reject a new operation if another operation on the same service instance or binding is in progress, without
+	 * registering it
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param type the type of the new operation
+	 * @throws ServiceBrokerOperationInProgressException if an operation of the same type on the service instance or
+	 * 	binding is in progress
+	 * @throws ServiceBrokerConcurrencyException if an operation of another type on the service instance or binding
+	 * 	is in progress
+	 */
+	public void checkNotInProgress(String serviceInstanceId, String bindingId, AsyncOperation.Type type) {
+		AsyncOperation existing = this.operations.get(key(serviceInstanceId, bindingId));
+		if (existing != null && existing.isInProgress()) {
+			throw inProgress(type, existing);
+		}
+	}
+
+	/**
+	 * Record that an operation succeeded. Nothing is recorded if the operation is no longer registered.
+	 *
+	 * @param operation the operation returned by {@link #start(String, String, AsyncOperation.Type)}
+	 * @param result the value the operation completed with, or {@literal null}
+	 * @return the completed operation
+	 */
+	public AsyncOperation succeed(AsyncOperation operation, Object result) {
+		return complete(operation, OperationState.SUCCEEDED, null, result, this.succeededCount);
+	}
+
+	/**
+	 * Record that an operation failed. Nothing is recorded if the operation is no longer registered.
+	 *
+	 * @param operation the operation returned by {@link #start(String, String, AsyncOperation.Type)}
+	 * @param description a description of the failure
+	 * @return the completed operation
+	 */
+	public AsyncOperation fail(AsyncOperation operation, String description) {
+		return complete(operation, OperationState.FAILED, description, null, this.failedCount);
+	}
+
+	/**
+	 * The latest operation on a service instance or binding
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @return the operation, or empty if there is none
+	 */
+	public Optional<AsyncOperation> get(String serviceInstanceId, String bindingId) {
+		return Optional.ofNullable(this.operations.get(key(serviceInstanceId, bindingId)));
+	}
+
+	/**
+	 * Remove the latest operation on a service instance or binding if it has completed, for example because a later
+	 * operation was not registered
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @return {@literal true} if an operation was removed
+	 */
+	public boolean removeCompleted(String serviceInstanceId, String bindingId) {
+		List<String> key = key(serviceInstanceId, bindingId);
+		AsyncOperation existing = this.operations.get(key);
+		return existing != null && !existing.isInProgress() && this.operations.remove(key, existing);
+	}
+
+	/**
+	 * Remove the completed operations that are older than the retention period. This is done periodically when
+	 * operations are started.
+	 *
+	 * @return the number of operations removed
+	 */
+	public int evictExpired() {
+		long expiry = this.clock.millis() - this.retentionMillis;
+		int size = this.operations.size();
+		this.operations.values().removeIf(operation -> !operation.isInProgress()
+				&& operation.getCompletedAt().toEpochMilli() < expiry);
+		return Math.max(size - this.operations.size(), 0);
+	}
+
+	/**
+	 * The number of registered operations, including completed operations that have not been removed
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return this.operations.size();
+	}
+
+	/**
+	 * The number of operations started
+	 *
+	 * @return the started count
+	 */
+	public long getStartedCount() {
+		return this.startedCount.get();
+	}
+
+	/**
+	 * The number of operations that succeeded
+	 *
+	 * @return the succeeded count
+	 */
+	public long getSucceededCount() {
+		return this.succeededCount.get();
+	}
+
+	/**
+	 * The number of operations that failed
+	 *
+	 * @return the failed count
+	 */
+	public long getFailedCount() {
+		return this.failedCount.get();
+	}
+
+	/**
+	 * The number of operations in progress
+	 *
+	 * @return the in progress count
+	 */
+	public long getInProgressCount() {
+		return this.startedCount.get() - this.succeededCount.get() - this.failedCount.get();
+	}
+
+	private AsyncOperation complete(AsyncOperation operation, OperationState state, String description,
+			Object result, AtomicLong counter) {
+		AsyncOperation completed = operation.complete(state, description, result, this.clock.instant());
+		if (this.operations.replace(key(operation.getServiceInstanceId(), operation.getBindingId()), operation,
+				completed)) {
+			counter.incrementAndGet();
+		}
+		return completed;
+	}
+
+	private void evictExpiredIfDue() {
+		long now = this.clock.millis();
+		long due = this.nextEviction.get();
+		if (now >= due && this.nextEviction.compareAndSet(due, now + Math.max(this.retentionMillis, 1))) {
+			evictExpired();
+		}
+	}
+
+	private static List<String> key(String serviceInstanceId, String bindingId) {
+		return Arrays.asList(serviceInstanceId, bindingId);
+	}
+
+	private static ServiceBrokerException inProgress(AsyncOperation.Type type, AsyncOperation existing) {
+		if (existing.getType() != type) {
+			return new ServiceBrokerConcurrencyException("Another operation on this service instance or binding " +
+					"is in progress. operation=" + existing.getOperation());
+		}
+		switch (type) {
+			case CREATE:
+				return new ServiceBrokerCreateOperationInProgressException(existing.getOperation());
+			case UPDATE:
+				return new ServiceBrokerUpdateOperationInProgressException(existing.getOperation());
+			default:
+				return new ServiceBrokerDeleteOperationInProgressException(existing.getOperation());
+		}
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.util.Assert;
+
+/**
+ * How long a request that accepts an asynchronous response waits for the service before the operation continues in
+ * the background. A budget is either a fixed duration, or a percentile of the durations of earlier operations of the
+ * same type on the same plan, bounded by a minimum and a maximum.
+ *
+ * @see AsyncOperationPromoter
+ */
+public final class LatencyBudget {
+
+	/**
+	 * The number of durations a percentile budget needs before it is used. The maximum is used until then.
+	 */
+	public static final long MINIMUM_SAMPLES = 20;
+
+	private final double percentile;
+
+	private final Duration minimum;
+
+	private final Duration maximum;
+
+	private LatencyBudget(double percentile, Duration minimum, Duration maximum) {
+		this.percentile = percentile;
+		this.minimum = minimum;
+		this.maximum = maximum;
+	}
+
+	/**
+	 * A budget of a fixed duration
+	 *
+	 * @param budget the duration
+	 * @return the budget
+	 */
+	public static LatencyBudget fixed(Duration budget) {
+		Assert.isTrue(budget != null && !budget.isNegative(), "budget must not be negative");
+		return new LatencyBudget(Double.NaN, budget, budget);
+	}
+
+	/**
+	 * A budget of a percentile of earlier durations
+	 *
+	 * @param percentile the percentile, between 0 and 1, such as {@literal 0.95}
+	 * @param minimum the shortest budget
+	 * @param maximum the longest budget, which should be shorter than the timeout of the platform
+	 * @return the budget
+	 */
+	public static LatencyBudget percentile(double percentile, Duration minimum, Duration maximum) {
+		Assert.isTrue(percentile > 0 && percentile <= 1, "percentile must be greater than 0 and at most 1");
+		Assert.isTrue(minimum != null && !minimum.isNegative(), "minimum must not be negative");
+		Assert.isTrue(maximum != null && maximum.compareTo(minimum) >= 0, "maximum must not be less than minimum");
+		return new LatencyBudget(percentile, minimum, maximum);
+	}
+
+	/**
+	 * The budget of an operation
+	 *
+	 * @param histogram the durations of earlier operations of the same type on the same plan
+	 * @return the budget
+	 */
+	public Duration getBudget(LatencyHistogram histogram) {
+		if (isFixed() || histogram.getCount() < MINIMUM_SAMPLES) {
+			return this.maximum;
+		}
+		Duration budget = histogram.getPercentile(this.percentile);
+		if (budget == null || budget.compareTo(this.maximum) > 0) {
+			return this.maximum;
+		}
+		if (budget.compareTo(this.minimum) < 0) {
+			return this.minimum;
+		}
+		return budget;
+	}
+
+	/**
+	 * Whether the budget is a fixed duration
+	 *
+	 * @return {@literal true} if the budget is fixed
+	 */
+	public boolean isFixed() {
+		return Double.isNaN(this.percentile);
+	}
+
+	/**
+	 * The percentile of a percentile budget
+	 *
+	 * @return the percentile, or {@literal NaN} if the budget is fixed
+	 */
+	public double getPercentile() {
+		return this.percentile;
+	}
+
+	/**
+	 * The shortest budget
+	 *
+	 * @return the minimum
+	 */
+	public Duration getMinimum() {
+		return this.minimum;
+	}
+
+	/**
+	 * The longest budget
+	 *
+	 * @return the maximum
+	 */
+	public Duration getMaximum() {
+		return this.maximum;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof LatencyBudget)) {
+			return false;
+		}
+		LatencyBudget that = (LatencyBudget) o;
+		return Double.compare(percentile, that.percentile) == 0 &&
+				minimum.equals(that.minimum) &&
+				maximum.equals(that.maximum);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(percentile, minimum, maximum);
+	}
+
+	@Override
+	public String toString() {
+		return "LatencyBudget{" +
+				"percentile=" + percentile +
+				", minimum=" + minimum +
+				", maximum=" + maximum +
+				'}';
+	}
+
+}
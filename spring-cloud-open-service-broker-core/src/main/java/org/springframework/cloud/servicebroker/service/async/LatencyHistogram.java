@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.util.Assert;
+
+/**
+ * A lock-free histogram of operation durations with a relative error of at most one eighth.
+ *
+ * <p>
+ * Durations are recorded in microseconds in buckets whose width doubles with every power of two, each power of two
+ * being split into eight buckets of equal width. Recording a duration is a single atomic increment, so the histogram
+ * can be updated on the request path of every operation, and percentiles are computed from the bucket counts when
+ * they are read.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * Record the duration of an operation
+	 *
+	 * @param duration the duration
+	 */
+	public void record(Duration duration) {
+		Assert.notNull(duration, "duration must not be null");
+		recordNanos(duration.toNanos());
+	}
+
+	/**
+	 * Record the duration of an operation
+	 *
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void recordNanos(long nanos) {
+		this.counts.incrementAndGet(bucket(TimeUnit.NANOSECONDS.toMicros(Math.max(nanos, 0))));
+		this.count.incrementAndGet();
+	}
+
+	/**
+	 * The number of durations recorded
+	 *
+	 * @return the count
+	 */
+	public long getCount() {
+		return this.count.get();
+	}
+
+	/**
+	 * The duration that the given fraction of the recorded durations do not exceed
+	 *
+	 * @param percentile the fraction, between 0 and 1
+	 * @return the duration, or {@literal null} if no durations have been recorded
+	 */
+	public Duration getPercentile(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 1, "percentile must be between 0 and 1");
+		return getPercentileAbove(0, percentile);
+	}
+
+	/**
+	 * The duration that the given fraction of the recorded durations longer than a minimum do not exceed, for example
+	 * to estimate how much longer an operation that has been running for the minimum duration will take
+	 *
+	 * @param minimum the minimum duration
+	 * @param percentile the fraction, between 0 and 1
+	 * @return the duration, or {@literal null} if no durations longer than the minimum have been recorded
+	 */
+	public Duration getPercentileAbove(Duration minimum, double percentile) {
+		Assert.notNull(minimum, "minimum must not be null");
+		Assert.isTrue(percentile >= 0 && percentile <= 1, "percentile must be between 0 and 1");
+		return getPercentileAbove(bucket(TimeUnit.NANOSECONDS.toMicros(Math.max(minimum.toNanos(), 0))),
+				percentile);
+	}
+
+	private Duration getPercentileAbove(int firstBucket, double percentile) {
+		long total = 0;
+		for (int i = firstBucket; i < BUCKET_COUNT; i++) {
+			total += this.counts.get(i);
+		}
+		if (total == 0) {
+			return null;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long seen = 0;
+		for (int i = firstBucket; i < BUCKET_COUNT; i++) {
+			seen += this.counts.get(i);
+			if (seen >= rank) {
+				return Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(midpoint(i)));
+			}
+		}
+		// the histogram was reset while it was read
+		return null;
+	}
+
+	/**
+	 * Forget the recorded durations
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0);
+		}
+		this.count.set(0);
+	}
+
+	private static int bucket(long micros) {
+		if (micros < SUB_BUCKET_COUNT) {
+			return (int) micros;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros);
+		int shift = exponent - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((micros >>> shift) & (SUB_BUCKET_COUNT - 1));
+	}
+
+	private static long midpoint(int bucket) {
+		if (bucket < SUB_BUCKET_COUNT) {
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKET_COUNT - 1;
+		long lower = (long) (SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+		return lower + ((1L << shift) >>> 1);
+	}
+
+}
@@ -0,0 +1,294 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.util.Assert;
+
+/**
+ * Tracks the durations of asynchronous operations, from the asynchronous response of the service until the first
+ * last operation response that reports the outcome, by service offering, plan and operation type. The durations are
+ * used to estimate how much longer an operation in progress will take, so that the platform can be told when to poll
+ * again with a {@literal Retry-After} header.
+ *
+ * <p>
+ * The expected total duration of an operation that has been running for some time is a percentile of the recorded
+ * durations that are longer than that time. The remaining time is bounded by a minimum and a maximum, so that the
+ * completion of an operation that takes longer than expected is still detected promptly. No estimate is made until
+ * {@link #MINIMUM_SAMPLES} durations have been recorded.
+ *
+ * <p>
+ * At most {@link #MAXIMUM_TRACKED} operations in progress are tracked. When the limit is reached, the operation that
+ * started first is forgotten, for example because the platform stopped polling for it. The operations are kept in the
+ * order they started, so that the operation that started first is found in constant time.
+ */
+public class OperationDurationTracker {
+
+	/**
+	 * The number of durations needed before the remaining time of an operation is estimated
+	 */
+	public static final long MINIMUM_SAMPLES = 20;
+
+	/**
+	 * The maximum number of operations in progress that are tracked
+	 */
+	public static final int MAXIMUM_TRACKED = 10_000;
+
+	/**
+	 * The default percentile of the durations used to estimate the total duration of an operation
+	 */
+	public static final double DEFAULT_PERCENTILE = 0.5;
+
+	/**
+	 * The default minimum retry interval
+	 */
+	public static final Duration DEFAULT_MINIMUM = Duration.ofSeconds(1);
+
+	/**
+	 * The default maximum retry interval
+	 */
+	public static final Duration DEFAULT_MAXIMUM = Duration.ofMinutes(5);
+
+	private final Map<List<String>, TrackedOperation> operations = new LinkedHashMap<>();
+
+	private final Object monitor = new Object();
+
+	private final OperationLatencies latencies;
+
+	private final double percentile;
+
+	private final Duration minimum;
+
+	private final Duration maximum;
+
+	private final Clock clock;
+
+	private final AtomicLong hintCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link OperationDurationTracker} with the default percentile and bounds
+	 */
+	public OperationDurationTracker() {
+		this(new OperationLatencies(), DEFAULT_PERCENTILE, DEFAULT_MINIMUM, DEFAULT_MAXIMUM, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link OperationDurationTracker}
+	 *
+	 * @param latencies the histograms in which durations are recorded
+	 * @param percentile the percentile of the recorded durations used to estimate the total duration of an operation,
+	 * 	between 0 and 1
+	 * @param minimum the minimum retry interval
+	 * @param maximum the maximum retry interval
+	 * @param clock the clock used to measure durations
+	 */
+	public OperationDurationTracker(OperationLatencies latencies, double percentile, Duration minimum,
+			Duration maximum, Clock clock) {
+		Assert.notNull(latencies, "latencies must not be null");
+		Assert.isTrue(percentile > 0 && percentile <= 1, "percentile must be greater than 0 and at most 1");
+		Assert.isTrue(minimum != null && !minimum.isNegative(), "minimum must not be negative");
+		Assert.isTrue(maximum != null && maximum.compareTo(minimum) >= 0, "maximum must not be less than minimum");
+		Assert.notNull(clock, "clock must not be null");
+		this.latencies = latencies;
+		this.percentile = percentile;
+		this.minimum = minimum;
+		this.maximum = maximum;
+		this.clock = clock;
+	}
+
+	/**
+	 * Record that the service responded to a request asynchronously. An operation that is already tracked for the
+	 * service instance or binding keeps its start time if it has the same type and operation token, for example
+	 * because the platform retried the request. Otherwise it is replaced, since the operation it tracked was abandoned
+	 * or completed without a last operation response reporting it.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param serviceDefinitionId the service offering ID
+	 * @param planId the plan ID, or {@literal null} if the request does not name a plan
+	 * @param type the operation type
+	 * @param operation the operation token of the asynchronous response, or {@literal null}
+	 */
+	public void started(String serviceInstanceId, String bindingId, String serviceDefinitionId, String planId,
+			AsyncOperation.Type type, String operation) {
+		List<String> key = key(serviceInstanceId, bindingId);
+		LatencyHistogram histogram = this.latencies.get(serviceDefinitionId, planId, type);
+		synchronized (this.monitor) {
+			TrackedOperation existing = this.operations.remove(key);
+			if (existing != null && existing.isSameOperation(type, operation)) {
+				this.operations.put(key, existing);
+				return;
+			}
+			if (this.operations.size() >= MAXIMUM_TRACKED) {
+				evictOldest();
+			}
+			this.operations.put(key, new TrackedOperation(histogram, type, operation, this.clock.millis()));
+		}
+	}
+
+	/**
+	 * Record the state reported by a last operation response. The duration of a succeeded operation is recorded, and
+	 * a completed operation is no longer tracked.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on a service instance
+	 * @param state the reported state
+	 * @return how long the platform should wait before polling again, or {@literal null} if the operation is not in
+	 * 	progress, is not tracked, or too few durations have been recorded to make an estimate
+	 */
+	public Duration polled(String serviceInstanceId, String bindingId, OperationState state) {
+		List<String> key = key(serviceInstanceId, bindingId);
+		if (OperationState.IN_PROGRESS.equals(state)) {
+			TrackedOperation operation;
+			synchronized (this.monitor) {
+				operation = this.operations.get(key);
+			}
+			return (operation == null) ? null : getRetryAfter(operation);
+		}
+		TrackedOperation operation;
+		synchronized (this.monitor) {
+			operation = this.operations.remove(key);
+		}
+		if (operation != null && OperationState.SUCCEEDED.equals(state)) {
+			operation.getHistogram().record(Duration.ofMillis(elapsedMillis(operation)));
+		}
+		return null;
+	}
+
+	/**
+	 * The histograms in which durations are recorded
+	 *
+	 * @return the histograms
+	 */
+	public OperationLatencies getLatencies() {
+		return this.latencies;
+	}
+
+	/**
+	 * The number of operations in progress that are tracked
+	 *
+	 * @return the number of operations
+	 */
+	public int getTrackedCount() {
+		synchronized (this.monitor) {
+			return this.operations.size();
+		}
+	}
+
+	/**
+	 * The number of in progress responses for which a retry interval was estimated
+	 *
+	 * @return the number of estimates
+	 */
+	public long getHintCount() {
+		return this.hintCount.get();
+	}
+
+	private Duration getRetryAfter(TrackedOperation operation) {
+		LatencyHistogram histogram = operation.getHistogram();
+		if (histogram.getCount() < MINIMUM_SAMPLES) {
+			return null;
+		}
+		Duration elapsed = Duration.ofMillis(elapsedMillis(operation));
+		Duration expected = histogram.getPercentileAbove(elapsed, this.percentile);
+		Duration remaining = (expected == null) ? this.minimum : expected.minus(elapsed);
+		this.hintCount.incrementAndGet();
+		if (remaining.compareTo(this.minimum) < 0) {
+			return this.minimum;
+		}
+		return remaining.compareTo(this.maximum) > 0 ? this.maximum : remaining;
+	}
+
+	private long elapsedMillis(TrackedOperation operation) {
+		return Math.max(this.clock.millis() - operation.getStartedAt(), 0);
+	}
+
+	private void evictOldest() {
+		Iterator<TrackedOperation> oldest = this.operations.values().iterator();
+		oldest.next();
+		oldest.remove();
+	}
+
+	private static List<String> key(String serviceInstanceId, String bindingId) {
+		Assert.notNull(serviceInstanceId, "serviceInstanceId must not be null");
+		return Arrays.asList(serviceInstanceId, bindingId);
+	}
+
+	/**
+	 * An operation in progress, with the histogram of its service offering, plan and operation type
+	 */
+	private static final class TrackedOperation {
+
+		private final LatencyHistogram histogram;
+
+		private final AsyncOperation.Type type;
+
+		private final String operation;
+
+		private final long startedAt;
+
+		private TrackedOperation(LatencyHistogram histogram, AsyncOperation.Type type, String operation,
+				long startedAt) {
+			this.histogram = histogram;
+			this.type = type;
+			this.operation = operation;
+			this.startedAt = startedAt;
+		}
+
+		/**
+		 * Whether an asynchronous response is for this operation
+		 *
+		 * @param type the operation type of the response
+		 * @param operation the operation token of the response, or {@literal null}
+		 * @return true if the type and the operation token are the same
+		 */
+		public boolean isSameOperation(AsyncOperation.Type type, String operation) {
+			return this.type == type && Objects.equals(this.operation, operation);
+		}
+
+		/**
+		 * The histogram of the operation
+		 *
+		 * @return the histogram
+		 */
+		public LatencyHistogram getHistogram() {
+			return this.histogram;
+		}
+
+		/**
+		 * The time the operation started, in milliseconds since the epoch
+		 *
+		 * @return the start time
+		 */
+		public long getStartedAt() {
+			return this.startedAt;
+		}
+
+	}
+
+}
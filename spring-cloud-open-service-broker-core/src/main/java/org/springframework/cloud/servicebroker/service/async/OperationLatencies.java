@@ -0,0 +1,56 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The {@link LatencyHistogram latency histograms} of operations, by service offering, plan and operation type. The
+ * service offerings and plans are those of the catalog, so the number of histograms is bounded by the size of the
+ * catalog.
+ */
+public class OperationLatencies {
+
+	private final ConcurrentMap<List<Object>, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+	/**
+	 * The histogram of the durations of an operation type on a plan, which is created if it does not exist
+	 *
+	 * @param serviceDefinitionId the service offering ID
+	 * @param planId the plan ID, or {@literal null} if the request does not name a plan
+	 * @param type the operation type
+	 * @return the histogram
+	 */
+	public LatencyHistogram get(String serviceDefinitionId, String planId, AsyncOperation.Type type) {
+		return this.histograms.computeIfAbsent(Arrays.asList(serviceDefinitionId, planId, type),
+				key -> new LatencyHistogram());
+	}
+
+	/**
+	 * The number of histograms
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return this.histograms.size();
+	}
+
+}
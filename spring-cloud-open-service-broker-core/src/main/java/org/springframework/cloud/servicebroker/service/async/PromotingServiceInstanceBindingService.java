@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.util.HashMap;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that promotes create and delete requests that
+ * exceed their latency budget to asynchronous operations, and answers last operation requests for promoted
+ * operations.
+ *
+ * <p>
+ * The platform fetches the binding once a promoted create operation has succeeded. The binding is then answered from
+ * the response the service completed the operation with.
+ *
+ * @see AsyncOperationPromoter
+ */
+public class PromotingServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final AsyncOperationPromoter promoter;
+
+	/**
+	 * Construct a new {@link PromotingServiceInstanceBindingService}
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param promoter the promoter
+	 */
+	public PromotingServiceInstanceBindingService(ServiceInstanceBindingService serviceInstanceBindingService,
+			AsyncOperationPromoter promoter) {
+		this.service = serviceInstanceBindingService;
+		this.promoter = promoter;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return this.promoter.createServiceInstanceBinding(request, this.service.createServiceInstanceBinding(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return Mono.defer(() -> this.promoter.getOperation(request.getServiceInstanceId(), request.getBindingId(),
+				null)
+				.filter(operation -> operation.getType() == AsyncOperation.Type.CREATE
+						&& operation.getState() == OperationState.SUCCEEDED)
+				.map(operation -> getServiceInstanceBinding(operation.getResult()))
+				.map(Mono::just)
+				.orElseGet(() -> this.service.getServiceInstanceBinding(request)));
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return Mono.defer(() -> this.promoter.getOperation(request.getServiceInstanceId(), request.getBindingId(),
+				request.getOperation())
+				.map(operation -> getLastOperation(request, operation))
+				.orElseGet(() -> this.service.getLastOperation(request)));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return this.promoter.deleteServiceInstanceBinding(request, this.service.deleteServiceInstanceBinding(request));
+	}
+
+	private Mono<GetLastServiceBindingOperationResponse> getLastOperation(GetLastServiceBindingOperationRequest request,
+			AsyncOperation operation) {
+		if (operation.getResult() instanceof AsyncServiceBrokerResponse
+				&& ((AsyncServiceBrokerResponse) operation.getResult()).isAsync()) {
+			return this.service.getLastOperation(GetLastServiceBindingOperationRequest.builder()
+					.serviceInstanceId(request.getServiceInstanceId())
+					.bindingId(request.getBindingId())
+					.serviceDefinitionId(request.getServiceDefinitionId())
+					.planId(request.getPlanId())
+					.operation(((AsyncServiceBrokerResponse) operation.getResult()).getOperation())
+					.platformInstanceId(request.getPlatformInstanceId())
+					.apiInfoLocation(request.getApiInfoLocation())
+					.originatingIdentity(request.getOriginatingIdentity())
+					.requestIdentity(request.getRequestIdentity())
+					.build());
+		}
+		return Mono.just(GetLastServiceBindingOperationResponse.builder()
+				.operationState(operation.getState())
+				.description(operation.getDescription())
+				.deleteOperation(operation.isDeleteOperation())
+				.build());
+	}
+
+	private static GetServiceInstanceBindingResponse getServiceInstanceBinding(Object result) {
+		if (result instanceof CreateServiceInstanceAppBindingResponse
+				&& !((CreateServiceInstanceAppBindingResponse) result).isAsync()) {
+			CreateServiceInstanceAppBindingResponse response = (CreateServiceInstanceAppBindingResponse) result;
+			return new GetServiceInstanceAppBindingResponse(new HashMap<>(), response.getMetadata(),
+					response.getCredentials(), response.getSyslogDrainUrl(), response.getVolumeMounts(),
+					response.getEndpoints());
+		}
+		if (result instanceof CreateServiceInstanceRouteBindingResponse
+				&& !((CreateServiceInstanceRouteBindingResponse) result).isAsync()) {
+			CreateServiceInstanceRouteBindingResponse response = (CreateServiceInstanceRouteBindingResponse) result;
+			return new GetServiceInstanceRouteBindingResponse(new HashMap<>(), response.getMetadata(),
+					response.getRouteServiceUrl());
+		}
+		return null;
+	}
+
+}
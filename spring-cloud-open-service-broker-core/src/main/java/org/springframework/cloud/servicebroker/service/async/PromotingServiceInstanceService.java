@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that promotes create, update, and delete requests that
+ * exceed their latency budget to asynchronous operations, and answers last operation requests for promoted
+ * operations.
+ *
+ * <p>
+ * A promoted operation whose service responds asynchronously when it completes is reported by the last operation of
+ * the service, using the operation token of that response.
+ *
+ * @see AsyncOperationPromoter
+ */
+public class PromotingServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final AsyncOperationPromoter promoter;
+
+	/**
+	 * Construct a new {@link PromotingServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param promoter the promoter
+	 */
+	public PromotingServiceInstanceService(ServiceInstanceService serviceInstanceService,
+			AsyncOperationPromoter promoter) {
+		this.service = serviceInstanceService;
+		this.promoter = promoter;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return this.promoter.createServiceInstance(request, this.service.createServiceInstance(request));
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.service.getServiceInstance(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return Mono.defer(() -> this.promoter.getOperation(request.getServiceInstanceId(), null,
+				request.getOperation())
+				.map(operation -> getLastOperation(request, operation))
+				.orElseGet(() -> this.service.getLastOperation(request)));
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return this.promoter.deleteServiceInstance(request, this.service.deleteServiceInstance(request));
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return this.promoter.updateServiceInstance(request, this.service.updateServiceInstance(request));
+	}
+
+	private Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request,
+			AsyncOperation operation) {
+		if (operation.getResult() instanceof AsyncServiceBrokerResponse
+				&& ((AsyncServiceBrokerResponse) operation.getResult()).isAsync()) {
+			return this.service.getLastOperation(GetLastServiceOperationRequest.builder()
+					.serviceInstanceId(request.getServiceInstanceId())
+					.serviceDefinitionId(request.getServiceDefinitionId())
+					.planId(request.getPlanId())
+					.operation(((AsyncServiceBrokerResponse) operation.getResult()).getOperation())
+					.platformInstanceId(request.getPlatformInstanceId())
+					.apiInfoLocation(request.getApiInfoLocation())
+					.originatingIdentity(request.getOriginatingIdentity())
+					.requestIdentity(request.getRequestIdentity())
+					.build());
+		}
+		return Mono.just(GetLastServiceOperationResponse.builder()
+				.operationState(operation.getState())
+				.description(operation.getDescription())
+				.deleteOperation(operation.isDeleteOperation())
+				.build());
+	}
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceBindingService} that tracks the durations of asynchronous
+ * operations, and sets the retry interval of in progress last operation responses to the expected remaining time of
+ * the operation. A retry interval set by the service is left unchanged.
+ *
+ * @see OperationDurationTracker
+ */
+public class RetryAfterServiceInstanceBindingService implements ServiceInstanceBindingService {
+
+	private final ServiceInstanceBindingService service;
+
+	private final OperationDurationTracker tracker;
+
+	/**
+	 * Construct a new {@link RetryAfterServiceInstanceBindingService}
+	 *
+	 * @param serviceInstanceBindingService the service instance binding service
+	 * @param tracker the operation duration tracker
+	 */
+	public RetryAfterServiceInstanceBindingService(ServiceInstanceBindingService serviceInstanceBindingService,
+			OperationDurationTracker tracker) {
+		this.service = serviceInstanceBindingService;
+		this.tracker = tracker;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+			CreateServiceInstanceBindingRequest request) {
+		return this.service.createServiceInstanceBinding(request)
+				.doOnNext(response -> {
+					if (response.isAsync()) {
+						this.tracker.started(request.getServiceInstanceId(), request.getBindingId(),
+								request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.CREATE,
+								response.getOperation());
+					}
+				});
+	}
+
+	@Override
+	public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(GetServiceInstanceBindingRequest request) {
+		return this.service.getServiceInstanceBinding(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceBindingOperationResponse> getLastOperation(
+			GetLastServiceBindingOperationRequest request) {
+		return this.service.getLastOperation(request)
+				.map(response -> {
+					Duration retryAfter = this.tracker.polled(request.getServiceInstanceId(), request.getBindingId(),
+							response.getState());
+					if (retryAfter == null || response.getRetryAfter() != null) {
+						return response;
+					}
+					return GetLastServiceBindingOperationResponse.builder()
+							.operationState(response.getState())
+							.description(response.getDescription())
+							.deleteOperation(response.isDeleteOperation())
+							.retryAfter(retryAfter)
+							.build();
+				});
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceBindingResponse> deleteServiceInstanceBinding(
+			DeleteServiceInstanceBindingRequest request) {
+		return this.service.deleteServiceInstanceBinding(request)
+				.doOnNext(response -> {
+					if (response.isAsync()) {
+						this.tracker.started(request.getServiceInstanceId(), request.getBindingId(),
+								request.getServiceDefinitionId(), request.getPlanId(), AsyncOperation.Type.DELETE,
+								response.getOperation());
+					}
+				});
+	}
+
+}
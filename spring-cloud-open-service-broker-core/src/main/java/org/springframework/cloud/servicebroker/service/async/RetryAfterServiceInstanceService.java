@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+/**
+ * Internal implementation of {@link ServiceInstanceService} that tracks the durations of asynchronous operations,
+ * and sets the retry interval of in progress last operation responses to the expected remaining time of the
+ * operation. A retry interval set by the service is left unchanged.
+ *
+ * @see OperationDurationTracker
+ */
+public class RetryAfterServiceInstanceService implements ServiceInstanceService {
+
+	private final ServiceInstanceService service;
+
+	private final OperationDurationTracker tracker;
+
+	/**
+	 * Construct a new {@link RetryAfterServiceInstanceService}
+	 *
+	 * @param serviceInstanceService the service instance service
+	 * @param tracker the operation duration tracker
+	 */
+	public RetryAfterServiceInstanceService(ServiceInstanceService serviceInstanceService,
+			OperationDurationTracker tracker) {
+		this.service = serviceInstanceService;
+		this.tracker = tracker;
+	}
+
+	@Override
+	public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+		return this.service.createServiceInstance(request)
+				.doOnNext(response -> {
+					if (response.isAsync()) {
+						this.tracker.started(request.getServiceInstanceId(), null, request.getServiceDefinitionId(),
+								request.getPlanId(), AsyncOperation.Type.CREATE, response.getOperation());
+					}
+				});
+	}
+
+	@Override
+	public Mono<GetServiceInstanceResponse> getServiceInstance(GetServiceInstanceRequest request) {
+		return this.service.getServiceInstance(request);
+	}
+
+	@Override
+	public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+		return this.service.getLastOperation(request)
+				.map(response -> {
+					Duration retryAfter = this.tracker.polled(request.getServiceInstanceId(), null,
+							response.getState());
+					if (retryAfter == null || response.getRetryAfter() != null) {
+						return response;
+					}
+					return GetLastServiceOperationResponse.builder()
+							.operationState(response.getState())
+							.description(response.getDescription())
+							.deleteOperation(response.isDeleteOperation())
+							.retryAfter(retryAfter)
+							.build();
+				});
+	}
+
+	@Override
+	public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+		return this.service.deleteServiceInstance(request)
+				.doOnNext(response -> {
+					if (response.isAsync()) {
+						this.tracker.started(request.getServiceInstanceId(), null, request.getServiceDefinitionId(),
+								request.getPlanId(), AsyncOperation.Type.DELETE, response.getOperation());
+					}
+				});
+	}
+
+	@Override
+	public Mono<UpdateServiceInstanceResponse> updateServiceInstance(UpdateServiceInstanceRequest request) {
+		return this.service.updateServiceInstance(request)
+				.doOnNext(response -> {
+					if (response.isAsync()) {
+						this.tracker.started(request.getServiceInstanceId(), null, request.getServiceDefinitionId(),
+								request.getPlanId(), AsyncOperation.Type.UPDATE, response.getOperation());
+					}
+				});
+	}
+
+}
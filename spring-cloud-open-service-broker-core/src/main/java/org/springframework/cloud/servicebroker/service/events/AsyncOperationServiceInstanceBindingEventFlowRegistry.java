@@ -58,22 +58,24 @@ public class AsyncOperationServiceInstanceBindingEventFlowRegistry
 
 	@Override
 	public Flux<Void> getInitializationFlows(GetLastServiceBindingOperationRequest request) {
-		return getInitializationFlowsInternal()
-				.flatMap(flow -> flow.initialize(request));
+		return executeInitializationFlows(request, flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(
 			GetLastServiceBindingOperationRequest request, GetLastServiceBindingOperationResponse response) {
 
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return executeCompletionFlows(request, flow -> flow.complete(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(GetLastServiceBindingOperationRequest request, Throwable t) {
-		return getErrorFlowsInternal()
-				.flatMap(flow -> flow.error(request, t));
+		return executeErrorFlows(request, flow -> flow.error(request, t));
+	}
+
+	@Override
+	protected EventFlowTarget getTarget(GetLastServiceBindingOperationRequest request) {
+		return EventFlowTarget.of(request.getServiceDefinitionId(), request.getPlanId(), request.getOriginatingIdentity());
 	}
 
 }
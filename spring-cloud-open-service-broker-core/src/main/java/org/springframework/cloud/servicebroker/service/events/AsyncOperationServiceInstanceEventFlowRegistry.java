@@ -60,21 +60,23 @@ public class AsyncOperationServiceInstanceEventFlowRegistry
 
 	@Override
 	public Flux<Void> getInitializationFlows(GetLastServiceOperationRequest request) {
-		return getInitializationFlowsInternal()
-				.flatMap(flow -> flow.initialize(request));
+		return executeInitializationFlows(request, flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(GetLastServiceOperationRequest request,
 			GetLastServiceOperationResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return executeCompletionFlows(request, flow -> flow.complete(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(GetLastServiceOperationRequest request, Throwable t) {
-		return getErrorFlowsInternal()
-				.flatMap(flow -> flow.error(request, t));
+		return executeErrorFlows(request, flow -> flow.error(request, t));
+	}
+
+	@Override
+	protected EventFlowTarget getTarget(GetLastServiceOperationRequest request) {
+		return EventFlowTarget.of(request.getServiceDefinitionId(), request.getPlanId(), request.getOriginatingIdentity());
 	}
 
 }
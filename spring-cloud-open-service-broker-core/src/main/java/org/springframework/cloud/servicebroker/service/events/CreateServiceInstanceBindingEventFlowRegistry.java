@@ -60,21 +60,24 @@ public class CreateServiceInstanceBindingEventFlowRegistry
 
 	@Override
 	public Flux<Void> getInitializationFlows(CreateServiceInstanceBindingRequest request) {
-		return getInitializationFlowsInternal()
-				.flatMap(flow -> flow.initialize(request));
+		return executeInitializationFlows(request, flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(CreateServiceInstanceBindingRequest request,
 			CreateServiceInstanceBindingResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return executeCompletionFlows(request, flow -> flow.complete(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(CreateServiceInstanceBindingRequest request, Throwable t) {
-		return getErrorFlowsInternal()
-				.flatMap(flow -> flow.error(request, t));
+		return executeErrorFlows(request, flow -> flow.error(request, t));
+	}
+
+	@Override
+	protected EventFlowTarget getTarget(CreateServiceInstanceBindingRequest request) {
+		return EventFlowTarget.of(request.getServiceDefinitionId(), request.getPlanId(), request.getContext(),
+				request.getOriginatingIdentity());
 	}
 
 }
@@ -59,20 +59,23 @@ public class CreateServiceInstanceEventFlowRegistry extends EventFlowRegistry<Cr
 
 	@Override
 	public Flux<Void> getInitializationFlows(CreateServiceInstanceRequest request) {
-		return getInitializationFlowsInternal()
-				.flatMap(flow -> flow.initialize(request));
+		return executeInitializationFlows(request, flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return executeCompletionFlows(request, flow -> flow.complete(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(CreateServiceInstanceRequest request, Throwable t) {
-		return getErrorFlowsInternal()
-				.flatMap(flow -> flow.error(request, t));
+		return executeErrorFlows(request, flow -> flow.error(request, t));
+	}
+
+	@Override
+	protected EventFlowTarget getTarget(CreateServiceInstanceRequest request) {
+		return EventFlowTarget.of(request.getServiceDefinitionId(), request.getPlanId(), request.getContext(),
+				request.getOriginatingIdentity());
 	}
 
 }
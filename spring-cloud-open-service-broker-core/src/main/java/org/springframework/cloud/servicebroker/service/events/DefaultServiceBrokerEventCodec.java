@@ -0,0 +1,546 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.AsyncServiceBrokerResponse;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.PlatformContext;
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceRouteBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.DeleteServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+/**
+ * A compact binary {@link ServiceBrokerEventCodec} that keeps the fields of an event that identify the operation and
+ * its outcome.
+ *
+ * <p>
+ * A decoded request carries the service instance, binding, service definition, and plan IDs, the operation, the
+ * platform instance ID, the request identity, and the originating identity, but not the parameters, context, or
+ * resolved catalog entries of the original request. A decoded response carries whether the operation is asynchronous,
+ * the operation, whether the instance or binding existed, and the state of a last operation. A decoded error is a
+ * {@link ServiceBrokerException} with the class and message of the original error.
+ */
+public class DefaultServiceBrokerEventCodec implements ServiceBrokerEventCodec {
+
+	private static final int VERSION = 1;
+
+	private static final int INITIAL_CAPACITY = 256;
+
+	private static final int NULL_LENGTH = -1;
+
+	@Override
+	public byte[] encode(ServiceBrokerEvent event) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(INITIAL_CAPACITY);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeByte(VERSION);
+			Strings.write(out, event.getType().name());
+			out.writeLong(event.getTimestamp().getEpochSecond());
+			out.writeInt(event.getTimestamp().getNano());
+			RequestFields.of(event.getRequest()).write(out);
+			ResponseFields.of(event.getResponse()).write(out);
+			writeError(out, event.getError());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error encoding event", e);
+		}
+		return bytes.toByteArray();
+	}
+
+	@Override
+	public ServiceBrokerEvent decode(byte[] record) {
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+			int version = in.readByte();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported event record version " + version);
+			}
+			ServiceBrokerEvent.Type type = ServiceBrokerEvent.Type.valueOf(Strings.read(in));
+			Instant timestamp = Instant.ofEpochSecond(in.readLong(), in.readInt());
+			ServiceBrokerRequest request = RequestFields.read(in).toRequest(type);
+			Object response = ResponseFields.read(in).toResponse(type);
+			return new ServiceBrokerEvent(type, request, response, readError(in), timestamp);
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Malformed event record", e);
+		}
+	}
+
+	private static void writeError(DataOutputStream out, Throwable error) throws IOException {
+		if (error == null) {
+			Strings.write(out, null);
+		}
+		else {
+			Strings.write(out, error.toString());
+		}
+	}
+
+	private static ServiceBrokerException readError(DataInputStream in) throws IOException {
+		String error = Strings.read(in);
+		if (error == null) {
+			return null;
+		}
+		return new ServiceBrokerException(error);
+	}
+
+	/**
+	 * The fields of a request that are kept
+	 */
+	private static final class RequestFields {
+
+		private final String[] ids;
+
+		private final String platformInstanceId;
+
+		private final String requestIdentity;
+
+		private final boolean asyncAccepted;
+
+		private final Context originatingIdentity;
+
+		private RequestFields(String[] ids, String platformInstanceId, String requestIdentity, boolean asyncAccepted,
+				Context originatingIdentity) {
+			this.ids = ids;
+			this.platformInstanceId = platformInstanceId;
+			this.requestIdentity = requestIdentity;
+			this.asyncAccepted = asyncAccepted;
+			this.originatingIdentity = originatingIdentity;
+		}
+
+		/**
+		 * Extract the fields of a request
+		 *
+		 * @param request the request
+		 * @return the fields
+		 */
+		public static RequestFields of(ServiceBrokerRequest request) {
+			boolean asyncAccepted = request instanceof AsyncServiceBrokerRequest
+					&& ((AsyncServiceBrokerRequest) request).isAsyncAccepted();
+			return new RequestFields(ids(request), request.getPlatformInstanceId(), request.getRequestIdentity(),
+					asyncAccepted, request.getOriginatingIdentity());
+		}
+
+		/**
+		 * Read the fields
+		 *
+		 * @param in the input
+		 * @return the fields
+		 * @throws IOException if the fields cannot be read
+		 */
+		public static RequestFields read(DataInputStream in) throws IOException {
+			String[] ids = new String[Id.values().length];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = Strings.read(in);
+			}
+			String platformInstanceId = Strings.read(in);
+			String requestIdentity = Strings.read(in);
+			boolean asyncAccepted = in.readBoolean();
+			return new RequestFields(ids, platformInstanceId, requestIdentity, asyncAccepted, readContext(in));
+		}
+
+		/**
+		 * Write the fields
+		 *
+		 * @param out the output
+		 * @throws IOException if the fields cannot be written
+		 */
+		public void write(DataOutputStream out) throws IOException {
+			for (String id : this.ids) {
+				Strings.write(out, id);
+			}
+			Strings.write(out, this.platformInstanceId);
+			Strings.write(out, this.requestIdentity);
+			out.writeBoolean(this.asyncAccepted);
+			writeContext(out, this.originatingIdentity);
+		}
+
+		/**
+		 * Build a request of the class used by an operation
+		 *
+		 * @param type the type of operation
+		 * @return the request
+		 */
+		public ServiceBrokerRequest toRequest(ServiceBrokerEvent.Type type) {
+			ServiceBrokerRequest request = newRequest(type);
+			request.setPlatformInstanceId(this.platformInstanceId);
+			request.setRequestIdentity(this.requestIdentity);
+			request.setOriginatingIdentity(this.originatingIdentity);
+			if (request instanceof AsyncServiceBrokerRequest) {
+				((AsyncServiceBrokerRequest) request).setAsyncAccepted(this.asyncAccepted);
+			}
+			return request;
+		}
+
+		private ServiceBrokerRequest newRequest(ServiceBrokerEvent.Type type) {
+			switch (type) {
+				case CREATE_SERVICE_INSTANCE:
+					return CreateServiceInstanceRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.serviceDefinitionId(id(Id.SERVICE_DEFINITION)).planId(id(Id.PLAN)).build();
+				case UPDATE_SERVICE_INSTANCE:
+					return UpdateServiceInstanceRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.serviceDefinitionId(id(Id.SERVICE_DEFINITION)).planId(id(Id.PLAN)).build();
+				case DELETE_SERVICE_INSTANCE:
+					return DeleteServiceInstanceRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.serviceDefinitionId(id(Id.SERVICE_DEFINITION)).planId(id(Id.PLAN)).build();
+				case SERVICE_INSTANCE_LAST_OPERATION:
+					return GetLastServiceOperationRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.serviceDefinitionId(id(Id.SERVICE_DEFINITION)).planId(id(Id.PLAN))
+							.operation(id(Id.OPERATION)).build();
+				case CREATE_SERVICE_INSTANCE_BINDING:
+					return CreateServiceInstanceBindingRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.bindingId(id(Id.BINDING)).serviceDefinitionId(id(Id.SERVICE_DEFINITION))
+							.planId(id(Id.PLAN)).build();
+				case DELETE_SERVICE_INSTANCE_BINDING:
+					return DeleteServiceInstanceBindingRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.bindingId(id(Id.BINDING)).serviceDefinitionId(id(Id.SERVICE_DEFINITION))
+							.planId(id(Id.PLAN)).build();
+				default:
+					return GetLastServiceBindingOperationRequest.builder().serviceInstanceId(id(Id.SERVICE_INSTANCE))
+							.bindingId(id(Id.BINDING)).serviceDefinitionId(id(Id.SERVICE_DEFINITION))
+							.planId(id(Id.PLAN)).operation(id(Id.OPERATION)).build();
+			}
+		}
+
+		private String id(Id id) {
+			return this.ids[id.ordinal()];
+		}
+
+		private static String[] ids(ServiceBrokerRequest request) {
+			if (request instanceof CreateServiceInstanceRequest) {
+				CreateServiceInstanceRequest r = (CreateServiceInstanceRequest) request;
+				return Id.ids(r.getServiceInstanceId(), null, r.getServiceDefinitionId(), r.getPlanId(), null);
+			}
+			if (request instanceof UpdateServiceInstanceRequest) {
+				UpdateServiceInstanceRequest r = (UpdateServiceInstanceRequest) request;
+				return Id.ids(r.getServiceInstanceId(), null, r.getServiceDefinitionId(), r.getPlanId(), null);
+			}
+			if (request instanceof DeleteServiceInstanceRequest) {
+				DeleteServiceInstanceRequest r = (DeleteServiceInstanceRequest) request;
+				return Id.ids(r.getServiceInstanceId(), null, r.getServiceDefinitionId(), r.getPlanId(), null);
+			}
+			if (request instanceof GetLastServiceOperationRequest) {
+				GetLastServiceOperationRequest r = (GetLastServiceOperationRequest) request;
+				return Id.ids(r.getServiceInstanceId(), null, r.getServiceDefinitionId(), r.getPlanId(),
+						r.getOperation());
+			}
+			return bindingIds(request);
+		}
+
+		private static String[] bindingIds(ServiceBrokerRequest request) {
+			if (request instanceof CreateServiceInstanceBindingRequest) {
+				CreateServiceInstanceBindingRequest r = (CreateServiceInstanceBindingRequest) request;
+				return Id.ids(r.getServiceInstanceId(), r.getBindingId(), r.getServiceDefinitionId(), r.getPlanId(),
+						null);
+			}
+			if (request instanceof DeleteServiceInstanceBindingRequest) {
+				DeleteServiceInstanceBindingRequest r = (DeleteServiceInstanceBindingRequest) request;
+				return Id.ids(r.getServiceInstanceId(), r.getBindingId(), r.getServiceDefinitionId(), r.getPlanId(),
+						null);
+			}
+			if (request instanceof GetLastServiceBindingOperationRequest) {
+				GetLastServiceBindingOperationRequest r = (GetLastServiceBindingOperationRequest) request;
+				return Id.ids(r.getServiceInstanceId(), r.getBindingId(), r.getServiceDefinitionId(), r.getPlanId(),
+						r.getOperation());
+			}
+			return Id.ids(null, null, null, null, null);
+		}
+
+		private static void writeContext(DataOutputStream out, Context context) throws IOException {
+			if (context == null) {
+				out.writeInt(NULL_LENGTH);
+				return;
+			}
+			out.writeInt(context.getProperties().size());
+			Strings.write(out, context.getPlatform());
+			for (Map.Entry<String, Object> property : context.getProperties().entrySet()) {
+				Strings.write(out, property.getKey());
+				Strings.write(out, Objects.toString(property.getValue(), null));
+			}
+		}
+
+		private static Context readContext(DataInputStream in) throws IOException {
+			int size = in.readInt();
+			if (size == NULL_LENGTH) {
+				return null;
+			}
+			PlatformContext.PlatformContextBuilder builder = PlatformContext.builder().platform(Strings.read(in));
+			for (int i = 0; i < size; i++) {
+				builder.property(Strings.read(in), Strings.read(in));
+			}
+			return builder.build();
+		}
+
+	}
+
+	/**
+	 * The fields of a response that are kept
+	 */
+	private static final class ResponseFields {
+
+		private static final ResponseFields NONE = new ResponseFields(false, false, null, false, false, null, null,
+				false);
+
+		private final boolean present;
+
+		private final boolean async;
+
+		private final String operation;
+
+		private final boolean existed;
+
+		private final boolean routeBinding;
+
+		private final OperationState state;
+
+		private final String description;
+
+		private final boolean deleteOperation;
+
+		private ResponseFields(boolean present, boolean async, String operation, boolean existed,
+				boolean routeBinding, OperationState state, String description, boolean deleteOperation) {
+			this.present = present;
+			this.async = async;
+			this.operation = operation;
+			this.existed = existed;
+			this.routeBinding = routeBinding;
+			this.state = state;
+			this.description = description;
+			this.deleteOperation = deleteOperation;
+		}
+
+		/**
+		 * Extract the fields of a response
+		 *
+		 * @param response the response, or {@literal null}
+		 * @return the fields
+		 */
+		public static ResponseFields of(Object response) {
+			if (response instanceof GetLastServiceOperationResponse) {
+				GetLastServiceOperationResponse r = (GetLastServiceOperationResponse) response;
+				return new ResponseFields(true, false, null, false, false, r.getState(), r.getDescription(),
+						r.isDeleteOperation());
+			}
+			if (response instanceof GetLastServiceBindingOperationResponse) {
+				GetLastServiceBindingOperationResponse r = (GetLastServiceBindingOperationResponse) response;
+				return new ResponseFields(true, false, null, false, false, r.getState(), r.getDescription(),
+						r.isDeleteOperation());
+			}
+			if (response instanceof AsyncServiceBrokerResponse) {
+				AsyncServiceBrokerResponse r = (AsyncServiceBrokerResponse) response;
+				return new ResponseFields(true, r.isAsync(), r.getOperation(), existed(response),
+						response instanceof CreateServiceInstanceRouteBindingResponse, null, null, false);
+			}
+			return NONE;
+		}
+
+		/**
+		 * Read the fields
+		 *
+		 * @param in the input
+		 * @return the fields
+		 * @throws IOException if the fields cannot be read
+		 */
+		public static ResponseFields read(DataInputStream in) throws IOException {
+			if (!in.readBoolean()) {
+				return NONE;
+			}
+			boolean async = in.readBoolean();
+			String operation = Strings.read(in);
+			boolean existed = in.readBoolean();
+			boolean routeBinding = in.readBoolean();
+			String state = Strings.read(in);
+			String description = Strings.read(in);
+			boolean deleteOperation = in.readBoolean();
+			return new ResponseFields(true, async, operation, existed, routeBinding, toState(state), description,
+					deleteOperation);
+		}
+
+		private static OperationState toState(String state) {
+			if (state == null) {
+				return null;
+			}
+			return OperationState.valueOf(state);
+		}
+
+		/**
+		 * Write the fields
+		 *
+		 * @param out the output
+		 * @throws IOException if the fields cannot be written
+		 */
+		public void write(DataOutputStream out) throws IOException {
+			out.writeBoolean(this.present);
+			if (!this.present) {
+				return;
+			}
+			out.writeBoolean(this.async);
+			Strings.write(out, this.operation);
+			out.writeBoolean(this.existed);
+			out.writeBoolean(this.routeBinding);
+			if (this.state == null) {
+				Strings.write(out, null);
+			}
+			else {
+				Strings.write(out, this.state.name());
+			}
+			Strings.write(out, this.description);
+			out.writeBoolean(this.deleteOperation);
+		}
+
+		/**
+		 * Build a response of the class returned by an operation
+		 *
+		 * @param type the type of operation
+		 * @return the response, or {@literal null} if the event had no response
+		 */
+		public Object toResponse(ServiceBrokerEvent.Type type) {
+			if (!this.present) {
+				return null;
+			}
+			switch (type) {
+				case CREATE_SERVICE_INSTANCE:
+					return CreateServiceInstanceResponse.builder().async(this.async).operation(this.operation)
+							.instanceExisted(this.existed).build();
+				case UPDATE_SERVICE_INSTANCE:
+					return UpdateServiceInstanceResponse.builder().async(this.async).operation(this.operation).build();
+				case DELETE_SERVICE_INSTANCE:
+					return DeleteServiceInstanceResponse.builder().async(this.async).operation(this.operation).build();
+				case SERVICE_INSTANCE_LAST_OPERATION:
+					return GetLastServiceOperationResponse.builder().operationState(this.state)
+							.description(this.description).deleteOperation(this.deleteOperation).build();
+				case CREATE_SERVICE_INSTANCE_BINDING:
+					return toCreateBindingResponse();
+				case DELETE_SERVICE_INSTANCE_BINDING:
+					return DeleteServiceInstanceBindingResponse.builder().async(this.async).operation(this.operation)
+							.build();
+				default:
+					return GetLastServiceBindingOperationResponse.builder().operationState(this.state)
+							.description(this.description).deleteOperation(this.deleteOperation).build();
+			}
+		}
+
+		private CreateServiceInstanceBindingResponse toCreateBindingResponse() {
+			if (this.routeBinding) {
+				return CreateServiceInstanceRouteBindingResponse.builder().async(this.async)
+						.operation(this.operation).bindingExisted(this.existed).build();
+			}
+			return CreateServiceInstanceAppBindingResponse.builder().async(this.async).operation(this.operation)
+					.bindingExisted(this.existed).build();
+		}
+
+		private static boolean existed(Object response) {
+			if (response instanceof CreateServiceInstanceResponse) {
+				return ((CreateServiceInstanceResponse) response).isInstanceExisted();
+			}
+			return response instanceof CreateServiceInstanceBindingResponse
+					&& ((CreateServiceInstanceBindingResponse) response).isBindingExisted();
+		}
+
+	}
+
+	/**
+	 * The IDs of a request that are kept, in the order they are written
+	 */
+	private enum Id {
+		SERVICE_INSTANCE, BINDING, SERVICE_DEFINITION, PLAN, OPERATION;
+
+		/**
+		 * Build an array of ids indexed by {@link Id#ordinal()}
+		 *
+		 * @param serviceInstanceId the service instance id
+		 * @param bindingId the binding id
+		 * @param serviceDefinitionId the service definition id
+		 * @param planId the plan id
+		 * @param operation the operation
+		 * @return the ids
+		 */
+		public static String[] ids(String serviceInstanceId, String bindingId, String serviceDefinitionId,
+				String planId, String operation) {
+			return new String[] {serviceInstanceId, bindingId, serviceDefinitionId, planId, operation};
+		}
+	}
+
+	/**
+	 * Length-prefixed UTF-8 strings, which may be {@literal null}
+	 */
+	@SuppressWarnings("PMD.UseUtilityClass")
+	private static final class Strings {
+
+		/**
+		 * Write a string
+		 *
+		 * @param out the output
+		 * @param value the string, or {@literal null}
+		 * @throws IOException if the string cannot be written
+		 */
+		public static void write(DataOutputStream out, String value) throws IOException {
+			if (value == null) {
+				out.writeInt(NULL_LENGTH);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+
+		/**
+		 * Read a string
+		 *
+		 * @param in the input
+		 * @return the string, or {@literal null}
+		 * @throws IOException if the string cannot be read
+		 */
+		public static String read(DataInputStream in) throws IOException {
+			int length = in.readInt();
+			if (length == NULL_LENGTH) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+	}
+
+}
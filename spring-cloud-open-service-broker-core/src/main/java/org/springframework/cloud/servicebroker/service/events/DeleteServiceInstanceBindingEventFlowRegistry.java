@@ -60,21 +60,23 @@ public class DeleteServiceInstanceBindingEventFlowRegistry
 
 	@Override
 	public Flux<Void> getInitializationFlows(DeleteServiceInstanceBindingRequest request) {
-		return getInitializationFlowsInternal()
-				.flatMap(flow -> flow.initialize(request));
+		return executeInitializationFlows(request, flow -> flow.initialize(request));
 	}
 
 	@Override
 	public Flux<Void> getCompletionFlows(DeleteServiceInstanceBindingRequest request,
 			DeleteServiceInstanceBindingResponse response) {
-		return getCompletionFlowsInternal()
-				.flatMap(flow -> flow.complete(request, response));
+		return executeCompletionFlows(request, flow -> flow.complete(request, response));
 	}
 
 	@Override
 	public Flux<Void> getErrorFlows(DeleteServiceInstanceBindingRequest request, Throwable t) {
-		return getErrorFlowsInternal()
-				.flatMap(flow -> flow.error(request, t));
+		return executeErrorFlows(request, flow -> flow.error(request, t));
+	}
+
+	@Override
+	protected EventFlowTarget getTarget(DeleteServiceInstanceBindingRequest request) {
+		return EventFlowTarget.of(request.getServiceDefinitionId(), request.getPlanId(), request.getOriginatingIdentity());
 	}
 
 }
@@ -0,0 +1,290 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+
+/**
+ * Runs event flows detached from the request that triggered them, so that the response to the platform does not wait
+ * for them.
+ *
+ * <p>
+ * Flows are run on a dedicated {@link Scheduler}. At most {@literal queueCapacity} flows are queued or running at
+ * once. When the queue is full, the {@link OverflowPolicy} decides whether the flows are dropped, whether the request
+ * waits for room in the queue, or whether the flows are run as part of the request. Errors from detached flows are
+ * logged and counted, and never reach the platform.
+ */
+public class DetachedEventFlowExecutor implements AutoCloseable {
+
+	/**
+	 * The default maximum number of threads used to run detached flows
+	 */
+	public static final int DEFAULT_THREADS = Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE;
+
+	/**
+	 * The default maximum number of flows queued or running at once
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+	private static final Logger LOG = LoggerFactory.getLogger(DetachedEventFlowExecutor.class);
+
+	private static final int THREAD_TTL_SECONDS = 60;
+
+	private final Scheduler scheduler;
+
+	private final int queueCapacity;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final Object monitor = new Object();
+
+	private final Queue<Sinks.Empty<Void>> waiters = new ArrayDeque<>();
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	private final AtomicLong submittedCount = new AtomicLong();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final AtomicLong callerRunCount = new AtomicLong();
+
+	private final AtomicLong failureCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link DetachedEventFlowExecutor} with the default number of threads and queue capacity, that
+	 * drops flows when the queue is full
+	 */
+	public DetachedEventFlowExecutor() {
+		this(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP);
+	}
+
+	/**
+	 * Construct a new {@link DetachedEventFlowExecutor}
+	 *
+	 * @param threads the maximum number of threads used to run flows
+	 * @param queueCapacity the maximum number of flows queued or running at once
+	 * @param overflowPolicy what to do with flows when the queue is full
+	 */
+	public DetachedEventFlowExecutor(int threads, int queueCapacity, OverflowPolicy overflowPolicy) {
+		this(Schedulers.newBoundedElastic(threads, Math.max(queueCapacity, 1), "detached-event-flows",
+				THREAD_TTL_SECONDS, true), queueCapacity, overflowPolicy);
+	}
+
+	/**
+	 * Construct a new {@link DetachedEventFlowExecutor}
+	 *
+	 * @param scheduler the scheduler used to run flows, which is disposed when this executor is closed
+	 * @param queueCapacity the maximum number of flows queued or running at once
+	 * @param overflowPolicy what to do with flows when the queue is full
+	 */
+	public DetachedEventFlowExecutor(Scheduler scheduler, int queueCapacity, OverflowPolicy overflowPolicy) {
+		Assert.notNull(scheduler, "scheduler must not be null");
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+		Assert.notNull(overflowPolicy, "overflowPolicy must not be null");
+		this.scheduler = scheduler;
+		this.queueCapacity = queueCapacity;
+		this.overflowPolicy = overflowPolicy;
+	}
+
+	/**
+	 * Submit flows to be run detached from the current request
+	 *
+	 * @param flows the flows
+	 * @return a Mono that completes once the flows have been queued, dropped, or run according to the overflow policy
+	 */
+	public Mono<Void> submit(Mono<Void> flows) {
+		return Mono.defer(() -> {
+			this.submittedCount.incrementAndGet();
+			if (tryAcquire()) {
+				run(flows);
+				return Mono.empty();
+			}
+			switch (this.overflowPolicy) {
+				case BLOCK:
+					return awaitSlot().doOnSuccess(v -> run(flows));
+				case CALLER_RUNS:
+					this.callerRunCount.incrementAndGet();
+					return flows
+							.doOnError(e -> this.failureCount.incrementAndGet())
+							.doOnError(e -> LOG.warn("Error running event flows. error=" + e))
+							.onErrorResume(e -> Mono.empty());
+				default:
+					this.droppedCount.incrementAndGet();
+					return Mono.empty();
+			}
+		});
+	}
+
+	/**
+	 * The number of flows queued or running
+	 *
+	 * @return the queue depth
+	 */
+	public int getQueueDepth() {
+		return this.queueDepth.get();
+	}
+
+	/**
+	 * The maximum number of flows queued or running at once
+	 *
+	 * @return the queue capacity
+	 */
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * The policy applied when the queue is full
+	 *
+	 * @return the overflow policy
+	 */
+	public OverflowPolicy getOverflowPolicy() {
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * The number of times flows have been submitted
+	 *
+	 * @return the submitted count
+	 */
+	public long getSubmittedCount() {
+		return this.submittedCount.get();
+	}
+
+	/**
+	 * The number of times flows were dropped because the queue was full
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * The number of times flows were run as part of the request because the queue was full
+	 *
+	 * @return the caller run count
+	 */
+	public long getCallerRunCount() {
+		return this.callerRunCount.get();
+	}
+
+	/**
+	 * The number of times detached flows failed
+	 *
+	 * @return the failure count
+	 */
+	public long getFailureCount() {
+		return this.failureCount.get();
+	}
+
+	/**
+	 * Dispose of the scheduler. Flows that have not started are discarded.
+	 */
+	@Override
+	public void close() {
+		this.scheduler.dispose();
+	}
+
+	private void run(Mono<Void> flows) {
+		flows.subscribeOn(this.scheduler)
+				.doOnError(e -> this.failureCount.incrementAndGet())
+				.doOnError(e -> LOG.warn("Error running detached event flows. error=" + e))
+				.doFinally(signal -> release())
+				.subscribe(v -> { }, e -> { });
+	}
+
+	private boolean tryAcquire() {
+		synchronized (this.monitor) {
+			if (this.queueDepth.get() < this.queueCapacity) {
+				this.queueDepth.incrementAndGet();
+				return true;
+			}
+			return false;
+		}
+	}
+
+	private Mono<Void> awaitSlot() {
+		Sinks.Empty<Void> waiter;
+		synchronized (this.monitor) {
+			if (this.queueDepth.get() < this.queueCapacity) {
+				this.queueDepth.incrementAndGet();
+				return Mono.empty();
+			}
+			waiter = Sinks.empty();
+			this.waiters.add(waiter);
+		}
+		return waiter.asMono()
+				.doOnCancel(() -> abandon(waiter));
+	}
+
+	private void abandon(Sinks.Empty<Void> waiter) {
+		boolean waiting;
+		synchronized (this.monitor) {
+			waiting = this.waiters.remove(waiter);
+		}
+		if (!waiting) {
+			release();
+		}
+	}
+
+	private void release() {
+		Sinks.Empty<Void> waiter;
+		synchronized (this.monitor) {
+			waiter = this.waiters.poll();
+			if (waiter == null) {
+				this.queueDepth.decrementAndGet();
+			}
+		}
+		if (waiter != null) {
+			waiter.tryEmitEmpty();
+		}
+	}
+
+	/**
+	 * Values designating what happens to flows submitted when the queue is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The flows are not run
+		 */
+		DROP,
+
+		/**
+		 * The request waits until there is room in the queue
+		 */
+		BLOCK,
+
+		/**
+		 * The flows are run as part of the request, as if they were not detached
+		 */
+		CALLER_RUNS
+	}
+
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import reactor.util.concurrent.Queues;
+
+import org.springframework.util.Assert;
+
+/**
+ * Describes how the flows registered for one phase of an operation are executed.
+ *
+ * <p>
+ * Flows are either executed one after another in {@link org.springframework.core.annotation.Order} order, or in
+ * parallel with a bounded number of flows running at once. Each flow can be given a timeout. A flow that fails or
+ * times out either fails the operation, or is reported and ignored when failures are isolated.
+ */
+public final class EventFlowExecutionPolicy {
+
+	/**
+	 * The default maximum number of flows executed at once in parallel
+	 */
+	public static final int DEFAULT_MAX_CONCURRENCY = Queues.SMALL_BUFFER_SIZE;
+
+	/**
+	 * The default policy, which executes flows in parallel with no timeout and fails the operation if a flow fails
+	 */
+	public static final EventFlowExecutionPolicy DEFAULT = builder().build();
+
+	private final Execution execution;
+
+	private final int maxConcurrency;
+
+	private final Duration timeout;
+
+	private final boolean isolateFailures;
+
+	private EventFlowExecutionPolicy(Execution execution, int maxConcurrency, Duration timeout,
+			boolean isolateFailures) {
+		this.execution = execution;
+		this.maxConcurrency = maxConcurrency;
+		this.timeout = timeout;
+		this.isolateFailures = isolateFailures;
+	}
+
+	/**
+	 * How the flows are executed
+	 *
+	 * @return the execution
+	 */
+	public Execution getExecution() {
+		return this.execution;
+	}
+
+	/**
+	 * The maximum number of flows executed at once when flows are executed in parallel
+	 *
+	 * @return the maximum concurrency
+	 */
+	public int getMaxConcurrency() {
+		return this.maxConcurrency;
+	}
+
+	/**
+	 * How long each flow may take before it is cancelled
+	 *
+	 * @return the timeout, or {@literal null} if flows are not timed out
+	 */
+	public Duration getTimeout() {
+		return this.timeout;
+	}
+
+	/**
+	 * Whether a flow that fails or times out is reported and ignored, rather than failing the operation
+	 *
+	 * @return true if failures are isolated
+	 */
+	public boolean isIsolateFailures() {
+		return this.isolateFailures;
+	}
+
+	/**
+	 * Create a builder that provides a fluent API for constructing an {@literal EventFlowExecutionPolicy}.
+	 *
+	 * @return the builder
+	 */
+	public static EventFlowExecutionPolicyBuilder builder() {
+		return new EventFlowExecutionPolicyBuilder();
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof EventFlowExecutionPolicy)) {
+			return false;
+		}
+		EventFlowExecutionPolicy that = (EventFlowExecutionPolicy) o;
+		return maxConcurrency == that.maxConcurrency &&
+				isolateFailures == that.isolateFailures &&
+				execution == that.execution &&
+				Objects.equals(timeout, that.timeout);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(execution, maxConcurrency, timeout, isolateFailures);
+	}
+
+	@Override
+	public String toString() {
+		return "EventFlowExecutionPolicy{" +
+				"execution=" + execution +
+				", maxConcurrency=" + maxConcurrency +
+				", timeout=" + timeout +
+				", isolateFailures=" + isolateFailures +
+				'}';
+	}
+
+	/**
+	 * Values designating how the flows of a phase are executed.
+	 */
+	public enum Execution {
+		/**
+		 * Flows are executed one after another, in order
+		 */
+		SEQUENTIAL,
+
+		/**
+		 * Flows are executed at the same time, up to the maximum concurrency
+		 */
+		PARALLEL
+	}
+
+	/**
+	 * Provides a fluent API for constructing an {@literal EventFlowExecutionPolicy}.
+	 */
+	public static final class EventFlowExecutionPolicyBuilder {
+
+		private Execution execution = Execution.PARALLEL;
+
+		private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+		private Duration timeout;
+
+		private boolean isolateFailures;
+
+		private EventFlowExecutionPolicyBuilder() {
+		}
+
+		/**
+		 * Execute flows one after another, in {@link org.springframework.core.annotation.Order} order
+		 *
+		 * @return the builder
+		 */
+		public EventFlowExecutionPolicyBuilder sequential() {
+			this.execution = Execution.SEQUENTIAL;
+			return this;
+		}
+
+		/**
+		 * Execute flows in parallel, with at most the given number of flows running at once
+		 *
+		 * @param maxConcurrency the maximum number of flows executed at once
+		 * @return the builder
+		 */
+		public EventFlowExecutionPolicyBuilder parallel(int maxConcurrency) {
+			Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive");
+			this.execution = Execution.PARALLEL;
+			this.maxConcurrency = maxConcurrency;
+			return this;
+		}
+
+		/**
+		 * Cancel a flow that takes longer than the given duration, and treat it as failed
+		 *
+		 * @param timeout the timeout, or {@literal null} to let flows run for as long as they take
+		 * @return the builder
+		 */
+		public EventFlowExecutionPolicyBuilder timeout(Duration timeout) {
+			Assert.isTrue(timeout == null || !timeout.isNegative() && !timeout.isZero(), "timeout must be positive");
+			this.timeout = timeout;
+			return this;
+		}
+
+		/**
+		 * Whether a flow that fails or times out is reported and ignored, rather than failing the operation
+		 *
+		 * @param isolateFailures true to isolate failures
+		 * @return the builder
+		 */
+		public EventFlowExecutionPolicyBuilder isolateFailures(boolean isolateFailures) {
+			this.isolateFailures = isolateFailures;
+			return this;
+		}
+
+		/**
+		 * Construct an {@link EventFlowExecutionPolicy} from the provided values.
+		 *
+		 * @return the newly constructed {@literal EventFlowExecutionPolicy}
+		 */
+		public EventFlowExecutionPolicy build() {
+			return new EventFlowExecutionPolicy(this.execution, this.maxConcurrency, this.timeout,
+					this.isolateFailures);
+		}
+
+	}
+
+}
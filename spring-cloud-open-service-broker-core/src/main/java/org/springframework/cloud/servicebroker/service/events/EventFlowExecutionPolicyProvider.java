@@ -0,0 +1,32 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+/**
+ * Implemented by an event flow that needs a different timeout or failure handling from the other flows of its
+ * registry. The execution order and concurrency of a phase are always taken from the registry.
+ */
+public interface EventFlowExecutionPolicyProvider {
+
+	/**
+	 * The policy used to execute this flow
+	 *
+	 * @return the policy, or {@literal null} to use the policy of the registry
+	 */
+	EventFlowExecutionPolicy getExecutionPolicy();
+
+}
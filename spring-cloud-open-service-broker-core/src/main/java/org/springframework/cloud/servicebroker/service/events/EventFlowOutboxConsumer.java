@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.List;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ServiceBrokerEventBatchConsumer} of a {@link ServiceBrokerEventOutbox} that runs the completion and error
+ * flows of the operations recorded in the delivered events.
+ *
+ * <p>
+ * When an outbox has this consumer, the outcome of an operation is appended to the outbox as soon as the operation
+ * completes, and its completion or error flows are run when the outbox delivers the event, instead of as part of the
+ * operation. Events that were not acknowledged before the broker stopped are delivered again when the outbox is
+ * opened, so the flows of every operation run at least once, and may run more than once.
+ */
+public class EventFlowOutboxConsumer implements ServiceBrokerEventBatchConsumer {
+
+	private final EventFlowRegistries registries;
+
+	/**
+	 * Construct a new {@link EventFlowOutboxConsumer}
+	 *
+	 * @param registries the registries of the flows to run
+	 */
+	public EventFlowOutboxConsumer(EventFlowRegistries registries) {
+		Assert.notNull(registries, "registries must not be null");
+		this.registries = registries;
+	}
+
+	@Override
+	public Mono<Void> accept(List<ServiceBrokerEvent> events) {
+		return Flux.fromIterable(events)
+				.concatMap(event -> getRegistry(event.getType()).runEventFlows(event))
+				.then();
+	}
+
+	private EventFlowRegistry<?, ?, ?, ?, ?> getRegistry(ServiceBrokerEvent.Type type) {
+		switch (type) {
+			case CREATE_SERVICE_INSTANCE:
+				return this.registries.getCreateInstanceRegistry();
+			case UPDATE_SERVICE_INSTANCE:
+				return this.registries.getUpdateInstanceRegistry();
+			case DELETE_SERVICE_INSTANCE:
+				return this.registries.getDeleteInstanceRegistry();
+			case SERVICE_INSTANCE_LAST_OPERATION:
+				return this.registries.getAsyncOperationRegistry();
+			case CREATE_SERVICE_INSTANCE_BINDING:
+				return this.registries.getCreateInstanceBindingRegistry();
+			case DELETE_SERVICE_INSTANCE_BINDING:
+				return this.registries.getDeleteInstanceBindingRegistry();
+			default:
+				return this.registries.getAsyncOperationBindingRegistry();
+		}
+	}
+
+}
@@ -16,16 +16,40 @@
 
 package org.springframework.cloud.servicebroker.service.events;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import org.apache.commons.collections.CollectionUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.util.ClassUtils;
+
 /**
  * Abstract class for defining an event flow registry
  *
+ * <p>
+ * The registered flows are held in immutable array snapshots. Adding a flow replaces the snapshot with a copy that
+ * includes the new flow, so flows can be added at any time from any thread, and requests already in progress keep
+ * the snapshot they started with. Flows are kept in {@link org.springframework.core.annotation.Order} order.
+ *
+ * <p>
+ * The flows of each phase are executed according to an {@link EventFlowExecutionPolicy}. Flows that fail or time
+ * out are counted, so that a slow or failing flow can be detected.
+ *
+ * <p>
+ * Flows annotated with {@link EventFlowScope} are only invoked for requests within their scope. The flows that apply
+ * to each combination of service offering, plan, and platform are computed once and kept in a dispatch table, so
+ * flows that do not apply to a request are never subscribed.
+ *
  * @author Roy Clarkson
  * @param <I> type of initialization flow
  * @param <C> type of completion flow
@@ -35,11 +59,24 @@ import reactor.core.publisher.Mono;
  */
 public abstract class EventFlowRegistry<I, C, E, R, S> {
 
-	private final List<Mono<I>> initializationFlows = new ArrayList<>();
+	private static final Object[] NO_FLOWS = new Object[0];
+
+	private final AtomicReference<Object[]> initializationFlows = new AtomicReference<>(NO_FLOWS);
+
+	private final AtomicReference<Object[]> completionFlows = new AtomicReference<>(NO_FLOWS);
+
+	private final AtomicReference<Object[]> errorFlows = new AtomicReference<>(NO_FLOWS);
+
+	private final AtomicReference<DispatchTable> initializationDispatch = new AtomicReference<>(DispatchTable.EMPTY);
+
+	private final AtomicReference<DispatchTable> completionDispatch = new AtomicReference<>(DispatchTable.EMPTY);
+
+	private final AtomicReference<DispatchTable> errorDispatch = new AtomicReference<>(DispatchTable.EMPTY);
 
-	private final List<Mono<C>> completionFlows = new ArrayList<>();
+	private final EventFlowRunner runner = new EventFlowRunner();
+
+	private final AtomicReference<DetachedEventFlowExecutor> detachedFlowExecutor = new AtomicReference<>();
 
-	private final List<Mono<E>> errorFlows = new ArrayList<>();
 
 	/**
 	 * Construct a new {@link EventFlowRegistry}
@@ -58,13 +95,13 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 */
 	protected EventFlowRegistry(List<I> initializationFlows, List<C> completionFlows, List<E> errorFlows) {
 		if (CollectionUtils.isNotEmpty(initializationFlows)) {
-			initializationFlows.forEach(flow -> this.initializationFlows.add(Mono.just(flow)));
+			this.initializationFlows.set(ordered(initializationFlows.toArray()));
 		}
 		if (CollectionUtils.isNotEmpty(completionFlows)) {
-			completionFlows.forEach(flow -> this.completionFlows.add(Mono.just(flow)));
+			this.completionFlows.set(ordered(completionFlows.toArray()));
 		}
 		if (CollectionUtils.isNotEmpty(errorFlows)) {
-			errorFlows.forEach(flow -> this.errorFlows.add(Mono.just(flow)));
+			this.errorFlows.set(ordered(errorFlows.toArray()));
 		}
 	}
 
@@ -76,7 +113,7 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 */
 	public Mono<Void> addInitializationFlow(I object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.initializationFlows.add(Mono.just(flow)))
+				.doOnNext(flow -> this.initializationFlows.updateAndGet(flows -> append(flows, flow)))
 				.then();
 	}
 
@@ -94,7 +131,28 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 * @return a Flux of initialization flows
 	 */
 	protected Flux<I> getInitializationFlowsInternal() {
-		return Flux.merge(this.initializationFlows);
+		return flux(this.initializationFlows.get());
+	}
+
+	/**
+	 * Executes the initialization flows according to the execution policy
+	 *
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeInitializationFlows(Function<I, Mono<Void>> invoker) {
+		return this.runner.run(this.initializationFlows.get(), invoker);
+	}
+
+	/**
+	 * Executes the initialization flows that apply to a request according to the execution policy
+	 *
+	 * @param request the service broker request
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeInitializationFlows(R request, Function<I, Mono<Void>> invoker) {
+		return this.runner.run(select(this.initializationFlows, this.initializationDispatch, request), invoker);
 	}
 
 	/**
@@ -105,7 +163,7 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 */
 	public Mono<Void> addCompletionFlow(C object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.completionFlows.add(Mono.just(flow)))
+				.doOnNext(flow -> this.completionFlows.updateAndGet(flows -> append(flows, flow)))
 				.then();
 	}
 
@@ -124,7 +182,28 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 * @return a Flux of completion flows
 	 */
 	protected Flux<C> getCompletionFlowsInternal() {
-		return Flux.merge(this.completionFlows);
+		return flux(this.completionFlows.get());
+	}
+
+	/**
+	 * Executes the completion flows according to the execution policy
+	 *
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeCompletionFlows(Function<C, Mono<Void>> invoker) {
+		return this.runner.run(this.completionFlows.get(), invoker);
+	}
+
+	/**
+	 * Executes the completion flows that apply to a request according to the execution policy
+	 *
+	 * @param request the service broker request
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeCompletionFlows(R request, Function<C, Mono<Void>> invoker) {
+		return this.runner.run(select(this.completionFlows, this.completionDispatch, request), invoker);
 	}
 
 	/**
@@ -135,7 +214,7 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 */
 	public Mono<Void> addErrorFlow(E object) {
 		return Mono.justOrEmpty(object)
-				.map(flow -> this.errorFlows.add(Mono.just(flow)))
+				.doOnNext(flow -> this.errorFlows.updateAndGet(flows -> append(flows, flow)))
 				.then();
 	}
 
@@ -154,7 +233,299 @@ public abstract class EventFlowRegistry<I, C, E, R, S> {
 	 * @return a Flux of error flows
 	 */
 	protected Flux<E> getErrorFlowsInternal() {
-		return Flux.merge(this.errorFlows);
+		return flux(this.errorFlows.get());
+	}
+
+	/**
+	 * Executes the error flows according to the execution policy
+	 *
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeErrorFlows(Function<E, Mono<Void>> invoker) {
+		return this.runner.run(this.errorFlows.get(), invoker);
+	}
+
+	/**
+	 * Executes the error flows that apply to a request according to the execution policy
+	 *
+	 * @param request the service broker request
+	 * @param invoker invokes a single flow
+	 * @return a Flux that completes when the flows have been executed
+	 */
+	protected Flux<Void> executeErrorFlows(R request, Function<E, Mono<Void>> invoker) {
+		return this.runner.run(select(this.errorFlows, this.errorDispatch, request), invoker);
+	}
+
+	/**
+	 * Attach the registered flows to an operation. The initialization flows run before the operation, the error flows
+	 * run if the operation fails, and the completion flows run after the operation succeeds. Phases with no
+	 * flows that apply to the request are skipped, so if no flows apply the operation is returned unchanged. If a
+	 * {@link DetachedEventFlowExecutor} has been set, the completion and error flows are handed to it and the
+	 * operation does not wait for them.
+	 *
+	 * @param request the service broker request
+	 * @param operation the operation
+	 * @return the operation with the registered flows attached
+	 */
+	public Mono<S> attachFlows(R request, Mono<S> operation) {
+		return attachCompletionFlows(request, attachErrorFlows(request, attachInitializationFlows(request, operation)));
+	}
+
+	/**
+	 * Attach the initialization flows to an operation, so that they run before the operation
+	 *
+	 * @param request the service broker request
+	 * @param operation the operation
+	 * @return the operation, or the operation preceded by the initialization flows that apply to the request
+	 */
+	public Mono<S> attachInitializationFlows(R request, Mono<S> operation) {
+		if (select(this.initializationFlows, this.initializationDispatch, request).length == 0) {
+			return operation;
+		}
+		return getInitializationFlows(request).then(operation);
+	}
+
+	/**
+	 * Attach the error flows to an operation, so that they run if the operation fails
+	 *
+	 * @param request the service broker request
+	 * @param operation the operation
+	 * @return the operation, or the operation followed by the error flows that apply to the request
+	 */
+	public Mono<S> attachErrorFlows(R request, Mono<S> operation) {
+		if (select(this.errorFlows, this.errorDispatch, request).length == 0) {
+			return operation;
+		}
+		return operation.onErrorResume(e -> runFlows(getErrorFlows(request, e)).then(Mono.error(e)));
+	}
+
+	/**
+	 * Attach the completion flows to an operation, so that they run after the operation succeeds
+	 *
+	 * @param request the service broker request
+	 * @param operation the operation
+	 * @return the operation, or the operation followed by the completion flows that apply to the request
+	 */
+	public Mono<S> attachCompletionFlows(R request, Mono<S> operation) {
+		if (select(this.completionFlows, this.completionDispatch, request).length == 0) {
+			return operation;
+		}
+		return operation.flatMap(response -> runFlows(getCompletionFlows(request, response))
+				.then(Mono.just(response)));
+	}
+
+	/**
+	 * Run the completion flows of an operation that succeeded, or the error flows of an operation that failed, from
+	 * the event that recorded its outcome. This is how an {@link EventFlowOutboxConsumer} runs the flows of the
+	 * operations appended to a {@link ServiceBrokerEventOutbox}. The flows are not handed to a
+	 * {@link DetachedEventFlowExecutor}, so that a failure is reported to the outbox and the event is delivered again.
+	 *
+	 * @param event the event
+	 * @return a Mono that completes when the flows have been executed
+	 */
+	@SuppressWarnings("unchecked")
+	public Mono<Void> runEventFlows(ServiceBrokerEvent event) {
+		R request = (R) event.getRequest();
+		if (!event.isSuccessful()) {
+			return getErrorFlows(request, event.getError()).then();
+		}
+		if (event.getResponse() == null) {
+			return Mono.empty();
+		}
+		return getCompletionFlows(request, (S) event.getResponse()).then();
+	}
+
+	/**
+	 * The service offering, plan, and platform a request is for, used to select the flows annotated with
+	 * {@link EventFlowScope} that apply to the request. Registries for requests that carry these values override this
+	 * method.
+	 *
+	 * @param request the service broker request
+	 * @return the target of the request
+	 */
+	protected EventFlowTarget getTarget(R request) {
+		return EventFlowTarget.NONE;
+	}
+
+	/**
+	 * Whether any initialization, completion, or error flows are registered
+	 *
+	 * @return true if at least one flow is registered
+	 */
+	public boolean hasFlows() {
+		return this.initializationFlows.get().length > 0 || this.completionFlows.get().length > 0
+				|| this.errorFlows.get().length > 0;
+	}
+
+	/**
+	 * Set the policy used to execute the flows of this registry. Flows that implement
+	 * {@link EventFlowExecutionPolicyProvider} can override the timeout and failure handling for themselves.
+	 *
+	 * @param executionPolicy the execution policy
+	 */
+	public void setExecutionPolicy(EventFlowExecutionPolicy executionPolicy) {
+		this.runner.setExecutionPolicy(executionPolicy);
+	}
+
+	/**
+	 * The policy used to execute the flows of this registry
+	 *
+	 * @return the execution policy
+	 */
+	public EventFlowExecutionPolicy getExecutionPolicy() {
+		return this.runner.getExecutionPolicy();
+	}
+
+	/**
+	 * Set the executor used to run completion and error flows detached from the request, so that the response does
+	 * not wait for them
+	 *
+	 * @param detachedFlowExecutor the executor, or {@literal null} to run completion and error flows as part of the
+	 * request
+	 */
+	public void setDetachedFlowExecutor(DetachedEventFlowExecutor detachedFlowExecutor) {
+		this.detachedFlowExecutor.set(detachedFlowExecutor);
+	}
+
+	/**
+	 * The executor used to run completion and error flows detached from the request
+	 *
+	 * @return the executor, or {@literal null} if completion and error flows are run as part of the request
+	 */
+	public DetachedEventFlowExecutor getDetachedFlowExecutor() {
+		return this.detachedFlowExecutor.get();
+	}
+
+	/**
+	 * The number of flow executions that failed, not including timeouts
+	 *
+	 * @return the flow failure count
+	 */
+	public long getFlowFailureCount() {
+		return this.runner.getFailureCount();
+	}
+
+	/**
+	 * The number of flow executions that were cancelled because they exceeded their timeout
+	 *
+	 * @return the flow timeout count
+	 */
+	public long getFlowTimeoutCount() {
+		return this.runner.getTimeoutCount();
+	}
+
+	private Object[] select(AtomicReference<Object[]> flowsReference, AtomicReference<DispatchTable> dispatchReference,
+			R request) {
+		Object[] flows = flowsReference.get();
+		if (flows.length == 0) {
+			return flows;
+		}
+		DispatchTable table = dispatchReference.get();
+		if (!table.isFor(flows)) {
+			table = new DispatchTable(flows);
+			dispatchReference.set(table);
+		}
+		if (!table.isScoped()) {
+			return flows;
+		}
+		return table.select(getTarget(request));
+	}
+
+	@SuppressWarnings("PMD.CloseResource")
+	private Mono<Void> runFlows(Flux<Void> flows) {
+		DetachedEventFlowExecutor executor = this.detachedFlowExecutor.get();
+		if (executor == null) {
+			return flows.then();
+		}
+		return executor.submit(flows.then());
+	}
+
+	private static Object[] append(Object[] flows, Object flow) {
+		Object[] copy = Arrays.copyOf(flows, flows.length + 1);
+		copy[flows.length] = flow;
+		return ordered(copy);
+	}
+
+	private static Object[] ordered(Object... flows) {
+		AnnotationAwareOrderComparator.sort(flows);
+		return flows;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> Flux<T> flux(Object... flows) {
+		if (flows.length == 0) {
+			return Flux.empty();
+		}
+		return Flux.fromArray((T[]) flows);
+	}
+
+	/**
+	 * The flows of one phase, and the flows that apply to each target that has been seen
+	 */
+	private static final class DispatchTable {
+
+		private static final DispatchTable EMPTY = new DispatchTable(NO_FLOWS);
+
+		private static final int MAX_TARGETS = 4096;
+
+		private final Object[] flows;
+
+		private final EventFlowScope[] scopes;
+
+		private final boolean scoped;
+
+		private final ConcurrentMap<EventFlowTarget, Object[]> selections = new ConcurrentHashMap<>();
+
+		private DispatchTable(Object... flows) {
+			this.flows = flows;
+			this.scopes = Arrays.stream(flows)
+					.map(flow -> AnnotatedElementUtils.findMergedAnnotation(ClassUtils.getUserClass(flow),
+							EventFlowScope.class))
+					.toArray(EventFlowScope[]::new);
+			this.scoped = Arrays.stream(this.scopes).anyMatch(Objects::nonNull);
+		}
+
+		/**
+		 * Whether this table was built from a snapshot of flows
+		 *
+		 * @param flows the snapshot
+		 * @return true if the table was built from the same snapshot
+		 */
+		@SuppressWarnings("PMD.CompareObjectsWithEquals")
+		public boolean isFor(Object... flows) {
+			return this.flows == flows;
+		}
+
+		/**
+		 * Whether any of the flows are scoped
+		 *
+		 * @return true if at least one flow is scoped
+		 */
+		public boolean isScoped() {
+			return this.scoped;
+		}
+
+		/**
+		 * The flows that apply to a target
+		 *
+		 * @param target the target
+		 * @return the flows
+		 */
+		public Object[] select(EventFlowTarget target) {
+			Object[] selected = this.selections.get(target);
+			if (selected == null) {
+				selected = IntStream.range(0, this.flows.length)
+						.filter(i -> this.scopes[i] == null || target.matches(this.scopes[i]))
+						.mapToObj(i -> this.flows[i])
+						.toArray();
+				if (this.selections.size() < MAX_TARGETS) {
+					this.selections.put(target, selected);
+				}
+			}
+			return selected;
+		}
+
 	}
 
 }
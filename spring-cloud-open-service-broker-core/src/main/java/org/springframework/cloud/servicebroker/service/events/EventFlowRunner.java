@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.util.Assert;
+
+/**
+ * Runs the flows of an {@link EventFlowRegistry} according to an {@link EventFlowExecutionPolicy}, and counts the
+ * flows that failed or timed out.
+ */
+public final class EventFlowRunner {
+
+	private static final Logger LOG = LoggerFactory.getLogger(EventFlowRunner.class);
+
+	private final AtomicReference<EventFlowExecutionPolicy> executionPolicy =
+			new AtomicReference<>(EventFlowExecutionPolicy.DEFAULT);
+
+	private final AtomicLong flowFailureCount = new AtomicLong();
+
+	private final AtomicLong flowTimeoutCount = new AtomicLong();
+
+	/**
+	 * Set the policy used to run flows that do not provide their own
+	 *
+	 * @param executionPolicy the execution policy
+	 */
+	public void setExecutionPolicy(EventFlowExecutionPolicy executionPolicy) {
+		Assert.notNull(executionPolicy, "executionPolicy must not be null");
+		this.executionPolicy.set(executionPolicy);
+	}
+
+	/**
+	 * The policy used to run flows that do not provide their own
+	 *
+	 * @return the execution policy
+	 */
+	public EventFlowExecutionPolicy getExecutionPolicy() {
+		return this.executionPolicy.get();
+	}
+
+	/**
+	 * The number of flows that failed, excluding timeouts
+	 *
+	 * @return the failure count
+	 */
+	public long getFailureCount() {
+		return this.flowFailureCount.get();
+	}
+
+	/**
+	 * The number of flows that timed out
+	 *
+	 * @return the timeout count
+	 */
+	public long getTimeoutCount() {
+		return this.flowTimeoutCount.get();
+	}
+
+	/**
+	 * Run flows according to the execution policy, invoking each flow with the given function
+	 *
+	 * @param flows the flows to run
+	 * @param invoker the function that invokes a flow
+	 * @param <T> the flow type
+	 * @return a Flux that completes when all flows have completed
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> Flux<Void> run(Object[] flows, Function<T, Mono<Void>> invoker) {
+		if (flows.length == 0) {
+			return Flux.empty();
+		}
+		EventFlowExecutionPolicy policy = this.executionPolicy.get();
+		Flux<T> flux = Flux.fromArray((T[]) flows);
+		if (policy.getExecution() == EventFlowExecutionPolicy.Execution.SEQUENTIAL) {
+			return flux.concatMap(flow -> execute(flow, policy, invoker));
+		}
+		return flux.flatMap(flow -> execute(flow, policy, invoker), policy.getMaxConcurrency());
+	}
+
+	private <T> Mono<Void> execute(T flow, EventFlowExecutionPolicy registryPolicy, Function<T, Mono<Void>> invoker) {
+		EventFlowExecutionPolicy policy = policyFor(flow, registryPolicy);
+		Mono<Void> result = Mono.defer(() -> invoker.apply(flow));
+		if (policy.getTimeout() != null) {
+			result = result.timeout(policy.getTimeout());
+		}
+		result = result
+				.doOnError(this::countFailure)
+				.doOnError(e -> LOG.warn("Event flow failed. flow=" + flow + ", error=" + e));
+		if (policy.isIsolateFailures()) {
+			result = result.onErrorResume(e -> Mono.empty());
+		}
+		return result;
+	}
+
+	private void countFailure(Throwable e) {
+		if (e instanceof TimeoutException) {
+			this.flowTimeoutCount.incrementAndGet();
+		}
+		else {
+			this.flowFailureCount.incrementAndGet();
+		}
+	}
+
+	private static EventFlowExecutionPolicy policyFor(Object flow, EventFlowExecutionPolicy registryPolicy) {
+		if (flow instanceof EventFlowExecutionPolicyProvider) {
+			EventFlowExecutionPolicy policy = ((EventFlowExecutionPolicyProvider) flow).getExecutionPolicy();
+			if (policy != null) {
+				return policy;
+			}
+		}
+		return registryPolicy;
+	}
+
+}
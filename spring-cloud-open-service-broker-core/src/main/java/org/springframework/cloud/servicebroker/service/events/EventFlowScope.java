@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Restricts an event flow to requests for particular service offerings, plans, or platforms. A registry only invokes
+ * a flow with this annotation for requests that match every attribute that is not empty. A request that does not
+ * carry a value for a restricted attribute does not match. Flows without this annotation are invoked for every
+ * request.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EventFlowScope {
+
+	/**
+	 * The IDs of the service offerings the flow applies to, or empty for all service offerings
+	 *
+	 * @return the service definition IDs
+	 */
+	String[] serviceDefinitionIds() default {};
+
+	/**
+	 * The IDs of the plans the flow applies to, or empty for all plans
+	 *
+	 * @return the plan IDs
+	 */
+	String[] planIds() default {};
+
+	/**
+	 * The platforms the flow applies to, such as {@literal cloudfoundry} or {@literal kubernetes}, or empty for all
+	 * platforms. Platforms are compared ignoring case.
+	 *
+	 * @return the platforms
+	 */
+	String[] platforms() default {};
+
+}
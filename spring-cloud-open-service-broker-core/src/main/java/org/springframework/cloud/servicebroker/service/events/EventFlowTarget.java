@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.Objects;
+
+import org.springframework.cloud.servicebroker.model.Context;
+
+/**
+ * The service offering, plan, and platform a request is for, used to select the event flows scoped with
+ * {@link EventFlowScope} that apply to the request.
+ */
+public final class EventFlowTarget {
+
+	/**
+	 * A target with no service offering, plan, or platform
+	 */
+	public static final EventFlowTarget NONE = new EventFlowTarget(null, null, null);
+
+	private final String serviceDefinitionId;
+
+	private final String planId;
+
+	private final String platform;
+
+	private EventFlowTarget(String serviceDefinitionId, String planId, String platform) {
+		this.serviceDefinitionId = serviceDefinitionId;
+		this.planId = planId;
+		this.platform = platform;
+	}
+
+	/**
+	 * Create a target
+	 *
+	 * @param serviceDefinitionId the service definition ID, or {@literal null}
+	 * @param planId the plan ID, or {@literal null}
+	 * @param contexts the contexts of the request, the first of which with a platform provides the platform
+	 * @return the target
+	 */
+	public static EventFlowTarget of(String serviceDefinitionId, String planId, Context... contexts) {
+		String platform = null;
+		for (Context context : contexts) {
+			if (context != null && context.getPlatform() != null) {
+				platform = context.getPlatform();
+				break;
+			}
+		}
+		return new EventFlowTarget(serviceDefinitionId, planId, platform);
+	}
+
+	/**
+	 * The service definition ID
+	 *
+	 * @return the service definition ID, or {@literal null}
+	 */
+	public String getServiceDefinitionId() {
+		return this.serviceDefinitionId;
+	}
+
+	/**
+	 * The plan ID
+	 *
+	 * @return the plan ID, or {@literal null}
+	 */
+	public String getPlanId() {
+		return this.planId;
+	}
+
+	/**
+	 * The platform
+	 *
+	 * @return the platform, or {@literal null}
+	 */
+	public String getPlatform() {
+		return this.platform;
+	}
+
+	/**
+	 * Whether this target is within a scope
+	 *
+	 * @param scope the scope
+	 * @return true if every restricted attribute of the scope matches this target
+	 */
+	public boolean matches(EventFlowScope scope) {
+		return matches(scope.serviceDefinitionIds(), this.serviceDefinitionId, false)
+				&& matches(scope.planIds(), this.planId, false)
+				&& matches(scope.platforms(), this.platform, true);
+	}
+
+	private static boolean matches(String[] allowed, String value, boolean ignoreCase) {
+		if (allowed.length == 0) {
+			return true;
+		}
+		if (value == null) {
+			return false;
+		}
+		for (String candidate : allowed) {
+			if (ignoreCase ? candidate.equalsIgnoreCase(value) : candidate.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof EventFlowTarget)) {
+			return false;
+		}
+		EventFlowTarget that = (EventFlowTarget) o;
+		return Objects.equals(serviceDefinitionId, that.serviceDefinitionId) &&
+				Objects.equals(planId, that.planId) &&
+				Objects.equals(platform, that.platform);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(serviceDefinitionId, planId, platform);
+	}
+
+	@Override
+	public String toString() {
+		return "EventFlowTarget{" +
+				"serviceDefinitionId='" + serviceDefinitionId + '\'' +
+				", planId='" + planId + '\'' +
+				", platform='" + platform + '\'' +
+				'}';
+	}
+
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * An append-only log of records, stored in memory-mapped segment files in a local directory.
+ *
+ * <p>
+ * Appending a record copies it into the mapped segment, so it survives the failure of the process as soon as
+ * {@link #append(byte[])} returns. {@link #commit()} forces all records appended since the previous commit to the
+ * storage device at once, so that many appends share one {@literal fsync}, and only committed records are returned by
+ * {@link #poll(int)}. Each record is written with a sequence number and a CRC32 checksum, and a record torn by a crash
+ * is discarded when the log is reopened. The sequence number of the last acknowledged record is stored in a
+ * checkpoint file, records after the checkpoint are returned again when the log is reopened, and segments that hold
+ * only acknowledged records are deleted.
+ */
+public final class EventOutboxLog implements AutoCloseable {
+
+	/**
+	 * The default size of a segment file, in bytes
+	 */
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+	private static final Logger LOG = LoggerFactory.getLogger(EventOutboxLog.class);
+
+	private static final String SEGMENT_PREFIX = "segment-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final String SEGMENT_FORMAT = SEGMENT_PREFIX + "%020d" + SEGMENT_SUFFIX;
+
+	private static final String CHECKPOINT = "checkpoint";
+
+	private final Path directory;
+
+	private final int segmentSize;
+
+	private final Object monitor = new Object();
+
+	private final NavigableMap<Long, EventOutboxSegment> segments = new TreeMap<>();
+
+	private final List<EventOutboxSegment> uncommitted = new ArrayList<>();
+
+	private final AtomicReference<EventOutboxSegment> activeSegment = new AtomicReference<>();
+
+	private final AtomicLong nextSequence = new AtomicLong();
+
+	private final AtomicLong committedSequence = new AtomicLong();
+
+	private final AtomicLong acknowledgedSequence = new AtomicLong();
+
+	private final AtomicReference<EventOutboxSegment> readSegment = new AtomicReference<>();
+
+	private final AtomicInteger readPosition = new AtomicInteger();
+
+	private final AtomicLong readSequence = new AtomicLong();
+
+	/**
+	 * Open the log in a directory with the default segment size, creating the directory if it does not exist
+	 *
+	 * @param directory the directory
+	 * @throws UncheckedIOException if the log cannot be opened
+	 */
+	public EventOutboxLog(Path directory) {
+		this(directory, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Open the log in a directory, creating the directory if it does not exist. Existing segments keep their size.
+	 *
+	 * @param directory the directory
+	 * @param segmentSize the size of new segment files, in bytes
+	 * @throws UncheckedIOException if the log cannot be opened
+	 */
+	public EventOutboxLog(Path directory, int segmentSize) {
+		Assert.notNull(directory, "directory must not be null");
+		Assert.isTrue(segmentSize > EventOutboxSegment.HEADER_SIZE,
+				"segmentSize must be larger than " + EventOutboxSegment.HEADER_SIZE);
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		try {
+			Files.createDirectories(directory);
+			recover();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error opening event outbox log in " + directory, e);
+		}
+	}
+
+	/**
+	 * Append a record
+	 *
+	 * @param payload the record, which must not be empty
+	 * @return the sequence number of the record
+	 * @throws UncheckedIOException if a new segment file cannot be created
+	 */
+	public long append(byte[] payload) {
+		Assert.isTrue(payload != null && payload.length > 0, "payload must not be empty");
+		int size = EventOutboxSegment.HEADER_SIZE + payload.length;
+		int checksum = EventOutboxSegment.checksum(payload);
+		synchronized (this.monitor) {
+			EventOutboxSegment segment = this.activeSegment.get();
+			if (!segment.hasRoom(size)) {
+				Assert.isTrue(size <= this.segmentSize, "payload must fit in a segment");
+				segment = roll();
+			}
+			long sequence = this.nextSequence.getAndIncrement();
+			if (segment.write(sequence, checksum, payload)) {
+				this.uncommitted.add(segment);
+			}
+			return sequence;
+		}
+	}
+
+	/**
+	 * Force the records appended since the previous commit to the storage device
+	 *
+	 * @return the sequence number of the last committed record
+	 * @throws UncheckedIOException if the records cannot be forced to the storage device
+	 */
+	public long commit() {
+		List<EventOutboxSegment> dirty;
+		long sequence;
+		synchronized (this.monitor) {
+			sequence = this.nextSequence.get() - 1;
+			dirty = new ArrayList<>(this.uncommitted);
+			this.uncommitted.clear();
+			dirty.forEach(EventOutboxSegment::markCommitted);
+		}
+		dirty.forEach(EventOutboxSegment::force);
+		this.committedSequence.accumulateAndGet(sequence, Math::max);
+		return sequence;
+	}
+
+	/**
+	 * Read the next committed records that have not been read since the log was opened
+	 *
+	 * @param maxRecords the maximum number of records to read
+	 * @return the records, in sequence order
+	 */
+	public List<Entry> poll(int maxRecords) {
+		List<Entry> entries = new ArrayList<>(Math.min(maxRecords, 64));
+		long committed = this.committedSequence.get();
+		while (entries.size() < maxRecords && this.readSequence.get() <= committed) {
+			EventOutboxSegment segment = this.readSegment.get();
+			Entry entry = segment.read(this.readPosition.get());
+			if (entry == null) {
+				EventOutboxSegment next = nextSegment(segment);
+				if (next == null) {
+					break;
+				}
+				this.readSegment.set(next);
+				this.readPosition.set(0);
+			}
+			else {
+				this.readPosition.addAndGet(entry.getSize());
+				this.readSequence.set(entry.getSequence() + 1);
+				if (entry.getSequence() > this.acknowledgedSequence.get()) {
+					entries.add(entry);
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Acknowledge all records up to and including a sequence number, so that they are not returned again when the
+	 * log is reopened, and delete the segments that hold only acknowledged records
+	 *
+	 * @param sequence the sequence number of the last acknowledged record
+	 * @throws UncheckedIOException if the checkpoint cannot be written
+	 */
+	public void acknowledge(long sequence) {
+		if (sequence <= this.acknowledgedSequence.get()) {
+			return;
+		}
+		writeCheckpoint(sequence);
+		this.acknowledgedSequence.accumulateAndGet(sequence, Math::max);
+		compact();
+	}
+
+	/**
+	 * The sequence number of the last appended record
+	 *
+	 * @return the last sequence number, or zero if no record has been appended
+	 */
+	public long getLastSequence() {
+		return this.nextSequence.get() - 1;
+	}
+
+	/**
+	 * The sequence number of the last committed record
+	 *
+	 * @return the committed sequence number
+	 */
+	public long getCommittedSequence() {
+		return this.committedSequence.get();
+	}
+
+	/**
+	 * The sequence number of the last acknowledged record
+	 *
+	 * @return the acknowledged sequence number
+	 */
+	public long getAcknowledgedSequence() {
+		return this.acknowledgedSequence.get();
+	}
+
+	/**
+	 * The number of segment files
+	 *
+	 * @return the segment count
+	 */
+	public int getSegmentCount() {
+		synchronized (this.monitor) {
+			return this.segments.size();
+		}
+	}
+
+	/**
+	 * Commit the records appended since the previous commit
+	 */
+	@Override
+	public void close() {
+		commit();
+	}
+
+	private void recover() throws IOException {
+		long acknowledged = readCheckpoint();
+		this.acknowledgedSequence.set(acknowledged);
+		for (Path path : listSegments()) {
+			EventOutboxSegment segment = EventOutboxSegment.open(path, firstSequence(path), 0);
+			this.segments.put(segment.getFirstSequence(), segment);
+		}
+		if (this.segments.isEmpty()) {
+			EventOutboxSegment segment = createSegment(acknowledged + 1);
+			this.segments.put(segment.getFirstSequence(), segment);
+		}
+		EventOutboxSegment last = this.segments.lastEntry().getValue();
+		if (last.getLastSequence() < acknowledged) {
+			last = createSegment(acknowledged + 1);
+			this.segments.put(last.getFirstSequence(), last);
+		}
+		this.activeSegment.set(last);
+		this.nextSequence.set(last.getLastSequence() + 1);
+		this.committedSequence.set(this.nextSequence.get() - 1);
+		this.readSegment.set(this.segments.firstEntry().getValue());
+		this.readSequence.set(this.segments.firstKey());
+		compact();
+		LOG.info("Opened event outbox log. directory={}, acknowledged={}, last={}", this.directory, acknowledged,
+				this.nextSequence.get() - 1);
+	}
+
+	private List<Path> listSegments() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			return files
+					.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+					.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private EventOutboxSegment roll() {
+		try {
+			EventOutboxSegment segment = createSegment(this.nextSequence.get());
+			this.segments.put(segment.getFirstSequence(), segment);
+			this.activeSegment.set(segment);
+			return segment;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error creating event outbox segment in " + this.directory, e);
+		}
+	}
+
+	private EventOutboxSegment createSegment(long firstSequence) throws IOException {
+		return EventOutboxSegment.open(this.directory.resolve(String.format(SEGMENT_FORMAT, firstSequence)),
+				firstSequence, this.segmentSize);
+	}
+
+	private EventOutboxSegment nextSegment(EventOutboxSegment segment) {
+		synchronized (this.monitor) {
+			Map.Entry<Long, EventOutboxSegment> next = this.segments.higherEntry(segment.getFirstSequence());
+			return (next == null) ? null : next.getValue();
+		}
+	}
+
+	private void compact() {
+		List<EventOutboxSegment> deleted = new ArrayList<>();
+		synchronized (this.monitor) {
+			while (this.segments.size() > 1) {
+				EventOutboxSegment first = this.segments.firstEntry().getValue();
+				EventOutboxSegment second = this.segments.higherEntry(first.getFirstSequence()).getValue();
+				if (second.getFirstSequence() - 1 > this.acknowledgedSequence.get() || isReading(first)) {
+					break;
+				}
+				this.segments.remove(first.getFirstSequence());
+				deleted.add(first);
+			}
+		}
+		deleted.forEach(EventOutboxSegment::delete);
+	}
+
+	@SuppressWarnings("PMD.CompareObjectsWithEquals")
+	private boolean isReading(EventOutboxSegment segment) {
+		return this.readSegment.get() == segment;
+	}
+
+	private long readCheckpoint() throws IOException {
+		Path checkpoint = this.directory.resolve(CHECKPOINT);
+		if (!Files.exists(checkpoint)) {
+			return 0;
+		}
+		return ByteBuffer.wrap(Files.readAllBytes(checkpoint)).getLong();
+	}
+
+	private void writeCheckpoint(long sequence) {
+		Path temporary = this.directory.resolve(CHECKPOINT + ".tmp");
+		ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(0, sequence);
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.write(buffer);
+			channel.force(true);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error writing event outbox checkpoint in " + this.directory, e);
+		}
+		Path checkpoint = this.directory.resolve(CHECKPOINT);
+		try {
+			Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error writing event outbox checkpoint in " + this.directory, e);
+		}
+	}
+
+	private static long firstSequence(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	/**
+	 * A record read from the log
+	 */
+	public static final class Entry {
+
+		private final long sequence;
+
+		private final byte[] payload;
+
+		/**
+		 * Construct a new {@link Entry}
+		 *
+		 * @param sequence the sequence number of the record
+		 * @param payload the record, which is not copied
+		 */
+		@SuppressWarnings("PMD.ArrayIsStoredDirectly")
+		public Entry(long sequence, byte[] payload) {
+			this.sequence = sequence;
+			this.payload = payload;
+		}
+
+		/**
+		 * The sequence number of the record
+		 *
+		 * @return the sequence number
+		 */
+		public long getSequence() {
+			return this.sequence;
+		}
+
+		/**
+		 * The record. Callers must not modify the returned array.
+		 *
+		 * @return the record
+		 */
+		@SuppressWarnings("PMD.MethodReturnsInternalArray")
+		public byte[] getPayload() {
+			return this.payload;
+		}
+
+		/**
+		 * The number of bytes the record occupies in its segment
+		 *
+		 * @return the size
+		 */
+		public int getSize() {
+			return EventOutboxSegment.HEADER_SIZE + this.payload.length;
+		}
+
+	}
+
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A memory-mapped segment file of an {@link EventOutboxLog}. Records are laid out as length, checksum, sequence
+ * number, and payload, and the length is written last so that a record is only visible once it is complete.
+ */
+final class EventOutboxSegment {
+
+	/**
+	 * The size of the header of a record
+	 */
+	public static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+
+	private static final Logger LOG = LoggerFactory.getLogger(EventOutboxSegment.class);
+
+	private final Path path;
+
+	private final long firstSequence;
+
+	private final MappedByteBuffer buffer;
+
+	private final AtomicInteger position = new AtomicInteger();
+
+	private final AtomicLong lastSequence = new AtomicLong();
+
+	private final AtomicBoolean dirty = new AtomicBoolean();
+
+	private EventOutboxSegment(Path path, long firstSequence, MappedByteBuffer buffer) {
+		this.path = path;
+		this.firstSequence = firstSequence;
+		this.buffer = buffer;
+		this.lastSequence.set(firstSequence - 1);
+	}
+
+	/**
+	 * Map a segment file, creating it if it does not exist, and find the end of its valid records
+	 *
+	 * @param path the file
+	 * @param firstSequence the sequence number of the first record in the file
+	 * @param size the size of a new file
+	 * @return the segment
+	 * @throws IOException if the file cannot be mapped
+	 */
+	public static EventOutboxSegment open(Path path, long firstSequence, int size) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE)) {
+			long length = Math.max(channel.size(), size);
+			EventOutboxSegment segment = new EventOutboxSegment(path, firstSequence, channel.map(FileChannel.MapMode.READ_WRITE, 0,
+					length));
+			segment.recover();
+			return segment;
+		}
+	}
+
+	/**
+	 * The sequence number of the first record
+	 *
+	 * @return the first sequence number
+	 */
+	public long getFirstSequence() {
+		return this.firstSequence;
+	}
+
+	/**
+	 * The sequence number of the last record
+	 *
+	 * @return the last sequence number, or one less than the first if the segment is empty
+	 */
+	public long getLastSequence() {
+		return this.lastSequence.get();
+	}
+
+	/**
+	 * Whether a record fits after the last record
+	 *
+	 * @param size the size of the record including its header
+	 * @return true if the record fits
+	 */
+	public boolean hasRoom(int size) {
+		return this.position.get() + size <= this.buffer.capacity();
+	}
+
+	/**
+	 * Write a record after the last record. Callers must hold the monitor of the {@link EventOutboxLog}.
+	 *
+	 * @param sequence the sequence number
+	 * @param checksum the checksum of the payload
+	 * @param payload the payload
+	 * @return true if this is the first record written since the segment was last committed
+	 */
+	public boolean write(long sequence, int checksum, byte[] payload) {
+		int offset = this.position.get();
+		this.buffer.putInt(offset + Integer.BYTES, checksum);
+		this.buffer.putLong(offset + Integer.BYTES + Integer.BYTES, sequence);
+		ByteBuffer target = this.buffer.duplicate();
+		target.position(offset + HEADER_SIZE);
+		target.put(payload);
+		this.buffer.putInt(offset, payload.length);
+		this.position.set(offset + HEADER_SIZE + payload.length);
+		this.lastSequence.set(sequence);
+		return !this.dirty.getAndSet(true);
+	}
+
+	/**
+	 * Read the record at an offset
+	 *
+	 * @param offset the offset
+	 * @return the record, or {@literal null} if there is no valid record at the offset
+	 */
+	public EventOutboxLog.Entry read(int offset) {
+		if (offset + HEADER_SIZE > this.buffer.capacity()) {
+			return null;
+		}
+		int length = this.buffer.getInt(offset);
+		if (length <= 0 || offset + HEADER_SIZE + length > this.buffer.capacity()) {
+			return null;
+		}
+		int checksum = this.buffer.getInt(offset + Integer.BYTES);
+		byte[] payload = new byte[length];
+		ByteBuffer source = this.buffer.duplicate();
+		source.position(offset + HEADER_SIZE);
+		source.get(payload);
+		if (checksum(payload) != checksum) {
+			return null;
+		}
+		return new EventOutboxLog.Entry(this.buffer.getLong(offset + Integer.BYTES + Integer.BYTES), payload);
+	}
+
+	/**
+	 * Record that the segment has been committed. Callers must hold the monitor of the {@link EventOutboxLog}.
+	 */
+	public void markCommitted() {
+		this.dirty.set(false);
+	}
+
+	/**
+	 * Force the segment to the storage device
+	 */
+	public void force() {
+		this.buffer.force();
+	}
+
+	/**
+	 * Delete the segment file. The file remains mapped until the buffer is garbage collected.
+	 */
+	public void delete() {
+		try {
+			Files.deleteIfExists(this.path);
+		}
+		catch (IOException e) {
+			LOG.warn("Error deleting event outbox segment. path={}, error={}", this.path, e.toString());
+		}
+	}
+
+	private void recover() {
+		int offset = 0;
+		long expected = this.firstSequence;
+		EventOutboxLog.Entry entry = read(offset);
+		while (entry != null && entry.getSequence() == expected) {
+			offset += entry.getSize();
+			expected++;
+			entry = read(offset);
+		}
+		this.position.set(offset);
+		this.lastSequence.set(expected - 1);
+		if (offset + Integer.BYTES <= this.buffer.capacity() && this.buffer.getInt(offset) != 0) {
+			LOG.warn("Discarding torn records in event outbox segment. path={}, offset={}", this.path, offset);
+			for (int i = offset; i < this.buffer.capacity(); i++) {
+				this.buffer.put(i, (byte) 0);
+			}
+		}
+	}
+
+	/**
+	 * The CRC32 checksum of a payload
+	 *
+	 * @param payload the payload
+	 * @return the checksum
+	 */
+	public static int checksum(byte[] payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+		return (int) crc.getValue();
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Instant;
+
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+
+/**
+ * The outcome of a service broker operation, published to a {@link ServiceBrokerEventStream}.
+ *
+ * <p>
+ * An event carries the request and either the response or the error of the operation. The response of a service
+ * instance or binding operation that runs asynchronously only reports that the operation was accepted. The final
+ * outcome of such an operation is published as a last operation event once the operation is no longer in progress.
+ */
+public final class ServiceBrokerEvent {
+
+	private final Type type;
+
+	private final ServiceBrokerRequest request;
+
+	private final Object response;
+
+	private final Throwable error;
+
+	private final Instant timestamp;
+
+	/**
+	 * Construct a new {@link ServiceBrokerEvent}
+	 *
+	 * @param type the type of operation
+	 * @param request the request
+	 * @param response the response, or {@literal null} if the operation failed
+	 * @param error the error, or {@literal null} if the operation succeeded
+	 * @param timestamp the time the operation completed
+	 */
+	public ServiceBrokerEvent(Type type, ServiceBrokerRequest request, Object response, Throwable error,
+			Instant timestamp) {
+		this.type = type;
+		this.request = request;
+		this.response = response;
+		this.error = error;
+		this.timestamp = timestamp;
+	}
+
+	/**
+	 * The type of operation
+	 *
+	 * @return the type
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/**
+	 * The request. The class of the request is determined by the {@link Type}.
+	 *
+	 * @return the request
+	 */
+	public ServiceBrokerRequest getRequest() {
+		return this.request;
+	}
+
+	/**
+	 * The response. The class of the response is determined by the {@link Type}.
+	 *
+	 * @return the response, or {@literal null} if the operation failed
+	 */
+	public Object getResponse() {
+		return this.response;
+	}
+
+	/**
+	 * The error
+	 *
+	 * @return the error, or {@literal null} if the operation succeeded
+	 */
+	public Throwable getError() {
+		return this.error;
+	}
+
+	/**
+	 * The time the operation completed
+	 *
+	 * @return the timestamp
+	 */
+	public Instant getTimestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * Whether the operation succeeded
+	 *
+	 * @return true if the operation did not fail
+	 */
+	public boolean isSuccessful() {
+		return this.error == null;
+	}
+
+	@Override
+	public String toString() {
+		return "ServiceBrokerEvent{" +
+				"type=" + this.type +
+				", request=" + this.request +
+				", response=" + this.response +
+				", error=" + this.error +
+				", timestamp=" + this.timestamp +
+				'}';
+	}
+
+	/**
+	 * Values designating the operation an event is for
+	 */
+	public enum Type {
+		/**
+		 * A service instance was created
+		 */
+		CREATE_SERVICE_INSTANCE,
+
+		/**
+		 * A service instance was updated
+		 */
+		UPDATE_SERVICE_INSTANCE,
+
+		/**
+		 * A service instance was deleted
+		 */
+		DELETE_SERVICE_INSTANCE,
+
+		/**
+		 * An asynchronous service instance operation completed
+		 */
+		SERVICE_INSTANCE_LAST_OPERATION,
+
+		/**
+		 * A service instance binding was created
+		 */
+		CREATE_SERVICE_INSTANCE_BINDING,
+
+		/**
+		 * A service instance binding was deleted
+		 */
+		DELETE_SERVICE_INSTANCE_BINDING,
+
+		/**
+		 * An asynchronous service instance binding operation completed
+		 */
+		SERVICE_INSTANCE_BINDING_LAST_OPERATION
+	}
+
+}
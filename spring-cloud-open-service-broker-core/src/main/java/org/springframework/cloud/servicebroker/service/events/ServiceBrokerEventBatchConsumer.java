@@ -0,0 +1,39 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.List;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Receives batches of {@link ServiceBrokerEvent}s from a {@link ServiceBrokerEventStream}, so that events can be
+ * written to a downstream system in bulk.
+ */
+@FunctionalInterface
+public interface ServiceBrokerEventBatchConsumer {
+
+	/**
+	 * Consume a batch of events. The next batch is not delivered until the returned Mono completes.
+	 *
+	 * @param events the events, in the order they were published
+	 * @return a Mono that completes when the batch has been consumed
+	 */
+	Mono<Void> accept(List<ServiceBrokerEvent> events);
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+/**
+ * Converts {@link ServiceBrokerEvent}s to and from the records stored by a {@link ServiceBrokerEventOutbox}.
+ *
+ * @see DefaultServiceBrokerEventCodec
+ */
+public interface ServiceBrokerEventCodec {
+
+	/**
+	 * Convert an event to a record
+	 *
+	 * @param event the event
+	 * @return the record, which must not be empty
+	 */
+	byte[] encode(ServiceBrokerEvent event);
+
+	/**
+	 * Convert a record to an event
+	 *
+	 * @param record the record
+	 * @return the event
+	 * @throws IllegalArgumentException if the record cannot be converted
+	 */
+	ServiceBrokerEvent decode(byte[] record);
+
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+
+/**
+ * A durable outbox between the operations that publish {@link ServiceBrokerEvent}s and the
+ * {@link ServiceBrokerEventBatchConsumer}s that receive them.
+ *
+ * <p>
+ * Each event is appended to an {@link EventOutboxLog} on the request path, which copies it into a memory-mapped
+ * segment file without waiting for the storage device. The log is committed with a single {@literal fsync} every
+ * {@literal commitInterval}, and committed events are then delivered to the consumers in batches. A batch is
+ * acknowledged only once every consumer has accepted it, and a batch that a consumer fails to accept is delivered
+ * again after {@literal retryInterval}. Events that were appended but not acknowledged before the broker stopped are
+ * delivered when the outbox is opened again, so consumers receive each event at least once and must tolerate
+ * duplicates. An {@link EventFlowOutboxConsumer} among the consumers runs the completion and error flows of the
+ * operations, so that these also run at least once.
+ */
+public class ServiceBrokerEventOutbox implements AutoCloseable {
+
+	/**
+	 * The default interval between commits of the log
+	 */
+	public static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(10);
+
+	/**
+	 * The default interval before a failed batch is delivered again
+	 */
+	public static final Duration DEFAULT_RETRY_INTERVAL = Duration.ofSeconds(1);
+
+	private static final Logger LOG = LoggerFactory.getLogger(ServiceBrokerEventOutbox.class);
+
+	private final EventOutboxLog log;
+
+	private final ServiceBrokerEventCodec codec;
+
+	private final List<ServiceBrokerEventBatchConsumer> consumers;
+
+	private final int batchSize;
+
+	private final long retryIntervalMillis;
+
+	private final Clock clock;
+
+	private final Scheduler scheduler;
+
+	private final Disposable task;
+
+	private final AtomicBoolean delivering = new AtomicBoolean();
+
+	private final AtomicReference<FailedBatch> failedBatch = new AtomicReference<>();
+
+	private final AtomicLong appendedCount = new AtomicLong();
+
+	private final AtomicLong appendFailureCount = new AtomicLong();
+
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	private final AtomicLong deliveryFailureCount = new AtomicLong();
+
+	private final AtomicLong discardedCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventOutbox} that stores events in a directory with the default segment size,
+	 * batch size, and intervals
+	 *
+	 * @param directory the directory of the log
+	 * @param codec the codec used to store events
+	 * @param consumers the consumers the events are delivered to
+	 */
+	public ServiceBrokerEventOutbox(Path directory, ServiceBrokerEventCodec codec,
+			List<ServiceBrokerEventBatchConsumer> consumers) {
+		this(new EventOutboxLog(directory), codec, consumers, ServiceBrokerEventStream.DEFAULT_BATCH_SIZE,
+				DEFAULT_COMMIT_INTERVAL, DEFAULT_RETRY_INTERVAL);
+	}
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventOutbox}
+	 *
+	 * @param log the log the events are stored in, which is closed when this outbox is closed
+	 * @param codec the codec used to store events
+	 * @param consumers the consumers the events are delivered to
+	 * @param batchSize the maximum number of events delivered at once
+	 * @param commitInterval the interval between commits of the log
+	 * @param retryInterval the interval before a failed batch is delivered again
+	 */
+	public ServiceBrokerEventOutbox(EventOutboxLog log, ServiceBrokerEventCodec codec,
+			List<ServiceBrokerEventBatchConsumer> consumers, int batchSize, Duration commitInterval,
+			Duration retryInterval) {
+		this(log, codec, consumers, batchSize, commitInterval, retryInterval, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventOutbox}
+	 *
+	 * @param log the log the events are stored in, which is closed when this outbox is closed
+	 * @param codec the codec used to store events
+	 * @param consumers the consumers the events are delivered to
+	 * @param batchSize the maximum number of events delivered at once
+	 * @param commitInterval the interval between commits of the log
+	 * @param retryInterval the interval before a failed batch is delivered again
+	 * @param clock the clock used to schedule retries
+	 */
+	public ServiceBrokerEventOutbox(EventOutboxLog log, ServiceBrokerEventCodec codec,
+			List<ServiceBrokerEventBatchConsumer> consumers, int batchSize, Duration commitInterval,
+			Duration retryInterval, Clock clock) {
+		Assert.notNull(log, "log must not be null");
+		Assert.notNull(codec, "codec must not be null");
+		Assert.notNull(consumers, "consumers must not be null");
+		Assert.isTrue(batchSize > 0, "batchSize must be positive");
+		Assert.isTrue(commitInterval != null && !commitInterval.isNegative() && !commitInterval.isZero(),
+				"commitInterval must be positive");
+		Assert.isTrue(retryInterval != null && !retryInterval.isNegative(), "retryInterval must not be negative");
+		Assert.notNull(clock, "clock must not be null");
+		this.log = log;
+		this.codec = codec;
+		this.consumers = new ArrayList<>(consumers);
+		this.batchSize = batchSize;
+		this.retryIntervalMillis = retryInterval.toMillis();
+		this.clock = clock;
+		this.scheduler = Schedulers.newBoundedElastic(1, Integer.MAX_VALUE, "event-outbox");
+		long interval = commitInterval.toNanos();
+		this.task = this.scheduler.schedulePeriodically(this::commitAndDeliver, interval, interval,
+				TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Append an event to the outbox. The event is delivered to the consumers once the log has been committed. An error
+	 * appending the event is logged and counted, and is not propagated to the caller.
+	 *
+	 * @param event the event
+	 */
+	public void append(ServiceBrokerEvent event) {
+		try {
+			this.log.append(this.codec.encode(event));
+			this.appendedCount.incrementAndGet();
+		}
+		catch (UncheckedIOException | IllegalArgumentException e) {
+			this.appendFailureCount.incrementAndGet();
+			LOG.error("Error appending event to outbox. event={}", event, e);
+		}
+	}
+
+	/**
+	 * Commit the log and deliver the committed events that have not been delivered. This is done periodically, and
+	 * can be called to deliver events without waiting for the next commit.
+	 */
+	public void commitAndDeliver() {
+		this.log.commit();
+		deliver();
+	}
+
+	/**
+	 * Whether an {@link EventFlowOutboxConsumer} of this outbox runs the completion and error flows of the operations
+	 * whose events are appended to it
+	 *
+	 * @return true if the event flows are run by this outbox
+	 */
+	public boolean isRunningEventFlows() {
+		return this.consumers.stream().anyMatch(EventFlowOutboxConsumer.class::isInstance);
+	}
+
+	/**
+	 * The number of events appended to the outbox
+	 *
+	 * @return the appended count
+	 */
+	public long getAppendedCount() {
+		return this.appendedCount.get();
+	}
+
+	/**
+	 * The number of events that could not be appended to the outbox
+	 *
+	 * @return the append failure count
+	 */
+	public long getAppendFailureCount() {
+		return this.appendFailureCount.get();
+	}
+
+	/**
+	 * The number of events delivered to and accepted by all consumers
+	 *
+	 * @return the delivered count
+	 */
+	public long getDeliveredCount() {
+		return this.deliveredCount.get();
+	}
+
+	/**
+	 * The number of times a consumer failed to accept a batch
+	 *
+	 * @return the delivery failure count
+	 */
+	public long getDeliveryFailureCount() {
+		return this.deliveryFailureCount.get();
+	}
+
+	/**
+	 * The number of stored events that could not be decoded and were discarded
+	 *
+	 * @return the discarded count
+	 */
+	public long getDiscardedCount() {
+		return this.discardedCount.get();
+	}
+
+	/**
+	 * The number of stored events that have not been acknowledged by all consumers
+	 *
+	 * @return the pending count
+	 */
+	public long getPendingCount() {
+		return this.log.getLastSequence() - this.log.getAcknowledgedSequence();
+	}
+
+	/**
+	 * Stop delivering events, commit the log, and dispose of the scheduler. Events that have not been delivered are
+	 * delivered when the outbox is opened again.
+	 */
+	@Override
+	public void close() {
+		this.task.dispose();
+		this.log.close();
+		this.scheduler.dispose();
+	}
+
+	private void deliver() {
+		FailedBatch failed = this.failedBatch.get();
+		if (failed != null && this.clock.millis() < failed.getRetryAt()
+				|| !this.delivering.compareAndSet(false, true)) {
+			return;
+		}
+		failed = this.failedBatch.getAndSet(null);
+		List<EventOutboxLog.Entry> batch = (failed == null) ? this.log.poll(this.batchSize) : failed.getEntries();
+		if (batch.isEmpty()) {
+			this.delivering.set(false);
+			return;
+		}
+		List<EventOutboxLog.Entry> entries = batch;
+		List<ServiceBrokerEvent> events = decode(entries);
+		long lastSequence = entries.get(entries.size() - 1).getSequence();
+		Flux.fromIterable(events.isEmpty() ? Collections.<ServiceBrokerEventBatchConsumer>emptyList() : this.consumers)
+				.concatMap(consumer -> Mono.defer(() -> consumer.accept(events)))
+				.then()
+				.doOnError(e -> LOG.warn("Error delivering events from outbox. size=" + events.size() +
+						", error=" + e))
+				.subscribe(v -> { }, e -> retryLater(entries), () -> {
+					acknowledge(lastSequence, events.size());
+					if (entries.size() == this.batchSize && !this.scheduler.isDisposed()) {
+						this.scheduler.schedule(this::deliver);
+					}
+				});
+	}
+
+	private List<ServiceBrokerEvent> decode(List<EventOutboxLog.Entry> entries) {
+		List<ServiceBrokerEvent> events = new ArrayList<>(entries.size());
+		for (EventOutboxLog.Entry entry : entries) {
+			try {
+				events.add(this.codec.decode(entry.getPayload()));
+			}
+			catch (IllegalArgumentException e) {
+				this.discardedCount.incrementAndGet();
+				long sequence = entry.getSequence();
+				LOG.error("Discarding event that cannot be decoded from outbox. sequence={}", sequence, e);
+			}
+		}
+		return events;
+	}
+
+	private void acknowledge(long sequence, int count) {
+		try {
+			this.log.acknowledge(sequence);
+			this.deliveredCount.addAndGet(count);
+		}
+		catch (UncheckedIOException e) {
+			LOG.error("Error acknowledging events in outbox. sequence={}", sequence, e);
+		}
+		finally {
+			this.delivering.set(false);
+		}
+	}
+
+	private void retryLater(List<EventOutboxLog.Entry> entries) {
+		this.deliveryFailureCount.incrementAndGet();
+		this.failedBatch.set(new FailedBatch(entries, this.clock.millis() + this.retryIntervalMillis));
+		this.delivering.set(false);
+	}
+
+	/**
+	 * A batch that a consumer failed to accept, and the time it is delivered again
+	 */
+	private static final class FailedBatch {
+
+		private final List<EventOutboxLog.Entry> entries;
+
+		private final long retryAt;
+
+		private FailedBatch(List<EventOutboxLog.Entry> entries, long retryAt) {
+			this.entries = entries;
+			this.retryAt = retryAt;
+		}
+
+		/**
+		 * The records of the batch
+		 *
+		 * @return the records
+		 */
+		public List<EventOutboxLog.Entry> getEntries() {
+			return this.entries;
+		}
+
+		/**
+		 * The time the batch is delivered again, in milliseconds since the epoch
+		 *
+		 * @return the retry time
+		 */
+		public long getRetryAt() {
+			return this.retryAt;
+		}
+
+	}
+
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import org.springframework.cloud.servicebroker.model.ServiceBrokerRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.util.Assert;
+
+/**
+ * A hot stream of the {@link ServiceBrokerEvent}s published by the service instance and service instance binding
+ * operations.
+ *
+ * <p>
+ * Every subscriber receives the events published after it subscribed. Each subscriber has its own buffer of
+ * {@literal bufferSize} events, and the {@link BackpressureStrategy} decides what happens when a slow subscriber
+ * lets its buffer fill up, so that a slow subscriber never delays the operations or the other subscribers. A
+ * {@link ServiceBrokerEventBatchConsumer} receives the events in batches bounded by size and time, so that it can
+ * write them downstream in bulk. Events are not built or published while there are no subscribers, unless a
+ * {@link ServiceBrokerEventOutbox} is set, in which case every event is appended to the outbox first.
+ */
+public class ServiceBrokerEventStream implements AutoCloseable {
+
+	/**
+	 * The default number of events buffered for each subscriber
+	 */
+	public static final int DEFAULT_BUFFER_SIZE = Queues.SMALL_BUFFER_SIZE;
+
+	/**
+	 * The default maximum number of events in a batch
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	/**
+	 * The default maximum time to wait for a batch to fill up
+	 */
+	public static final Duration DEFAULT_BATCH_TIMEOUT = Duration.ofSeconds(1);
+
+	private static final Logger LOG = LoggerFactory.getLogger(ServiceBrokerEventStream.class);
+
+	private final Sinks.Many<ServiceBrokerEvent> sink = Sinks.many().multicast().directBestEffort();
+
+	private final Object emitMonitor = new Object();
+
+	private final Disposable.Composite consumers = Disposables.composite();
+
+	private final int bufferSize;
+
+	private final BackpressureStrategy backpressureStrategy;
+
+	private final Clock clock;
+
+	private final AtomicReference<ServiceBrokerEventOutbox> outbox = new AtomicReference<>();
+
+	private final AtomicLong publishedCount = new AtomicLong();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+	private final AtomicLong batchCount = new AtomicLong();
+
+	private final AtomicLong batchFailureCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventStream} with the default buffer size, that drops the oldest buffered
+	 * events of a slow subscriber
+	 */
+	public ServiceBrokerEventStream() {
+		this(DEFAULT_BUFFER_SIZE, BackpressureStrategy.DROP_OLDEST);
+	}
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventStream}
+	 *
+	 * @param bufferSize the number of events buffered for each subscriber
+	 * @param backpressureStrategy what happens when the buffer of a subscriber is full
+	 */
+	public ServiceBrokerEventStream(int bufferSize, BackpressureStrategy backpressureStrategy) {
+		this(bufferSize, backpressureStrategy, Clock.systemUTC());
+	}
+
+	/**
+	 * Construct a new {@link ServiceBrokerEventStream}
+	 *
+	 * @param bufferSize the number of events buffered for each subscriber
+	 * @param backpressureStrategy what happens when the buffer of a subscriber is full
+	 * @param clock the clock used to timestamp events
+	 */
+	public ServiceBrokerEventStream(int bufferSize, BackpressureStrategy backpressureStrategy, Clock clock) {
+		Assert.isTrue(bufferSize > 0, "bufferSize must be positive");
+		Assert.notNull(backpressureStrategy, "backpressureStrategy must not be null");
+		Assert.notNull(clock, "clock must not be null");
+		this.bufferSize = bufferSize;
+		this.backpressureStrategy = backpressureStrategy;
+		this.clock = clock;
+	}
+
+	/**
+	 * The events published after subscribing
+	 *
+	 * @return a hot Flux of events
+	 */
+	public Flux<ServiceBrokerEvent> events() {
+		return this.sink.asFlux()
+				.onBackpressureBuffer(this.bufferSize, event -> this.droppedCount.incrementAndGet(),
+						this.backpressureStrategy.getOverflowStrategy());
+	}
+
+	/**
+	 * Deliver the events published from now on to a consumer in batches of at most {@link #DEFAULT_BATCH_SIZE} events,
+	 * waiting at most {@link #DEFAULT_BATCH_TIMEOUT} for a batch to fill up
+	 *
+	 * @param consumer the consumer
+	 * @return a Disposable that stops delivering events to the consumer
+	 */
+	public Disposable subscribe(ServiceBrokerEventBatchConsumer consumer) {
+		return subscribe(consumer, DEFAULT_BATCH_SIZE, DEFAULT_BATCH_TIMEOUT);
+	}
+
+	/**
+	 * Deliver the events published from now on to a consumer in batches. A batch is delivered when it is full, or when
+	 * the oldest event in the batch has waited for {@literal maxBatchTime}. Batches are delivered one at a time. If the
+	 * consumer falls behind, at most {@literal bufferSize} events are buffered for it, and the
+	 * {@link BackpressureStrategy} is applied to whole batches. A batch that the consumer fails to consume is logged
+	 * and counted, and is not retried.
+	 *
+	 * @param consumer the consumer
+	 * @param maxBatchSize the maximum number of events in a batch
+	 * @param maxBatchTime the maximum time to wait for a batch to fill up
+	 * @return a Disposable that stops delivering events to the consumer
+	 */
+	public Disposable subscribe(ServiceBrokerEventBatchConsumer consumer, int maxBatchSize, Duration maxBatchTime) {
+		Assert.notNull(consumer, "consumer must not be null");
+		Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+		Assert.isTrue(maxBatchTime != null && !maxBatchTime.isNegative() && !maxBatchTime.isZero(),
+				"maxBatchTime must be positive");
+		Disposable subscription = this.sink.asFlux()
+				.bufferTimeout(maxBatchSize, maxBatchTime)
+				.onBackpressureBuffer(Math.max(this.bufferSize / maxBatchSize, 1),
+						batch -> this.droppedCount.addAndGet(batch.size()),
+						this.backpressureStrategy.getOverflowStrategy())
+				.concatMap(batch -> consume(consumer, batch))
+				.subscribe(v -> { }, e -> LOG.error("Event batch consumer stopped. consumer=" + consumer, e));
+		this.consumers.add(subscription);
+		return subscription;
+	}
+
+	/**
+	 * Publish the outcome of an operation when it completes. A successful last operation is published only once the
+	 * operation is no longer in progress.
+	 *
+	 * @param type the type of operation
+	 * @param request the request
+	 * @param operation the operation
+	 * @param <S> the type of the response
+	 * @return the operation, unchanged
+	 */
+	public <S> Mono<S> observe(ServiceBrokerEvent.Type type, ServiceBrokerRequest request, Mono<S> operation) {
+		return operation
+				.doOnSuccess(response -> {
+					if (isOutcome(response)) {
+						publish(type, request, response, null);
+					}
+				})
+				.doOnError(e -> publish(type, request, null, e));
+	}
+
+	/**
+	 * Attach the event flows of a registry to an operation and publish its outcome. The outcome is published once the
+	 * flows have run, unless the {@link ServiceBrokerEventOutbox} is
+	 * {@link ServiceBrokerEventOutbox#isRunningEventFlows() running the event flows}. In that case the outcome is
+	 * appended to the outbox as soon as the operation completes, and the completion and error flows are run when the
+	 * outbox delivers the event. The completion flows of a last operation that is still in progress are not recorded
+	 * in the outbox, and run as part of the operation.
+	 *
+	 * @param type the type of operation
+	 * @param request the request
+	 * @param operation the operation
+	 * @param flows the registry of the flows of the operation
+	 * @param <R> the type of the request
+	 * @param <S> the type of the response
+	 * @return the operation with the flows attached
+	 */
+	@SuppressWarnings("PMD.CloseResource")
+	public <R extends ServiceBrokerRequest, S> Mono<S> observe(ServiceBrokerEvent.Type type, R request,
+			Mono<S> operation, EventFlowRegistry<?, ?, ?, R, S> flows) {
+		ServiceBrokerEventOutbox eventOutbox = this.outbox.get();
+		if (eventOutbox == null || !eventOutbox.isRunningEventFlows()) {
+			return observe(type, request, flows.attachFlows(request, operation));
+		}
+		return observe(type, request, flows.attachInitializationFlows(request, operation))
+				.flatMap(response -> isOutcome(response) ? Mono.just(response)
+						: flows.attachCompletionFlows(request, Mono.just(response)));
+	}
+
+	/**
+	 * Publish an event to the current subscribers
+	 *
+	 * @param event the event
+	 */
+	public void publish(ServiceBrokerEvent event) {
+		Sinks.EmitResult result;
+		synchronized (this.emitMonitor) {
+			result = this.sink.tryEmitNext(event);
+		}
+		if (result.isSuccess()) {
+			this.publishedCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Set the outbox that every published event is appended to before it is published to the subscribers. The outbox
+	 * delivers the events to its own consumers, independently of the subscribers of this stream.
+	 *
+	 * @param outbox the outbox, or {@literal null} to publish events only to the subscribers
+	 */
+	public void setOutbox(ServiceBrokerEventOutbox outbox) {
+		this.outbox.set(outbox);
+	}
+
+	/**
+	 * The outbox that every published event is appended to
+	 *
+	 * @return the outbox, or {@literal null}
+	 */
+	public ServiceBrokerEventOutbox getOutbox() {
+		return this.outbox.get();
+	}
+
+	/**
+	 * Whether any subscriber is receiving events
+	 *
+	 * @return true if there is at least one subscriber
+	 */
+	public boolean hasSubscribers() {
+		return this.sink.currentSubscriberCount() > 0;
+	}
+
+	/**
+	 * The number of events published to at least one subscriber
+	 *
+	 * @return the published count
+	 */
+	public long getPublishedCount() {
+		return this.publishedCount.get();
+	}
+
+	/**
+	 * The number of events a subscriber did not receive because its buffer was full
+	 *
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * The number of batches consumed by batch consumers
+	 *
+	 * @return the batch count
+	 */
+	public long getBatchCount() {
+		return this.batchCount.get();
+	}
+
+	/**
+	 * The number of batches that batch consumers failed to consume
+	 *
+	 * @return the batch failure count
+	 */
+	public long getBatchFailureCount() {
+		return this.batchFailureCount.get();
+	}
+
+	/**
+	 * Stop delivering events to batch consumers and complete the stream
+	 */
+	@Override
+	public void close() {
+		this.consumers.dispose();
+		synchronized (this.emitMonitor) {
+			this.sink.tryEmitComplete();
+		}
+	}
+
+	@SuppressWarnings("PMD.CloseResource")
+	private void publish(ServiceBrokerEvent.Type type, ServiceBrokerRequest request, Object response,
+			Throwable error) {
+		ServiceBrokerEventOutbox eventOutbox = this.outbox.get();
+		if (eventOutbox == null && !hasSubscribers()) {
+			return;
+		}
+		ServiceBrokerEvent event = new ServiceBrokerEvent(type, request, response, error, this.clock.instant());
+		if (eventOutbox != null) {
+			eventOutbox.append(event);
+		}
+		if (hasSubscribers()) {
+			publish(event);
+		}
+	}
+
+	private Mono<Void> consume(ServiceBrokerEventBatchConsumer consumer, List<ServiceBrokerEvent> batch) {
+		return Mono.defer(() -> consumer.accept(batch))
+				.doOnSuccess(v -> this.batchCount.incrementAndGet())
+				.doOnError(e -> this.batchFailureCount.incrementAndGet())
+				.doOnError(e -> LOG.warn("Error consuming event batch. consumer=" + consumer + ", size=" +
+						batch.size() + ", error=" + e))
+				.onErrorResume(e -> Mono.empty());
+	}
+
+	private static boolean isOutcome(Object response) {
+		if (response instanceof GetLastServiceOperationResponse) {
+			return ((GetLastServiceOperationResponse) response).getState() != OperationState.IN_PROGRESS;
+		}
+		if (response instanceof GetLastServiceBindingOperationResponse) {
+			return ((GetLastServiceBindingOperationResponse) response).getState() != OperationState.IN_PROGRESS;
+		}
+		return true;
+	}
+
+	/**
+	 * Values designating what happens to the events of a subscriber that falls behind.
+	 */
+	public enum BackpressureStrategy {
+		/**
+		 * The oldest buffered events are dropped to make room for new events
+		 */
+		DROP_OLDEST(BufferOverflowStrategy.DROP_OLDEST),
+
+		/**
+		 * New events are dropped until there is room in the buffer
+		 */
+		DROP_LATEST(BufferOverflowStrategy.DROP_LATEST),
+
+		/**
+		 * The subscriber is terminated with an error
+		 */
+		ERROR(BufferOverflowStrategy.ERROR);
+
+		private final BufferOverflowStrategy overflowStrategy;
+
+		BackpressureStrategy(BufferOverflowStrategy overflowStrategy) {
+			this.overflowStrategy = overflowStrategy;
+		}
+
+		/**
+		 * The Reactor overflow strategy
+		 *
+		 * @return the overflow strategy
+		 */
+		public BufferOverflowStrategy getOverflowStrategy() {
+			return this.overflowStrategy;
+		}
+	}
+
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A {@link ServiceBrokerOperationLease} that keeps a lease file per service instance or service instance binding in a
+ * directory shared by all replicas of the service broker.
+ *
+ * <p>
+ * A lease file holds the owner and the expiry of the lease, and is only read and written while it is locked with a
+ * {@link FileChannel#lock() file lock}, so that replicas on different hosts see a consistent lease. Concurrent
+ * operations in the same JVM are serialized on striped monitors before they lock the file. The expiry is compared to
+ * the clock of each replica, so the clocks of the replicas should be synchronized to well within the time-to-live of
+ * a lease.
+ *
+ * <p>
+ * Released leases are truncated rather than deleted, and lease files that are empty or hold an expired lease are
+ * deleted by {@link #sweep()}, which runs periodically unless the sweep interval is {@literal null}. A swept file is
+ * marked as removed while it is locked before it is deleted, so that a replica that opened the file before it was
+ * deleted opens the lease file again rather than writing to the deleted one. A file that is marked as removed but
+ * could not be deleted holds no lease.
+ */
+public class FileServiceBrokerOperationLease implements ServiceBrokerOperationLease, AutoCloseable {
+
+	/**
+	 * The default interval at which lease files that are empty or hold an expired lease are deleted
+	 */
+	public static final Duration DEFAULT_SWEEP_INTERVAL = Duration.ofMinutes(10);
+
+	private static final Logger LOG = LoggerFactory.getLogger(FileServiceBrokerOperationLease.class);
+
+	private static final String LEASE_FILE_SUFFIX = ".lease";
+
+	private static final String REMOVED = "removed\n";
+
+	private static final int STRIPES = 64;
+
+	private final Path directory;
+
+	private final Clock clock;
+
+	private final Scheduler scheduler;
+
+	private final Object[] stripes = new Object[STRIPES];
+
+	private final Disposable sweeping;
+
+	/**
+	 * Construct a new {@link FileServiceBrokerOperationLease} that sweeps its directory at the default interval
+	 *
+	 * @param directory the directory of the lease files
+	 * @throws UncheckedIOException if the directory cannot be created
+	 */
+	public FileServiceBrokerOperationLease(Path directory) {
+		this(directory, Clock.systemUTC(), Schedulers.boundedElastic(), DEFAULT_SWEEP_INTERVAL);
+	}
+
+	/**
+	 * Construct a new {@link FileServiceBrokerOperationLease} that sweeps its directory only when {@link #sweep()} is
+	 * called
+	 *
+	 * @param directory the directory of the lease files
+	 * @param clock the clock used to determine the expiry of leases
+	 * @param scheduler the scheduler on which the lease files are locked, read, and written
+	 * @throws UncheckedIOException if the directory cannot be created
+	 */
+	public FileServiceBrokerOperationLease(Path directory, Clock clock, Scheduler scheduler) {
+		this(directory, clock, scheduler, null);
+	}
+
+	/**
+	 * Construct a new {@link FileServiceBrokerOperationLease}
+	 *
+	 * @param directory the directory of the lease files
+	 * @param clock the clock used to determine the expiry of leases
+	 * @param scheduler the scheduler on which the lease files are locked, read, written, and swept
+	 * @param sweepInterval the interval at which lease files that are empty or hold an expired lease are deleted, or
+	 * 		{@literal null} to sweep only when {@link #sweep()} is called
+	 * @throws UncheckedIOException if the directory cannot be created
+	 */
+	public FileServiceBrokerOperationLease(Path directory, Clock clock, Scheduler scheduler, Duration sweepInterval) {
+		Assert.notNull(directory, "directory must not be null");
+		Assert.notNull(clock, "clock must not be null");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		try {
+			Files.createDirectories(directory);
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Error creating operation lease directory " + directory, e);
+		}
+		this.directory = directory;
+		this.clock = clock;
+		this.scheduler = scheduler;
+		Arrays.setAll(this.stripes, i -> new Object());
+		this.sweeping = sweepPeriodically(sweepInterval);
+	}
+
+	@Override
+	public Mono<Lease> acquire(String serviceInstanceId, String bindingId, Duration timeToLive) {
+		return Mono.fromCallable(() -> {
+			Instant now = this.clock.instant();
+			Lease lease = new Lease(serviceInstanceId, bindingId, UUID.randomUUID().toString(), now.plus(timeToLive));
+			return withLeaseFile(lease.getKey(), file -> {
+				LeaseRecord current = file.read();
+				if (current != null && current.getExpiresAt() > now.toEpochMilli()) {
+					return null;
+				}
+				file.write(lease);
+				return lease;
+			});
+		}).subscribeOn(this.scheduler);
+	}
+
+	@Override
+	public Mono<Lease> renew(Lease lease, Duration timeToLive) {
+		return Mono.fromCallable(() -> {
+			Lease renewed = lease.renewed(this.clock.instant().plus(timeToLive));
+			return withLeaseFile(lease.getKey(), file -> {
+				if (!isOwner(file.read(), lease)) {
+					return null;
+				}
+				file.write(renewed);
+				return renewed;
+			});
+		}).subscribeOn(this.scheduler);
+	}
+
+	@Override
+	public Mono<Void> release(Lease lease) {
+		return Mono.fromCallable(() -> withLeaseFile(lease.getKey(), file -> {
+			if (isOwner(file.read(), lease)) {
+				file.clear();
+			}
+			return lease;
+		})).subscribeOn(this.scheduler).then();
+	}
+
+	/**
+	 * Delete the lease files that are empty or hold an expired lease. Each file is locked while it is checked and
+	 * deleted, so that a lease that is acquired concurrently is never lost.
+	 *
+	 * @return the number of lease files that were deleted
+	 */
+	public Mono<Integer> sweep() {
+		return Mono.fromCallable(() -> {
+			long now = this.clock.instant().toEpochMilli();
+			int deleted = 0;
+			try (DirectoryStream<Path> paths = Files.newDirectoryStream(this.directory, "*" + LEASE_FILE_SUFFIX)) {
+				for (Path path : paths) {
+					if (sweep(path, now)) {
+						deleted++;
+					}
+				}
+			}
+			return deleted;
+		}).subscribeOn(this.scheduler);
+	}
+
+	/**
+	 * Stop sweeping the lease files periodically
+	 */
+	@Override
+	public void close() {
+		if (this.sweeping != null) {
+			this.sweeping.dispose();
+		}
+	}
+
+	private Disposable sweepPeriodically(Duration sweepInterval) {
+		if (sweepInterval == null) {
+			return null;
+		}
+		return Flux.interval(sweepInterval, sweepInterval, this.scheduler)
+				.concatMap(tick -> sweep()
+						.onErrorResume(e -> {
+							LOG.warn("Error sweeping operation lease directory {}", this.directory, e);
+							return Mono.empty();
+						}))
+				.subscribe();
+	}
+
+	private boolean sweep(Path path, long now) throws IOException {
+		synchronized (stripe(path)) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				FileLock lock = channel.lock();
+				try {
+					LeaseFile file = new LeaseFile(channel);
+					if (file.isRemoved()) {
+						return false;
+					}
+					LeaseRecord current = file.read();
+					if (current != null && current.getExpiresAt() > now) {
+						return false;
+					}
+					file.remove();
+					return delete(path, file);
+				}
+				finally {
+					lock.close();
+				}
+			}
+			catch (NoSuchFileException e) {
+				return false;
+			}
+		}
+	}
+
+	private static boolean delete(Path path, LeaseFile file) throws IOException {
+		try {
+			Files.delete(path);
+			return true;
+		}
+		catch (IOException e) {
+			LOG.debug("Error deleting operation lease file {}", path, e);
+			file.clear();
+			return false;
+		}
+	}
+
+	private <T> T withLeaseFile(String key, LeaseFileCallback<T> callback) throws IOException {
+		Path path = this.directory.resolve(DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) +
+				LEASE_FILE_SUFFIX);
+		synchronized (stripe(path)) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE)) {
+				FileLock lock = channel.lock();
+				try {
+					LeaseFile file = new LeaseFile(channel);
+					if (!file.isRemoved() || !isReplaced(path)) {
+						return callback.doWithLeaseFile(file);
+					}
+				}
+				finally {
+					lock.close();
+				}
+			}
+		}
+		return withLeaseFile(key, callback);
+	}
+
+	private static boolean isReplaced(Path path) throws IOException {
+		try {
+			return !REMOVED.equals(new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+		}
+		catch (NoSuchFileException e) {
+			return true;
+		}
+	}
+
+	private Object stripe(Path path) {
+		return this.stripes[(path.getFileName().hashCode() & Integer.MAX_VALUE) % STRIPES];
+	}
+
+	private static boolean isOwner(LeaseRecord record, Lease lease) {
+		return record != null && record.getOwner().equals(lease.getOwner());
+	}
+
+	/**
+	 * A callback that reads and writes a locked lease file
+	 *
+	 * @param <T> the type of the callback result
+	 */
+	@FunctionalInterface
+	private interface LeaseFileCallback<T> {
+
+		/**
+		 * Read and write a locked lease file
+		 *
+		 * @param file the lease file
+		 * @return the result
+		 * @throws IOException if the lease file cannot be read or written
+		 */
+		T doWithLeaseFile(LeaseFile file) throws IOException;
+
+	}
+
+	/**
+	 * A locked lease file
+	 */
+	private static final class LeaseFile {
+
+		private final FileChannel channel;
+
+		private LeaseFile(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * Read the lease in the file
+		 *
+		 * @return the lease, or {@literal null} if the file is empty or incomplete
+		 * @throws IOException if the file cannot be read
+		 */
+		public LeaseRecord read() throws IOException {
+			String[] fields = readContent().split("\n");
+			if (fields.length != LeaseRecord.FIELDS) {
+				return null;
+			}
+			try {
+				return new LeaseRecord(fields[0], Long.parseLong(fields[1]));
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * Replace the lease in the file and force it to the storage device
+		 *
+		 * @param lease the lease
+		 * @throws IOException if the file cannot be written
+		 */
+		public void write(Lease lease) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap((lease.getOwner() + "\n" + lease.getExpiresAt().toEpochMilli() + "\n")
+					.getBytes(StandardCharsets.UTF_8));
+			this.channel.truncate(0);
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer, buffer.position());
+			}
+			this.channel.force(false);
+		}
+
+		/**
+		 * Remove the lease from the file
+		 *
+		 * @throws IOException if the file cannot be written
+		 */
+		public void clear() throws IOException {
+			this.channel.truncate(0);
+			this.channel.force(false);
+		}
+
+		/**
+		 * Mark the file as removed before it is deleted
+		 *
+		 * @throws IOException if the file cannot be written
+		 */
+		public void remove() throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(REMOVED.getBytes(StandardCharsets.UTF_8));
+			this.channel.truncate(0);
+			while (buffer.hasRemaining()) {
+				this.channel.write(buffer, buffer.position());
+			}
+			this.channel.force(false);
+		}
+
+		/**
+		 * Whether the file was marked as removed, so that it must be opened again
+		 *
+		 * @return {@literal true} if removed
+		 * @throws IOException if the file cannot be read
+		 */
+		public boolean isRemoved() throws IOException {
+			return REMOVED.equals(readContent());
+		}
+
+		private String readContent() throws IOException {
+			ByteBuffer buffer = ByteBuffer.allocate((int) this.channel.size());
+			int read = 0;
+			while (buffer.hasRemaining() && read >= 0) {
+				read = this.channel.read(buffer, buffer.position());
+			}
+			return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+		}
+
+	}
+
+	/**
+	 * The owner and expiry of a lease read from a lease file
+	 */
+	private static final class LeaseRecord {
+
+		private static final int FIELDS = 2;
+
+		private final String owner;
+
+		private final long expiresAt;
+
+		private LeaseRecord(String owner, long expiresAt) {
+			this.owner = owner;
+			this.expiresAt = expiresAt;
+		}
+
+		/**
+		 * The unique token of the operation that holds the lease
+		 *
+		 * @return the owner
+		 */
+		public String getOwner() {
+			return this.owner;
+		}
+
+		/**
+		 * When the lease expires, in milliseconds since the epoch
+		 *
+		 * @return the expiry
+		 */
+		public long getExpiresAt() {
+			return this.expiresAt;
+		}
+
+	}
+
+}
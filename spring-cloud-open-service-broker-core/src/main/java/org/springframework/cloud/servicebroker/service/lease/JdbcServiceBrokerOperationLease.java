@@ -0,0 +1,176 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.util.Assert;
+
+/**
+ * A {@link ServiceBrokerOperationLease} that keeps a row per leased service instance or service instance binding in a
+ * database table shared by all replicas of the service broker. The table must be created before the service broker
+ * is started:
+ *
+ * <pre>
+ * CREATE TABLE service_broker_operation_lease (
+ *     lease_key VARCHAR(255) NOT NULL PRIMARY KEY,
+ *     lease_owner VARCHAR(36) NOT NULL,
+ *     expires_at BIGINT NOT NULL
+ * )
+ * </pre>
+ *
+ * <p>
+ * An expired lease is taken over with a conditional update, and a lease of a resource without a row is acquired with
+ * an insert, so that the primary key rejects concurrent acquisitions by other replicas. Released leases are deleted.
+ * The expiry is compared to the clock of each replica, so the clocks of the replicas should be synchronized to well
+ * within the time-to-live of a lease.
+ */
+public class JdbcServiceBrokerOperationLease implements ServiceBrokerOperationLease {
+
+	/**
+	 * The default name of the lease table
+	 */
+	public static final String DEFAULT_TABLE_NAME = "service_broker_operation_lease";
+
+	private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+	private final DataSource dataSource;
+
+	private final Clock clock;
+
+	private final Scheduler scheduler;
+
+	private final String takeOverSql;
+
+	private final String insertSql;
+
+	private final String renewSql;
+
+	private final String deleteSql;
+
+	/**
+	 * Construct a new {@link JdbcServiceBrokerOperationLease} with the default table name
+	 *
+	 * @param dataSource the data source of the lease table
+	 */
+	public JdbcServiceBrokerOperationLease(DataSource dataSource) {
+		this(dataSource, DEFAULT_TABLE_NAME, Clock.systemUTC(), Schedulers.boundedElastic());
+	}
+
+	/**
+	 * Construct a new {@link JdbcServiceBrokerOperationLease}
+	 *
+	 * @param dataSource the data source of the lease table
+	 * @param tableName the name of the lease table
+	 * @param clock the clock used to determine the expiry of leases
+	 * @param scheduler the scheduler on which the lease table is queried and updated
+	 */
+	public JdbcServiceBrokerOperationLease(DataSource dataSource, String tableName, Clock clock, Scheduler scheduler) {
+		Assert.notNull(dataSource, "dataSource must not be null");
+		Assert.isTrue(tableName != null && tableName.matches("[A-Za-z_][A-Za-z0-9_.]*"),
+				"tableName must be a valid table name");
+		Assert.notNull(clock, "clock must not be null");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		this.dataSource = dataSource;
+		this.clock = clock;
+		this.scheduler = scheduler;
+		this.takeOverSql = "UPDATE " + tableName + " SET lease_owner = ?, expires_at = ? " +
+				"WHERE lease_key = ? AND expires_at <= ?";
+		this.insertSql = "INSERT INTO " + tableName + " (lease_key, lease_owner, expires_at) VALUES (?, ?, ?)";
+		this.renewSql = "UPDATE " + tableName + " SET expires_at = ? WHERE lease_key = ? AND lease_owner = ?";
+		this.deleteSql = "DELETE FROM " + tableName + " WHERE lease_key = ? AND lease_owner = ?";
+	}
+
+	@Override
+	public Mono<Lease> acquire(String serviceInstanceId, String bindingId, Duration timeToLive) {
+		return Mono.fromCallable(() -> {
+			Instant now = this.clock.instant();
+			Lease lease = new Lease(serviceInstanceId, bindingId, UUID.randomUUID().toString(), now.plus(timeToLive));
+			try (Connection connection = this.dataSource.getConnection()) {
+				if (takeOver(connection, lease, now)) {
+					return lease;
+				}
+				return insert(connection, lease) ? lease : null;
+			}
+		}).subscribeOn(this.scheduler);
+	}
+
+	@Override
+	public Mono<Lease> renew(Lease lease, Duration timeToLive) {
+		return Mono.fromCallable(() -> {
+			Lease renewed = lease.renewed(this.clock.instant().plus(timeToLive));
+			try (Connection connection = this.dataSource.getConnection();
+					PreparedStatement statement = connection.prepareStatement(this.renewSql)) {
+				statement.setLong(1, renewed.getExpiresAt().toEpochMilli());
+				statement.setString(2, lease.getKey());
+				statement.setString(3, lease.getOwner());
+				return statement.executeUpdate() > 0 ? renewed : null;
+			}
+		}).subscribeOn(this.scheduler);
+	}
+
+	@Override
+	public Mono<Void> release(Lease lease) {
+		return Mono.fromCallable(() -> {
+			try (Connection connection = this.dataSource.getConnection();
+					PreparedStatement statement = connection.prepareStatement(this.deleteSql)) {
+				statement.setString(1, lease.getKey());
+				statement.setString(2, lease.getOwner());
+				return statement.executeUpdate();
+			}
+		}).subscribeOn(this.scheduler).then();
+	}
+
+	private boolean takeOver(Connection connection, Lease lease, Instant now) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(this.takeOverSql)) {
+			statement.setString(1, lease.getOwner());
+			statement.setLong(2, lease.getExpiresAt().toEpochMilli());
+			statement.setString(3, lease.getKey());
+			statement.setLong(4, now.toEpochMilli());
+			return statement.executeUpdate() > 0;
+		}
+	}
+
+	private boolean insert(Connection connection, Lease lease) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement(this.insertSql)) {
+			statement.setString(1, lease.getKey());
+			statement.setString(2, lease.getOwner());
+			statement.setLong(3, lease.getExpiresAt().toEpochMilli());
+			return statement.executeUpdate() > 0;
+		}
+		catch (SQLException e) {
+			if (e.getSQLState() != null && e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+				return false;
+			}
+			throw e;
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Instant;
+import java.util.Objects;
+
+import org.springframework.util.Assert;
+
+/**
+ * A lease of a service instance or service instance binding acquired from a {@link ServiceBrokerOperationLease}.
+ */
+public final class Lease {
+
+	private final String serviceInstanceId;
+
+	private final String bindingId;
+
+	private final String owner;
+
+	private final Instant expiresAt;
+
+	/**
+	 * Construct a new {@link Lease}
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for a lease of the service instance
+	 * @param owner the unique token of the operation that holds the lease
+	 * @param expiresAt when the lease expires unless it is renewed
+	 */
+	public Lease(String serviceInstanceId, String bindingId, String owner, Instant expiresAt) {
+		Assert.notNull(serviceInstanceId, "serviceInstanceId must not be null");
+		Assert.notNull(owner, "owner must not be null");
+		Assert.notNull(expiresAt, "expiresAt must not be null");
+		this.serviceInstanceId = serviceInstanceId;
+		this.bindingId = bindingId;
+		this.owner = owner;
+		this.expiresAt = expiresAt;
+	}
+
+	/**
+	 * The ID of the leased service instance
+	 *
+	 * @return the service instance ID
+	 */
+	public String getServiceInstanceId() {
+		return this.serviceInstanceId;
+	}
+
+	/**
+	 * The ID of the leased binding
+	 *
+	 * @return the binding ID, or {@literal null} for a lease of the service instance
+	 */
+	public String getBindingId() {
+		return this.bindingId;
+	}
+
+	/**
+	 * The key that identifies the leased resource in a {@link ServiceBrokerOperationLease}
+	 *
+	 * @return the service instance ID, followed by a {@literal /} and the binding ID for a lease of a binding
+	 */
+	public String getKey() {
+		return key(this.serviceInstanceId, this.bindingId);
+	}
+
+	/**
+	 * The unique token of the operation that holds the lease
+	 *
+	 * @return the owner
+	 */
+	public String getOwner() {
+		return this.owner;
+	}
+
+	/**
+	 * When the lease expires unless it is renewed
+	 *
+	 * @return the expiry
+	 */
+	public Instant getExpiresAt() {
+		return this.expiresAt;
+	}
+
+	/**
+	 * Create a copy of this lease with a new expiry
+	 *
+	 * @param expiresAt the new expiry
+	 * @return the renewed lease
+	 */
+	public Lease renewed(Instant expiresAt) {
+		return new Lease(this.serviceInstanceId, this.bindingId, this.owner, expiresAt);
+	}
+
+	/**
+	 * The key that identifies a leased resource in a {@link ServiceBrokerOperationLease}
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for a lease of the service instance
+	 * @return the key
+	 */
+	public static String key(String serviceInstanceId, String bindingId) {
+		return (bindingId == null) ? serviceInstanceId : serviceInstanceId + "/" + bindingId;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Lease)) {
+			return false;
+		}
+		Lease that = (Lease) o;
+		return Objects.equals(this.serviceInstanceId, that.serviceInstanceId) &&
+				Objects.equals(this.bindingId, that.bindingId) &&
+				Objects.equals(this.owner, that.owner) &&
+				Objects.equals(this.expiresAt, that.expiresAt);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(this.serviceInstanceId, this.bindingId, this.owner, this.expiresAt);
+	}
+
+	@Override
+	public String toString() {
+		return "Lease{" +
+				"serviceInstanceId='" + this.serviceInstanceId + '\'' +
+				", bindingId='" + this.bindingId + '\'' +
+				", owner='" + this.owner + '\'' +
+				", expiresAt=" + this.expiresAt +
+				'}';
+	}
+
+}
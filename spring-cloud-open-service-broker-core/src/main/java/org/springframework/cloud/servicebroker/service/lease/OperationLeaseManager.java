@@ -0,0 +1,198 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.service.OperationHold;
+import org.springframework.util.Assert;
+
+/**
+ * Runs operations on service instances and service instance bindings while holding their lease from a
+ * {@link ServiceBrokerOperationLease}. An operation whose lease is held by another operation, typically on another
+ * replica of the service broker, is rejected with a {@link ServiceBrokerConcurrencyException} without being called.
+ * The lease is renewed periodically while the operation runs, and released when it terminates or is cancelled, or
+ * when the service completes it in the background if it is promoted to an asynchronous operation.
+ *
+ * @see OperationHold
+ */
+public class OperationLeaseManager {
+
+	/**
+	 * The default time-to-live of a lease
+	 */
+	public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofSeconds(30);
+
+	private static final long RENEWALS_PER_TIME_TO_LIVE = 3;
+
+	private static final Logger LOG = LoggerFactory.getLogger(OperationLeaseManager.class);
+
+	private final ServiceBrokerOperationLease lease;
+
+	private final Duration timeToLive;
+
+	private final Duration renewInterval;
+
+	private final Scheduler scheduler;
+
+	private final AtomicLong acquiredCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final AtomicLong renewedCount = new AtomicLong();
+
+	private final AtomicLong lostCount = new AtomicLong();
+
+	/**
+	 * Construct a new {@link OperationLeaseManager} that renews leases three times per time-to-live
+	 *
+	 * @param lease the lease store
+	 * @param timeToLive how long a lease is held unless it is renewed
+	 */
+	public OperationLeaseManager(ServiceBrokerOperationLease lease, Duration timeToLive) {
+		this(lease, timeToLive, timeToLive.dividedBy(RENEWALS_PER_TIME_TO_LIVE), Schedulers.parallel());
+	}
+
+	/**
+	 * Construct a new {@link OperationLeaseManager}
+	 *
+	 * @param lease the lease store
+	 * @param timeToLive how long a lease is held unless it is renewed
+	 * @param renewInterval how often a lease is renewed while its operation runs
+	 * @param scheduler the scheduler on which renewals are timed
+	 */
+	public OperationLeaseManager(ServiceBrokerOperationLease lease, Duration timeToLive, Duration renewInterval,
+			Scheduler scheduler) {
+		Assert.notNull(lease, "lease must not be null");
+		Assert.isTrue(timeToLive != null && !timeToLive.isNegative() && !timeToLive.isZero(),
+				"timeToLive must be positive");
+		Assert.isTrue(renewInterval != null && !renewInterval.isNegative() && !renewInterval.isZero() &&
+				renewInterval.compareTo(timeToLive) < 0, "renewInterval must be positive and shorter than timeToLive");
+		Assert.notNull(scheduler, "scheduler must not be null");
+		this.lease = lease;
+		this.timeToLive = timeToLive;
+		this.renewInterval = renewInterval;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Run an operation on a service instance or service instance binding while holding its lease. If another
+	 * operation holds the lease, the operation is not called and the returned {@link Mono} fails with a
+	 * {@link ServiceBrokerConcurrencyException}.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 * @param operation the operation
+	 * @param <T> the type of the operation response
+	 * @return the operation response
+	 */
+	public <T> Mono<T> withLease(String serviceInstanceId, String bindingId, Supplier<Mono<T>> operation) {
+		return acquire(serviceInstanceId, bindingId)
+				.flatMap(held -> {
+					Disposable renewal = renewPeriodically(held);
+					return OperationHold.hold(operation, () -> {
+						renewal.dispose();
+						release(held).subscribe();
+					});
+				});
+	}
+
+	/**
+	 * The number of leases that were acquired
+	 *
+	 * @return the acquired count
+	 */
+	public long getAcquiredCount() {
+		return this.acquiredCount.get();
+	}
+
+	/**
+	 * The number of operations that were rejected because another operation held the lease
+	 *
+	 * @return the rejected count
+	 */
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	/**
+	 * The number of times a lease was renewed while its operation ran
+	 *
+	 * @return the renewed count
+	 */
+	public long getRenewedCount() {
+		return this.renewedCount.get();
+	}
+
+	/**
+	 * The number of leases that expired and were acquired by another operation before their operation completed
+	 *
+	 * @return the lost count
+	 */
+	public long getLostCount() {
+		return this.lostCount.get();
+	}
+
+	private Mono<Lease> acquire(String serviceInstanceId, String bindingId) {
+		return this.lease.acquire(serviceInstanceId, bindingId, this.timeToLive)
+				.doOnNext(held -> this.acquiredCount.incrementAndGet())
+				.switchIfEmpty(Mono.defer(() -> {
+					this.rejectedCount.incrementAndGet();
+					return Mono.error(new ServiceBrokerConcurrencyException("Another operation on this service " +
+							"instance or binding is in progress. serviceInstanceId=" + serviceInstanceId +
+							", bindingId=" + bindingId));
+				}));
+	}
+
+	private Disposable renewPeriodically(Lease held) {
+		return Flux.interval(this.renewInterval, this.scheduler)
+				.concatMap(tick -> this.lease.renew(held, this.timeToLive)
+						.doOnNext(renewed -> this.renewedCount.incrementAndGet())
+						.map(renewed -> Boolean.TRUE)
+						.defaultIfEmpty(Boolean.FALSE)
+						.onErrorResume(e -> {
+							LOG.warn("Error renewing operation lease {}", held, e);
+							return Mono.just(Boolean.TRUE);
+						}))
+				.takeWhile(Boolean::booleanValue)
+				.subscribe(renewed -> { }, e -> { }, () -> {
+					this.lostCount.incrementAndGet();
+					LOG.warn("Operation lease {} was lost before its operation completed", held);
+				});
+	}
+
+	private Mono<Void> release(Lease held) {
+		return this.lease.release(held)
+				.onErrorResume(e -> {
+					LOG.warn("Error releasing operation lease {}", held, e);
+					return Mono.empty();
+				});
+	}
+
+}
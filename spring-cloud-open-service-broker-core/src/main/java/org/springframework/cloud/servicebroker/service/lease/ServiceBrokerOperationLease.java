@@ -0,0 +1,64 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A store of leases that lets a single node of a broker deployment with several replicas run an operation on a
+ * service instance or service instance binding at a time. A lease expires unless it is renewed, so that an operation
+ * on a node that stopped does not block the resource forever.
+ *
+ * <p>
+ * Implementations are expected to be shared by all replicas of the service broker, for example through a shared file
+ * system ({@link FileServiceBrokerOperationLease}) or a database ({@link JdbcServiceBrokerOperationLease}).
+ */
+public interface ServiceBrokerOperationLease {
+
+	/**
+	 * Acquire the lease of a service instance or service instance binding, unless another operation holds an
+	 * unexpired lease for it.
+	 *
+	 * @param serviceInstanceId the service instance ID
+	 * @param bindingId the binding ID, or {@literal null} for an operation on the service instance
+	 * @param timeToLive how long the lease is held unless it is renewed
+	 * @return the acquired lease, or an empty {@link Mono} if another operation holds the lease
+	 */
+	Mono<Lease> acquire(String serviceInstanceId, String bindingId, Duration timeToLive);
+
+	/**
+	 * Extend the expiry of a held lease.
+	 *
+	 * @param lease the held lease
+	 * @param timeToLive how long the lease is held from now unless it is renewed again
+	 * @return the renewed lease, or an empty {@link Mono} if the lease expired and was acquired by another operation
+	 */
+	Mono<Lease> renew(Lease lease, Duration timeToLive);
+
+	/**
+	 * Release a held lease, so that another operation can acquire it. A lease that is no longer held is left
+	 * unchanged.
+	 *
+	 * @param lease the held lease
+	 * @return a {@link Mono} that completes when the lease is released
+	 */
+	Mono<Void> release(Lease lease);
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogResponseCacheTest {
+
+	private final CatalogResponseCache cache = new CatalogResponseCache();
+
+	@Test
+	void catalogIsSerializedOnce() {
+		Catalog catalog = catalog("service-one-id");
+
+		ResponseEntity<byte[]> first = cache.getResponse(catalog, null, null);
+		ResponseEntity<byte[]> second = cache.getResponse(catalog, null, null);
+
+		assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(new String(first.getBody())).contains("\"id\":\"service-one-id\"");
+		assertThat(second.getBody()).isSameAs(first.getBody());
+		assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+		assertThat(cache.getRebuildCount()).isEqualTo(1);
+	}
+
+	@Test
+	void changedCatalogIsSerializedAgain() {
+		String firstETag = cache.getETag(catalog("service-one-id"));
+		String secondETag = cache.getETag(catalog("service-two-id"));
+
+		assertThat(secondETag).isNotEqualTo(firstETag);
+		assertThat(cache.getRebuildCount()).isEqualTo(2);
+	}
+
+	@Test
+	void equalCatalogsHaveTheSameETag() {
+		String firstETag = cache.getETag(catalog("service-one-id"));
+		String secondETag = cache.getETag(catalog("service-one-id"));
+
+		assertThat(secondETag).isEqualTo(firstETag);
+		assertThat(firstETag).startsWith("\"").endsWith("\"");
+	}
+
+	@Test
+	void equalCatalogInstanceIsNotRebuilt() {
+		ResponseEntity<byte[]> first = cache.getResponse(catalog("service-one-id"), null, null);
+		ResponseEntity<byte[]> second = cache.getResponse(catalog("service-one-id"), null, null);
+
+		assertThat(second.getBody()).isSameAs(first.getBody());
+		assertThat(cache.getRebuildCount()).isEqualTo(1);
+	}
+
+	@Test
+	void invalidatedCatalogIsSerializedAgain() {
+		Catalog catalog = catalog("service-one-id");
+
+		cache.getETag(catalog);
+		cache.invalidate();
+		cache.getETag(catalog);
+
+		assertThat(cache.getRebuildCount()).isEqualTo(2);
+	}
+
+	@Test
+	void matchingETagGivesNotModified() {
+		Catalog catalog = catalog("service-one-id");
+		String eTag = cache.getETag(catalog);
+
+		ResponseEntity<byte[]> response = cache.getResponse(catalog, "\"other\", W/" + eTag, null);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(response.getBody()).isNull();
+		assertThat(response.getHeaders().getETag()).isEqualTo(eTag);
+		assertThat(cache.getNotModifiedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void staleETagGivesCatalog() {
+		ResponseEntity<byte[]> response = cache.getResponse(catalog("service-one-id"), "\"stale\"", null);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(cache.getNotModifiedCount()).isZero();
+	}
+
+	@Test
+	void gzipIsUsedWhenAccepted() throws IOException {
+		Catalog catalog = catalog("service-one-id");
+		byte[] body = cache.getResponse(catalog, null, null).getBody();
+
+		ResponseEntity<byte[]> response = cache.getResponse(catalog, null, "deflate, gzip;q=0.8");
+
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(response.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(gunzip(response.getBody())).isEqualTo(body);
+	}
+
+	@Test
+	void gzipHasItsOwnETag() {
+		Catalog catalog = catalog("service-one-id");
+		String eTag = cache.getETag(catalog);
+
+		ResponseEntity<byte[]> response = cache.getResponse(catalog, eTag, "gzip");
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+		String gzipETag = response.getHeaders().getETag();
+		assertThat(gzipETag).isNotEqualTo(eTag).endsWith("-gzip\"");
+		assertThat(cache.getResponse(catalog, gzipETag, "gzip").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(cache.getResponse(catalog, gzipETag, null).getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void gzipIsNotUsedWhenRefused() {
+		ResponseEntity<byte[]> response = cache.getResponse(catalog("service-one-id"), null, "gzip;q=0, identity");
+
+		assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+	}
+
+	@Test
+	void bodyIsReadOnly() {
+		assertThat(cache.getBody(catalog("service-one-id")).isReadOnly()).isTrue();
+	}
+
+	private static Catalog catalog(String serviceId) {
+		return Catalog.builder()
+				.serviceDefinitions(ServiceDefinition.builder()
+						.id(serviceId)
+						.name("service")
+						.description("description")
+						.build())
+				.build();
+	}
+
+	private static byte[] gunzip(byte[] compressed) throws IOException {
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+			return StreamUtils.copyToByteArray(in);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.controller;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.KubernetesContext;
+import org.springframework.util.Base64Utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class OriginatingIdentityParserTest {
+
+	private static final String CF_HEADER = "cloudfoundry " + encode("{\"user_id\":\"user-1\"," +
+			"\"nested\":{\"key\":\"value\"}}");
+
+	@Test
+	void nullHeaderReturnsNull() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser();
+
+		assertThat(parser.parse(null)).isNull();
+		assertThat(parser.getMissCount()).isZero();
+	}
+
+	@Test
+	void repeatedHeaderIsServedFromCache() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser();
+
+		Context first = parser.parse(CF_HEADER);
+		Context second = parser.parse(CF_HEADER);
+
+		assertThat(first).isInstanceOf(CloudFoundryContext.class);
+		assertThat(second).isEqualTo(first);
+		assertThat(parser.getMissCount()).isEqualTo(1);
+		assertThat(parser.getHitCount()).isEqualTo(1);
+		assertThat(parser.getCacheSize()).isEqualTo(1);
+	}
+
+	@Test
+	void cachedContextsAreIsolatedFromEachOther() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser();
+
+		Context first = parser.parse(CF_HEADER);
+		first.getProperties().put("user_id", "tampered");
+		Context second = parser.parse(CF_HEADER);
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getProperty("user_id")).isEqualTo("user-1");
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void nestedPropertiesAreImmutable() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser();
+
+		Map<String, Object> nested = (Map<String, Object>) parser.parse(CF_HEADER).getProperty("nested");
+
+		assertThat(nested).containsEntry("key", "value");
+		assertThatExceptionOfType(UnsupportedOperationException.class)
+				.isThrownBy(() -> nested.put("key", "tampered"));
+	}
+
+	@Test
+	void leastRecentlyUsedEntriesAreEvicted() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser(16);
+
+		for (int i = 0; i < 100; i++) {
+			parser.parse("kubernetes " + encode("{\"username\":\"user-" + i + "\"}"));
+		}
+
+		assertThat(parser.getMissCount()).isEqualTo(100);
+		assertThat(parser.getCacheSize()).isLessThanOrEqualTo(16);
+		assertThat(parser.getEvictionCount()).isEqualTo(100 - parser.getCacheSize());
+	}
+
+	@Test
+	void cachingCanBeDisabled() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser(0);
+
+		Context context = parser.parse("kubernetes " + encode("{\"username\":\"user\"}"));
+		parser.parse("kubernetes " + encode("{\"username\":\"user\"}"));
+
+		assertThat(context).isInstanceOf(KubernetesContext.class);
+		assertThat(parser.getMissCount()).isEqualTo(2);
+		assertThat(parser.getHitCount()).isZero();
+		assertThat(parser.getCacheSize()).isZero();
+	}
+
+	@Test
+	void invalidHeadersAreNotCached() {
+		OriginatingIdentityParser parser = new OriginatingIdentityParser();
+		String header = "platform " + encode("not-json");
+
+		assertThatExceptionOfType(ServiceBrokerInvalidOriginatingIdentityException.class)
+				.isThrownBy(() -> parser.parse(header));
+		assertThatExceptionOfType(ServiceBrokerInvalidOriginatingIdentityException.class)
+				.isThrownBy(() -> parser.parse(header));
+		assertThat(parser.getCacheSize()).isZero();
+	}
+
+	private static String encode(String json) {
+		return Base64Utils.encodeToString(json.getBytes());
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
+import java.time.Duration;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerApiVersionException;
@@ -26,6 +28,8 @@ import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidOriginatingIdentityException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerInvalidParametersException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
 import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
 import org.springframework.cloud.servicebroker.exception.ServiceDefinitionDoesNotExistException;
 import org.springframework.cloud.servicebroker.exception.ServiceDefinitionPlanDoesNotExistException;
@@ -35,6 +39,9 @@ import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotE
 import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
 import org.springframework.cloud.servicebroker.exception.ServiceInstanceUpdateNotSupportedException;
 import org.springframework.cloud.servicebroker.model.error.ErrorMessage;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.cloud.servicebroker.exception.ServiceBrokerAsyncRequiredException.ASYNC_REQUIRED_ERROR;
@@ -158,6 +165,30 @@ abstract class ServiceBrokerExceptionHandlerTest {
 		assertThat(errorMessage.getMessage()).contains("maintenance in progress");
 	}
 
+	@Test
+	void serviceBrokerOverloadedException() {
+		ServiceBrokerOverloadedException exception =
+				new ServiceBrokerOverloadedException("too many requests", Duration.ofMillis(2500));
+
+		ResponseEntity<ErrorMessage> response = exceptionHandler.handleException(exception);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+		assertThat(response.getBody().getMessage()).contains("too many requests");
+	}
+
+	@Test
+	void serviceBrokerRateLimitedException() {
+		ServiceBrokerRateLimitedException exception =
+				new ServiceBrokerRateLimitedException("rate limit exceeded", Duration.ofMillis(200));
+
+		ResponseEntity<ErrorMessage> response = exceptionHandler.handleException(exception);
+
+		assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+		assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(response.getBody().getMessage()).contains("rate limit exceeded");
+	}
+
 	@Test
 	void serviceBrokerConcurrencyException() {
 		ServiceBrokerConcurrencyException exception = new ServiceBrokerConcurrencyException("operation in progress");
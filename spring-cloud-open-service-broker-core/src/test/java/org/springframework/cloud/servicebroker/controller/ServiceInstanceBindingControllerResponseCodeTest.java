@@ -46,11 +46,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 
 class ServiceInstanceBindingControllerResponseCodeTest {
 
-	private final CatalogService catalogService = mock(CatalogService.class);
+	private final CatalogService catalogService = mock(CatalogService.class, CALLS_REAL_METHODS);
 
 	private final ServiceInstanceBindingService bindingService = mock(ServiceInstanceBindingService.class);
 
@@ -16,6 +16,7 @@
 
 package org.springframework.cloud.servicebroker.controller;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -41,6 +42,7 @@ import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInsta
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
 import org.springframework.cloud.servicebroker.service.CatalogService;
 import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -48,11 +50,12 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.mock;
 
 class ServiceInstanceControllerResponseCodeTest {
 
-	private final CatalogService catalogService = mock(CatalogService.class);
+	private final CatalogService catalogService = mock(CatalogService.class, CALLS_REAL_METHODS);
 
 	private final ServiceInstanceService serviceInstanceService = mock(ServiceInstanceService.class);
 
@@ -313,6 +316,41 @@ class ServiceInstanceControllerResponseCodeTest {
 				.build(), HttpStatus.GONE);
 	}
 
+	@Test
+	void getLastOperationWithInProgressResponseAndRetryAfterGivesRetryAfterHeader() {
+		given(serviceInstanceService.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder()
+						.operationState(OperationState.IN_PROGRESS)
+						.retryAfter(Duration.ofMillis(1500))
+						.build()));
+
+		ResponseEntity<GetLastServiceOperationResponse> responseEntity = controller
+				.getServiceInstanceLastOperation(pathVariables, null, null, null, null,
+						null, null, null)
+				.block();
+
+		assertThat(responseEntity).isNotNull();
+		assertThat(responseEntity.getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat(responseEntity.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+	}
+
+	@Test
+	void getLastOperationWithSucceededResponseAndRetryAfterGivesNoRetryAfterHeader() {
+		given(serviceInstanceService.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder()
+						.operationState(OperationState.SUCCEEDED)
+						.retryAfter(Duration.ofSeconds(5))
+						.build()));
+
+		ResponseEntity<GetLastServiceOperationResponse> responseEntity = controller
+				.getServiceInstanceLastOperation(pathVariables, null, null, null, null,
+						null, null, null)
+				.block();
+
+		assertThat(responseEntity).isNotNull();
+		assertThat(responseEntity.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)).isFalse();
+	}
+
 	@Test
 	void getLastOperationWithUnknownInstanceBadRequest() {
 		given(serviceInstanceService.getLastOperation(any(GetLastServiceOperationRequest.class)))
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
 import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,23 +29,45 @@ class BeanCatalogServiceTest {
 
 	private static final String SVC_DEF_ID = "svc-def-id";
 
+	private static final String PLAN_ID = "plan-id";
+
 	private BeanCatalogService service;
 
 	private Catalog catalog;
 
 	private ServiceDefinition serviceDefinition;
 
+	private Plan plan;
+
 	@BeforeEach
 	void setUp() {
+		plan = Plan.builder()
+				.id(PLAN_ID)
+				.name("plan-name")
+				.description("Plan description")
+				.build();
+
 		serviceDefinition = ServiceDefinition.builder()
 				.id(SVC_DEF_ID)
 				.name("Name")
 				.description("Description")
 				.bindable(true)
+				.plans(plan)
+				.build();
+
+		ServiceDefinition otherServiceDefinition = ServiceDefinition.builder()
+				.id("other-svc-def-id")
+				.name("Other")
+				.description("Other description")
+				.plans(Plan.builder()
+						.id("other-plan-id")
+						.name("other-plan-name")
+						.description("Other plan description")
+						.build())
 				.build();
 
 		catalog = Catalog.builder()
-				.serviceDefinitions(serviceDefinition)
+				.serviceDefinitions(serviceDefinition, otherServiceDefinition)
 				.build();
 
 		service = new BeanCatalogService(catalog);
@@ -65,4 +88,31 @@ class BeanCatalogServiceTest {
 		assertThat(service.getServiceDefinition("NOT_THERE").block()).isNull();
 	}
 
+	@Test
+	void planIsFound() {
+		assertThat(service.getPlan(SVC_DEF_ID, PLAN_ID).block()).isEqualTo(plan);
+	}
+
+	@Test
+	void planIsNotFound() {
+		assertThat(service.getPlan(SVC_DEF_ID, "NOT_THERE").block()).isNull();
+	}
+
+	@Test
+	void planOfAnotherServiceDefinitionIsNotFound() {
+		assertThat(service.getPlan(SVC_DEF_ID, "other-plan-id").block()).isNull();
+		assertThat(service.getPlan("NOT_THERE", PLAN_ID).block()).isNull();
+	}
+
+	@Test
+	void serviceDefinitionPlanIsFound() {
+		assertThat(service.getServiceDefinitionPlan(PLAN_ID).block())
+				.isEqualTo(new ServiceDefinitionPlan(serviceDefinition, plan));
+	}
+
+	@Test
+	void serviceDefinitionPlanIsNotFound() {
+		assertThat(service.getServiceDefinitionPlan("NOT_THERE").block()).isNull();
+	}
+
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class CachingCatalogServiceTest {
+
+	private static final Duration TIME_TO_LIVE = Duration.ofMinutes(5);
+
+	private static final Duration REFRESH_AFTER = Duration.ofMinutes(4);
+
+	private final MutableClock clock = new MutableClock();
+
+	private RemoteCatalogService delegate;
+
+	private CachingCatalogService service;
+
+	@BeforeEach
+	void setUp() {
+		delegate = new RemoteCatalogService();
+		delegate.respondWith(Mono.just(catalog("service-one-id", "plan-one-id")));
+		service = new CachingCatalogService(delegate, TIME_TO_LIVE, REFRESH_AFTER, clock, Schedulers.immediate());
+	}
+
+	@Test
+	void delegateIsSubscribedOffTheCallingThread() {
+		AtomicReference<String> loadThread = new AtomicReference<>();
+		delegate.respondWith(Mono.fromCallable(() -> {
+			loadThread.set(Thread.currentThread().getName());
+			return catalog("service-one-id", "plan-one-id");
+		}));
+		CachingCatalogService elasticService = new CachingCatalogService(delegate, TIME_TO_LIVE, REFRESH_AFTER, clock);
+
+		assertThat(elasticService.getCatalog().block(Duration.ofSeconds(5))).isNotNull();
+		assertThat(loadThread.get()).startsWith("boundedElastic");
+	}
+
+	@Test
+	void catalogIsLoadedOnceAndServedFromTheCache() {
+		Catalog catalog = service.getCatalog().block();
+
+		assertThat(service.getCatalog().block()).isSameAs(catalog);
+		assertThat(service.getServiceDefinition("service-one-id").block()).isNotNull();
+		assertThat(service.getServiceDefinition("service-two-id").block()).isNull();
+		assertThat(service.getPlan("service-one-id", "plan-one-id").block()).isNotNull();
+		assertThat(service.getServiceDefinitionPlan("plan-one-id").block()).isNotNull();
+		assertThat(delegate.getCalls()).isEqualTo(1);
+		assertThat(service.getLoadCount()).isEqualTo(1);
+		assertThat(service.getHitCount()).isEqualTo(5);
+	}
+
+	@Test
+	void concurrentMissesShareASingleLoad() {
+		Sinks.One<Catalog> pending = Sinks.one();
+		delegate.respondWith(pending.asMono());
+
+		Mono<Catalog> first = service.getCatalog();
+		Mono<ServiceDefinition> second = service.getServiceDefinition("service-two-id");
+		AtomicReference<Catalog> firstResult = new AtomicReference<>();
+		AtomicReference<ServiceDefinition> secondResult = new AtomicReference<>();
+		first.subscribe(firstResult::set);
+		second.subscribe(secondResult::set);
+
+		assertThat(delegate.getCalls()).isEqualTo(1);
+		pending.tryEmitValue(catalog("service-two-id", "plan-two-id"));
+
+		assertThat(firstResult.get()).isNotNull();
+		assertThat(secondResult.get()).isNotNull();
+		assertThat(delegate.getCalls()).isEqualTo(1);
+	}
+
+	@Test
+	void catalogIsRefreshedAheadOfExpiry() {
+		Catalog original = service.getCatalog().block();
+		delegate.respondWith(Mono.just(catalog("service-two-id", "plan-two-id")));
+		clock.advance(REFRESH_AFTER);
+
+		assertThat(service.getCatalog().block()).isSameAs(original);
+		assertThat(delegate.getCalls()).isEqualTo(2);
+		assertThat(service.getServiceDefinition("service-two-id").block()).isNotNull();
+		assertThat(delegate.getCalls()).isEqualTo(2);
+	}
+
+	@Test
+	void expiredCatalogIsReloaded() {
+		Catalog original = service.getCatalog().block();
+		delegate.respondWith(Mono.just(catalog("service-two-id", "plan-two-id")));
+		clock.advance(TIME_TO_LIVE);
+
+		assertThat(service.getCatalog().block()).isNotSameAs(original);
+		assertThat(service.getServiceDefinition("service-one-id").block()).isNull();
+		assertThat(delegate.getCalls()).isEqualTo(2);
+	}
+
+	@Test
+	void staleCatalogIsServedWhenReloadFails() {
+		Catalog original = service.getCatalog().block();
+		delegate.respondWith(Mono.error(new IllegalStateException("backend unavailable")));
+		clock.advance(TIME_TO_LIVE);
+
+		assertThat(service.getCatalog().block()).isSameAs(original);
+		assertThat(service.getStaleCount()).isEqualTo(1);
+		assertThat(service.getLoadFailureCount()).isEqualTo(1);
+
+		delegate.respondWith(Mono.just(catalog("service-two-id", "plan-two-id")));
+		assertThat(service.getServiceDefinition("service-two-id").block()).isNotNull();
+	}
+
+	@Test
+	void failedInitialLoadIsPropagated() {
+		delegate.respondWith(Mono.error(new IllegalStateException("backend unavailable")));
+
+		assertThatIllegalStateException().isThrownBy(() -> service.getCatalog().block());
+
+		delegate.respondWith(Mono.just(catalog("service-one-id", "plan-one-id")));
+		assertThat(service.getCatalog().block()).isNotNull();
+		assertThat(delegate.getCalls()).isEqualTo(2);
+	}
+
+	@Test
+	void invalidatedCatalogIsReloaded() {
+		service.getCatalog().block();
+		service.invalidate();
+		service.getCatalog().block();
+
+		assertThat(delegate.getCalls()).isEqualTo(2);
+	}
+
+	private static Catalog catalog(String serviceId, String planId) {
+		return Catalog.builder()
+				.serviceDefinitions(ServiceDefinition.builder()
+						.id(serviceId)
+						.plans(Plan.builder()
+								.id(planId)
+								.build())
+						.build())
+				.build();
+	}
+
+	private static final class RemoteCatalogService implements CatalogService {
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final AtomicReference<Mono<Catalog>> response = new AtomicReference<>();
+
+		void respondWith(Mono<Catalog> response) {
+			this.response.set(response);
+		}
+
+		int getCalls() {
+			return this.calls.get();
+		}
+
+		@Override
+		public Mono<Catalog> getCatalog() {
+			return Mono.defer(() -> {
+				this.calls.incrementAndGet();
+				return this.response.get();
+			});
+		}
+
+		@Override
+		public Mono<ServiceDefinition> getServiceDefinition(String serviceId) {
+			return getCatalog().flatMap(catalog -> Mono.justOrEmpty(catalog.getServiceDefinitions().stream()
+					.filter(serviceDefinition -> serviceDefinition.getId().equals(serviceId))
+					.findFirst()));
+		}
+
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
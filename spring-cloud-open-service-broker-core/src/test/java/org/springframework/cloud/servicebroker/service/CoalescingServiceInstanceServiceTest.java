@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CoalescingServiceInstanceServiceTest {
+
+	private final ServiceInstanceService delegate = mock(ServiceInstanceService.class);
+
+	private final LastOperationCoalescer coalescer = new LastOperationCoalescer();
+
+	private final CoalescingServiceInstanceService service = new CoalescingServiceInstanceService(this.delegate,
+			this.coalescer);
+
+	@Test
+	void succeededOperationIsAnsweredFromTheCache() {
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder()
+						.operationState(OperationState.SUCCEEDED)
+						.build()));
+
+		GetLastServiceOperationResponse first = this.service.getLastOperation(lastOperationRequest()).block();
+		GetLastServiceOperationResponse second = this.service.getLastOperation(lastOperationRequest()).block();
+
+		assertThat(second).isSameAs(first);
+		verify(this.delegate, times(1)).getLastOperation(any(GetLastServiceOperationRequest.class));
+	}
+
+	@Test
+	void newOperationDiscardsTheCachedResponse() {
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder()
+						.operationState(OperationState.SUCCEEDED)
+						.build()));
+		given(this.delegate.updateServiceInstance(any(UpdateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(UpdateServiceInstanceResponse.builder()
+						.async(true)
+						.build()));
+
+		this.service.getLastOperation(lastOperationRequest()).block();
+		this.service.updateServiceInstance(UpdateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.build()).block();
+		this.service.getLastOperation(lastOperationRequest()).block();
+
+		verify(this.delegate, times(2)).getLastOperation(any(GetLastServiceOperationRequest.class));
+	}
+
+	private static GetLastServiceOperationRequest lastOperationRequest() {
+		return GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.build();
+	}
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingExistsException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DeduplicatingServiceInstanceBindingServiceTest {
+
+	private final ServiceInstanceBindingService delegate = mock(ServiceInstanceBindingService.class);
+
+	private final DeduplicatingServiceInstanceBindingService service = new DeduplicatingServiceInstanceBindingService(
+			this.delegate, new RequestDeduplicator());
+
+	@Test
+	void retryOfCompletedRequestIsAnsweredWithTheSameCredentialsAsExisting() {
+		given(this.delegate.createServiceInstanceBinding(any(CreateServiceInstanceBindingRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceAppBindingResponse.builder()
+						.credentials("password", "secret")
+						.build()));
+
+		this.service.createServiceInstanceBinding(request("reader")).block();
+		CreateServiceInstanceAppBindingResponse retry = (CreateServiceInstanceAppBindingResponse) this.service
+				.createServiceInstanceBinding(request("reader")).block();
+
+		assertThat(retry.isBindingExisted()).isTrue();
+		assertThat(retry.getCredentials()).containsEntry("password", "secret");
+		verify(this.delegate, times(1)).createServiceInstanceBinding(any(CreateServiceInstanceBindingRequest.class));
+	}
+
+	@Test
+	void differentRequestForTheSameBindingIsRejectedAsConflict() {
+		given(this.delegate.createServiceInstanceBinding(any(CreateServiceInstanceBindingRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceAppBindingResponse.builder().build()));
+
+		this.service.createServiceInstanceBinding(request("reader")).block();
+
+		StepVerifier.create(this.service.createServiceInstanceBinding(request("writer")))
+				.expectError(ServiceInstanceBindingExistsException.class)
+				.verify();
+	}
+
+	private static CreateServiceInstanceBindingRequest request(String role) {
+		return CreateServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.parameters("role", role)
+				.build();
+	}
+
+}
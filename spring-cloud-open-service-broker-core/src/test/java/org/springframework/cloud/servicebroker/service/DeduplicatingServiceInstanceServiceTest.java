@@ -0,0 +1,136 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class DeduplicatingServiceInstanceServiceTest {
+
+	private final ServiceInstanceService delegate = mock(ServiceInstanceService.class);
+
+	private final DeduplicatingServiceInstanceService service = new DeduplicatingServiceInstanceService(this.delegate,
+			new RequestDeduplicator());
+
+	@Test
+	void retryInProgressSharesTheResultOfTheOriginalRequest() {
+		Sinks.One<CreateServiceInstanceResponse> original = Sinks.one();
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(original.asMono());
+		CreateServiceInstanceResponse response = CreateServiceInstanceResponse.builder()
+				.dashboardUrl("https://dashboard")
+				.build();
+
+		StepVerifier.create(this.service.createServiceInstance(request("plan")))
+				.then(() -> StepVerifier.create(this.service.createServiceInstance(request("plan")))
+						.then(() -> original.tryEmitValue(response))
+						.expectNext(response)
+						.verifyComplete())
+				.expectNext(response)
+				.verifyComplete();
+
+		verify(this.delegate, times(1)).createServiceInstance(any(CreateServiceInstanceRequest.class));
+	}
+
+	@Test
+	void retryOfCompletedRequestIsAnsweredAsExisting() {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder()
+						.dashboardUrl("https://dashboard")
+						.build()));
+
+		CreateServiceInstanceResponse first = this.service.createServiceInstance(request("plan")).block();
+		CreateServiceInstanceResponse retry = this.service.createServiceInstance(request("plan")).block();
+
+		assertThat(first.isInstanceExisted()).isFalse();
+		assertThat(retry.isInstanceExisted()).isTrue();
+		assertThat(retry.getDashboardUrl()).isEqualTo("https://dashboard");
+		verify(this.delegate, times(1)).createServiceInstance(any(CreateServiceInstanceRequest.class));
+	}
+
+	@Test
+	void retryOfAsynchronousRequestIsAnsweredWithTheSameOperation() {
+		CreateServiceInstanceResponse accepted = CreateServiceInstanceResponse.builder()
+				.async(true)
+				.operation("operation")
+				.build();
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(accepted));
+
+		this.service.createServiceInstance(request("plan")).block();
+
+		StepVerifier.create(this.service.createServiceInstance(request("plan")))
+				.expectNext(accepted)
+				.verifyComplete();
+	}
+
+	@Test
+	void differentRequestForTheSameInstanceIsRejectedAsConflict() {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().build()));
+
+		this.service.createServiceInstance(request("plan")).block();
+
+		StepVerifier.create(this.service.createServiceInstance(request("other-plan")))
+				.expectError(ServiceInstanceExistsException.class)
+				.verify();
+		verify(this.delegate, times(1)).createServiceInstance(any(CreateServiceInstanceRequest.class));
+	}
+
+	@Test
+	void deletedInstanceCanBeCreatedAgain() {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder().build()));
+		given(this.delegate.deleteServiceInstance(any(DeleteServiceInstanceRequest.class)))
+				.willReturn(Mono.just(DeleteServiceInstanceResponse.builder().build()));
+
+		this.service.createServiceInstance(request("plan")).block();
+		this.service.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.build()).block();
+		CreateServiceInstanceResponse recreated = this.service.createServiceInstance(request("other-plan")).block();
+
+		assertThat(recreated.isInstanceExisted()).isFalse();
+		verify(this.delegate, times(2)).createServiceInstance(any(CreateServiceInstanceRequest.class));
+	}
+
+	private static CreateServiceInstanceRequest request(String planId) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId(planId)
+				.parameters("size", "large")
+				.build();
+	}
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class FileCatalogSourceTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void catalogIsParsed() throws IOException {
+		Path file = write("{\"services\":[{\"id\":\"service-one-id\",\"name\":\"service-one\","
+				+ "\"plans\":[{\"id\":\"plan-one-id\",\"name\":\"plan-one\"}]}]}");
+
+		Catalog catalog = new FileCatalogSource(file).get();
+
+		assertThat(catalog.getServiceDefinitions()).hasSize(1);
+		assertThat(catalog.getServiceDefinitions().get(0).getId()).isEqualTo("service-one-id");
+		assertThat(catalog.getServiceDefinitions().get(0).getPlans().get(0).getId()).isEqualTo("plan-one-id");
+	}
+
+	@Test
+	void unchangedFileIsNotParsedAgain() throws IOException {
+		Path file = write("{\"services\":[{\"id\":\"service-one-id\"}]}");
+		FileCatalogSource source = new FileCatalogSource(file);
+
+		assertThat(source.get()).isSameAs(source.get());
+	}
+
+	@Test
+	void changedFileIsParsedAgain() throws IOException {
+		Path file = write("{\"services\":[{\"id\":\"service-one-id\"}]}");
+		FileCatalogSource source = new FileCatalogSource(file);
+		Catalog first = source.get();
+
+		write("{\"services\":[{\"id\":\"service-two-id\"}]}");
+		Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(60)));
+
+		Catalog second = source.get();
+		assertThat(second).isNotSameAs(first);
+		assertThat(second.getServiceDefinitions().get(0).getId()).isEqualTo("service-two-id");
+	}
+
+	@Test
+	void missingFileFails() {
+		FileCatalogSource source = new FileCatalogSource(directory.resolve("missing.json"));
+
+		assertThatExceptionOfType(UncheckedIOException.class).isThrownBy(source::get);
+	}
+
+	private Path write(String json) throws IOException {
+		return Files.write(directory.resolve("catalog.json"), json.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightOperationRegistryTest {
+
+	private final InFlightOperationRegistry registry = new InFlightOperationRegistry();
+
+	@Test
+	void concurrentOperationOnTheSameInstanceIsRejectedWithoutBeingCalled() {
+		Sinks.One<String> first = Sinks.one();
+		AtomicInteger calls = new AtomicInteger();
+
+		StepVerifier.create(this.registry.serialize("instance", null, first::asMono))
+				.then(() -> StepVerifier.create(this.registry.serialize("instance", null, () -> {
+							calls.incrementAndGet();
+							return Mono.just("second");
+						}))
+						.expectError(ServiceBrokerConcurrencyException.class)
+						.verify())
+				.then(() -> first.tryEmitValue("first"))
+				.expectNext("first")
+				.verifyComplete();
+
+		assertThat(calls).hasValue(0);
+		assertThat(this.registry.getAcquiredCount()).isEqualTo(1);
+		assertThat(this.registry.getRejectedCount()).isEqualTo(1);
+		assertThat(this.registry.getContentionRate()).isEqualTo(0.5);
+		assertThat(this.registry.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void operationsOnDifferentBindingsRunConcurrently() {
+		assertThat(this.registry.tryAcquire("instance", "binding-1")).isTrue();
+		assertThat(this.registry.tryAcquire("instance", "binding-2")).isTrue();
+		assertThat(this.registry.tryAcquire("instance", null)).isTrue();
+		assertThat(this.registry.tryAcquire("instance", "binding-1")).isFalse();
+		assertThat(this.registry.getInFlightCount()).isEqualTo(3);
+	}
+
+	@Test
+	void bindingOperationIsRejectedWhileItsServiceInstanceIsInFlight() {
+		assertThat(this.registry.tryAcquire("instance", null)).isTrue();
+		assertThat(this.registry.tryAcquire("instance", "binding")).isFalse();
+		assertThat(this.registry.tryAcquire("other-instance", "binding")).isTrue();
+
+		this.registry.release("instance", null);
+
+		assertThat(this.registry.tryAcquire("instance", "binding")).isTrue();
+		assertThat(this.registry.getInFlightCount()).isEqualTo(2);
+	}
+
+	@Test
+	void failedOperationIsReleased() {
+		StepVerifier.create(this.registry.serialize("instance", "binding",
+						() -> Mono.error(new IllegalStateException("failed"))))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertThat(this.registry.tryAcquire("instance", "binding")).isTrue();
+	}
+
+	@Test
+	void operationThatThrowsIsReleased() {
+		StepVerifier.create(this.registry.serialize("instance", null, () -> {
+					throw new IllegalStateException("failed");
+				}))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertThat(this.registry.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void cancelledOperationIsReleased() {
+		Disposable subscription = this.registry.serialize("instance", null, Mono::never).subscribe();
+		assertThat(this.registry.getInFlightCount()).isEqualTo(1);
+
+		subscription.dispose();
+
+		assertThat(this.registry.getInFlightCount()).isZero();
+	}
+
+}
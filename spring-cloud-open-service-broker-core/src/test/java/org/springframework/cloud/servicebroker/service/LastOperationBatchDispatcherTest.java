@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LastOperationBatchDispatcherTest {
+
+	private static final String UNKNOWN_INSTANCE_ID = "unknown";
+
+	private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+	private final BulkStatusService service = new BulkStatusService();
+
+	private final LastOperationBatchDispatcher dispatcher = new LastOperationBatchDispatcher(this.service,
+			Duration.ofMillis(10), 3, this.timer);
+
+	@AfterEach
+	void tearDown() {
+		this.timer.dispose();
+	}
+
+	@Test
+	void requestsWithinTheWindowShareABatch() {
+		StepVerifier.create(Mono.zip(getLastOperation("one"), getLastOperation("two")))
+				.then(() -> assertThat(this.service.batches).isEmpty())
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(10)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getDescription()).isEqualTo("one");
+					assertThat(responses.getT2().getDescription()).isEqualTo("two");
+				})
+				.verifyComplete();
+
+		assertThat(this.service.batches).containsExactly(2);
+		assertThat(this.dispatcher.getBatchCount()).isEqualTo(1);
+		assertThat(this.dispatcher.getAverageBatchSize()).isEqualTo(2);
+	}
+
+	@Test
+	void fullBatchIsDispatchedAtOnce() {
+		StepVerifier.create(Mono.zip(getLastOperation("one"), getLastOperation("two"), getLastOperation("three")))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		StepVerifier.create(getLastOperation("four"))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(10)))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(this.service.batches).containsExactly(3, 1);
+	}
+
+	@Test
+	void missingResponseIsAnsweredSeparately() {
+		StepVerifier.create(Mono.zip(getLastOperation("one"), getLastOperation(UNKNOWN_INSTANCE_ID).materialize()))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(10)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getDescription()).isEqualTo("one");
+					assertThat(responses.getT2().getThrowable())
+							.isInstanceOf(ServiceInstanceDoesNotExistException.class);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void batchErrorFailsEveryRequest() {
+		this.service.failure = new IllegalStateException("backend unavailable");
+
+		StepVerifier.create(Mono.zip(getLastOperation("one").materialize(), getLastOperation("two").materialize()))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(10)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getThrowable()).isInstanceOf(IllegalStateException.class);
+					assertThat(responses.getT2().getThrowable()).isInstanceOf(IllegalStateException.class);
+				})
+				.verifyComplete();
+	}
+
+	private Mono<GetLastServiceOperationResponse> getLastOperation(String serviceInstanceId) {
+		return this.dispatcher.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId(serviceInstanceId)
+				.build());
+	}
+
+	private static final class BulkStatusService implements BatchingServiceInstanceService {
+
+		private final List<Integer> batches = new ArrayList<>();
+
+		private RuntimeException failure;
+
+		@Override
+		public Mono<Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse>> getLastOperations(
+				List<GetLastServiceOperationRequest> requests) {
+			this.batches.add(requests.size());
+			if (this.failure != null) {
+				return Mono.error(this.failure);
+			}
+			Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse> responses = new HashMap<>();
+			for (GetLastServiceOperationRequest request : requests) {
+				if (!UNKNOWN_INSTANCE_ID.equals(request.getServiceInstanceId())) {
+					responses.put(request, GetLastServiceOperationResponse.builder()
+							.operationState(OperationState.IN_PROGRESS)
+							.description(request.getServiceInstanceId())
+							.build());
+				}
+			}
+			return Mono.just(responses);
+		}
+
+		@Override
+		public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+			return Mono.error(new ServiceInstanceDoesNotExistException(request.getServiceInstanceId()));
+		}
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return Mono.empty();
+		}
+
+	}
+
+}
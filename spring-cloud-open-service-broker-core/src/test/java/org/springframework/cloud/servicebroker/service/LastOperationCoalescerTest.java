@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LastOperationCoalescerTest {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final LastOperationCoalescer coalescer = new LastOperationCoalescer(Duration.ofSeconds(30), 2,
+			this.clock);
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	@Test
+	void concurrentRequestsShareOneCall() {
+		Sinks.One<GetLastServiceOperationResponse> backend = Sinks.one();
+		Mono<GetLastServiceOperationResponse> first = getLastOperation("instance", "operation", backend.asMono());
+		Mono<GetLastServiceOperationResponse> second = getLastOperation("instance", "operation", backend.asMono());
+
+		StepVerifier.create(Mono.zip(first, second))
+				.then(() -> backend.tryEmitValue(response(OperationState.IN_PROGRESS)))
+				.assertNext(responses -> assertThat(responses.getT1()).isSameAs(responses.getT2()))
+				.verifyComplete();
+
+		assertThat(this.calls.get()).isEqualTo(1);
+		assertThat(this.coalescer.getCoalescedCount()).isEqualTo(1);
+		assertThat(this.coalescer.getMissCount()).isEqualTo(1);
+		assertThat(this.coalescer.getHitRate()).isEqualTo(0.5);
+	}
+
+	@Test
+	void inProgressResponsesAreNotCached() {
+		getLastOperation("instance", "operation", Mono.just(response(OperationState.IN_PROGRESS))).block();
+		getLastOperation("instance", "operation", Mono.just(response(OperationState.IN_PROGRESS))).block();
+
+		assertThat(this.calls.get()).isEqualTo(2);
+		assertThat(this.coalescer.size()).isZero();
+	}
+
+	@Test
+	void terminalResponsesAreCachedForTheSameOperation() {
+		GetLastServiceOperationResponse succeeded = response(OperationState.SUCCEEDED);
+		getLastOperation("instance", "operation", Mono.just(succeeded)).block();
+
+		assertThat(getLastOperation("instance", "operation", Mono.just(response(OperationState.FAILED))).block())
+				.isSameAs(succeeded);
+		assertThat(getLastOperation("instance", "other", Mono.just(response(OperationState.FAILED))).block())
+				.isNotSameAs(succeeded);
+		assertThat(this.calls.get()).isEqualTo(2);
+		assertThat(this.coalescer.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void cachedResponsesExpire() {
+		getLastOperation("instance", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+		this.clock.advance(Duration.ofSeconds(31));
+		getLastOperation("instance", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+
+		assertThat(this.calls.get()).isEqualTo(2);
+		assertThat(this.coalescer.getHitCount()).isZero();
+	}
+
+	@Test
+	void invalidationDiscardsCachedAndInFlightResponses() {
+		getLastOperation("instance", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+		Sinks.One<GetLastServiceOperationResponse> backend = Sinks.one();
+
+		StepVerifier.create(getLastOperation("other", null, backend.asMono()))
+				.then(() -> this.coalescer.invalidate("instance", null))
+				.then(() -> this.coalescer.invalidate("other", null))
+				.then(() -> backend.tryEmitValue(response(OperationState.SUCCEEDED)))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(this.coalescer.size()).isZero();
+	}
+
+	@Test
+	void oldestResponseIsEvictedWhenFull() {
+		getLastOperation("first", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+		this.clock.advance(Duration.ofSeconds(1));
+		getLastOperation("second", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+		this.clock.advance(Duration.ofSeconds(1));
+		getLastOperation("third", null, Mono.just(response(OperationState.FAILED))).block();
+
+		assertThat(this.coalescer.size()).isEqualTo(2);
+		assertThat(this.coalescer.getEvictionCount()).isEqualTo(1);
+		getLastOperation("first", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+		assertThat(this.coalescer.getHitCount()).isZero();
+	}
+
+	@Test
+	void errorsAreNotCached() {
+		StepVerifier.create(getLastOperation("instance", null, Mono.error(new IllegalStateException("failed"))))
+				.verifyError(IllegalStateException.class);
+		getLastOperation("instance", null, Mono.just(response(OperationState.SUCCEEDED))).block();
+
+		assertThat(this.calls.get()).isEqualTo(2);
+	}
+
+	private Mono<GetLastServiceOperationResponse> getLastOperation(String serviceInstanceId, String operation,
+			Mono<GetLastServiceOperationResponse> response) {
+		return this.coalescer.getLastOperation(serviceInstanceId, null, operation,
+				GetLastServiceOperationResponse::getState, () -> {
+					this.calls.incrementAndGet();
+					return response;
+				});
+	}
+
+	private static GetLastServiceOperationResponse response(OperationState state) {
+		return GetLastServiceOperationResponse.builder()
+				.operationState(state)
+				.build();
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
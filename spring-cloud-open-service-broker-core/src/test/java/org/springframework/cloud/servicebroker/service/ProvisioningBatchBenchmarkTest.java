@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the throughput of a burst of concurrent delete requests dispatched one at a time with the throughput of
+ * the same burst dispatched in batches by a {@link ProvisioningBatchDispatcher}. The backend is simulated with a
+ * fixed round trip time per call and a bounded number of connections. Run with {@literal OSB_BENCHMARK=true}. The
+ * results are published to the test report.
+ */
+@EnabledIfEnvironmentVariable(named = "OSB_BENCHMARK", matches = "true")
+class ProvisioningBatchBenchmarkTest {
+
+	private static final int REQUESTS = 2_000;
+
+	private static final int CONNECTIONS = 8;
+
+	private static final Duration ROUND_TRIP = Duration.ofMillis(5);
+
+	private final Scheduler backend = Schedulers.newBoundedElastic(CONNECTIONS, REQUESTS, "backend");
+
+	private final SimulatedBackendService service = new SimulatedBackendService(this.backend);
+
+	@AfterEach
+	void tearDown() {
+		this.backend.dispose();
+	}
+
+	@Test
+	void deleteThroughput(TestReporter reporter) {
+		long perRequest = run(this.service::deleteServiceInstance);
+
+		ProvisioningBatchDispatcher dispatcher = new ProvisioningBatchDispatcher(this.service);
+		long batched = run(dispatcher::deleteServiceInstance);
+
+		reporter.publishEntry("requests", String.valueOf(REQUESTS));
+		reporter.publishEntry("perRequestPerSecond", String.valueOf(perRequest));
+		reporter.publishEntry("batchedPerSecond", String.valueOf(batched));
+		reporter.publishEntry("averageBatchSize", String.valueOf(dispatcher.getAverageBatchSize()));
+		assertThat(batched).isGreaterThan(perRequest);
+	}
+
+	private static long run(Function<DeleteServiceInstanceRequest, Mono<DeleteServiceInstanceResponse>> dispatch) {
+		long start = System.nanoTime();
+		Long completed = Flux.range(0, REQUESTS)
+				.flatMap(i -> dispatch.apply(DeleteServiceInstanceRequest.builder()
+						.serviceDefinitionId("service-definition-id")
+						.serviceInstanceId("service-instance-" + i)
+						.build()), REQUESTS)
+				.count()
+				.block();
+		long elapsed = System.nanoTime() - start;
+		assertThat(completed).isEqualTo(REQUESTS);
+		return REQUESTS * TimeUnit.SECONDS.toNanos(1) / elapsed;
+	}
+
+	private static final class SimulatedBackendService implements BulkServiceInstanceService {
+
+		private final Scheduler backend;
+
+		private SimulatedBackendService(Scheduler backend) {
+			this.backend = backend;
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return call(() -> DeleteServiceInstanceResponse.builder().build());
+		}
+
+		@Override
+		public Mono<Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>>>
+				deleteServiceInstances(List<DeleteServiceInstanceRequest> requests) {
+			return call(() -> {
+				Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>> results =
+						new LinkedHashMap<>();
+				requests.forEach(request -> results.put(request,
+						BatchResult.of(DeleteServiceInstanceResponse.builder().build())));
+				return results;
+			});
+		}
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return call(() -> CreateServiceInstanceResponse.builder().build());
+		}
+
+		@Override
+		public Mono<Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>>>
+				createServiceInstances(List<CreateServiceInstanceRequest> requests) {
+			return call(LinkedHashMap::new);
+		}
+
+		private <T> Mono<T> call(Supplier<T> response) {
+			return Mono.fromCallable(() -> {
+				LockSupport.parkNanos(ROUND_TRIP.toNanos());
+				return response.get();
+			}).subscribeOn(this.backend);
+		}
+
+	}
+
+}
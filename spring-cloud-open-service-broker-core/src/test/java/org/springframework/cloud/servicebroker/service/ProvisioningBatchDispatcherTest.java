@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProvisioningBatchDispatcherTest {
+
+	private static final String EXISTING_INSTANCE_ID = "existing";
+
+	private static final String UNKNOWN_INSTANCE_ID = "unknown";
+
+	private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+	private final BulkService service = new BulkService();
+
+	private final ProvisioningBatchDispatcher dispatcher = new ProvisioningBatchDispatcher(this.service,
+			Duration.ofMillis(20), 10, this.timer);
+
+	@AfterEach
+	void tearDown() {
+		this.timer.dispose();
+	}
+
+	@Test
+	void createRequestsAreBatchedByServiceOffering() {
+		StepVerifier.create(Mono.zip(create("service-one", "one"), create("service-one", "two"),
+				create("service-two", "three")))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(20)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getOperation()).isEqualTo("one");
+					assertThat(responses.getT2().getOperation()).isEqualTo("two");
+					assertThat(responses.getT3().getOperation()).isEqualTo("three");
+				})
+				.verifyComplete();
+
+		assertThat(this.service.createBatches).containsExactlyInAnyOrder(2, 1);
+		assertThat(this.dispatcher.getBatchCount()).isEqualTo(2);
+		assertThat(this.dispatcher.getRequestCount()).isEqualTo(3);
+	}
+
+	@Test
+	void fullBatchIsDispatchedOnTheDispatchScheduler() {
+		ProvisioningBatchDispatcher fullBatches = new ProvisioningBatchDispatcher(this.service, Duration.ofMinutes(1), 1,
+				Schedulers.boundedElastic());
+
+		CreateServiceInstanceResponse response = fullBatches.createServiceInstance(CreateServiceInstanceRequest.builder()
+				.serviceDefinitionId("service-one")
+				.serviceInstanceId("one")
+				.build())
+				.block(Duration.ofSeconds(5));
+
+		assertThat(response.getOperation()).isEqualTo("one");
+		assertThat(this.service.createThread).startsWith("boundedElastic");
+	}
+
+	@Test
+	void itemErrorsAreRoutedToTheirRequests() {
+		StepVerifier.create(Mono.zip(create("service-one", "one"),
+				create("service-one", EXISTING_INSTANCE_ID).materialize()))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(20)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getOperation()).isEqualTo("one");
+					assertThat(responses.getT2().getThrowable()).isInstanceOf(ServiceInstanceExistsException.class);
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void missingDeleteResultIsDispatchedSeparately() {
+		StepVerifier.create(Mono.zip(delete("one"), delete(UNKNOWN_INSTANCE_ID).materialize()))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(20)))
+				.assertNext(responses -> {
+					assertThat(responses.getT1().getOperation()).isEqualTo("one");
+					assertThat(responses.getT2().getThrowable())
+							.isInstanceOf(ServiceInstanceDoesNotExistException.class);
+				})
+				.verifyComplete();
+
+		assertThat(this.service.deleteBatches).containsExactly(2);
+	}
+
+	@Test
+	void createAndDeleteRequestsAreBatchedSeparately() {
+		StepVerifier.create(Mono.zip(create("service-one", "one"), delete("two")))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMillis(20)))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		assertThat(this.service.createBatches).containsExactly(1);
+		assertThat(this.service.deleteBatches).containsExactly(1);
+	}
+
+	private Mono<CreateServiceInstanceResponse> create(String serviceDefinitionId, String serviceInstanceId) {
+		return this.dispatcher.createServiceInstance(CreateServiceInstanceRequest.builder()
+				.serviceDefinitionId(serviceDefinitionId)
+				.serviceInstanceId(serviceInstanceId)
+				.build());
+	}
+
+	private Mono<DeleteServiceInstanceResponse> delete(String serviceInstanceId) {
+		return this.dispatcher.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceDefinitionId("service-one")
+				.serviceInstanceId(serviceInstanceId)
+				.build());
+	}
+
+	private static final class BulkService implements BulkServiceInstanceService {
+
+		private final List<Integer> createBatches = new ArrayList<>();
+
+		private final List<Integer> deleteBatches = new ArrayList<>();
+
+		private String createThread;
+
+		@Override
+		public Mono<Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>>>
+				createServiceInstances(List<CreateServiceInstanceRequest> requests) {
+			this.createBatches.add(requests.size());
+			this.createThread = Thread.currentThread().getName();
+			Map<CreateServiceInstanceRequest, BatchResult<CreateServiceInstanceResponse>> results = new HashMap<>();
+			for (CreateServiceInstanceRequest request : requests) {
+				results.put(request, create(request));
+			}
+			return Mono.just(results);
+		}
+
+		private static BatchResult<CreateServiceInstanceResponse> create(CreateServiceInstanceRequest request) {
+			if (EXISTING_INSTANCE_ID.equals(request.getServiceInstanceId())) {
+				return BatchResult.error(new ServiceInstanceExistsException(request.getServiceInstanceId(),
+						request.getServiceDefinitionId()));
+			}
+			return BatchResult.of(CreateServiceInstanceResponse.builder()
+					.operation(request.getServiceInstanceId())
+					.build());
+		}
+
+		@Override
+		public Mono<Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>>>
+				deleteServiceInstances(List<DeleteServiceInstanceRequest> requests) {
+			this.deleteBatches.add(requests.size());
+			Map<DeleteServiceInstanceRequest, BatchResult<DeleteServiceInstanceResponse>> results = new HashMap<>();
+			for (DeleteServiceInstanceRequest request : requests) {
+				if (!UNKNOWN_INSTANCE_ID.equals(request.getServiceInstanceId())) {
+					results.put(request, BatchResult.of(DeleteServiceInstanceResponse.builder()
+							.operation(request.getServiceInstanceId())
+							.build()));
+				}
+			}
+			return Mono.just(results);
+		}
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return Mono.error(new IllegalStateException("not batched"));
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return Mono.error(new ServiceInstanceDoesNotExistException(request.getServiceInstanceId()));
+		}
+
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.model.catalog.Catalog;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.catalog.ServiceDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class ReloadableCatalogServiceTest {
+
+	private final AtomicReference<Catalog> source = new AtomicReference<>(catalog(
+			serviceDefinition("service-one-id", "plan-one-id"),
+			serviceDefinition("service-two-id", "plan-two-id")));
+
+	@Test
+	void initialCatalogIsIndexed() {
+		ReloadableCatalogService service = new ReloadableCatalogService(source::get);
+
+		assertThat(service.getCatalog().block()).isSameAs(source.get());
+		assertThat(service.getServiceDefinition("service-one-id").block()).isNotNull();
+		assertThat(service.getPlan("service-two-id", "plan-two-id").block()).isNotNull();
+		assertThat(service.getPlan("service-one-id", "plan-two-id").block()).isNull();
+		assertThat(service.getServiceDefinitionCount()).isEqualTo(2);
+		assertThat(service.getPlanCount()).isEqualTo(2);
+	}
+
+	@Test
+	void unchangedCatalogIsNotSwapped() {
+		ReloadableCatalogService service = new ReloadableCatalogService(source::get);
+		Catalog initial = service.getCatalog().block();
+		source.set(catalog(
+				serviceDefinition("service-one-id", "plan-one-id"),
+				serviceDefinition("service-two-id", "plan-two-id")));
+
+		assertThat(service.reload()).isNull();
+		assertThat(service.getCatalog().block()).isSameAs(initial);
+		assertThat(service.getReloadCount()).isEqualTo(1);
+		assertThat(service.getChangeCount()).isZero();
+	}
+
+	@Test
+	void changedCatalogIsSwappedAndDiffIsEmitted() {
+		ReloadableCatalogService service = new ReloadableCatalogService(source::get);
+		source.set(catalog(
+				serviceDefinition("service-one-id", "plan-one-id", "plan-three-id"),
+				serviceDefinition("service-four-id", "plan-four-id")));
+
+		StepVerifier.create(service.getChanges())
+				.then(service::reload)
+				.assertNext(diff -> {
+					assertThat(diff.getAddedServiceDefinitionIds()).containsExactly("service-four-id");
+					assertThat(diff.getRemovedServiceDefinitionIds()).containsExactly("service-two-id");
+					assertThat(diff.getChangedServiceDefinitionIds()).containsExactly("service-one-id");
+					assertThat(diff.getAddedPlanIds()).containsExactlyInAnyOrder("plan-three-id", "plan-four-id");
+					assertThat(diff.getRemovedPlanIds()).containsExactly("plan-two-id");
+					assertThat(diff.isEmpty()).isFalse();
+				})
+				.then(service::close)
+				.verifyComplete();
+
+		assertThat(service.getCatalog().block()).isSameAs(source.get());
+		assertThat(service.getServiceDefinition("service-two-id").block()).isNull();
+		assertThat(service.getPlan("service-one-id", "plan-three-id").block()).isNotNull();
+		assertThat(service.getPlanCount()).isEqualTo(3);
+		assertThat(service.getChangeCount()).isEqualTo(1);
+		assertThat(service.getLastReloadDuration()).isPositive();
+	}
+
+	@Test
+	void failedReloadKeepsCurrentCatalog() {
+		ReloadableCatalogService service = new ReloadableCatalogService(source::get);
+		Catalog initial = service.getCatalog().block();
+		source.set(null);
+
+		assertThatIllegalStateException().isThrownBy(service::reload);
+		assertThat(service.getCatalog().block()).isSameAs(initial);
+		assertThat(service.getReloadFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	void catalogIsReloadedPeriodically() {
+		VirtualTimeScheduler scheduler = VirtualTimeScheduler.create();
+		ReloadableCatalogService service = new ReloadableCatalogService(source::get)
+				.watch(Duration.ofSeconds(30), scheduler);
+		source.set(catalog(serviceDefinition("service-one-id", "plan-one-id")));
+
+		scheduler.advanceTimeBy(Duration.ofSeconds(29));
+		assertThat(service.getServiceDefinitionCount()).isEqualTo(2);
+
+		scheduler.advanceTimeBy(Duration.ofSeconds(1));
+		assertThat(service.getServiceDefinitionCount()).isEqualTo(1);
+
+		source.set(null);
+		scheduler.advanceTimeBy(Duration.ofSeconds(30));
+		assertThat(service.getServiceDefinitionCount()).isEqualTo(1);
+		assertThat(service.getReloadFailureCount()).isEqualTo(1);
+
+		service.close();
+		source.set(catalog(serviceDefinition("service-five-id", "plan-five-id")));
+		scheduler.advanceTimeBy(Duration.ofSeconds(30));
+		assertThat(service.getServiceDefinition("service-five-id").block()).isNull();
+	}
+
+	private static Catalog catalog(ServiceDefinition... serviceDefinitions) {
+		return Catalog.builder()
+				.serviceDefinitions(serviceDefinitions)
+				.build();
+	}
+
+	private static ServiceDefinition serviceDefinition(String id, String... planIds) {
+		ServiceDefinition.ServiceDefinitionBuilder builder = ServiceDefinition.builder()
+				.id(id)
+				.name(id)
+				.description(id);
+		for (String planId : planIds) {
+			builder.plans(Plan.builder()
+					.id(planId)
+					.name(planId)
+					.description(planId)
+					.build());
+		}
+		return builder.build();
+	}
+
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceExistsException;
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestDeduplicatorTest {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final RequestDeduplicator deduplicator = new RequestDeduplicator(Duration.ofMinutes(10), 2, this.clock);
+
+	@Test
+	void fingerprintDependsOnContentButNotOnOrderOrHeaders() {
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.parameters("a", 1)
+				.parameters("b", 2)
+				.context(context("org", "space"))
+				.asyncAccepted(true)
+				.build();
+		CreateServiceInstanceRequest retry = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.parameters("b", 2)
+				.parameters("a", 1)
+				.context(context("org", "space"))
+				.originatingIdentity(context("other-org", "other-space"))
+				.build();
+		CreateServiceInstanceRequest otherSpace = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.parameters("a", 1)
+				.parameters("b", 2)
+				.context(context("org", "other-space"))
+				.build();
+
+		assertThat(this.deduplicator.fingerprint(retry)).isEqualTo(this.deduplicator.fingerprint(request));
+		assertThat(this.deduplicator.fingerprint(otherSpace)).isNotEqualTo(this.deduplicator.fingerprint(request));
+	}
+
+	@Test
+	void completedRequestIsForgottenAfterTheTimeToLive() {
+		AtomicInteger calls = new AtomicInteger();
+
+		deduplicate("instance", "fingerprint", calls).block();
+		this.clock.advance(Duration.ofMinutes(10));
+
+		StepVerifier.create(deduplicate("instance", "other-fingerprint", calls))
+				.expectNext("response")
+				.verifyComplete();
+		assertThat(calls).hasValue(2);
+	}
+
+	@Test
+	void failedRequestIsNotRemembered() {
+		StepVerifier.create(this.deduplicator.deduplicate("instance", null, "fingerprint",
+						() -> Mono.error(new IllegalStateException("failed")), response -> response,
+						() -> new ServiceInstanceExistsException("instance", "service")))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertThat(this.deduplicator.size()).isZero();
+		StepVerifier.create(deduplicate("instance", "other-fingerprint", new AtomicInteger()))
+				.expectNext("response")
+				.verifyComplete();
+	}
+
+	@Test
+	void oldestCompletedRequestIsEvictedAtTheMaximumSize() {
+		AtomicInteger calls = new AtomicInteger();
+		deduplicate("instance-1", "fingerprint", calls).block();
+		this.clock.advance(Duration.ofSeconds(1));
+		deduplicate("instance-2", "fingerprint", calls).block();
+		this.clock.advance(Duration.ofSeconds(1));
+		deduplicate("instance-3", "fingerprint", calls).block();
+
+		assertThat(this.deduplicator.size()).isEqualTo(2);
+		deduplicate("instance-1", "fingerprint", calls).block();
+		assertThat(calls).hasValue(4);
+	}
+
+	private Mono<String> deduplicate(String serviceInstanceId, String fingerprint, AtomicInteger calls) {
+		return this.deduplicator.deduplicate(serviceInstanceId, null, fingerprint, () -> {
+			calls.incrementAndGet();
+			return Mono.just("response");
+		}, response -> response, () -> new ServiceInstanceExistsException(serviceInstanceId, "service"));
+	}
+
+	private static Context context(String organizationGuid, String spaceGuid) {
+		return CloudFoundryContext.builder()
+				.organizationGuid(organizationGuid)
+				.spaceGuid(spaceGuid)
+				.build();
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
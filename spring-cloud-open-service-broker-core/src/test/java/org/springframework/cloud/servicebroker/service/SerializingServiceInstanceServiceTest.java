@@ -0,0 +1,131 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationPromoter;
+import org.springframework.cloud.servicebroker.service.async.AsyncOperationRegistry;
+import org.springframework.cloud.servicebroker.service.async.LatencyBudget;
+import org.springframework.cloud.servicebroker.service.async.OperationLatencies;
+import org.springframework.cloud.servicebroker.service.async.PromotingServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SerializingServiceInstanceServiceTest {
+
+	private final ServiceInstanceService delegate = mock(ServiceInstanceService.class);
+
+	private final InFlightOperationRegistry registry = new InFlightOperationRegistry();
+
+	private final SerializingServiceInstanceService service = new SerializingServiceInstanceService(this.delegate,
+			this.registry);
+
+	@Test
+	void deleteDuringUpdateIsRejectedWithoutCallingTheService() {
+		Sinks.One<UpdateServiceInstanceResponse> update = Sinks.one();
+		given(this.delegate.updateServiceInstance(any(UpdateServiceInstanceRequest.class)))
+				.willReturn(update.asMono());
+
+		StepVerifier.create(this.service.updateServiceInstance(UpdateServiceInstanceRequest.builder()
+						.serviceInstanceId("instance")
+						.build()))
+				.then(() -> StepVerifier.create(this.service.deleteServiceInstance(DeleteServiceInstanceRequest
+								.builder()
+								.serviceInstanceId("instance")
+								.build()))
+						.expectError(ServiceBrokerConcurrencyException.class)
+						.verify())
+				.then(() -> update.tryEmitValue(UpdateServiceInstanceResponse.builder().build()))
+				.expectNextCount(1)
+				.verifyComplete();
+
+		verify(this.delegate, never()).deleteServiceInstance(any(DeleteServiceInstanceRequest.class));
+	}
+
+	@Test
+	void promotedOperationStaysRegisteredUntilItCompletesInTheBackground() {
+		VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+		AsyncOperationPromoter promoter = new AsyncOperationPromoter(LatencyBudget.fixed(Duration.ofSeconds(10)),
+				new AsyncOperationRegistry(), new OperationLatencies(), timer);
+		SerializingServiceInstanceService promoting = new SerializingServiceInstanceService(
+				new PromotingServiceInstanceService(this.delegate, promoter), this.registry);
+		Sinks.One<UpdateServiceInstanceResponse> update = Sinks.one();
+		given(this.delegate.updateServiceInstance(any(UpdateServiceInstanceRequest.class)))
+				.willReturn(update.asMono());
+
+		StepVerifier.create(promoting.updateServiceInstance(UpdateServiceInstanceRequest.builder()
+						.serviceInstanceId("instance")
+						.asyncAccepted(true)
+						.build()))
+				.then(() -> timer.advanceTimeBy(Duration.ofSeconds(10)))
+				.assertNext(response -> assertThat(response.isAsync()).isTrue())
+				.verifyComplete();
+
+		assertThat(this.registry.getInFlightCount()).isEqualTo(1);
+
+		update.tryEmitValue(UpdateServiceInstanceResponse.builder().build());
+
+		assertThat(this.registry.getInFlightCount()).isZero();
+		timer.dispose();
+	}
+
+	@Test
+	void lastOperationDuringUpdateIsNotRejected() {
+		given(this.delegate.updateServiceInstance(any(UpdateServiceInstanceRequest.class)))
+				.willReturn(Mono.never());
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder().build()));
+		given(this.delegate.deleteServiceInstance(any(DeleteServiceInstanceRequest.class)))
+				.willReturn(Mono.just(DeleteServiceInstanceResponse.builder().build()));
+
+		this.service.updateServiceInstance(UpdateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.build()).subscribe();
+
+		StepVerifier.create(this.service.getLastOperation(GetLastServiceOperationRequest.builder()
+						.serviceInstanceId("instance")
+						.build()))
+				.expectNextCount(1)
+				.verifyComplete();
+		StepVerifier.create(this.service.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+						.serviceInstanceId("other-instance")
+						.build()))
+				.expectNextCount(1)
+				.verifyComplete();
+	}
+
+}
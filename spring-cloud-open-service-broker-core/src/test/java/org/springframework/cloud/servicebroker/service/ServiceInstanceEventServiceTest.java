@@ -16,8 +16,13 @@
 
 package org.springframework.cloud.servicebroker.service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -31,7 +36,13 @@ import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOper
 import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceRequest;
 import org.springframework.cloud.servicebroker.model.instance.UpdateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.DefaultServiceBrokerEventCodec;
+import org.springframework.cloud.servicebroker.service.events.EventFlowOutboxConsumer;
 import org.springframework.cloud.servicebroker.service.events.EventFlowRegistries;
+import org.springframework.cloud.servicebroker.service.events.EventOutboxLog;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventOutbox;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceCompletionFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceErrorFlow;
 import org.springframework.cloud.servicebroker.service.events.flows.AsyncOperationServiceInstanceInitializationFlow;
@@ -50,12 +61,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 @SuppressWarnings("deprecation")
 class ServiceInstanceEventServiceTest {
 
+	private static final Mono<CreateServiceInstanceResponse> CREATE_RESPONSE =
+			Mono.just(CreateServiceInstanceResponse.builder().build());
+
 	private ServiceInstanceEventService serviceInstanceEventService;
 
 	private EventFlowRegistries eventFlowRegistries;
 
 	private EventFlowTestResults results;
 
+	@TempDir
+	Path directory;
+
 	@BeforeEach
 	void setUp() {
 		this.eventFlowRegistries = new EventFlowRegistries();
@@ -124,6 +141,83 @@ class ServiceInstanceEventServiceTest {
 		assertThat(this.results.getErrorCreate()).isEqualTo("error service-instance-id");
 	}
 
+	@Test
+	void createServiceInstanceWithoutFlowsCallsServiceDirectly() {
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("service-instance-id")
+				.serviceDefinitionId("service-def-id")
+				.build();
+
+		assertThat(this.eventFlowRegistries.getCreateInstanceRegistry().hasFlows()).isFalse();
+		assertThat(serviceInstanceEventService.createServiceInstance(request)).isSameAs(CREATE_RESPONSE);
+	}
+
+	@Test
+	void createServiceInstanceOutcomesArePublishedToEventStream() {
+		ServiceBrokerEventStream eventStream = new ServiceBrokerEventStream();
+		serviceInstanceEventService = new ServiceInstanceEventService(new TestServiceInstanceService(),
+				eventFlowRegistries, eventStream);
+
+		StepVerifier.create(eventStream.events().take(2))
+				.then(() -> {
+					serviceInstanceEventService.createServiceInstance(CreateServiceInstanceRequest.builder()
+							.serviceInstanceId("service-instance-id")
+							.serviceDefinitionId("service-def-id")
+							.build()).block();
+					serviceInstanceEventService.createServiceInstance(CreateServiceInstanceRequest.builder()
+							.serviceInstanceId("service-instance-id")
+							.build())
+							.onErrorResume(e -> Mono.empty())
+							.block();
+				})
+				.assertNext(event -> {
+					assertThat(event.getType()).isEqualTo(ServiceBrokerEvent.Type.CREATE_SERVICE_INSTANCE);
+					assertThat(event.isSuccessful()).isTrue();
+				})
+				.assertNext(event -> assertThat(event.getError())
+						.isInstanceOf(ServiceBrokerInvalidParametersException.class))
+				.verifyComplete();
+		eventStream.close();
+	}
+
+	@Test
+	void createServiceInstanceFlowsRunWhenOutboxDeliversOutcomes() {
+		prepareCreateEventFlows();
+		ServiceBrokerEventStream eventStream = new ServiceBrokerEventStream();
+		ServiceBrokerEventOutbox outbox = new ServiceBrokerEventOutbox(new EventOutboxLog(this.directory),
+				new DefaultServiceBrokerEventCodec(),
+				Collections.singletonList(new EventFlowOutboxConsumer(this.eventFlowRegistries)),
+				ServiceBrokerEventStream.DEFAULT_BATCH_SIZE, Duration.ofHours(1), Duration.ZERO);
+		eventStream.setOutbox(outbox);
+		serviceInstanceEventService = new ServiceInstanceEventService(new TestServiceInstanceService(),
+				eventFlowRegistries, eventStream);
+
+		StepVerifier.create(serviceInstanceEventService.createServiceInstance(
+				CreateServiceInstanceRequest.builder()
+						.serviceInstanceId("service-instance-id")
+						.serviceDefinitionId("service-def-id")
+						.build()))
+				.expectNext(CreateServiceInstanceResponse.builder().build())
+				.verifyComplete();
+		StepVerifier.create(serviceInstanceEventService.createServiceInstance(
+				CreateServiceInstanceRequest.builder()
+						.serviceInstanceId("failed-instance-id")
+						.build()))
+				.expectError(ServiceBrokerInvalidParametersException.class)
+				.verify();
+
+		assertThat(this.results.getBeforeCreate()).isEqualTo("before failed-instance-id");
+		assertThat(this.results.getAfterCreate()).isNullOrEmpty();
+		assertThat(this.results.getErrorCreate()).isNullOrEmpty();
+
+		outbox.commitAndDeliver();
+
+		assertThat(this.results.getAfterCreate()).isEqualTo("after service-instance-id");
+		assertThat(this.results.getErrorCreate()).isEqualTo("error failed-instance-id");
+		outbox.close();
+		eventStream.close();
+	}
+
 	@Test
 	void deleteServiceInstanceSucceeds() {
 		prepareDeleteEventFlows();
@@ -323,7 +417,7 @@ class ServiceInstanceEventServiceTest {
 			if (request.getServiceDefinitionId() == null) {
 				return Mono.error(new ServiceBrokerInvalidParametersException("arrrr"));
 			}
-			return Mono.just(CreateServiceInstanceResponse.builder().build());
+			return CREATE_RESPONSE;
 		}
 
 		@Override
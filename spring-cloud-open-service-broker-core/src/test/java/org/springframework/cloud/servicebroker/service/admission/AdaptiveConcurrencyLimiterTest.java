@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerUnavailableException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	private static final Duration NO_LOAD_LATENCY = Duration.ofMillis(100);
+
+	private static final int CAPACITY = 10;
+
+	private static final Duration TICK = Duration.ofMillis(10);
+
+	private static final int ARRIVALS_PER_TICK = 5;
+
+	private final MutableNanoTime nanoTime = new MutableNanoTime();
+
+	private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 100, 1.5,
+			Duration.ofMinutes(1), Duration.ofSeconds(5), this.nanoTime);
+
+	@Test
+	void operationsBeyondTheLimitAreRejected() {
+		for (int i = 0; i < 10; i++) {
+			this.limiter.limit("service", OperationType.CREATE, Mono::never).subscribe();
+		}
+
+		StepVerifier.create(this.limiter.limit("service", OperationType.CREATE, () -> Mono.just("rejected")))
+				.expectError(ServiceBrokerUnavailableException.class)
+				.verify();
+		StepVerifier.create(this.limiter.limit("service", OperationType.LAST_OPERATION, () -> Mono.just("admitted")))
+				.expectNext("admitted")
+				.verifyComplete();
+		assertThat(this.limiter.getInFlightCount("service", OperationType.CREATE)).isEqualTo(10);
+		assertThat(this.limiter.getRejectedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void probeReducesTheLimitToTheProbeRatioRatherThanTheMinimum() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 2, 100, 1.5, Duration.ofMinutes(1),
+				0.25, Duration.ofSeconds(5), this.nanoTime);
+
+		limiter.limit("service", OperationType.CREATE, Mono::never).subscribe();
+
+		assertThat(limiter.getLimit("service", OperationType.CREATE)).isEqualTo(5);
+	}
+
+	@Test
+	void noLoadLatencyIsMeasuredBeforeTheLimitApplies() {
+		assertThat(this.limiter.getLimit("service", OperationType.CREATE)).isEqualTo(20);
+
+		complete(10, NO_LOAD_LATENCY);
+
+		assertThat(this.limiter.getNoLoadLatency("service", OperationType.CREATE)).isEqualTo(NO_LOAD_LATENCY);
+		assertThat(this.limiter.getLimit("service", OperationType.CREATE)).isEqualTo(20);
+	}
+
+	@Test
+	void limitShrinksWhenLatencyRises() {
+		complete(10, NO_LOAD_LATENCY);
+
+		complete(20, NO_LOAD_LATENCY.multipliedBy(4));
+
+		assertThat(this.limiter.getLimit("service", OperationType.CREATE)).isLessThan(20);
+		assertThat(this.limiter.getNoLoadLatency("service", OperationType.CREATE)).isEqualTo(NO_LOAD_LATENCY);
+	}
+
+	@Test
+	void noLoadLatencyIsMeasuredAgainAfterTheProbeInterval() {
+		complete(10, NO_LOAD_LATENCY);
+		this.nanoTime.advance(Duration.ofMinutes(1));
+
+		complete(11, NO_LOAD_LATENCY.multipliedBy(2));
+
+		assertThat(this.limiter.getNoLoadLatency("service", OperationType.CREATE))
+				.isEqualTo(NO_LOAD_LATENCY.multipliedBy(2));
+	}
+
+	@Test
+	void latencyStaysFlatWhileThroughputConvergesToBackendCapacity() {
+		VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+				AdaptiveConcurrencyLimiter.DEFAULT_INITIAL_LIMIT, AdaptiveConcurrencyLimiter.DEFAULT_MIN_LIMIT,
+				AdaptiveConcurrencyLimiter.DEFAULT_MAX_LIMIT, AdaptiveConcurrencyLimiter.DEFAULT_TOLERANCE,
+				AdaptiveConcurrencyLimiter.DEFAULT_PROBE_INTERVAL, Duration.ofSeconds(5), () -> timer.now(TimeUnit.NANOSECONDS));
+		Backend backend = new Backend(timer);
+		List<Long> completedAt = new ArrayList<>();
+		List<Long> latencies = new ArrayList<>();
+
+		for (int tick = 0; tick < 9000; tick++) {
+			for (int i = 0; i < ARRIVALS_PER_TICK; i++) {
+				long start = timer.now(TimeUnit.MILLISECONDS);
+				limiter.limit("service", OperationType.CREATE, backend::call)
+						.subscribe(result -> {
+							completedAt.add(timer.now(TimeUnit.MILLISECONDS));
+							latencies.add(timer.now(TimeUnit.MILLISECONDS) - start);
+						}, e -> { });
+			}
+			timer.advanceTimeBy(TICK);
+		}
+
+		long capacityPerSecond = CAPACITY * 1000 / NO_LOAD_LATENCY.toMillis();
+		long firstMedian = percentile(latenciesCompletedBetween(completedAt, latencies, 20, 30), 0.5);
+		for (int window = 20; window < 90; window += 10) {
+			List<Long> windowLatencies = latenciesCompletedBetween(completedAt, latencies, window, window + 10);
+			assertThat(windowLatencies.size() / 10L).isBetween(capacityPerSecond * 9 / 10, capacityPerSecond);
+			assertThat(percentile(windowLatencies, 0.5)).isBetween(firstMedian * 9 / 10, firstMedian * 11 / 10);
+			assertThat(percentile(windowLatencies, 0.99)).isLessThan(NO_LOAD_LATENCY.toMillis() * 5 / 2);
+		}
+		assertThat(limiter.getLimit("service", OperationType.CREATE)).isBetween(CAPACITY, 3 * CAPACITY);
+		assertThat(limiter.getAdmittedCount()).isBetween(capacityPerSecond * 90 * 9 / 10,
+				capacityPerSecond * 90 + 3 * CAPACITY);
+	}
+
+	private void complete(int operations, Duration latency) {
+		for (int i = 0; i < operations; i++) {
+			StepVerifier.create(this.limiter.limit("service", OperationType.CREATE, () -> Mono.fromCallable(() -> {
+						this.nanoTime.advance(latency);
+						return "completed";
+					})))
+					.expectNext("completed")
+					.verifyComplete();
+		}
+	}
+
+	private static List<Long> latenciesCompletedBetween(List<Long> completedAt, List<Long> latencies, int fromSecond,
+			int toSecond) {
+		List<Long> between = new ArrayList<>();
+		for (int i = 0; i < completedAt.size(); i++) {
+			if (completedAt.get(i) >= fromSecond * 1000L && completedAt.get(i) < toSecond * 1000L) {
+				between.add(latencies.get(i));
+			}
+		}
+		return between;
+	}
+
+	private static long percentile(List<Long> values, double percentile) {
+		List<Long> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+	}
+
+	/**
+	 * A backend with a fixed number of workers, that slows down in proportion to the operations it has in flight
+	 * beyond that number
+	 */
+	private static final class Backend {
+
+		private final VirtualTimeScheduler timer;
+
+		private int inFlight;
+
+		private Backend(VirtualTimeScheduler timer) {
+			this.timer = timer;
+		}
+
+		Mono<String> call() {
+			return Mono.defer(() -> {
+				this.inFlight++;
+				double slowdown = Math.max(1.0, (double) this.inFlight / CAPACITY);
+				return Mono.delay(Duration.ofNanos((long) (NO_LOAD_LATENCY.toNanos() * slowdown)), this.timer)
+						.thenReturn("completed")
+						.doFinally(signal -> this.inFlight--);
+			});
+		}
+
+	}
+
+	private static final class MutableNanoTime implements LongSupplier {
+
+		private long now;
+
+		void advance(Duration duration) {
+			this.now += duration.toNanos();
+		}
+
+		@Override
+		public long getAsLong() {
+			return this.now;
+		}
+
+	}
+
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+
+	private static final Duration RETRY_AFTER = Duration.ofSeconds(7);
+
+	@Test
+	void operationsBeyondTheLimitWaitAndAreDispatchedInOrder() {
+		AdmissionController controller = new AdmissionController(Collections.emptyList(), 1, 1,
+				Duration.ofMinutes(1), RETRY_AFTER);
+		Sinks.One<String> first = Sinks.one();
+
+		StepVerifier.create(controller.admit("service", "plan", OperationType.CREATE, first::asMono))
+				.then(() -> {
+					StepVerifier second = StepVerifier.create(controller.admit("service", "plan",
+									OperationType.CREATE, () -> Mono.just("second")))
+							.expectNext("second")
+							.expectComplete()
+							.verifyLater();
+					assertThat(controller.getInFlightCount("service", "plan", OperationType.CREATE)).isEqualTo(1);
+					assertThat(controller.getQueuedCount("service", "plan", OperationType.CREATE)).isEqualTo(1);
+					first.tryEmitValue("first");
+					second.verify();
+				})
+				.expectNext("first")
+				.verifyComplete();
+
+		assertThat(controller.getInFlightCount()).isZero();
+		assertThat(controller.getQueuedCount()).isZero();
+		assertThat(controller.getAdmittedCount()).isEqualTo(2);
+		assertThat(controller.getWaitedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void operationsBeyondTheQueueAreRejectedWithRetryInterval() {
+		AdmissionController controller = new AdmissionController(Collections.emptyList(), 1, 0,
+				Duration.ofMinutes(1), RETRY_AFTER);
+		Disposable inFlight = controller.admit("service", "plan", OperationType.CREATE, Mono::never).subscribe();
+
+		StepVerifier.create(controller.admit("service", "plan", OperationType.CREATE, () -> Mono.just("rejected")))
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(ServiceBrokerOverloadedException.class)
+						.extracting("retryAfter").isEqualTo(RETRY_AFTER))
+				.verify();
+
+		assertThat(controller.getRejectedCount()).isEqualTo(1);
+		inFlight.dispose();
+		assertThat(controller.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void operationsWaitingTooLongAreRejected() {
+		VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+		AdmissionController controller = new AdmissionController(Collections.emptyList(), 1, 1,
+				Duration.ofSeconds(2), RETRY_AFTER, timer);
+		Disposable inFlight = controller.admit("service", "plan", OperationType.CREATE, Mono::never).subscribe();
+
+		StepVerifier.create(controller.admit("service", "plan", OperationType.CREATE, () -> Mono.just("expired")))
+				.then(() -> assertThat(controller.getQueuedCount()).isEqualTo(1))
+				.then(() -> timer.advanceTimeBy(Duration.ofSeconds(2)))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+
+		assertThat(controller.getQueuedCount()).isZero();
+		assertThat(controller.getRejectedCount()).isEqualTo(1);
+		inFlight.dispose();
+	}
+
+	@Test
+	void cancelledOperationsReleaseTheirPlaces() {
+		AdmissionController controller = new AdmissionController(Collections.emptyList(), 1, 1,
+				Duration.ofMinutes(1), RETRY_AFTER, VirtualTimeScheduler.create());
+		Disposable inFlight = controller.admit("service", "plan", OperationType.DELETE, Mono::never).subscribe();
+		Disposable waiting = controller.admit("service", "plan", OperationType.DELETE, Mono::never).subscribe();
+		assertThat(controller.getQueuedCount("service", "plan", OperationType.DELETE)).isEqualTo(1);
+
+		waiting.dispose();
+		inFlight.dispose();
+
+		assertThat(controller.getQueuedCount()).isZero();
+		assertThat(controller.getInFlightCount()).isZero();
+		StepVerifier.create(controller.admit("service", "plan", OperationType.DELETE, () -> Mono.just("admitted")))
+				.expectNext("admitted")
+				.verifyComplete();
+	}
+
+	@Test
+	void mostSpecificRuleLimitsEachServiceDefinitionPlanAndOperationType() {
+		AdmissionController controller = new AdmissionController(Arrays.asList(
+				new AdmissionRule("service", null, null, 1, 0),
+				new AdmissionRule("service", "large", OperationType.CREATE, 2, 0)), 10, 0,
+				Duration.ofMinutes(1), RETRY_AFTER);
+
+		controller.admit("service", "large", OperationType.CREATE, Mono::never).subscribe();
+		controller.admit("service", "large", OperationType.CREATE, Mono::never).subscribe();
+		controller.admit("service", "small", OperationType.CREATE, Mono::never).subscribe();
+		controller.admit("service", "small", OperationType.LAST_OPERATION, Mono::never).subscribe();
+		controller.admit("other", "plan", OperationType.CREATE, Mono::never).subscribe();
+		controller.admit("other", "plan", OperationType.CREATE, Mono::never).subscribe();
+
+		assertThat(controller.getInFlightCount("service", "large", OperationType.CREATE)).isEqualTo(2);
+		assertThat(controller.getInFlightCount("service", "small", OperationType.CREATE)).isEqualTo(1);
+		assertThat(controller.getInFlightCount("service", "small", OperationType.LAST_OPERATION)).isEqualTo(1);
+		assertThat(controller.getInFlightCount("other", "plan", OperationType.CREATE)).isEqualTo(2);
+		StepVerifier.create(controller.admit("service", "small", OperationType.CREATE, () -> Mono.just("rejected")))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+		StepVerifier.create(controller.admit("service", "large", OperationType.CREATE, () -> Mono.just("rejected")))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+	}
+
+}
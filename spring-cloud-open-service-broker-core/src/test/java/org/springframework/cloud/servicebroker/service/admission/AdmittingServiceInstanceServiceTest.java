@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class AdmittingServiceInstanceServiceTest {
+
+	private final ServiceInstanceService delegate = mock(ServiceInstanceService.class);
+
+	private final AdmissionController admissionController = new AdmissionController(Collections.emptyList(), 1, 0,
+			Duration.ofSeconds(1), Duration.ofSeconds(5));
+
+	private final AdmittingServiceInstanceService service = new AdmittingServiceInstanceService(this.delegate,
+			this.admissionController);
+
+	@Test
+	void createBeyondTheLimitIsRejectedWithoutCallingTheService() {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.never());
+
+		this.service.createServiceInstance(createRequest()).subscribe();
+
+		StepVerifier.create(this.service.createServiceInstance(createRequest()))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+		verify(this.delegate, times(1)).createServiceInstance(any(CreateServiceInstanceRequest.class));
+		assertThat(this.admissionController.getInFlightCount("service", "plan", OperationType.CREATE)).isEqualTo(1);
+	}
+
+	@Test
+	void lastOperationIsAdmittedWhileCreatesAreAtTheLimit() {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.never());
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(GetLastServiceOperationResponse.builder().build()));
+
+		this.service.createServiceInstance(createRequest()).subscribe();
+
+		StepVerifier.create(this.service.getLastOperation(GetLastServiceOperationRequest.builder()
+						.serviceInstanceId("instance")
+						.serviceDefinitionId("service")
+						.planId("plan")
+						.build()))
+				.expectNextCount(1)
+				.verifyComplete();
+	}
+
+	private static CreateServiceInstanceRequest createRequest() {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.build();
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BulkheadsTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final CountDownLatch stall = new CountDownLatch(1);
+
+	@Test
+	void operationsAreSubscribedOnTheSchedulerOfTheirLane() {
+		try (Bulkheads bulkheads = new Bulkheads(Collections.emptyList(), Collections.singleton("service"),
+				BulkheadIsolation.SCHEDULER, Bulkheads.DEFAULT_MAX_CONCURRENT, TIMEOUT)) {
+			StepVerifier.create(bulkheads.execute("service", () -> Mono.fromCallable(
+							() -> Thread.currentThread().getName())))
+					.assertNext(thread -> assertThat(thread).startsWith("bulkhead-service"))
+					.verifyComplete();
+			assertThat(bulkheads.getLaneNames()).containsExactly("service");
+			assertThat(bulkheads.getInFlightCount("service")).isZero();
+		}
+	}
+
+	@Test
+	void stalledServiceDoesNotRaiseTheLatencyOfAnotherService() {
+		Bulkheads bulkheads = new Bulkheads(Collections.emptyList(), new HashSet<>(Arrays.asList("stalled", "fast")),
+				BulkheadIsolation.SCHEDULER, 2, TIMEOUT);
+		try {
+			stallLane(bulkheads, "stalled");
+
+			List<Long> latencies = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				long start = System.nanoTime();
+				assertThat(bulkheads.execute("fast", () -> Mono.just("completed")).block(TIMEOUT))
+						.isEqualTo("completed");
+				latencies.add(System.nanoTime() - start);
+			}
+
+			assertThat(percentile(latencies, 0.99)).isLessThan(TimeUnit.MILLISECONDS.toNanos(100));
+			assertThat(bulkheads.getRejectedCount("fast")).isZero();
+			assertThat(bulkheads.getSaturation("fast")).isZero();
+			assertThat(bulkheads.getSaturation("stalled")).isEqualTo(1.0);
+			assertThat(bulkheads.getRejectedCount("stalled")).isEqualTo(1);
+		}
+		finally {
+			this.stall.countDown();
+			bulkheads.close();
+		}
+	}
+
+	@Test
+	void operationsOfUnknownServiceDefinitionsShareTheDefaultLane() {
+		try (Bulkheads bulkheads = new Bulkheads(Collections.emptyList(), Collections.singleton("service"),
+				BulkheadIsolation.SCHEDULER, 2, TIMEOUT)) {
+			StepVerifier.create(bulkheads.execute(null, () -> Mono.fromCallable(
+							() -> Thread.currentThread().getName())))
+					.assertNext(thread -> assertThat(thread).startsWith("bulkhead-default"))
+					.verifyComplete();
+			StepVerifier.create(bulkheads.execute("unknown", () -> Mono.just("completed")))
+					.expectNext("completed")
+					.verifyComplete();
+
+			assertThat(bulkheads.getLaneName(null)).isEqualTo(Bulkheads.DEFAULT_LANE);
+			assertThat(bulkheads.getLaneName("unknown")).isEqualTo(Bulkheads.DEFAULT_LANE);
+			assertThat(bulkheads.getLaneNames()).containsExactly(Bulkheads.DEFAULT_LANE);
+		}
+	}
+
+	@Test
+	void stalledServiceSaturatesTheLaneItShares() {
+		Bulkheads bulkheads = new Bulkheads(Collections.singletonList(new BulkheadRule("shared",
+				Arrays.asList("stalled", "fast"), BulkheadIsolation.SCHEDULER, 2)),
+				BulkheadIsolation.SCHEDULER, 2, TIMEOUT);
+		try {
+			stallLane(bulkheads, "stalled");
+
+			StepVerifier.create(bulkheads.execute("fast", () -> Mono.just("rejected")))
+					.expectErrorSatisfies(e -> assertThat(e)
+							.isInstanceOf(ServiceBrokerOverloadedException.class)
+							.hasMessageContaining("lane=shared"))
+					.verify();
+			assertThat(bulkheads.getLaneName("fast")).isEqualTo("shared");
+			assertThat(bulkheads.getRejectedCount("shared")).isEqualTo(2);
+		}
+		finally {
+			this.stall.countDown();
+			bulkheads.close();
+		}
+	}
+
+	@Test
+	void semaphoreLaneRunsOperationsOnTheCallingThread() {
+		try (Bulkheads bulkheads = new Bulkheads(Collections.singletonList(new BulkheadRule("semaphore",
+				Collections.singletonList("service"), BulkheadIsolation.SEMAPHORE, 1)),
+				BulkheadIsolation.SCHEDULER, 2, TIMEOUT)) {
+			String caller = Thread.currentThread().getName();
+			StepVerifier.create(bulkheads.execute("service", () -> Mono.fromCallable(
+							() -> Thread.currentThread().getName())))
+					.expectNext(caller)
+					.verifyComplete();
+
+			bulkheads.execute("service", Mono::never).subscribe();
+
+			StepVerifier.create(bulkheads.execute("service", () -> Mono.just("rejected")))
+					.expectError(ServiceBrokerOverloadedException.class)
+					.verify();
+			assertThat(bulkheads.getSaturation("semaphore")).isEqualTo(1.0);
+		}
+	}
+
+	private void stallLane(Bulkheads bulkheads, String serviceDefinitionId) {
+		bulkheads.execute(serviceDefinitionId, this::stalledCall).subscribe();
+		bulkheads.execute(serviceDefinitionId, this::stalledCall).subscribe();
+		StepVerifier.create(bulkheads.execute(serviceDefinitionId, this::stalledCall))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+	}
+
+	private Mono<String> stalledCall() {
+		return Mono.fromCallable(() -> {
+			this.stall.await(TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			return "stalled";
+		});
+	}
+
+	private static long percentile(List<Long> values, double percentile) {
+		List<Long> sorted = new ArrayList<>(values);
+		Collections.sort(sorted);
+		return sorted.get((int) Math.ceil(percentile * sorted.size()) - 1);
+	}
+
+}
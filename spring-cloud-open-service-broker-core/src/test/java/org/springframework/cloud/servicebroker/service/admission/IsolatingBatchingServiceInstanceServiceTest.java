@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.service.BatchingServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class IsolatingBatchingServiceInstanceServiceTest {
+
+	private final BatchingServiceInstanceService delegate = mock(BatchingServiceInstanceService.class);
+
+	private final Bulkheads bulkheads = new Bulkheads(Collections.singletonList(new BulkheadRule("stalled",
+			Collections.singletonList("stalled"), BulkheadIsolation.SEMAPHORE, 1)),
+			BulkheadIsolation.SEMAPHORE, 2, Duration.ofSeconds(5));
+
+	private final IsolatingBatchingServiceInstanceService service = new IsolatingBatchingServiceInstanceService(
+			this.delegate, this.bulkheads);
+
+	@Test
+	void requestsOfASaturatedLaneAreLeftOutOfTheBatch() {
+		given(this.delegate.getLastOperations(anyList())).willAnswer(invocation -> {
+			List<GetLastServiceOperationRequest> requests = invocation.getArgument(0);
+			Map<GetLastServiceOperationRequest, GetLastServiceOperationResponse> responses = new LinkedHashMap<>();
+			requests.forEach(request -> responses.put(request, GetLastServiceOperationResponse.builder().build()));
+			return Mono.just(responses);
+		});
+		GetLastServiceOperationRequest stalled = request("stalled");
+		GetLastServiceOperationRequest polled = request(null);
+		this.bulkheads.execute("stalled", Mono::never).subscribe();
+
+		StepVerifier.create(this.service.getLastOperations(Arrays.asList(stalled, polled)))
+				.assertNext(responses -> assertThat(responses).containsOnlyKeys(polled))
+				.verifyComplete();
+		verify(this.delegate).getLastOperations(Collections.singletonList(polled));
+		assertThat(this.bulkheads.getRejectedCount("stalled")).isEqualTo(1);
+		assertThat(this.bulkheads.getInFlightCount(Bulkheads.DEFAULT_LANE)).isZero();
+	}
+
+	private static GetLastServiceOperationRequest request(String serviceDefinitionId) {
+		return GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance-" + serviceDefinitionId)
+				.serviceDefinitionId(serviceDefinitionId)
+				.build();
+	}
+
+}
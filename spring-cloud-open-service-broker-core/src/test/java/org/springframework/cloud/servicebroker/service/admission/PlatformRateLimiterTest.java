@@ -0,0 +1,150 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerRateLimitedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class PlatformRateLimiterTest {
+
+	private static final Duration RETRY_AFTER = Duration.ofSeconds(7);
+
+	private final MutableClock clock = new MutableClock();
+
+	@Test
+	void platformKeyFallsBackToPrincipalAndOriginatingIdentityPlatform() {
+		assertThat(PlatformRateLimiter.platformKey("cf-east", "cloudfoundry eyJ1c2VyX2lkIjoiMSJ9", "admin"))
+				.isEqualTo("platform:cf-east");
+		assertThat(PlatformRateLimiter.platformKey(null, "cloudfoundry eyJ1c2VyX2lkIjoiMSJ9", "admin"))
+				.isEqualTo("principal:admin");
+		assertThat(PlatformRateLimiter.platformKey("", null, "admin")).isEqualTo("principal:admin");
+		assertThat(PlatformRateLimiter.platformKey(null, "cloudfoundry eyJ1c2VyX2lkIjoiMSJ9", null))
+				.isEqualTo(PlatformRateLimiter.platformKey(null, "cloudfoundry eyJ1c2VyX2lkIjoiMiJ9", null))
+				.isEqualTo("identity:cloudfoundry");
+		assertThat(PlatformRateLimiter.platformKey(null, null, null)).isEqualTo(PlatformRateLimiter.ANONYMOUS_KEY);
+	}
+
+	@Test
+	void requestsBeyondTheBurstAreRateLimitedUntilTokensAccrue() {
+		PlatformRateLimiter limiter = new PlatformRateLimiter(10, 3, 10, 10, Duration.ofMinutes(1), RETRY_AFTER,
+				this.clock);
+		limiter.acquire("platform:cf").dispose();
+		limiter.acquire("platform:cf").dispose();
+		limiter.acquire("platform:cf").dispose();
+
+		assertThatExceptionOfType(ServiceBrokerRateLimitedException.class)
+				.isThrownBy(() -> limiter.acquire("platform:cf"))
+				.satisfies(e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMillis(100)));
+
+		this.clock.advance(Duration.ofMillis(100));
+		limiter.acquire("platform:cf").dispose();
+		assertThat(limiter.getAdmittedCount("platform:cf")).isEqualTo(4);
+		assertThat(limiter.getRateLimitedCount("platform:cf")).isEqualTo(1);
+		assertThat(limiter.getInFlightCount("platform:cf")).isZero();
+	}
+
+	@Test
+	void oneMisbehavingPlatformDoesNotStarveAnother() {
+		PlatformRateLimiter limiter = new PlatformRateLimiter(1, 2, 10, 10, Duration.ofMinutes(1), RETRY_AFTER,
+				this.clock);
+		limiter.acquire("platform:noisy").dispose();
+		limiter.acquire("platform:noisy").dispose();
+		assertThatExceptionOfType(ServiceBrokerRateLimitedException.class)
+				.isThrownBy(() -> limiter.acquire("platform:noisy"));
+
+		limiter.acquire("platform:quiet").dispose();
+
+		assertThat(limiter.getAdmittedCount("platform:quiet")).isEqualTo(1);
+		assertThat(limiter.getRateLimitedCount("platform:quiet")).isZero();
+	}
+
+	@Test
+	void requestsBeyondTheConcurrencyAreRejected() {
+		PlatformRateLimiter limiter = new PlatformRateLimiter(100, 100, 2, 10, Duration.ofMinutes(1), RETRY_AFTER,
+				this.clock);
+		Disposable first = limiter.acquire("platform:cf");
+		limiter.acquire("platform:cf");
+
+		assertThatExceptionOfType(ServiceBrokerOverloadedException.class)
+				.isThrownBy(() -> limiter.acquire("platform:cf"))
+				.satisfies(e -> assertThat(e.getRetryAfter()).isEqualTo(RETRY_AFTER));
+		assertThat(limiter.getConcurrencyLimitedCount("platform:cf")).isEqualTo(1);
+
+		first.dispose();
+		first.dispose();
+		assertThat(limiter.getInFlightCount("platform:cf")).isEqualTo(1);
+		limiter.acquire("platform:cf");
+		assertThat(limiter.getInFlightCount("platform:cf")).isEqualTo(2);
+	}
+
+	@Test
+	void idlePlatformsAreEvictedAndNewPlatformsShareAnOverflowBucketWhenFull() {
+		PlatformRateLimiter limiter = new PlatformRateLimiter(100, 100, 10, 2, Duration.ofMinutes(1), RETRY_AFTER,
+				this.clock);
+		limiter.acquire("platform:a").dispose();
+		limiter.acquire("platform:b").dispose();
+		limiter.acquire("platform:c").dispose();
+
+		assertThat(limiter.getPlatformKeys()).containsExactlyInAnyOrder("platform:a", "platform:b",
+				PlatformRateLimiter.OVERFLOW_KEY);
+		assertThat(limiter.getAdmittedCount(PlatformRateLimiter.OVERFLOW_KEY)).isEqualTo(1);
+
+		this.clock.advance(Duration.ofMinutes(1));
+		limiter.acquire("platform:d").dispose();
+
+		assertThat(limiter.getPlatformKeys()).containsExactly("platform:d");
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.admission;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerOverloadedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PriorityDispatcherTest {
+
+	private static final Duration RETRY_AFTER = Duration.ofSeconds(7);
+
+	@Test
+	void pollsAndDeletesKeepFlowingWhileCreatesAreThrottled() {
+		PriorityDispatcher dispatcher = new PriorityDispatcher(Collections.emptyMap(), 3, 1, 10,
+				Duration.ofMinutes(1), RETRY_AFTER, VirtualTimeScheduler.create());
+		dispatcher.dispatch(OperationType.CREATE, Mono::never).subscribe();
+		dispatcher.dispatch(OperationType.UPDATE, Mono::never).subscribe();
+		dispatcher.dispatch(OperationType.CREATE_BINDING, Mono::never).subscribe();
+
+		assertThat(dispatcher.getInFlightCount(PriorityLane.CREATE)).isEqualTo(2);
+		assertThat(dispatcher.getQueuedCount(PriorityLane.CREATE)).isEqualTo(1);
+		StepVerifier.create(dispatcher.dispatch(OperationType.LAST_OPERATION, () -> Mono.just("polled")))
+				.expectNext("polled")
+				.verifyComplete();
+		StepVerifier.create(dispatcher.dispatch(OperationType.DELETE, () -> Mono.just("deleted")))
+				.expectNext("deleted")
+				.verifyComplete();
+		assertThat(dispatcher.getQueuedCount(PriorityLane.CREATE)).isEqualTo(1);
+	}
+
+	@Test
+	void waitingLanesAreServedInProportionToTheirWeights() {
+		Map<PriorityLane, Integer> weights = new EnumMap<>(PriorityLane.class);
+		weights.put(PriorityLane.POLL, 2);
+		weights.put(PriorityLane.DELETE, 1);
+		weights.put(PriorityLane.CREATE, 1);
+		PriorityDispatcher dispatcher = new PriorityDispatcher(weights, 1, 0, 10, Duration.ofMinutes(1), RETRY_AFTER,
+				VirtualTimeScheduler.create());
+		Sinks.One<String> blocking = Sinks.one();
+		dispatcher.dispatch(OperationType.GET, blocking::asMono).subscribe();
+		List<PriorityLane> dispatched = Collections.synchronizedList(new ArrayList<>());
+		List<OperationType> operationTypes = Arrays.asList(OperationType.CREATE, OperationType.DELETE,
+				OperationType.LAST_OPERATION);
+
+		for (int i = 0; i < 4; i++) {
+			for (OperationType operationType : operationTypes) {
+				dispatcher.dispatch(operationType, () -> Mono.fromRunnable(
+						() -> dispatched.add(PriorityLane.of(operationType)))).subscribe();
+			}
+		}
+		blocking.tryEmitValue("released");
+
+		assertThat(dispatched.subList(0, 8)).containsExactly(PriorityLane.POLL, PriorityLane.DELETE,
+				PriorityLane.CREATE, PriorityLane.POLL, PriorityLane.POLL, PriorityLane.DELETE, PriorityLane.CREATE,
+				PriorityLane.POLL);
+		assertThat(dispatched).hasSize(12);
+		assertThat(dispatcher.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void waitTimesAreRecordedPerLane() {
+		VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+		PriorityDispatcher dispatcher = new PriorityDispatcher(Collections.emptyMap(), 2, 1, 10,
+				Duration.ofMinutes(1), RETRY_AFTER, timer);
+		Sinks.One<String> first = Sinks.one();
+		dispatcher.dispatch(OperationType.CREATE, first::asMono).subscribe();
+		dispatcher.dispatch(OperationType.CREATE, () -> Mono.just("second")).subscribe();
+		dispatcher.dispatch(OperationType.LAST_OPERATION, () -> Mono.just("polled")).subscribe();
+
+		timer.advanceTimeBy(Duration.ofSeconds(2));
+		first.tryEmitValue("first");
+
+		assertThat(dispatcher.getWaitTimes(PriorityLane.CREATE).getCount()).isEqualTo(2);
+		assertThat(dispatcher.getWaitTimes(PriorityLane.CREATE).getPercentile(1.0))
+				.isBetween(Duration.ofMillis(1750), Duration.ofMillis(2250));
+		assertThat(dispatcher.getWaitTimes(PriorityLane.POLL).getCount()).isEqualTo(1);
+		assertThat(dispatcher.getWaitTimes(PriorityLane.POLL).getPercentile(1.0)).isEqualTo(Duration.ZERO);
+	}
+
+	@Test
+	void operationsBeyondTheLaneAreRejectedWithRetryInterval() {
+		PriorityDispatcher dispatcher = new PriorityDispatcher(Collections.emptyMap(), 1, 0, 0,
+				Duration.ofMinutes(1), RETRY_AFTER, VirtualTimeScheduler.create());
+		Disposable inFlight = dispatcher.dispatch(OperationType.CREATE, Mono::never).subscribe();
+
+		StepVerifier.create(dispatcher.dispatch(OperationType.DELETE, () -> Mono.just("rejected")))
+				.expectErrorSatisfies(e -> assertThat(e).isInstanceOf(ServiceBrokerOverloadedException.class)
+						.extracting("retryAfter").isEqualTo(RETRY_AFTER))
+				.verify();
+
+		assertThat(dispatcher.getRejectedCount(PriorityLane.DELETE)).isEqualTo(1);
+		inFlight.dispose();
+		assertThat(dispatcher.getInFlightCount()).isZero();
+	}
+
+	@Test
+	void operationsWaitingTooLongAreRejected() {
+		VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+		PriorityDispatcher dispatcher = new PriorityDispatcher(Collections.emptyMap(), 1, 0, 1,
+				Duration.ofSeconds(2), RETRY_AFTER, timer);
+		Disposable inFlight = dispatcher.dispatch(OperationType.CREATE, Mono::never).subscribe();
+
+		StepVerifier.create(dispatcher.dispatch(OperationType.UPDATE, () -> Mono.just("expired")))
+				.then(() -> assertThat(dispatcher.getQueuedCount(PriorityLane.CREATE)).isEqualTo(1))
+				.then(() -> timer.advanceTimeBy(Duration.ofSeconds(2)))
+				.expectError(ServiceBrokerOverloadedException.class)
+				.verify();
+
+		assertThat(dispatcher.getQueuedCount(PriorityLane.CREATE)).isZero();
+		assertThat(dispatcher.getRejectedCount(PriorityLane.CREATE)).isEqualTo(1);
+		inFlight.dispose();
+	}
+
+	@Test
+	void cancelledOperationsReleaseTheirPlaces() {
+		PriorityDispatcher dispatcher = new PriorityDispatcher(Collections.emptyMap(), 1, 0, 1,
+				Duration.ofMinutes(1), RETRY_AFTER, VirtualTimeScheduler.create());
+		Disposable inFlight = dispatcher.dispatch(OperationType.DELETE, Mono::never).subscribe();
+		Disposable waiting = dispatcher.dispatch(OperationType.DELETE, Mono::never).subscribe();
+		assertThat(dispatcher.getQueuedCount(PriorityLane.DELETE)).isEqualTo(1);
+
+		waiting.dispose();
+		inFlight.dispose();
+
+		assertThat(dispatcher.getQueuedCount(PriorityLane.DELETE)).isZero();
+		assertThat(dispatcher.getInFlightCount()).isZero();
+		StepVerifier.create(dispatcher.dispatch(OperationType.DELETE, () -> Mono.just("dispatched")))
+				.expectNext("dispatched")
+				.verifyComplete();
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerCreateOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceBindingDoesNotExistException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.catalog.Plan;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncOperationEngineTest {
+
+	private final AsyncOperationEngine engine = new AsyncOperationEngine(Schedulers.immediate(), null,
+			new AsyncOperationRegistry());
+
+	@AfterEach
+	void tearDown() {
+		this.engine.close();
+	}
+
+	@Test
+	void asyncCreateAnswersImmediatelyAndTracksOutcome() {
+		Sinks.Empty<Void> work = Sinks.empty();
+
+		CreateServiceInstanceResponse response = this.engine.createServiceInstance(createRequest(true),
+				work.asMono()).block();
+
+		assertThat(response.isAsync()).isTrue();
+		assertThat(response.getOperation()).isNotNull();
+		assertThat(lastOperation(response.getOperation()).getState()).isEqualTo(OperationState.IN_PROGRESS);
+
+		work.tryEmitEmpty();
+
+		GetLastServiceOperationResponse lastOperation = lastOperation(response.getOperation());
+		assertThat(lastOperation.getState()).isEqualTo(OperationState.SUCCEEDED);
+		assertThat(lastOperation.isDeleteOperation()).isFalse();
+		assertThat(this.engine.getRegistry().getSucceededCount()).isEqualTo(1);
+	}
+
+	@Test
+	void failedWorkIsReportedWithDescription() {
+		CreateServiceInstanceResponse response = this.engine.createServiceInstance(createRequest(true),
+				Mono.error(new IllegalStateException("quota exceeded"))).block();
+
+		GetLastServiceOperationResponse lastOperation = lastOperation(response.getOperation());
+		assertThat(lastOperation.getState()).isEqualTo(OperationState.FAILED);
+		assertThat(lastOperation.getDescription()).isEqualTo("quota exceeded");
+	}
+
+	@Test
+	void syncCreateWaitsForWork() {
+		StepVerifier.create(this.engine.createServiceInstance(createRequest(false), Mono.just("done")))
+				.assertNext(response -> assertThat(response.isAsync()).isFalse())
+				.verifyComplete();
+
+		assertThat(this.engine.getRegistry().size()).isZero();
+	}
+
+	@Test
+	void repeatedCreateReturnsOperationInProgress() {
+		CreateServiceInstanceResponse response = this.engine.createServiceInstance(createRequest(true),
+				Mono.never()).block();
+
+		StepVerifier.create(this.engine.createServiceInstance(createRequest(true), Mono.never()))
+				.expectErrorSatisfies(e -> assertThat(e)
+						.isInstanceOf(ServiceBrokerCreateOperationInProgressException.class)
+						.extracting("operationInProgressMessage.operation")
+						.isEqualTo(response.getOperation()))
+				.verify();
+		StepVerifier.create(this.engine.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.asyncAccepted(true)
+				.build(), Mono.never()))
+				.expectError(ServiceBrokerConcurrencyException.class)
+				.verify();
+	}
+
+	@Test
+	void workIsCancelledAfterMaximumPollingDuration() {
+		CreateServiceInstanceRequest request = createRequest(true);
+		request.setPlan(Plan.builder().id("plan").name("plan").maximumPollingDuration(1).build());
+
+		CreateServiceInstanceResponse response = this.engine.createServiceInstance(request, Mono.never()).block();
+
+		GetLastServiceOperationResponse lastOperation = Mono.defer(() -> this.engine.getLastOperation(
+				GetLastServiceOperationRequest.builder().serviceInstanceId("instance").build()))
+				.filter(r -> r.getState() != OperationState.IN_PROGRESS)
+				.repeatWhenEmpty(attempts -> attempts.delayElements(Duration.ofMillis(50)))
+				.block(Duration.ofSeconds(5));
+		assertThat(lastOperation.getState()).isEqualTo(OperationState.FAILED);
+		assertThat(lastOperation.getDescription()).contains("1 seconds");
+		assertThat(this.engine.getTimeoutCount()).isEqualTo(1);
+		assertThat(response.getOperation()).isNotNull();
+	}
+
+	@Test
+	void unknownOperationsDoNotExist() {
+		StepVerifier.create(this.engine.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("unknown")
+				.build()))
+				.expectError(ServiceInstanceDoesNotExistException.class)
+				.verify();
+
+		this.engine.createServiceInstance(createRequest(true), Mono.never()).block();
+
+		StepVerifier.create(this.engine.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.operation("other")
+				.build()))
+				.expectError(ServiceInstanceDoesNotExistException.class)
+				.verify();
+	}
+
+	@Test
+	void asyncBindingResultIsKept() {
+		CreateServiceInstanceAppBindingResponse credentials = CreateServiceInstanceAppBindingResponse.builder()
+				.credentials("password", "secret")
+				.build();
+		CreateServiceInstanceBindingRequest request = CreateServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.asyncAccepted(true)
+				.build();
+
+		StepVerifier.create(this.engine.createServiceInstanceBinding(request, Mono.just(credentials)))
+				.assertNext(response -> assertThat(response.isAsync()).isTrue())
+				.verifyComplete();
+
+		StepVerifier.create(this.engine.getLastOperation(GetLastServiceBindingOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.build()))
+				.assertNext(response -> assertThat(response.getState()).isEqualTo(OperationState.SUCCEEDED))
+				.verifyComplete();
+		assertThat(this.engine.getRegistry().get("instance", "binding"))
+				.hasValueSatisfying(operation -> assertThat(operation.getResult()).isSameAs(credentials));
+		StepVerifier.create(this.engine.getLastOperation(GetLastServiceBindingOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("other")
+				.build()))
+				.expectError(ServiceInstanceBindingDoesNotExistException.class)
+				.verify();
+	}
+
+	private GetLastServiceOperationResponse lastOperation(String operation) {
+		return this.engine.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.operation(operation)
+				.build())
+				.block();
+	}
+
+	private static CreateServiceInstanceRequest createRequest(boolean asyncAccepted) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.asyncAccepted(asyncAccepted)
+				.build();
+	}
+
+}
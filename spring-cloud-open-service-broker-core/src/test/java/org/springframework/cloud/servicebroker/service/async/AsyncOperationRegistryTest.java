@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerDeleteOperationInProgressException;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class AsyncOperationRegistryTest {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final AsyncOperationRegistry registry = new AsyncOperationRegistry(Duration.ofMinutes(10), this.clock);
+
+	@Test
+	void instancesAndBindingsAreTrackedSeparately() {
+		AsyncOperation instance = this.registry.start("instance", null, AsyncOperation.Type.CREATE);
+		AsyncOperation binding = this.registry.start("instance", "binding", AsyncOperation.Type.CREATE);
+
+		assertThat(this.registry.get("instance", null)).contains(instance);
+		assertThat(this.registry.get("instance", "binding")).contains(binding);
+		assertThat(this.registry.getInProgressCount()).isEqualTo(2);
+	}
+
+	@Test
+	void onlyOneOperationIsInProgress() {
+		AsyncOperation delete = this.registry.start("instance", null, AsyncOperation.Type.DELETE);
+
+		assertThatExceptionOfType(ServiceBrokerDeleteOperationInProgressException.class)
+				.isThrownBy(() -> this.registry.start("instance", null, AsyncOperation.Type.DELETE));
+		assertThatExceptionOfType(ServiceBrokerConcurrencyException.class)
+				.isThrownBy(() -> this.registry.start("instance", null, AsyncOperation.Type.UPDATE));
+
+		this.registry.fail(delete, "failed");
+
+		AsyncOperation retry = this.registry.start("instance", null, AsyncOperation.Type.DELETE);
+		assertThat(retry.getOperation()).isNotEqualTo(delete.getOperation());
+		assertThat(this.registry.getFailedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void completionOfReplacedOperationIsIgnored() {
+		AsyncOperation first = this.registry.start("instance", null, AsyncOperation.Type.CREATE);
+		this.registry.succeed(first, null);
+		AsyncOperation second = this.registry.start("instance", null, AsyncOperation.Type.UPDATE);
+
+		this.registry.fail(first, "late");
+
+		assertThat(this.registry.get("instance", null)).contains(second);
+		assertThat(this.registry.getSucceededCount()).isEqualTo(1);
+		assertThat(this.registry.getFailedCount()).isZero();
+		assertThat(this.registry.getInProgressCount()).isEqualTo(1);
+	}
+
+	@Test
+	void completionOfRemovedOperationIsNotCounted() {
+		AsyncOperation operation = this.registry.start("instance", null, AsyncOperation.Type.CREATE);
+		this.registry.succeed(operation, null);
+		this.registry.removeCompleted("instance", null);
+
+		this.registry.succeed(operation, null);
+
+		assertThat(this.registry.getSucceededCount()).isEqualTo(1);
+		assertThat(this.registry.get("instance", null)).isEmpty();
+	}
+
+	@Test
+	void completedOperationsExpire() {
+		AsyncOperation completed = this.registry.succeed(
+				this.registry.start("completed", null, AsyncOperation.Type.CREATE), "result");
+		this.registry.start("running", null, AsyncOperation.Type.CREATE);
+
+		assertThat(completed.getState()).isEqualTo(OperationState.SUCCEEDED);
+		assertThat(completed.getCompletedAt()).isEqualTo(this.clock.instant());
+
+		this.clock.advance(Duration.ofMinutes(11));
+
+		assertThat(this.registry.evictExpired()).isEqualTo(1);
+		assertThat(this.registry.get("completed", null)).isEmpty();
+		assertThat(this.registry.get("running", null)).isPresent();
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
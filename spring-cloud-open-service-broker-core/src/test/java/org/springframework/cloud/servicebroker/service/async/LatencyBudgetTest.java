@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LatencyBudgetTest {
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	void fixedBudgetIgnoresHistogram() {
+		record(Duration.ofMillis(10), 100);
+
+		assertThat(LatencyBudget.fixed(Duration.ofSeconds(30)).getBudget(this.histogram))
+				.isEqualTo(Duration.ofSeconds(30));
+	}
+
+	@Test
+	void percentileBudgetUsesMaximumUntilEnoughSamples() {
+		LatencyBudget budget = LatencyBudget.percentile(0.95, Duration.ofSeconds(1), Duration.ofSeconds(45));
+		record(Duration.ofSeconds(5), LatencyBudget.MINIMUM_SAMPLES - 1);
+
+		assertThat(budget.getBudget(this.histogram)).isEqualTo(Duration.ofSeconds(45));
+
+		record(Duration.ofSeconds(5), 1);
+
+		assertThat(budget.getBudget(this.histogram).toMillis()).isBetween(4500L, 5500L);
+	}
+
+	@Test
+	void percentileBudgetIsBounded() {
+		LatencyBudget budget = LatencyBudget.percentile(0.95, Duration.ofSeconds(1), Duration.ofSeconds(45));
+
+		record(Duration.ofMillis(10), 100);
+		assertThat(budget.getBudget(this.histogram)).isEqualTo(Duration.ofSeconds(1));
+
+		record(Duration.ofMinutes(5), 1000);
+		assertThat(budget.getBudget(this.histogram)).isEqualTo(Duration.ofSeconds(45));
+	}
+
+	@Test
+	void invalidBudgetsAreRejected() {
+		assertThatIllegalArgumentException().isThrownBy(() -> LatencyBudget.fixed(Duration.ofSeconds(-1)));
+		assertThatIllegalArgumentException().isThrownBy(() -> LatencyBudget.percentile(0, Duration.ZERO,
+				Duration.ofSeconds(1)));
+		assertThatIllegalArgumentException().isThrownBy(() -> LatencyBudget.percentile(0.5, Duration.ofSeconds(2),
+				Duration.ofSeconds(1)));
+	}
+
+	private void record(Duration duration, long count) {
+		for (long i = 0; i < count; i++) {
+			this.histogram.record(duration);
+		}
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LatencyHistogramTest {
+
+	private final LatencyHistogram histogram = new LatencyHistogram();
+
+	@Test
+	void emptyHistogramHasNoPercentiles() {
+		assertThat(this.histogram.getCount()).isZero();
+		assertThat(this.histogram.getPercentile(0.5)).isNull();
+	}
+
+	@Test
+	void percentilesAreWithinOneEighth() {
+		for (int i = 1; i <= 1000; i++) {
+			this.histogram.record(Duration.ofMillis(i));
+		}
+
+		assertThat(this.histogram.getCount()).isEqualTo(1000);
+		assertThat(this.histogram.getPercentile(0.5).toMillis()).isCloseTo(500, within(63L));
+		assertThat(this.histogram.getPercentile(0.95).toMillis()).isCloseTo(950, within(119L));
+		assertThat(this.histogram.getPercentile(1).toMillis()).isCloseTo(1000, within(125L));
+		assertThat(this.histogram.getPercentile(0).toMillis()).isCloseTo(1, within(1L));
+	}
+
+	@Test
+	void percentilesAboveMinimumIgnoreShorterDurations() {
+		for (int i = 0; i < 90; i++) {
+			this.histogram.record(Duration.ofMillis(100));
+		}
+		for (int i = 0; i < 10; i++) {
+			this.histogram.record(Duration.ofSeconds(60));
+		}
+
+		assertThat(this.histogram.getPercentile(0.5).toMillis()).isCloseTo(100, within(13L));
+		assertThat(this.histogram.getPercentileAbove(Duration.ofSeconds(1), 0.5).getSeconds())
+				.isCloseTo(60, within(8L));
+		assertThat(this.histogram.getPercentileAbove(Duration.ofMinutes(5), 0.5)).isNull();
+	}
+
+	@Test
+	void shortAndNegativeDurationsAreRecorded() {
+		this.histogram.recordNanos(-1);
+		this.histogram.recordNanos(3000);
+
+		assertThat(this.histogram.getPercentile(0)).isEqualTo(Duration.ZERO);
+		assertThat(this.histogram.getPercentile(1)).isEqualTo(Duration.ofNanos(3000));
+
+		this.histogram.reset();
+
+		assertThat(this.histogram.getCount()).isZero();
+		assertThat(this.histogram.getPercentile(1)).isNull();
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OperationDurationTrackerTest {
+
+	private final MutableClock clock = new MutableClock();
+
+	private final OperationDurationTracker tracker = new OperationDurationTracker(new OperationLatencies(), 0.5,
+			Duration.ofSeconds(1), Duration.ofMinutes(5), this.clock);
+
+	@Test
+	void noEstimateBeforeEnoughDurationsAreRecorded() {
+		complete(OperationDurationTracker.MINIMUM_SAMPLES - 1, Duration.ofSeconds(60));
+
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		this.clock.advance(Duration.ofSeconds(10));
+
+		assertThat(this.tracker.polled("instance", null, OperationState.IN_PROGRESS)).isNull();
+		assertThat(this.tracker.getHintCount()).isZero();
+	}
+
+	@Test
+	void estimatesRemainingTimeFromRecordedDurations() {
+		complete(OperationDurationTracker.MINIMUM_SAMPLES, Duration.ofSeconds(60));
+
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		this.clock.advance(Duration.ofSeconds(10));
+
+		assertThat(this.tracker.polled("instance", null, OperationState.IN_PROGRESS))
+				.isBetween(Duration.ofSeconds(45), Duration.ofSeconds(55));
+		assertThat(this.tracker.getHintCount()).isEqualTo(1);
+	}
+
+	@Test
+	void estimatesAreBoundedByMinimumAndMaximum() {
+		complete(OperationDurationTracker.MINIMUM_SAMPLES, Duration.ofHours(1));
+
+		this.tracker.started("slow", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		assertThat(this.tracker.polled("slow", null, OperationState.IN_PROGRESS)).isEqualTo(Duration.ofMinutes(5));
+
+		this.clock.advance(Duration.ofHours(2));
+		assertThat(this.tracker.polled("slow", null, OperationState.IN_PROGRESS)).isEqualTo(Duration.ofSeconds(1));
+	}
+
+	@Test
+	void durationsAreTrackedByPlanAndOperationType() {
+		complete(OperationDurationTracker.MINIMUM_SAMPLES, Duration.ofSeconds(60));
+
+		this.tracker.started("instance", null, "service", "other-plan", AsyncOperation.Type.CREATE, null);
+		this.tracker.started("instance", "binding", "service", "plan", AsyncOperation.Type.DELETE, null);
+
+		assertThat(this.tracker.polled("instance", null, OperationState.IN_PROGRESS)).isNull();
+		assertThat(this.tracker.polled("instance", "binding", OperationState.IN_PROGRESS)).isNull();
+		assertThat(this.tracker.polled("untracked", null, OperationState.IN_PROGRESS)).isNull();
+	}
+
+	@Test
+	void onlySucceededOperationsAreRecorded() {
+		this.tracker.started("failed", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		this.tracker.started("succeeded", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		this.clock.advance(Duration.ofSeconds(30));
+
+		assertThat(this.tracker.polled("failed", null, OperationState.FAILED)).isNull();
+		assertThat(this.tracker.polled("succeeded", null, OperationState.SUCCEEDED)).isNull();
+
+		assertThat(this.tracker.getTrackedCount()).isZero();
+		assertThat(this.tracker.getLatencies().get("service", "plan", AsyncOperation.Type.CREATE).getCount())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void retriedOperationKeepsItsStartTime() {
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.CREATE, "provisioning");
+		this.clock.advance(Duration.ofSeconds(30));
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.CREATE, "provisioning");
+		this.clock.advance(Duration.ofSeconds(30));
+
+		this.tracker.polled("instance", null, OperationState.SUCCEEDED);
+
+		assertThat(this.tracker.getLatencies().get("service", "plan", AsyncOperation.Type.CREATE).getPercentile(1))
+				.isBetween(Duration.ofSeconds(55), Duration.ofSeconds(65));
+	}
+
+	@Test
+	void abandonedOperationIsReplacedByNextOperation() {
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.CREATE, "provisioning");
+		this.clock.advance(Duration.ofHours(1));
+		this.tracker.started("instance", null, "service", "plan", AsyncOperation.Type.UPDATE, "updating");
+		this.clock.advance(Duration.ofSeconds(30));
+
+		this.tracker.polled("instance", null, OperationState.SUCCEEDED);
+
+		assertThat(this.tracker.getLatencies().get("service", "plan", AsyncOperation.Type.CREATE).getCount()).isZero();
+		assertThat(this.tracker.getLatencies().get("service", "plan", AsyncOperation.Type.UPDATE).getPercentile(1))
+				.isBetween(Duration.ofSeconds(27), Duration.ofSeconds(33));
+	}
+
+	@Test
+	void oldestOperationIsForgottenWhenLimitIsReached() {
+		this.tracker.started("oldest", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		this.clock.advance(Duration.ofSeconds(1));
+		for (int i = 1; i <= OperationDurationTracker.MAXIMUM_TRACKED; i++) {
+			this.tracker.started("instance-" + i, null, "service", "plan", AsyncOperation.Type.CREATE, null);
+		}
+
+		assertThat(this.tracker.getTrackedCount()).isEqualTo(OperationDurationTracker.MAXIMUM_TRACKED);
+
+		this.tracker.polled("oldest", null, OperationState.SUCCEEDED);
+		assertThat(this.tracker.getLatencies().get("service", "plan", AsyncOperation.Type.CREATE).getCount())
+				.isZero();
+	}
+
+	private void complete(long count, Duration duration) {
+		for (long i = 0; i < count; i++) {
+			this.tracker.started("completed", null, "service", "plan", AsyncOperation.Type.CREATE, null);
+			this.clock.advance(duration);
+			this.tracker.polled("completed", null, OperationState.SUCCEEDED);
+		}
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
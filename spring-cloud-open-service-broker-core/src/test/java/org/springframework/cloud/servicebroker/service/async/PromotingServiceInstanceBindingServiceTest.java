@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetLastServiceBindingOperationRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.binding.GetServiceInstanceBindingResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceBindingService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromotingServiceInstanceBindingServiceTest {
+
+	private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+	private final AsyncOperationPromoter promoter = new AsyncOperationPromoter(
+			LatencyBudget.fixed(Duration.ofSeconds(10)), new AsyncOperationRegistry(), new OperationLatencies(),
+			this.timer);
+
+	private final Sinks.One<CreateServiceInstanceBindingResponse> create = Sinks.one();
+
+	private final PromotingServiceInstanceBindingService service = new PromotingServiceInstanceBindingService(
+			new ServiceInstanceBindingService() {
+
+				@Override
+				public Mono<CreateServiceInstanceBindingResponse> createServiceInstanceBinding(
+						CreateServiceInstanceBindingRequest request) {
+					return create.asMono();
+				}
+
+				@Override
+				public Mono<GetServiceInstanceBindingResponse> getServiceInstanceBinding(
+						GetServiceInstanceBindingRequest request) {
+					return Mono.empty();
+				}
+
+			}, this.promoter);
+
+	@AfterEach
+	void tearDown() {
+		this.timer.dispose();
+	}
+
+	@Test
+	void promotedBindingIsFetchedFromCompletedResponse() {
+		AtomicReference<CreateServiceInstanceBindingResponse> promoted = new AtomicReference<>();
+		StepVerifier.create(this.service.createServiceInstanceBinding(CreateServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.asyncAccepted(true)
+				.build()))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofSeconds(10)))
+				.consumeNextWith(promoted::set)
+				.verifyComplete();
+		assertThat(promoted.get().isAsync()).isTrue();
+
+		StepVerifier.create(getBinding())
+				.verifyComplete();
+
+		this.create.tryEmitValue(CreateServiceInstanceAppBindingResponse.builder()
+				.credentials("password", "secret")
+				.syslogDrainUrl("syslog://logs")
+				.build());
+
+		StepVerifier.create(this.service.getLastOperation(GetLastServiceBindingOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.operation(promoted.get().getOperation())
+				.build()))
+				.assertNext(r -> assertThat(r.getState()).isEqualTo(OperationState.SUCCEEDED))
+				.verifyComplete();
+		StepVerifier.create(getBinding())
+				.assertNext(r -> {
+					assertThat(r).isInstanceOf(GetServiceInstanceAppBindingResponse.class);
+					GetServiceInstanceAppBindingResponse binding = (GetServiceInstanceAppBindingResponse) r;
+					assertThat(binding.getCredentials()).containsEntry("password", "secret");
+					assertThat(binding.getSyslogDrainUrl()).isEqualTo("syslog://logs");
+				})
+				.verifyComplete();
+	}
+
+	private Mono<GetServiceInstanceBindingResponse> getBinding() {
+		return this.service.getServiceInstanceBinding(GetServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.build());
+	}
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerCreateOperationInProgressException;
+import org.springframework.cloud.servicebroker.exception.ServiceInstanceDoesNotExistException;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromotingServiceInstanceServiceTest {
+
+	private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+	private final AsyncOperationPromoter promoter = new AsyncOperationPromoter(
+			LatencyBudget.fixed(Duration.ofSeconds(10)), new AsyncOperationRegistry(), new OperationLatencies(),
+			this.timer);
+
+	private final TestServiceInstanceService delegate = new TestServiceInstanceService();
+
+	private final PromotingServiceInstanceService service = new PromotingServiceInstanceService(this.delegate,
+			this.promoter);
+
+	@AfterEach
+	void tearDown() {
+		this.timer.dispose();
+	}
+
+	@Test
+	void responseWithinBudgetIsReturned() {
+		Mono<CreateServiceInstanceResponse> response = this.service.createServiceInstance(createRequest(true));
+		StepVerifier.create(response)
+				.then(() -> this.timer.advanceTimeBy(Duration.ofSeconds(5)))
+				.then(() -> this.delegate.create.tryEmitValue(CreateServiceInstanceResponse.builder()
+						.dashboardUrl("https://dashboard")
+						.build()))
+				.assertNext(r -> {
+					assertThat(r.isAsync()).isFalse();
+					assertThat(r.getDashboardUrl()).isEqualTo("https://dashboard");
+				})
+				.verifyComplete();
+
+		assertThat(this.promoter.getSynchronousCount()).isEqualTo(1);
+		assertThat(this.promoter.getPromotedCount()).isZero();
+		assertThat(this.promoter.getLatencies().get("service", "plan", AsyncOperation.Type.CREATE).getCount())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void responseExceedingBudgetIsPromoted() {
+		CreateServiceInstanceResponse promoted = createPromoted();
+
+		assertThat(promoted.isAsync()).isTrue();
+		assertThat(promoted.getOperation()).isNotNull();
+		assertThat(lastOperation(promoted.getOperation()).getState()).isEqualTo(OperationState.IN_PROGRESS);
+
+		this.delegate.create.tryEmitValue(CreateServiceInstanceResponse.builder().build());
+
+		assertThat(lastOperation(promoted.getOperation()).getState()).isEqualTo(OperationState.SUCCEEDED);
+		assertThat(this.promoter.getPromotedCount()).isEqualTo(1);
+		assertThat(this.delegate.lastOperationCount).isZero();
+	}
+
+	@Test
+	void failureAfterPromotionIsReported() {
+		CreateServiceInstanceResponse promoted = createPromoted();
+
+		this.delegate.create.tryEmitError(new IllegalStateException("no capacity"));
+
+		GetLastServiceOperationResponse lastOperation = lastOperation(promoted.getOperation());
+		assertThat(lastOperation.getState()).isEqualTo(OperationState.FAILED);
+		assertThat(lastOperation.getDescription()).isEqualTo("no capacity");
+	}
+
+	@Test
+	void asynchronousResponseAfterPromotionIsPolledFromService() {
+		CreateServiceInstanceResponse promoted = createPromoted();
+
+		this.delegate.create.tryEmitValue(CreateServiceInstanceResponse.builder()
+				.async(true)
+				.operation("provisioning")
+				.build());
+
+		assertThat(lastOperation(promoted.getOperation()).getState()).isEqualTo(OperationState.IN_PROGRESS);
+		assertThat(this.delegate.lastOperation).isEqualTo("provisioning");
+	}
+
+	@Test
+	void retryWhilePromotedOperationIsInProgressReceivesItsOperationWithoutCallingService() {
+		CreateServiceInstanceResponse promoted = createPromoted();
+
+		StepVerifier.create(this.service.createServiceInstance(createRequest(true)))
+				.expectErrorSatisfies(e -> {
+					assertThat(e).isInstanceOf(ServiceBrokerCreateOperationInProgressException.class);
+					assertThat(((ServiceBrokerCreateOperationInProgressException) e).getOperationInProgressMessage()
+							.getOperation()).isEqualTo(promoted.getOperation());
+				})
+				.verify();
+
+		assertThat(this.promoter.getPromotedCount()).isEqualTo(1);
+		assertThat(this.delegate.createCount).isEqualTo(1);
+	}
+
+	@Test
+	void operationOfAnotherTypeWhilePromotedOperationIsInProgressIsRejectedWithoutCallingService() {
+		createPromoted();
+
+		StepVerifier.create(this.service.deleteServiceInstance(DeleteServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.asyncAccepted(true)
+				.build()))
+				.expectError(ServiceBrokerConcurrencyException.class)
+				.verify();
+
+		assertThat(this.delegate.deleteCount).isZero();
+	}
+
+	@Test
+	void synchronousRequestsAreNotPromoted() {
+		Mono<CreateServiceInstanceResponse> response = this.service.createServiceInstance(createRequest(false));
+		StepVerifier.create(response)
+				.then(() -> this.timer.advanceTimeBy(Duration.ofMinutes(1)))
+				.then(() -> this.delegate.create.tryEmitValue(CreateServiceInstanceResponse.builder().build()))
+				.assertNext(r -> assertThat(r.isAsync()).isFalse())
+				.verifyComplete();
+
+		assertThat(this.promoter.getPromotedCount()).isZero();
+	}
+
+	@Test
+	void promotedDeleteIsReportedAsDeleteOperation() {
+		DeleteServiceInstanceResponse promoted = promote(this.service.deleteServiceInstance(
+				DeleteServiceInstanceRequest.builder()
+						.serviceInstanceId("instance")
+						.serviceDefinitionId("service")
+						.planId("plan")
+						.asyncAccepted(true)
+						.build()));
+
+		this.delegate.delete.tryEmitEmpty();
+
+		GetLastServiceOperationResponse lastOperation = lastOperation(promoted.getOperation());
+		assertThat(lastOperation.getState()).isEqualTo(OperationState.SUCCEEDED);
+		assertThat(lastOperation.isDeleteOperation()).isTrue();
+	}
+
+	@Test
+	void operationsThatWereNotPromotedArePolledFromService() {
+		StepVerifier.create(this.service.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.build()))
+				.expectError(ServiceInstanceDoesNotExistException.class)
+				.verify();
+
+		assertThat(this.delegate.lastOperationCount).isEqualTo(1);
+	}
+
+	private CreateServiceInstanceResponse createPromoted() {
+		return promote(this.service.createServiceInstance(createRequest(true)));
+	}
+
+	private <T> T promote(Mono<T> response) {
+		AtomicReference<T> promoted = new AtomicReference<>();
+		StepVerifier.create(response)
+				.then(() -> this.timer.advanceTimeBy(Duration.ofSeconds(10)))
+				.consumeNextWith(promoted::set)
+				.verifyComplete();
+		return promoted.get();
+	}
+
+	private GetLastServiceOperationResponse lastOperation(String operation) {
+		return this.service.getLastOperation(GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.operation(operation)
+				.build())
+				.block();
+	}
+
+	private static CreateServiceInstanceRequest createRequest(boolean asyncAccepted) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.asyncAccepted(asyncAccepted)
+				.build();
+	}
+
+	private static final class TestServiceInstanceService implements ServiceInstanceService {
+
+		private final Sinks.One<CreateServiceInstanceResponse> create = Sinks.one();
+
+		private final Sinks.One<DeleteServiceInstanceResponse> delete = Sinks.one();
+
+		private String lastOperation;
+
+		private int lastOperationCount;
+
+		private int createCount;
+
+		private int deleteCount;
+
+		@Override
+		public Mono<CreateServiceInstanceResponse> createServiceInstance(CreateServiceInstanceRequest request) {
+			return Mono.defer(() -> {
+				this.createCount++;
+				return this.create.asMono();
+			});
+		}
+
+		@Override
+		public Mono<DeleteServiceInstanceResponse> deleteServiceInstance(DeleteServiceInstanceRequest request) {
+			return Mono.defer(() -> {
+				this.deleteCount++;
+				return this.delete.asMono();
+			});
+		}
+
+		@Override
+		public Mono<GetLastServiceOperationResponse> getLastOperation(GetLastServiceOperationRequest request) {
+			this.lastOperationCount++;
+			if (request.getOperation() == null) {
+				return Mono.error(new ServiceInstanceDoesNotExistException(request.getServiceInstanceId()));
+			}
+			this.lastOperation = request.getOperation();
+			return Mono.just(GetLastServiceOperationResponse.builder()
+					.operationState(OperationState.IN_PROGRESS)
+					.build());
+		}
+
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.async;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.ServiceInstanceService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class RetryAfterServiceInstanceServiceTest {
+
+	private final ServiceInstanceService delegate = mock(ServiceInstanceService.class);
+
+	private final OperationLatencies latencies = new OperationLatencies();
+
+	private final OperationDurationTracker tracker = new OperationDurationTracker(this.latencies, 0.5,
+			Duration.ofSeconds(1), Duration.ofMinutes(5), Clock.fixed(Instant.EPOCH, ZoneOffset.UTC));
+
+	private final RetryAfterServiceInstanceService service = new RetryAfterServiceInstanceService(this.delegate,
+			this.tracker);
+
+	@BeforeEach
+	void setUp() {
+		LatencyHistogram histogram = this.latencies.get("service", "plan", AsyncOperation.Type.CREATE);
+		for (long i = 0; i < OperationDurationTracker.MINIMUM_SAMPLES; i++) {
+			histogram.record(Duration.ofSeconds(60));
+		}
+	}
+
+	@Test
+	void inProgressResponseOfAsyncOperationHasRetryAfter() {
+		createServiceInstance(true);
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(lastOperation(OperationState.IN_PROGRESS, null)));
+
+		StepVerifier.create(this.service.getLastOperation(lastOperationRequest()))
+				.assertNext(response -> {
+					assertThat(response.getState()).isEqualTo(OperationState.IN_PROGRESS);
+					assertThat(response.getDescription()).isEqualTo("description");
+					assertThat(response.getRetryAfter()).isBetween(Duration.ofSeconds(55), Duration.ofSeconds(65));
+				})
+				.verifyComplete();
+	}
+
+	@Test
+	void retryAfterOfServiceIsKept() {
+		createServiceInstance(true);
+		GetLastServiceOperationResponse inProgress = lastOperation(OperationState.IN_PROGRESS, Duration.ofSeconds(3));
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(inProgress));
+
+		StepVerifier.create(this.service.getLastOperation(lastOperationRequest()))
+				.expectNext(inProgress)
+				.verifyComplete();
+	}
+
+	@Test
+	void synchronousOperationIsNotTracked() {
+		createServiceInstance(false);
+		GetLastServiceOperationResponse inProgress = lastOperation(OperationState.IN_PROGRESS, null);
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(inProgress));
+
+		StepVerifier.create(this.service.getLastOperation(lastOperationRequest()))
+				.expectNext(inProgress)
+				.verifyComplete();
+		assertThat(this.tracker.getTrackedCount()).isZero();
+	}
+
+	@Test
+	void completedOperationIsNoLongerTracked() {
+		createServiceInstance(true);
+		GetLastServiceOperationResponse succeeded = lastOperation(OperationState.SUCCEEDED, null);
+		given(this.delegate.getLastOperation(any(GetLastServiceOperationRequest.class)))
+				.willReturn(Mono.just(succeeded));
+
+		StepVerifier.create(this.service.getLastOperation(lastOperationRequest()))
+				.expectNext(succeeded)
+				.verifyComplete();
+		assertThat(this.tracker.getTrackedCount()).isZero();
+		assertThat(this.latencies.get("service", "plan", AsyncOperation.Type.CREATE).getCount())
+				.isEqualTo(OperationDurationTracker.MINIMUM_SAMPLES + 1);
+	}
+
+	private void createServiceInstance(boolean async) {
+		given(this.delegate.createServiceInstance(any(CreateServiceInstanceRequest.class)))
+				.willReturn(Mono.just(CreateServiceInstanceResponse.builder()
+						.async(async)
+						.build()));
+		StepVerifier.create(this.service.createServiceInstance(CreateServiceInstanceRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.build()))
+				.expectNextCount(1)
+				.verifyComplete();
+	}
+
+	private static GetLastServiceOperationRequest lastOperationRequest() {
+		return GetLastServiceOperationRequest.builder()
+				.serviceInstanceId("instance")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.build();
+	}
+
+	private static GetLastServiceOperationResponse lastOperation(OperationState state, Duration retryAfter) {
+		return GetLastServiceOperationResponse.builder()
+				.operationState(state)
+				.description("description")
+				.retryAfter(retryAfter)
+				.build();
+	}
+
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.DetachedEventFlowExecutor.OverflowPolicy;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceErrorFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DetachedEventFlowExecutorTest {
+
+	private final Sinks.Empty<Void> pending = Sinks.empty();
+
+	private final AtomicInteger executed = new AtomicInteger();
+
+	private DetachedEventFlowExecutor executor;
+
+	@AfterEach
+	void tearDown() {
+		this.pending.tryEmitEmpty();
+		if (this.executor != null) {
+			this.executor.close();
+		}
+	}
+
+	@Test
+	void flowsAreRunDetached() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 1, OverflowPolicy.DROP);
+
+		StepVerifier.create(executor.submit(pending.asMono()))
+				.verifyComplete();
+
+		assertThat(executor.getQueueDepth()).isEqualTo(1);
+		pending.tryEmitEmpty();
+		assertThat(executor.getQueueDepth()).isZero();
+	}
+
+	@Test
+	void flowsAreDroppedWhenQueueIsFull() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 1, OverflowPolicy.DROP);
+		executor.submit(pending.asMono()).block();
+
+		StepVerifier.create(executor.submit(countingFlow()))
+				.verifyComplete();
+
+		assertThat(executed.get()).isZero();
+		assertThat(executor.getDroppedCount()).isEqualTo(1);
+		assertThat(executor.getSubmittedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void flowsRunInCallerWhenQueueIsFull() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 1, OverflowPolicy.CALLER_RUNS);
+		executor.submit(pending.asMono()).block();
+
+		StepVerifier.create(executor.submit(countingFlow().then(Mono.error(new IllegalStateException("failed")))))
+				.verifyComplete();
+
+		assertThat(executed.get()).isEqualTo(1);
+		assertThat(executor.getCallerRunCount()).isEqualTo(1);
+		assertThat(executor.getFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	void callerWaitsForRoomWhenQueueIsFull() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 1, OverflowPolicy.BLOCK);
+		executor.submit(pending.asMono()).block();
+
+		StepVerifier.create(executor.submit(countingFlow()))
+				.expectSubscription()
+				.expectNoEvent(Duration.ofMillis(50))
+				.then(pending::tryEmitEmpty)
+				.verifyComplete();
+
+		assertThat(executed.get()).isEqualTo(1);
+		assertThat(executor.getQueueDepth()).isZero();
+	}
+
+	@Test
+	void cancelledWaiterDoesNotHoldASlot() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 1, OverflowPolicy.BLOCK);
+		executor.submit(pending.asMono()).block();
+
+		executor.submit(countingFlow()).subscribe().dispose();
+		pending.tryEmitEmpty();
+
+		assertThat(executed.get()).isZero();
+		assertThat(executor.getQueueDepth()).isZero();
+	}
+
+	@Test
+	void registryDoesNotWaitForDetachedFlows() {
+		executor = new DetachedEventFlowExecutor(Schedulers.immediate(), 4, OverflowPolicy.DROP);
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(new CreateServiceInstanceCompletionFlow() {
+					@Override
+					public Mono<Void> complete(CreateServiceInstanceRequest request,
+							CreateServiceInstanceResponse response) {
+						return pending.asMono();
+					}
+				}),
+				Collections.singletonList(new CreateServiceInstanceErrorFlow() {
+					@Override
+					public Mono<Void> error(CreateServiceInstanceRequest request, Throwable t) {
+						return Mono.error(new IllegalStateException("error flow failed"));
+					}
+				}));
+		registry.setDetachedFlowExecutor(executor);
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder().build();
+		CreateServiceInstanceResponse response = CreateServiceInstanceResponse.builder().build();
+
+		StepVerifier.create(registry.attachFlows(request, Mono.just(response)))
+				.expectNext(response)
+				.verifyComplete();
+		StepVerifier.create(registry.attachFlows(request, Mono.error(new IllegalArgumentException("failed"))))
+				.expectError(IllegalArgumentException.class)
+				.verify();
+
+		assertThat(executor.getQueueDepth()).isEqualTo(1);
+		assertThat(executor.getFailureCount()).isEqualTo(1);
+	}
+
+	private Mono<Void> countingFlow() {
+		return Mono.fromRunnable(executed::incrementAndGet);
+	}
+
+}
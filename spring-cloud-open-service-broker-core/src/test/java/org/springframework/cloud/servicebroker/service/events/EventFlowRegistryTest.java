@@ -0,0 +1,247 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceInitializationFlow;
+import org.springframework.core.Ordered;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventFlowRegistryTest {
+
+	private static final int FLOW_COUNT = 200;
+
+	private final CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder()
+			.serviceInstanceId("service-instance-id")
+			.build();
+
+	private final CreateServiceInstanceResponse response = CreateServiceInstanceResponse.builder().build();
+
+	@Test
+	void operationIsUnchangedWithoutFlows() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				Collections.emptyList(), null, null);
+		Mono<CreateServiceInstanceResponse> operation = Mono.just(response);
+
+		assertThat(registry.hasFlows()).isFalse();
+		assertThat(registry.attachFlows(request, operation)).isSameAs(operation);
+	}
+
+	@Test
+	void flowsAddedConcurrentlyAreAllRegistered() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				null, null, null);
+		AtomicInteger initialized = new AtomicInteger();
+		CreateServiceInstanceInitializationFlow flow = new CreateServiceInstanceInitializationFlow() {
+			@Override
+			public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+				initialized.incrementAndGet();
+				return Mono.empty();
+			}
+		};
+
+		Flux.range(0, FLOW_COUNT)
+				.parallel()
+				.runOn(Schedulers.parallel())
+				.flatMap(i -> registry.addInitializationFlow(flow))
+				.then()
+				.block();
+
+		StepVerifier.create(registry.attachFlows(request, Mono.just(response)))
+				.expectNext(response)
+				.verifyComplete();
+		assertThat(initialized.get()).isEqualTo(FLOW_COUNT);
+	}
+
+	@Test
+	void flowAddedWhileRunningDoesNotAffectRequestInProgress() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				null, null, null);
+		AtomicInteger initialized = new AtomicInteger();
+		CreateServiceInstanceInitializationFlow flow = new CreateServiceInstanceInitializationFlow() {
+			@Override
+			public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+				initialized.incrementAndGet();
+				return registry.addInitializationFlow(this);
+			}
+		};
+		registry.addInitializationFlow(flow).block();
+
+		StepVerifier.create(registry.getInitializationFlows(request))
+				.verifyComplete();
+		assertThat(initialized.get()).isEqualTo(1);
+	}
+
+	@Test
+	void sequentialFlowsRunInOrder() {
+		List<String> executed = Collections.synchronizedList(new ArrayList<>());
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				Arrays.asList(new OrderedFlow("third", 3, executed), new OrderedFlow("first", 1, executed)),
+				null, null);
+		registry.addInitializationFlow(new OrderedFlow("second", 2, executed)).block();
+		registry.setExecutionPolicy(EventFlowExecutionPolicy.builder().sequential().build());
+
+		StepVerifier.create(registry.getInitializationFlows(request))
+				.verifyComplete();
+
+		assertThat(executed).containsExactly("first", "second", "third");
+	}
+
+	@Test
+	void parallelFlowsAreBoundedByMaxConcurrency() {
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		CreateServiceInstanceInitializationFlow flow = new CreateServiceInstanceInitializationFlow() {
+			@Override
+			public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+				return Mono.delay(Duration.ofMillis(10))
+						.doOnSubscribe(s -> maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max))
+						.doOnTerminate(running::decrementAndGet)
+						.then();
+			}
+		};
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				Arrays.asList(flow, flow, flow, flow, flow, flow), null, null);
+		registry.setExecutionPolicy(EventFlowExecutionPolicy.builder().parallel(2).build());
+
+		StepVerifier.create(registry.getInitializationFlows(request))
+				.verifyComplete();
+
+		assertThat(maxRunning.get()).isEqualTo(2);
+	}
+
+	@Test
+	void slowFlowIsTimedOutAndIsolated() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(neverCompletingFlow()), null);
+		registry.setExecutionPolicy(EventFlowExecutionPolicy.builder()
+				.timeout(Duration.ofSeconds(5))
+				.isolateFailures(true)
+				.build());
+
+		StepVerifier.withVirtualTime(() -> registry.attachFlows(request, Mono.just(response)))
+				.thenAwait(Duration.ofSeconds(5))
+				.expectNext(response)
+				.verifyComplete();
+
+		assertThat(registry.getFlowTimeoutCount()).isEqualTo(1);
+		assertThat(registry.getFlowFailureCount()).isZero();
+	}
+
+	@Test
+	void failingFlowFailsFastByDefault() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(failingFlow()), null);
+
+		StepVerifier.create(registry.attachFlows(request, Mono.just(response)))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		assertThat(registry.getFlowFailureCount()).isEqualTo(1);
+	}
+
+	@Test
+	void flowPolicyOverridesRegistryPolicy() {
+		CreateServiceInstanceCompletionFlow isolatedFlow = new IsolatedFailingFlow();
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(isolatedFlow), null);
+
+		StepVerifier.create(registry.attachFlows(request, Mono.just(response)))
+				.expectNext(response)
+				.verifyComplete();
+
+		assertThat(registry.getFlowFailureCount()).isEqualTo(1);
+	}
+
+	private static CreateServiceInstanceCompletionFlow neverCompletingFlow() {
+		return new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				return Mono.never();
+			}
+		};
+	}
+
+	private static CreateServiceInstanceCompletionFlow failingFlow() {
+		return new CreateServiceInstanceCompletionFlow() {
+			@Override
+			public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+				return Mono.error(new IllegalStateException("audit unavailable"));
+			}
+		};
+	}
+
+	private static final class OrderedFlow implements CreateServiceInstanceInitializationFlow, Ordered {
+
+		private final String name;
+
+		private final int order;
+
+		private final List<String> executed;
+
+		private OrderedFlow(String name, int order, List<String> executed) {
+			this.name = name;
+			this.order = order;
+			this.executed = executed;
+		}
+
+		@Override
+		public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+			return Mono.delay(Duration.ofMillis(10 - order))
+					.doOnNext(d -> executed.add(name))
+					.then();
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+
+	}
+
+	private static final class IsolatedFailingFlow implements CreateServiceInstanceCompletionFlow,
+			EventFlowExecutionPolicyProvider {
+
+		@Override
+		public Mono<Void> complete(CreateServiceInstanceRequest request, CreateServiceInstanceResponse response) {
+			return Mono.error(new IllegalStateException("audit unavailable"));
+		}
+
+		@Override
+		public EventFlowExecutionPolicy getExecutionPolicy() {
+			return EventFlowExecutionPolicy.builder().isolateFailures(true).build();
+		}
+
+	}
+
+}
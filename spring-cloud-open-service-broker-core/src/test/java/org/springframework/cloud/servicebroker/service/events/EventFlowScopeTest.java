@@ -0,0 +1,144 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.CloudFoundryContext;
+import org.springframework.cloud.servicebroker.model.Context;
+import org.springframework.cloud.servicebroker.model.KubernetesContext;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceInitializationFlow;
+import org.springframework.cloud.servicebroker.service.events.flows.DeleteServiceInstanceCompletionFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventFlowScopeTest {
+
+	private final List<String> invoked = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	void onlyFlowsInScopeAreInvoked() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				Arrays.asList(new AllServicesFlow(), new MysqlFlow(), new MysqlSmallKubernetesFlow()), null, null);
+
+		initialize(registry, "mysql", "small", KubernetesContext.builder().build());
+		assertThat(invoked).containsExactlyInAnyOrder("all", "mysql", "mysql-small-kubernetes");
+
+		invoked.clear();
+		initialize(registry, "mysql", "small", CloudFoundryContext.builder().build());
+		assertThat(invoked).containsExactlyInAnyOrder("all", "mysql");
+
+		invoked.clear();
+		initialize(registry, "redis", "small", null);
+		assertThat(invoked).containsExactly("all");
+	}
+
+	@Test
+	void operationIsUnchangedWhenNoFlowIsInScope() {
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(
+				Collections.singletonList(new MysqlFlow()), null, null);
+		Mono<CreateServiceInstanceResponse> operation = Mono.just(CreateServiceInstanceResponse.builder().build());
+
+		assertThat(registry.attachFlows(request("redis", "small", null), operation)).isSameAs(operation);
+		assertThat(registry.attachFlows(request("mysql", "small", null), operation)).isNotSameAs(operation);
+	}
+
+	@Test
+	void flowsAddedLaterAreScoped() {
+		DeleteServiceInstanceEventFlowRegistry registry = new DeleteServiceInstanceEventFlowRegistry(null, null,
+				null);
+		registry.addCompletionFlow(new MysqlDeleteFlow()).block();
+		DeleteServiceInstanceResponse response = DeleteServiceInstanceResponse.builder().build();
+
+		StepVerifier.create(registry.getCompletionFlows(DeleteServiceInstanceRequest.builder()
+				.serviceDefinitionId("redis")
+				.build(), response))
+				.verifyComplete();
+		StepVerifier.create(registry.getCompletionFlows(DeleteServiceInstanceRequest.builder()
+				.serviceDefinitionId("mysql")
+				.build(), response))
+				.verifyComplete();
+
+		assertThat(invoked).containsExactly("mysql-delete");
+	}
+
+	private void initialize(CreateServiceInstanceEventFlowRegistry registry, String serviceDefinitionId,
+			String planId, Context context) {
+		StepVerifier.create(registry.getInitializationFlows(request(serviceDefinitionId, planId, context)))
+				.verifyComplete();
+	}
+
+	private static CreateServiceInstanceRequest request(String serviceDefinitionId, String planId,
+			Context context) {
+		return CreateServiceInstanceRequest.builder()
+				.serviceDefinitionId(serviceDefinitionId)
+				.planId(planId)
+				.context(context)
+				.build();
+	}
+
+	private class AllServicesFlow implements CreateServiceInstanceInitializationFlow {
+
+		@Override
+		public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+			return Mono.fromRunnable(() -> invoked.add("all"));
+		}
+
+	}
+
+	@EventFlowScope(serviceDefinitionIds = "mysql")
+	private class MysqlFlow implements CreateServiceInstanceInitializationFlow {
+
+		@Override
+		public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+			return Mono.fromRunnable(() -> invoked.add("mysql"));
+		}
+
+	}
+
+	@EventFlowScope(serviceDefinitionIds = "mysql", planIds = {"small", "medium"}, platforms = "Kubernetes")
+	private class MysqlSmallKubernetesFlow implements CreateServiceInstanceInitializationFlow {
+
+		@Override
+		public Mono<Void> initialize(CreateServiceInstanceRequest request) {
+			return Mono.fromRunnable(() -> invoked.add("mysql-small-kubernetes"));
+		}
+
+	}
+
+	@EventFlowScope(serviceDefinitionIds = "mysql")
+	private class MysqlDeleteFlow implements DeleteServiceInstanceCompletionFlow {
+
+		@Override
+		public Mono<Void> complete(DeleteServiceInstanceRequest request, DeleteServiceInstanceResponse response) {
+			return Mono.fromRunnable(() -> invoked.add("mysql-delete"));
+		}
+
+	}
+
+}
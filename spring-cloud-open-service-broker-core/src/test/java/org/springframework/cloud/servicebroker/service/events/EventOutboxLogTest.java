@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class EventOutboxLogTest {
+
+	private static final int SEGMENT_SIZE = 256;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void committedRecordsArePolledInOrder() {
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			assertThat(log.append(bytes("one"))).isEqualTo(1);
+			assertThat(log.append(bytes("two"))).isEqualTo(2);
+			assertThat(log.poll(10)).isEmpty();
+
+			assertThat(log.commit()).isEqualTo(2);
+			log.append(bytes("three"));
+
+			assertThat(payloads(log.poll(10))).containsExactly("one", "two");
+			assertThat(log.poll(10)).isEmpty();
+		}
+	}
+
+	@Test
+	void unacknowledgedRecordsAreReplayedWhenReopened() {
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			log.append(bytes("one"));
+			log.append(bytes("two"));
+			log.append(bytes("three"));
+			log.commit();
+			log.acknowledge(1);
+		}
+
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			assertThat(log.getAcknowledgedSequence()).isEqualTo(1);
+			assertThat(log.getLastSequence()).isEqualTo(3);
+			assertThat(payloads(log.poll(10))).containsExactly("two", "three");
+			assertThat(log.append(bytes("four"))).isEqualTo(4);
+		}
+	}
+
+	@Test
+	void acknowledgedSegmentsAreDeleted() {
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			for (int i = 0; i < 40; i++) {
+				log.append(bytes("record-" + i));
+			}
+			log.commit();
+			assertThat(log.getSegmentCount()).isGreaterThan(2);
+
+			List<EventOutboxLog.Entry> entries = log.poll(40);
+			assertThat(entries).hasSize(40);
+			log.acknowledge(entries.get(entries.size() - 1).getSequence());
+
+			assertThat(log.getSegmentCount()).isEqualTo(1);
+		}
+
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			assertThat(log.poll(40)).isEmpty();
+			assertThat(log.append(bytes("next"))).isEqualTo(41);
+		}
+	}
+
+	@Test
+	void tornRecordsAreDiscardedWhenReopened() throws IOException {
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			log.append(bytes("one"));
+			log.append(bytes("two"));
+		}
+		try (RandomAccessFile file = new RandomAccessFile(
+				this.directory.resolve(String.format("segment-%020d.log", 1)).toFile(), "rw")) {
+			int secondPayload = 16 + 3 + 16;
+			file.seek(secondPayload);
+			file.write('x');
+		}
+
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			assertThat(payloads(log.poll(10))).containsExactly("one");
+			assertThat(log.append(bytes("three"))).isEqualTo(2);
+			log.commit();
+			assertThat(payloads(log.poll(10))).containsExactly("three");
+		}
+	}
+
+	@Test
+	void recordsLargerThanASegmentAreRejected() {
+		try (EventOutboxLog log = new EventOutboxLog(this.directory, SEGMENT_SIZE)) {
+			assertThatIllegalArgumentException().isThrownBy(() -> log.append(new byte[SEGMENT_SIZE]));
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static List<String> payloads(List<EventOutboxLog.Entry> entries) {
+		return entries.stream()
+				.map(entry -> new String(entry.getPayload(), StandardCharsets.UTF_8))
+				.collect(Collectors.toList());
+	}
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent.Type;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the throughput and latency of appending events to a {@link ServiceBrokerEventOutbox}. Run with
+ * {@literal OSB_BENCHMARK=true}. The results are published to the test report.
+ */
+@EnabledIfEnvironmentVariable(named = "OSB_BENCHMARK", matches = "true")
+class ServiceBrokerEventOutboxBenchmarkTest {
+
+	private static final int WARMUP = 50_000;
+
+	private static final int EVENTS = 500_000;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void appendThroughput(TestReporter reporter) {
+		ServiceBrokerEvent event = new ServiceBrokerEvent(Type.CREATE_SERVICE_INSTANCE,
+				CreateServiceInstanceRequest.builder()
+						.serviceInstanceId("service-instance-id")
+						.serviceDefinitionId("service-definition-id")
+						.planId("plan-id")
+						.build(),
+				CreateServiceInstanceResponse.builder().build(), null, Instant.now());
+		try (ServiceBrokerEventOutbox outbox = new ServiceBrokerEventOutbox(new EventOutboxLog(this.directory),
+				new DefaultServiceBrokerEventCodec(), Collections.singletonList(events -> Mono.empty()),
+				ServiceBrokerEventStream.DEFAULT_BATCH_SIZE, ServiceBrokerEventOutbox.DEFAULT_COMMIT_INTERVAL,
+				Duration.ZERO)) {
+			for (int i = 0; i < WARMUP; i++) {
+				outbox.append(event);
+			}
+			long[] latencies = new long[EVENTS];
+			long start = System.nanoTime();
+			for (int i = 0; i < EVENTS; i++) {
+				long before = System.nanoTime();
+				outbox.append(event);
+				latencies[i] = System.nanoTime() - before;
+			}
+			long elapsed = System.nanoTime() - start;
+			Arrays.sort(latencies);
+
+			reporter.publishEntry("events", String.valueOf(EVENTS));
+			reporter.publishEntry("eventsPerSecond", String.valueOf(EVENTS * TimeUnit.SECONDS.toNanos(1) / elapsed));
+			reporter.publishEntry("p50Micros", String.valueOf(micros(latencies, 0.5)));
+			reporter.publishEntry("p99Micros", String.valueOf(micros(latencies, 0.99)));
+			reporter.publishEntry("p999Micros", String.valueOf(micros(latencies, 0.999)));
+			assertThat(outbox.getAppendFailureCount()).isZero();
+		}
+	}
+
+	private static double micros(long[] sorted, double percentile) {
+		return sorted[(int) (sorted.length * percentile)] / 1000.0;
+	}
+
+}
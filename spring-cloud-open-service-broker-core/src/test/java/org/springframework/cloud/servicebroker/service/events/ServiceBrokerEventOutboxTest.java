@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerException;
+import org.springframework.cloud.servicebroker.model.PlatformContext;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceAppBindingResponse;
+import org.springframework.cloud.servicebroker.model.binding.CreateServiceInstanceBindingRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent.Type;
+import org.springframework.cloud.servicebroker.service.events.flows.CreateServiceInstanceCompletionFlow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceBrokerEventOutboxTest {
+
+	private static final int SEGMENT_SIZE = 4096;
+
+	private static final Duration COMMIT_INTERVAL = Duration.ofHours(1);
+
+	private final ServiceBrokerEventCodec codec = new DefaultServiceBrokerEventCodec();
+
+	private final List<ServiceBrokerEvent> received = Collections.synchronizedList(new ArrayList<>());
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void committedEventsAreDeliveredAndAcknowledged() {
+		try (ServiceBrokerEventOutbox outbox = outbox(recordingConsumer())) {
+			outbox.append(event(Type.CREATE_SERVICE_INSTANCE, "a"));
+			outbox.append(event(Type.CREATE_SERVICE_INSTANCE, "b"));
+			assertThat(this.received).isEmpty();
+
+			outbox.commitAndDeliver();
+
+			assertThat(this.received).extracting(e -> ((CreateServiceInstanceRequest) e.getRequest())
+					.getServiceInstanceId()).containsExactly("a", "b");
+			assertThat(outbox.getAppendedCount()).isEqualTo(2);
+			assertThat(outbox.getDeliveredCount()).isEqualTo(2);
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+	}
+
+	@Test
+	void failedBatchesAreDeliveredAgain() {
+		AtomicBoolean fail = new AtomicBoolean(true);
+		ServiceBrokerEventBatchConsumer consumer = events -> fail.getAndSet(false)
+				? Mono.error(new IllegalStateException("unavailable"))
+				: recordingConsumer().accept(events);
+
+		try (ServiceBrokerEventOutbox outbox = outbox(consumer)) {
+			outbox.append(event(Type.CREATE_SERVICE_INSTANCE, "a"));
+
+			outbox.commitAndDeliver();
+			assertThat(this.received).isEmpty();
+			assertThat(outbox.getDeliveryFailureCount()).isEqualTo(1);
+			assertThat(outbox.getPendingCount()).isEqualTo(1);
+
+			outbox.commitAndDeliver();
+			assertThat(this.received).hasSize(1);
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+	}
+
+	@Test
+	void unacknowledgedEventsAreReplayedWhenReopened() {
+		try (ServiceBrokerEventOutbox outbox = outbox(events -> Mono.error(new IllegalStateException("down")))) {
+			outbox.append(event(Type.CREATE_SERVICE_INSTANCE, "a"));
+			outbox.commitAndDeliver();
+		}
+
+		try (ServiceBrokerEventOutbox outbox = outbox(recordingConsumer())) {
+			outbox.commitAndDeliver();
+
+			assertThat(this.received).hasSize(1);
+			assertThat(this.received.get(0).getType()).isEqualTo(Type.CREATE_SERVICE_INSTANCE);
+		}
+	}
+
+	@Test
+	void eventStreamAppendsToOutboxWithoutSubscribers() {
+		try (ServiceBrokerEventOutbox outbox = outbox(recordingConsumer());
+				ServiceBrokerEventStream stream = new ServiceBrokerEventStream()) {
+			stream.setOutbox(outbox);
+
+			stream.observe(Type.DELETE_SERVICE_INSTANCE,
+					DeleteServiceInstanceRequest.builder().serviceInstanceId("a").build(), Mono.empty()).block();
+			outbox.commitAndDeliver();
+
+			assertThat(this.received).hasSize(1);
+			assertThat(this.received.get(0).getType()).isEqualTo(Type.DELETE_SERVICE_INSTANCE);
+		}
+	}
+
+	@Test
+	void eventFlowsOfAppendedOperationsRunWhenReopened() {
+		List<String> completed = Collections.synchronizedList(new ArrayList<>());
+		CreateServiceInstanceEventFlowRegistry registry = new CreateServiceInstanceEventFlowRegistry(null,
+				Collections.singletonList(new CreateServiceInstanceCompletionFlow() {
+					@Override
+					public Mono<Void> complete(CreateServiceInstanceRequest request,
+							CreateServiceInstanceResponse response) {
+						return Mono.fromRunnable(() -> completed.add(request.getServiceInstanceId()));
+					}
+				}), null);
+		EventFlowRegistries registries = new EventFlowRegistries(registry, null, null, null, null, null, null);
+
+		try (ServiceBrokerEventOutbox outbox = outbox(new EventFlowOutboxConsumer(registries));
+				ServiceBrokerEventStream stream = new ServiceBrokerEventStream()) {
+			stream.setOutbox(outbox);
+			assertThat(outbox.isRunningEventFlows()).isTrue();
+
+			stream.observe(Type.CREATE_SERVICE_INSTANCE,
+					CreateServiceInstanceRequest.builder().serviceInstanceId("a").build(),
+					Mono.just(CreateServiceInstanceResponse.builder().build()), registry).block();
+
+			assertThat(outbox.getAppendedCount()).isEqualTo(1);
+			assertThat(completed).isEmpty();
+		}
+
+		try (ServiceBrokerEventOutbox outbox = outbox(new EventFlowOutboxConsumer(registries))) {
+			outbox.commitAndDeliver();
+
+			assertThat(completed).containsExactly("a");
+			assertThat(outbox.getPendingCount()).isZero();
+		}
+	}
+
+	@Test
+	void codecRoundTripsIdentifyingFields() {
+		CreateServiceInstanceBindingRequest request = CreateServiceInstanceBindingRequest.builder()
+				.serviceInstanceId("instance")
+				.bindingId("binding")
+				.serviceDefinitionId("service")
+				.planId("plan")
+				.platformInstanceId("platform")
+				.originatingIdentity(PlatformContext.builder().platform("cloudfoundry").property("user_id", "u")
+						.build())
+				.build();
+		CreateServiceInstanceAppBindingResponse response = CreateServiceInstanceAppBindingResponse.builder()
+				.async(true)
+				.operation("op")
+				.build();
+		ServiceBrokerEvent event = new ServiceBrokerEvent(Type.CREATE_SERVICE_INSTANCE_BINDING, request, response,
+				new ServiceBrokerException("failed"), Instant.ofEpochMilli(1000));
+
+		ServiceBrokerEvent decoded = this.codec.decode(this.codec.encode(event));
+
+		assertThat(decoded.getType()).isEqualTo(Type.CREATE_SERVICE_INSTANCE_BINDING);
+		assertThat(decoded.getTimestamp()).isEqualTo(event.getTimestamp());
+		assertThat(decoded.getError()).hasMessageContaining("failed");
+		CreateServiceInstanceBindingRequest decodedRequest = (CreateServiceInstanceBindingRequest) decoded
+				.getRequest();
+		assertThat(decodedRequest.getServiceInstanceId()).isEqualTo("instance");
+		assertThat(decodedRequest.getBindingId()).isEqualTo("binding");
+		assertThat(decodedRequest.getServiceDefinitionId()).isEqualTo("service");
+		assertThat(decodedRequest.getPlanId()).isEqualTo("plan");
+		assertThat(decodedRequest.getPlatformInstanceId()).isEqualTo("platform");
+		assertThat(decodedRequest.getOriginatingIdentity().getPlatform()).isEqualTo("cloudfoundry");
+		assertThat(decodedRequest.getOriginatingIdentity().getProperty("user_id")).isEqualTo("u");
+		CreateServiceInstanceAppBindingResponse decodedResponse = (CreateServiceInstanceAppBindingResponse) decoded
+				.getResponse();
+		assertThat(decodedResponse.isAsync()).isTrue();
+		assertThat(decodedResponse.getOperation()).isEqualTo("op");
+	}
+
+	private ServiceBrokerEventOutbox outbox(ServiceBrokerEventBatchConsumer consumer) {
+		return new ServiceBrokerEventOutbox(new EventOutboxLog(this.directory, SEGMENT_SIZE), this.codec,
+				Collections.singletonList(consumer), ServiceBrokerEventStream.DEFAULT_BATCH_SIZE, COMMIT_INTERVAL,
+				Duration.ZERO);
+	}
+
+	private ServiceBrokerEventBatchConsumer recordingConsumer() {
+		return events -> Mono.fromRunnable(() -> this.received.addAll(events));
+	}
+
+	private static ServiceBrokerEvent event(Type type, String serviceInstanceId) {
+		return new ServiceBrokerEvent(type,
+				CreateServiceInstanceRequest.builder().serviceInstanceId(serviceInstanceId).build(),
+				CreateServiceInstanceResponse.builder().build(), null, Instant.now());
+	}
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.events;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.CreateServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceRequest;
+import org.springframework.cloud.servicebroker.model.instance.DeleteServiceInstanceResponse;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationRequest;
+import org.springframework.cloud.servicebroker.model.instance.GetLastServiceOperationResponse;
+import org.springframework.cloud.servicebroker.model.instance.OperationState;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEvent.Type;
+import org.springframework.cloud.servicebroker.service.events.ServiceBrokerEventStream.BackpressureStrategy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ServiceBrokerEventStreamTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+	private final Sinks.Many<List<ServiceBrokerEvent>> batches = Sinks.many().replay().all();
+
+	private ServiceBrokerEventStream stream = new ServiceBrokerEventStream();
+
+	@AfterEach
+	void tearDown() {
+		this.stream.close();
+	}
+
+	@Test
+	void outcomesArePublishedToSubscribers() {
+		CreateServiceInstanceRequest request = CreateServiceInstanceRequest.builder().serviceInstanceId("a").build();
+		CreateServiceInstanceResponse response = CreateServiceInstanceResponse.builder().build();
+		IllegalStateException error = new IllegalStateException("failed");
+
+		StepVerifier.create(stream.events().take(2))
+				.then(() -> {
+					stream.observe(Type.CREATE_SERVICE_INSTANCE, request, Mono.just(response)).block();
+					stream.observe(Type.DELETE_SERVICE_INSTANCE, DeleteServiceInstanceRequest.builder().build(),
+							Mono.<DeleteServiceInstanceResponse>error(error))
+							.onErrorResume(e -> Mono.empty())
+							.block();
+				})
+				.assertNext(event -> {
+					assertThat(event.getType()).isEqualTo(Type.CREATE_SERVICE_INSTANCE);
+					assertThat(event.getRequest()).isSameAs(request);
+					assertThat(event.getResponse()).isSameAs(response);
+					assertThat(event.isSuccessful()).isTrue();
+					assertThat(event.getTimestamp()).isNotNull();
+				})
+				.assertNext(event -> {
+					assertThat(event.getType()).isEqualTo(Type.DELETE_SERVICE_INSTANCE);
+					assertThat(event.getError()).isSameAs(error);
+					assertThat(event.isSuccessful()).isFalse();
+				})
+				.verifyComplete();
+
+		assertThat(stream.getPublishedCount()).isEqualTo(2);
+	}
+
+	@Test
+	void lastOperationIsPublishedOnceNoLongerInProgress() {
+		GetLastServiceOperationRequest request = GetLastServiceOperationRequest.builder().build();
+
+		StepVerifier.create(stream.events().take(1))
+				.then(() -> {
+					stream.observe(Type.SERVICE_INSTANCE_LAST_OPERATION, request, Mono.just(
+							GetLastServiceOperationResponse.builder().operationState(OperationState.IN_PROGRESS)
+									.build())).block();
+					stream.observe(Type.SERVICE_INSTANCE_LAST_OPERATION, request, Mono.just(
+							GetLastServiceOperationResponse.builder().operationState(OperationState.SUCCEEDED)
+									.build())).block();
+				})
+				.assertNext(event -> assertThat(((GetLastServiceOperationResponse) event.getResponse()).getState())
+						.isEqualTo(OperationState.SUCCEEDED))
+				.verifyComplete();
+	}
+
+	@Test
+	void nothingIsPublishedWithoutSubscribers() {
+		stream.observe(Type.CREATE_SERVICE_INSTANCE, CreateServiceInstanceRequest.builder().build(),
+				Mono.just(CreateServiceInstanceResponse.builder().build())).block();
+
+		assertThat(stream.hasSubscribers()).isFalse();
+		assertThat(stream.getPublishedCount()).isZero();
+	}
+
+	@Test
+	void slowSubscriberDropsOldestEvents() {
+		stream = new ServiceBrokerEventStream(2, BackpressureStrategy.DROP_OLDEST);
+
+		StepVerifier.create(stream.events(), 0)
+				.then(() -> {
+					publish("a");
+					publish("b");
+					publish("c");
+				})
+				.thenRequest(2)
+				.assertNext(event -> assertThat(instanceId(event)).isEqualTo("b"))
+				.assertNext(event -> assertThat(instanceId(event)).isEqualTo("c"))
+				.thenCancel()
+				.verify(TIMEOUT);
+
+		assertThat(stream.getDroppedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void batchesAreBoundedBySize() {
+		stream.subscribe(this::collect, 2, Duration.ofMinutes(1));
+
+		publish("a");
+		publish("b");
+		publish("c");
+		publish("d");
+		publish("e");
+
+		StepVerifier.create(batches.asFlux())
+				.assertNext(batch -> assertThat(batch).extracting(this::instanceId).containsExactly("a", "b"))
+				.assertNext(batch -> assertThat(batch).extracting(this::instanceId).containsExactly("c", "d"))
+				.thenCancel()
+				.verify(TIMEOUT);
+
+		assertThat(stream.getBatchCount()).isEqualTo(2);
+	}
+
+	@Test
+	void batchesAreBoundedByTime() {
+		stream.subscribe(this::collect, 100, Duration.ofMillis(50));
+
+		publish("a");
+
+		StepVerifier.create(batches.asFlux())
+				.assertNext(batch -> assertThat(batch).extracting(this::instanceId).containsExactly("a"))
+				.thenCancel()
+				.verify(TIMEOUT);
+	}
+
+	@Test
+	void failedBatchIsCountedAndSkipped() {
+		stream.subscribe(events -> "a".equals(instanceId(events.get(0)))
+				? Mono.error(new IllegalStateException("failed"))
+				: collect(events), 1, Duration.ofMinutes(1));
+
+		publish("a");
+		publish("b");
+
+		StepVerifier.create(batches.asFlux())
+				.assertNext(batch -> assertThat(batch).extracting(this::instanceId).containsExactly("b"))
+				.thenCancel()
+				.verify(TIMEOUT);
+
+		assertThat(stream.getBatchFailureCount()).isEqualTo(1);
+		assertThat(stream.getBatchCount()).isEqualTo(1);
+	}
+
+	private void publish(String serviceInstanceId) {
+		stream.observe(Type.CREATE_SERVICE_INSTANCE,
+				CreateServiceInstanceRequest.builder().serviceInstanceId(serviceInstanceId).build(),
+				Mono.just(CreateServiceInstanceResponse.builder().build())).block();
+	}
+
+	private Mono<Void> collect(List<ServiceBrokerEvent> events) {
+		batches.tryEmitNext(events);
+		return Mono.empty();
+	}
+
+	private String instanceId(ServiceBrokerEvent event) {
+		return ((CreateServiceInstanceRequest) event.getRequest()).getServiceInstanceId();
+	}
+
+}
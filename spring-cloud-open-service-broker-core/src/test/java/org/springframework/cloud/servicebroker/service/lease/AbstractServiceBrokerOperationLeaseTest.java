@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+abstract class AbstractServiceBrokerOperationLeaseTest {
+
+	private static final Duration TIME_TO_LIVE = Duration.ofSeconds(30);
+
+	private final MutableClock clock = new MutableClock();
+
+	/**
+	 * Create a lease store backed by the shared storage of the test, as a replica of the service broker would
+	 *
+	 * @param clock the clock of the replica
+	 * @return the lease store
+	 */
+	protected abstract ServiceBrokerOperationLease createLease(Clock clock);
+
+	@Test
+	void heldLeaseIsNotAcquiredByAnotherReplica() {
+		ServiceBrokerOperationLease replica1 = createLease(this.clock);
+		ServiceBrokerOperationLease replica2 = createLease(this.clock);
+
+		Lease lease = replica1.acquire("instance", null, TIME_TO_LIVE).block();
+
+		assertThat(lease).isNotNull();
+		assertThat(lease.getExpiresAt()).isEqualTo(this.clock.instant().plus(TIME_TO_LIVE));
+		assertThat(replica2.acquire("instance", null, TIME_TO_LIVE).blockOptional()).isEmpty();
+		assertThat(replica1.acquire("instance", null, TIME_TO_LIVE).blockOptional()).isEmpty();
+	}
+
+	@Test
+	void leasesOfDifferentResourcesAreIndependent() {
+		ServiceBrokerOperationLease store = createLease(this.clock);
+
+		assertThat(store.acquire("instance", null, TIME_TO_LIVE).blockOptional()).isPresent();
+		assertThat(store.acquire("instance", "binding-1", TIME_TO_LIVE).blockOptional()).isPresent();
+		assertThat(store.acquire("instance", "binding-2", TIME_TO_LIVE).blockOptional()).isPresent();
+		assertThat(store.acquire("other-instance", null, TIME_TO_LIVE).blockOptional()).isPresent();
+	}
+
+	@Test
+	void releasedLeaseIsAcquiredAgain() {
+		ServiceBrokerOperationLease replica1 = createLease(this.clock);
+		ServiceBrokerOperationLease replica2 = createLease(this.clock);
+		Lease lease = replica1.acquire("instance", "binding", TIME_TO_LIVE).block();
+
+		replica1.release(lease).block();
+
+		assertThat(replica2.acquire("instance", "binding", TIME_TO_LIVE).blockOptional()).isPresent();
+	}
+
+	@Test
+	void expiredLeaseIsTakenOverAndCannotBeRenewedOrReleasedByItsFormerOwner() {
+		ServiceBrokerOperationLease replica1 = createLease(this.clock);
+		ServiceBrokerOperationLease replica2 = createLease(this.clock);
+		Lease expired = replica1.acquire("instance", null, TIME_TO_LIVE).block();
+
+		this.clock.advance(TIME_TO_LIVE);
+		Lease lease = replica2.acquire("instance", null, TIME_TO_LIVE).block();
+
+		assertThat(lease).isNotNull();
+		assertThat(replica1.renew(expired, TIME_TO_LIVE).blockOptional()).isEmpty();
+		replica1.release(expired).block();
+		assertThat(replica1.acquire("instance", null, TIME_TO_LIVE).blockOptional()).isEmpty();
+	}
+
+	@Test
+	void renewedLeaseIsNotTakenOver() {
+		ServiceBrokerOperationLease replica1 = createLease(this.clock);
+		ServiceBrokerOperationLease replica2 = createLease(this.clock);
+		Lease lease = replica1.acquire("instance", null, TIME_TO_LIVE).block();
+
+		this.clock.advance(TIME_TO_LIVE.dividedBy(2));
+		Lease renewed = replica1.renew(lease, TIME_TO_LIVE).block();
+		this.clock.advance(TIME_TO_LIVE.dividedBy(2));
+
+		assertThat(renewed).isNotNull();
+		assertThat(renewed.getOwner()).isEqualTo(lease.getOwner());
+		assertThat(renewed.getExpiresAt()).isEqualTo(this.clock.instant().plus(TIME_TO_LIVE.dividedBy(2)));
+		assertThat(replica2.acquire("instance", null, TIME_TO_LIVE).blockOptional()).isEmpty();
+	}
+
+	private static final class MutableClock extends Clock {
+
+		private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+		void advance(Duration duration) {
+			this.now = this.now.plus(duration);
+		}
+
+		@Override
+		public ZoneId getZone() {
+			return ZoneOffset.UTC;
+		}
+
+		@Override
+		public Clock withZone(ZoneId zone) {
+			return this;
+		}
+
+		@Override
+		public Instant instant() {
+			return this.now;
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileServiceBrokerOperationLeaseTest extends AbstractServiceBrokerOperationLeaseTest {
+
+	@TempDir
+	Path directory;
+
+	@Override
+	protected ServiceBrokerOperationLease createLease(Clock clock) {
+		return new FileServiceBrokerOperationLease(this.directory.resolve("leases"), clock, Schedulers.immediate());
+	}
+
+	@Test
+	void sweepDeletesReleasedAndExpiredLeaseFiles() throws IOException {
+		Instant now = Instant.parse("2022-01-01T00:00:00Z");
+		FileServiceBrokerOperationLease store = (FileServiceBrokerOperationLease) createLease(
+				Clock.fixed(now, ZoneOffset.UTC));
+		FileServiceBrokerOperationLease later = (FileServiceBrokerOperationLease) createLease(
+				Clock.fixed(now.plus(Duration.ofMinutes(1)), ZoneOffset.UTC));
+		Lease released = store.acquire("released", null, Duration.ofMinutes(5)).block();
+		store.release(released).block();
+		store.acquire("expired", null, Duration.ofSeconds(30)).block();
+		store.acquire("held", null, Duration.ofMinutes(5)).block();
+
+		assertThat(later.sweep().block()).isEqualTo(2);
+		assertThat(leaseFileCount()).isEqualTo(1);
+		assertThat(later.acquire("held", null, Duration.ofMinutes(5)).block()).isNull();
+		assertThat(later.acquire("released", null, Duration.ofMinutes(5)).block()).isNotNull();
+		assertThat(leaseFileCount()).isEqualTo(2);
+	}
+
+	private long leaseFileCount() throws IOException {
+		try (Stream<Path> files = Files.list(this.directory.resolve("leases"))) {
+			return files.count();
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.util.UUID;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import reactor.core.scheduler.Schedulers;
+
+class JdbcServiceBrokerOperationLeaseTest extends AbstractServiceBrokerOperationLeaseTest {
+
+	private final JdbcDataSource dataSource = new JdbcDataSource();
+
+	@BeforeEach
+	void createTable() throws SQLException {
+		this.dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+		try (Connection connection = this.dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE service_broker_operation_lease (" +
+					"lease_key VARCHAR(255) NOT NULL PRIMARY KEY, " +
+					"lease_owner VARCHAR(36) NOT NULL, " +
+					"expires_at BIGINT NOT NULL)");
+		}
+	}
+
+	@Override
+	protected ServiceBrokerOperationLease createLease(Clock clock) {
+		return new JdbcServiceBrokerOperationLease(this.dataSource,
+				JdbcServiceBrokerOperationLease.DEFAULT_TABLE_NAME, clock, Schedulers.immediate());
+	}
+
+}
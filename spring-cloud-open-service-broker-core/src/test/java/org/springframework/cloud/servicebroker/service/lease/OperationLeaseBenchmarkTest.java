@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the cost of acquiring and releasing leases from the {@link ServiceBrokerOperationLease} implementations
+ * while concurrent operations contend for a small number of service instances. Run with
+ * {@literal OSB_BENCHMARK=true}. The results are published to the test report.
+ */
+@EnabledIfEnvironmentVariable(named = "OSB_BENCHMARK", matches = "true")
+class OperationLeaseBenchmarkTest {
+
+	private static final int OPERATIONS = 20_000;
+
+	private static final int CONCURRENCY = 32;
+
+	private static final int INSTANCES = 8;
+
+	private static final Duration TIME_TO_LIVE = Duration.ofSeconds(30);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void fileLeaseUnderContention(TestReporter reporter) {
+		run(new FileServiceBrokerOperationLease(this.directory), "file", reporter);
+	}
+
+	@Test
+	void jdbcLeaseUnderContention(TestReporter reporter) throws SQLException {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:lease-benchmark;DB_CLOSE_DELAY=-1");
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE service_broker_operation_lease (" +
+					"lease_key VARCHAR(255) NOT NULL PRIMARY KEY, " +
+					"lease_owner VARCHAR(36) NOT NULL, " +
+					"expires_at BIGINT NOT NULL)");
+		}
+		run(new JdbcServiceBrokerOperationLease(dataSource), "jdbc", reporter);
+	}
+
+	private static void run(ServiceBrokerOperationLease store, String name, TestReporter reporter) {
+		long start = System.nanoTime();
+		Long acquired = Flux.range(0, OPERATIONS)
+				.flatMap(i -> acquireAndRelease(store, "instance-" + i % INSTANCES), CONCURRENCY)
+				.reduce(0L, Long::sum)
+				.block();
+		long elapsed = System.nanoTime() - start;
+
+		reporter.publishEntry(name + ".operations", String.valueOf(OPERATIONS));
+		reporter.publishEntry(name + ".operationsPerSecond",
+				String.valueOf(OPERATIONS * TimeUnit.SECONDS.toNanos(1) / elapsed));
+		reporter.publishEntry(name + ".acquired", String.valueOf(acquired));
+		reporter.publishEntry(name + ".rejected", String.valueOf(OPERATIONS - acquired));
+		assertThat(acquired).isPositive();
+	}
+
+	private static Mono<Long> acquireAndRelease(ServiceBrokerOperationLease store, String serviceInstanceId) {
+		return store.acquire(serviceInstanceId, null, TIME_TO_LIVE)
+				.flatMap(lease -> store.release(lease).thenReturn(1L))
+				.defaultIfEmpty(0L);
+	}
+
+}
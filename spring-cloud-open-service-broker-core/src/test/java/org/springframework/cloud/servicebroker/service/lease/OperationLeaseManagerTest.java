@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2022 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.servicebroker.service.lease;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import reactor.test.scheduler.VirtualTimeScheduler;
+
+import org.springframework.cloud.servicebroker.exception.ServiceBrokerConcurrencyException;
+import org.springframework.cloud.servicebroker.service.OperationHold;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OperationLeaseManagerTest {
+
+	private static final Duration TIME_TO_LIVE = Duration.ofSeconds(30);
+
+	private static final Duration RENEW_INTERVAL = Duration.ofSeconds(10);
+
+	private final ServiceBrokerOperationLease store = mock(ServiceBrokerOperationLease.class);
+
+	private final VirtualTimeScheduler timer = VirtualTimeScheduler.create();
+
+	private final OperationLeaseManager manager = new OperationLeaseManager(this.store, TIME_TO_LIVE, RENEW_INTERVAL,
+			this.timer);
+
+	private final Lease lease = new Lease("instance", null, "owner", Instant.parse("2022-01-01T00:00:30Z"));
+
+	@Test
+	void operationIsRejectedWithoutBeingCalledWhileAnotherOperationHoldsTheLease() {
+		given(this.store.acquire(eq("instance"), isNull(), eq(TIME_TO_LIVE))).willReturn(Mono.empty());
+		AtomicInteger calls = new AtomicInteger();
+
+		StepVerifier.create(this.manager.withLease("instance", null, () -> {
+					calls.incrementAndGet();
+					return Mono.just("response");
+				}))
+				.expectError(ServiceBrokerConcurrencyException.class)
+				.verify();
+
+		assertThat(calls).hasValue(0);
+		assertThat(this.manager.getRejectedCount()).isEqualTo(1);
+		verify(this.store, never()).release(any(Lease.class));
+	}
+
+	@Test
+	void leaseIsRenewedWhileTheOperationRunsAndReleasedWhenItCompletes() {
+		given(this.store.acquire(eq("instance"), isNull(), eq(TIME_TO_LIVE))).willReturn(Mono.just(this.lease));
+		given(this.store.renew(this.lease, TIME_TO_LIVE)).willReturn(Mono.just(this.lease));
+		given(this.store.release(this.lease)).willReturn(Mono.empty());
+		Sinks.One<String> operation = Sinks.one();
+
+		StepVerifier.create(this.manager.withLease("instance", null, operation::asMono))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofSeconds(25)))
+				.then(() -> operation.tryEmitValue("response"))
+				.expectNext("response")
+				.verifyComplete();
+		this.timer.advanceTimeBy(TIME_TO_LIVE);
+
+		verify(this.store, times(2)).renew(this.lease, TIME_TO_LIVE);
+		verify(this.store).release(this.lease);
+		assertThat(this.manager.getAcquiredCount()).isEqualTo(1);
+		assertThat(this.manager.getRenewedCount()).isEqualTo(2);
+		assertThat(this.manager.getLostCount()).isZero();
+	}
+
+	@Test
+	void leaseIsHeldUntilAnOperationThatContinuesInTheBackgroundCompletes() {
+		given(this.store.acquire(eq("instance"), isNull(), eq(TIME_TO_LIVE))).willReturn(Mono.just(this.lease));
+		given(this.store.renew(this.lease, TIME_TO_LIVE)).willReturn(Mono.just(this.lease));
+		given(this.store.release(this.lease)).willReturn(Mono.empty());
+		AtomicReference<List<OperationHold>> background = new AtomicReference<>();
+
+		StepVerifier.create(this.manager.withLease("instance", null, () -> Mono.deferContextual(context -> {
+					background.set(OperationHold.retainAll(context));
+					return Mono.just("promoted");
+				})))
+				.expectNext("promoted")
+				.verifyComplete();
+		this.timer.advanceTimeBy(Duration.ofSeconds(15));
+
+		verify(this.store, never()).release(any(Lease.class));
+		verify(this.store).renew(this.lease, TIME_TO_LIVE);
+
+		OperationHold.releaseAll(background.get());
+
+		verify(this.store).release(this.lease);
+	}
+
+	@Test
+	void leaseIsReleasedWhenTheOperationFails() {
+		given(this.store.acquire(eq("instance"), eq("binding"), eq(TIME_TO_LIVE))).willReturn(Mono.just(this.lease));
+		given(this.store.release(this.lease)).willReturn(Mono.empty());
+
+		StepVerifier.create(this.manager.withLease("instance", "binding",
+						() -> Mono.error(new IllegalStateException("failed"))))
+				.expectError(IllegalStateException.class)
+				.verify();
+
+		verify(this.store).release(this.lease);
+	}
+
+	@Test
+	void lostLeaseIsNoLongerRenewed() {
+		given(this.store.acquire(eq("instance"), isNull(), eq(TIME_TO_LIVE))).willReturn(Mono.just(this.lease));
+		given(this.store.renew(this.lease, TIME_TO_LIVE)).willReturn(Mono.empty());
+		given(this.store.release(this.lease)).willReturn(Mono.empty());
+		Sinks.One<String> operation = Sinks.one();
+
+		StepVerifier.create(this.manager.withLease("instance", null, operation::asMono))
+				.then(() -> this.timer.advanceTimeBy(Duration.ofSeconds(35)))
+				.then(() -> operation.tryEmitValue("response"))
+				.expectNext("response")
+				.verifyComplete();
+
+		verify(this.store, times(1)).renew(this.lease, TIME_TO_LIVE);
+		assertThat(this.manager.getLostCount()).isEqualTo(1);
+	}
+
+}